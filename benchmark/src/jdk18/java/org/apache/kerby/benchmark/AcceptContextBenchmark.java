@@ -0,0 +1,192 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadmin;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.gss.KerbyGssProvider;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssUtil;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcServer;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+import org.ietf.jgss.Oid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KeyTab;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contexts accepted per second by the Kerby GSS provider, the service key
+ * being found in a keytab. Every context comes with a fresh initiator token,
+ * the acceptor credential is either shared by the contexts or looked up in
+ * the service subject for each of them, as servers passing a null
+ * credential do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AcceptContextBenchmark {
+    private static final String REALM = "EXAMPLE.COM";
+    private static final String CLIENT_PRINCIPAL = "client@" + REALM;
+    private static final String SERVER_PRINCIPAL = "HTTP/localhost@" + REALM;
+    private static final String PASSWORD = "123456";
+
+    @State(Scope.Benchmark)
+    public static class Gss {
+        @Param({"shared", "perContext"})
+        private String acceptorCredential;
+
+        private KdcServer kdcServer;
+        private File keytabFile;
+        private Subject clientSubject;
+        private Subject serviceSubject;
+        private GSSManager manager;
+        private GSSName serverName;
+        private Oid krb5Mech;
+        private GSSCredential serverCredential;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            Security.insertProviderAt(new KerbyGssProvider(), 1);
+
+            int port = NetworkUtil.getServerPort();
+            kdcServer = new KdcServer(new KdcConfig(), new BackendConfig());
+            kdcServer.setKdcRealm(REALM);
+            kdcServer.setKdcHost("localhost");
+            kdcServer.setKdcTcpPort(port);
+            kdcServer.setAllowUdp(false);
+            kdcServer.init();
+
+            LocalKadmin kadmin = new LocalKadminImpl(kdcServer.getKdcSetting(),
+                kdcServer.getIdentityService());
+            kadmin.createBuiltinPrincipals();
+            kadmin.addPrincipal(CLIENT_PRINCIPAL, PASSWORD);
+            kadmin.addPrincipal(SERVER_PRINCIPAL);
+            keytabFile = File.createTempFile("benchmark", ".keytab");
+            Files.delete(keytabFile.toPath());
+            kadmin.exportKeytab(keytabFile, SERVER_PRINCIPAL);
+            kdcServer.start();
+
+            KrbClient krbClient = new KrbClient(new KrbConfig());
+            krbClient.setKdcRealm(REALM);
+            krbClient.setKdcHost("localhost");
+            krbClient.setKdcTcpPort(port);
+            krbClient.setAllowUdp(false);
+            krbClient.init();
+            TgtTicket tgt = krbClient.requestTgt(CLIENT_PRINCIPAL, PASSWORD);
+            SgtTicket sgt = krbClient.requestSgt(tgt, SERVER_PRINCIPAL);
+
+            // The initiator finds the service ticket in its subject, no KDC round trip
+            clientSubject = new Subject();
+            clientSubject.getPrincipals().add(new KerberosPrincipal(CLIENT_PRINCIPAL));
+            clientSubject.getPrivateCredentials().add(
+                GssUtil.convertKrbTicketToKerberosTicket(tgt, CLIENT_PRINCIPAL));
+            clientSubject.getPrivateCredentials().add(
+                GssUtil.convertKrbTicketToKerberosTicket(sgt, CLIENT_PRINCIPAL));
+
+            KerberosPrincipal servicePrincipal = new KerberosPrincipal(SERVER_PRINCIPAL);
+            serviceSubject = new Subject();
+            serviceSubject.getPrincipals().add(servicePrincipal);
+            serviceSubject.getPrivateCredentials().add(KeyTab.getInstance(servicePrincipal, keytabFile));
+
+            manager = GSSManager.getInstance();
+            krb5Mech = new Oid("1.2.840.113554.1.2.2");
+            serverName = manager.createName(SERVER_PRINCIPAL, GSSName.NT_USER_NAME);
+            if ("shared".equals(acceptorCredential)) {
+                serverCredential = Subject.doAs(serviceSubject,
+                    new PrivilegedExceptionAction<GSSCredential>() {
+                        @Override
+                        public GSSCredential run() throws GSSException {
+                            return manager.createCredential(serverName, GSSCredential.INDEFINITE_LIFETIME,
+                                krb5Mech, GSSCredential.ACCEPT_ONLY);
+                        }
+                    });
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws KrbException, IOException {
+            kdcServer.stop();
+            Files.deleteIfExists(keytabFile.toPath());
+        }
+    }
+
+    @Benchmark
+    public byte[] acceptContext(final Gss gss) throws PrivilegedActionException {
+        final byte[] token = Subject.doAs(gss.clientSubject, new PrivilegedExceptionAction<byte[]>() {
+            @Override
+            public byte[] run() throws GSSException {
+                GSSContext context = gss.manager.createContext(gss.serverName, gss.krb5Mech,
+                    null, GSSContext.DEFAULT_LIFETIME);
+                try {
+                    context.requestMutualAuth(true);
+                    return context.initSecContext(new byte[0], 0, 0);
+                } finally {
+                    context.dispose();
+                }
+            }
+        });
+
+        return Subject.doAs(gss.serviceSubject, new PrivilegedExceptionAction<byte[]>() {
+            @Override
+            public byte[] run() throws GSSException {
+                GSSContext context = gss.manager.createContext(gss.serverCredential);
+                try {
+                    return context.acceptSecContext(token, 0, token.length);
+                } finally {
+                    context.dispose();
+                }
+            }
+        });
+    }
+}
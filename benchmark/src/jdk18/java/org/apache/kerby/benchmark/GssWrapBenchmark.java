@@ -0,0 +1,222 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadmin;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.client.KrbConfigKey;
+import org.apache.kerby.kerberos.kerb.gss.GssMechFactory;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssContext;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssNameElement;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssUtil;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfigKey;
+import org.apache.kerby.kerberos.kerb.server.KdcServer;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSName;
+import org.ietf.jgss.MessageProp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.security.jgss.GSSCaller;
+import sun.security.jgss.spi.GSSCredentialSpi;
+
+import javax.security.auth.Subject;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KeyTab;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sealed wrap tokens per second of the Kerby GSS provider with an aes256
+ * session key, through the byte array methods and through the buffer ones
+ * encrypting the message in place in the token buffer. The round trips
+ * unwrap the token on the peer context, the byte array way or in place.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GssWrapBenchmark {
+    private static final String REALM = "EXAMPLE.COM";
+    private static final String CLIENT_PRINCIPAL = "client@" + REALM;
+    private static final String SERVER_PRINCIPAL = "HTTP/localhost@" + REALM;
+    private static final String PASSWORD = "123456";
+    private static final String ENCTYPE = "aes256-cts-hmac-sha1-96";
+
+    @State(Scope.Benchmark)
+    public static class Gss {
+        @Param({"1024", "65536", "1048576"})
+        private int size;
+
+        private KdcServer kdcServer;
+        private File keytabFile;
+        private GssContext initiator;
+        private GssContext acceptor;
+
+        private byte[] message;
+        private ByteBuffer messageBuffer;
+        private ByteBuffer tokenBuffer;
+        private ByteBuffer outBuffer;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            int port = NetworkUtil.getServerPort();
+            KdcConfig kdcConfig = new KdcConfig();
+            kdcConfig.setString(KdcConfigKey.ENCRYPTION_TYPES, ENCTYPE);
+            kdcServer = new KdcServer(kdcConfig, new BackendConfig());
+            kdcServer.setKdcRealm(REALM);
+            kdcServer.setKdcHost("localhost");
+            kdcServer.setKdcTcpPort(port);
+            kdcServer.setAllowUdp(false);
+            kdcServer.init();
+
+            LocalKadmin kadmin = new LocalKadminImpl(kdcServer.getKdcSetting(),
+                kdcServer.getIdentityService());
+            kadmin.createBuiltinPrincipals();
+            kadmin.addPrincipal(CLIENT_PRINCIPAL, PASSWORD);
+            kadmin.addPrincipal(SERVER_PRINCIPAL);
+            keytabFile = File.createTempFile("benchmark", ".keytab");
+            Files.delete(keytabFile.toPath());
+            kadmin.exportKeytab(keytabFile, SERVER_PRINCIPAL);
+            kdcServer.start();
+
+            KrbConfig krbConfig = new KrbConfig();
+            krbConfig.setString(KrbConfigKey.PERMITTED_ENCTYPES, ENCTYPE);
+            KrbClient krbClient = new KrbClient(krbConfig);
+            krbClient.setKdcRealm(REALM);
+            krbClient.setKdcHost("localhost");
+            krbClient.setKdcTcpPort(port);
+            krbClient.setAllowUdp(false);
+            krbClient.init();
+            TgtTicket tgt = krbClient.requestTgt(CLIENT_PRINCIPAL, PASSWORD);
+            SgtTicket sgt = krbClient.requestSgt(tgt, SERVER_PRINCIPAL);
+            if (sgt.getSessionKey().getKeyType() != EncryptionType.AES256_CTS_HMAC_SHA1_96) {
+                throw new IllegalStateException("Unexpected session key type "
+                    + sgt.getSessionKey().getKeyType());
+            }
+
+            Subject clientSubject = new Subject();
+            clientSubject.getPrincipals().add(new KerberosPrincipal(CLIENT_PRINCIPAL));
+            clientSubject.getPrivateCredentials().add(
+                GssUtil.convertKrbTicketToKerberosTicket(tgt, CLIENT_PRINCIPAL));
+            clientSubject.getPrivateCredentials().add(
+                GssUtil.convertKrbTicketToKerberosTicket(sgt, CLIENT_PRINCIPAL));
+
+            KerberosPrincipal servicePrincipal = new KerberosPrincipal(SERVER_PRINCIPAL);
+            Subject serviceSubject = new Subject();
+            serviceSubject.getPrincipals().add(servicePrincipal);
+            serviceSubject.getPrivateCredentials().add(KeyTab.getInstance(servicePrincipal, keytabFile));
+
+            establishContexts(clientSubject, serviceSubject);
+
+            message = new byte[size];
+            ThreadLocalRandom.current().nextBytes(message);
+            messageBuffer = ByteBuffer.wrap(message);
+            tokenBuffer = ByteBuffer.allocate(initiator.getWrapTokenSize(size, true));
+            outBuffer = ByteBuffer.allocate(size);
+        }
+
+        private void establishContexts(Subject clientSubject, Subject serviceSubject) throws Exception {
+            final byte[] apReq = Subject.doAs(clientSubject, new PrivilegedExceptionAction<byte[]>() {
+                @Override
+                public byte[] run() throws GSSException {
+                    GssNameElement serverName = GssNameElement.getInstance(SERVER_PRINCIPAL,
+                        GSSName.NT_USER_NAME);
+                    initiator = (GssContext) new GssMechFactory(GSSCaller.CALLER_INITIATE)
+                        .getMechanismContext(serverName, null, GSSContext.DEFAULT_LIFETIME);
+                    initiator.requestMutualAuth(true);
+                    initiator.requestConf(true);
+                    return initiator.initSecContext(new ByteArrayInputStream(new byte[0]), 0);
+                }
+            });
+
+            byte[] apRep = Subject.doAs(serviceSubject, new PrivilegedExceptionAction<byte[]>() {
+                @Override
+                public byte[] run() throws GSSException {
+                    acceptor = (GssContext) new GssMechFactory(GSSCaller.CALLER_ACCEPT)
+                        .getMechanismContext((GSSCredentialSpi) null);
+                    return acceptor.acceptSecContext(new ByteArrayInputStream(apReq), apReq.length);
+                }
+            });
+            initiator.initSecContext(new ByteArrayInputStream(apRep), apRep.length);
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws KrbException, IOException {
+            kdcServer.stop();
+            Files.deleteIfExists(keytabFile.toPath());
+        }
+    }
+
+    @Benchmark
+    public byte[] wrapBytes(Gss gss) throws GSSException {
+        return gss.initiator.wrap(gss.message, 0, gss.size, new MessageProp(0, true));
+    }
+
+    @Benchmark
+    public int wrapBuffer(Gss gss) throws GSSException {
+        gss.messageBuffer.clear();
+        gss.tokenBuffer.clear();
+        return gss.initiator.wrap(gss.messageBuffer, gss.tokenBuffer, new MessageProp(0, true));
+    }
+
+    @Benchmark
+    public byte[] roundTripBytes(Gss gss) throws GSSException {
+        byte[] token = gss.initiator.wrap(gss.message, 0, gss.size, new MessageProp(0, true));
+        return gss.acceptor.unwrap(token, 0, token.length, new MessageProp(0, true));
+    }
+
+    @Benchmark
+    public int roundTripBuffer(Gss gss) throws GSSException {
+        gss.messageBuffer.clear();
+        gss.tokenBuffer.clear();
+        gss.initiator.wrap(gss.messageBuffer, gss.tokenBuffer, new MessageProp(0, true));
+        gss.tokenBuffer.flip();
+        gss.outBuffer.clear();
+        return gss.acceptor.unwrap(gss.tokenBuffer, gss.outBuffer, new MessageProp(0, true));
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kdc.identitybackend.JsonIdentityBackend;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.AuthUtil;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminClient;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminConfig;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminConfigKey;
+import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServer;
+import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerConfig;
+import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerConfigKey;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfigKey;
+import org.apache.kerby.kerberos.kerb.server.SimpleKdcServer;
+import org.apache.kerby.util.NetworkUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.security.auth.Subject;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin operations per second against a local admin server and KDC sharing
+ * a json backend, with a new session per operation, connecting and doing
+ * the SASL GSSAPI handshake each time, and with the session kept.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AdminServerBenchmark {
+    private static final String REALM = "EXAMPLE.COM";
+    private static final String ADMIN_PRINCIPAL = "kadmin/" + REALM + "@" + REALM;
+    private static final String PROTOCOL = "adminprotocol";
+    private static final String PROTOCOL_PRINCIPAL = PROTOCOL + "/localhost@" + REALM;
+    private static final String TARGET_PRINCIPAL = "alice@" + REALM;
+
+    @State(Scope.Benchmark)
+    public static class Servers {
+        private File workDir;
+        private SimpleKdcServer kdcServer;
+        private AdminServer adminServer;
+        private int adminPort;
+        private Subject subject;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            workDir = Files.createTempDirectory("kadmin-benchmark").toFile();
+            BackendConfig backendConfig = new BackendConfig();
+            backendConfig.setString(KdcConfigKey.KDC_IDENTITY_BACKEND,
+                JsonIdentityBackend.class.getName());
+            backendConfig.setString(JsonIdentityBackend.JSON_IDENTITY_BACKEND_DIR,
+                new File(workDir, "json-backend").getAbsolutePath());
+
+            kdcServer = new SimpleKdcServer(new KdcConfig(), backendConfig);
+            kdcServer.setWorkDir(workDir);
+            kdcServer.setKdcRealm(REALM);
+            kdcServer.setAllowUdp(false);
+            kdcServer.init();
+            kdcServer.createPrincipal(PROTOCOL_PRINCIPAL);
+            kdcServer.createPrincipal(TARGET_PRINCIPAL);
+            File protocolKeytab = new File(workDir, "protocol.keytab");
+            File adminKeytab = new File(workDir, "admin.keytab");
+            kdcServer.exportPrincipal(PROTOCOL_PRINCIPAL, protocolKeytab);
+            kdcServer.exportPrincipal(ADMIN_PRINCIPAL, adminKeytab);
+            kdcServer.start();
+
+            adminPort = NetworkUtil.getServerPort();
+            AdminServerConfig adminServerConfig = new AdminServerConfig();
+            adminServerConfig.setString(AdminServerConfigKey.KEYTAB_FILE,
+                protocolKeytab.getAbsolutePath());
+            adminServerConfig.setString(AdminServerConfigKey.PROTOCOL, PROTOCOL);
+            adminServer = new AdminServer(adminServerConfig, backendConfig, new KdcConfig());
+            adminServer.setAdminHost("localhost");
+            adminServer.setAllowTcp(true);
+            adminServer.setAllowUdp(false);
+            adminServer.setAdminServerPort(adminPort);
+            adminServer.init();
+            adminServer.start();
+
+            subject = AuthUtil.loginUsingKeytab(ADMIN_PRINCIPAL, adminKeytab);
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws KrbException {
+            adminServer.stop();
+            kdcServer.stop();
+            delete(workDir);
+        }
+
+        private static void delete(File file) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File child : files) {
+                    delete(child);
+                }
+            }
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        @Param({"false", "true"})
+        private boolean reuseSession;
+
+        private AdminClient adminClient;
+
+        @Setup(Level.Trial)
+        public void setup(Servers servers) throws KrbException {
+            AdminConfig adminConfig = new AdminConfig();
+            adminConfig.setString(AdminConfigKey.PROTOCOL, PROTOCOL);
+            adminClient = new AdminClient(adminConfig);
+            adminClient.setAdminRealm(REALM);
+            adminClient.setAllowUdp(false);
+            adminClient.setAdminTcpPort(servers.adminPort);
+            adminClient.setTimeout(10 * 1000);
+            adminClient.init();
+            adminClient.setSubject(servers.subject);
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() {
+            adminClient.release();
+        }
+    }
+
+    private static KrbIdentity getPrincipal(Client client) throws KrbException {
+        if (!client.reuseSession) {
+            client.adminClient.release();
+        }
+        return client.adminClient.requestGetPrincipal(TARGET_PRINCIPAL);
+    }
+
+    @Benchmark
+    public KrbIdentity getPrincipal(Servers servers, Client client) throws KrbException {
+        return getPrincipal(client);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public KrbIdentity getPrincipalConcurrently(Servers servers, Client client) throws KrbException {
+        return getPrincipal(client);
+    }
+}
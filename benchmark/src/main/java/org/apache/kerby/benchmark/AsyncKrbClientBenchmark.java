@@ -0,0 +1,161 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadmin;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcServer;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time to get service tickets for many servers at once from a local KDC,
+ * with a thread blocking per request as KinitToolWithConcurrence does, and
+ * with the requests in flight together over the non-blocking client network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AsyncKrbClientBenchmark {
+    private static final String REALM = "EXAMPLE.COM";
+    private static final String CLIENT_PRINCIPAL = "client@" + REALM;
+    private static final String PASSWORD = "123456";
+
+    @State(Scope.Benchmark)
+    public static class Kdc {
+        @Param({"16", "128"})
+        private int requests;
+
+        private KdcServer kdcServer;
+        private KrbClient krbClient;
+        private KrbClient[] threadClients;
+        private TgtTicket tgt;
+        private String[] servers;
+
+        @Setup(Level.Trial)
+        public void setup() throws KrbException {
+            int port = NetworkUtil.getServerPort();
+            kdcServer = new KdcServer(new KdcConfig(), new BackendConfig());
+            kdcServer.setKdcRealm(REALM);
+            kdcServer.setKdcHost("localhost");
+            kdcServer.setKdcTcpPort(port);
+            kdcServer.setAllowUdp(false);
+            kdcServer.init();
+
+            LocalKadmin kadmin = new LocalKadminImpl(kdcServer.getKdcSetting(),
+                kdcServer.getIdentityService());
+            kadmin.createBuiltinPrincipals();
+            kadmin.addPrincipal(CLIENT_PRINCIPAL, PASSWORD);
+            servers = new String[requests];
+            for (int i = 0; i < requests; i++) {
+                servers[i] = "service" + i + "/localhost@" + REALM;
+                kadmin.addPrincipal(servers[i], PASSWORD);
+            }
+            kdcServer.start();
+
+            krbClient = makeClient(port);
+            tgt = krbClient.requestTgt(CLIENT_PRINCIPAL, PASSWORD);
+            // The blocking client isn't thread safe, one per thread
+            threadClients = new KrbClient[requests];
+            for (int i = 0; i < requests; i++) {
+                threadClients[i] = makeClient(port);
+            }
+        }
+
+        private static KrbClient makeClient(int port) throws KrbException {
+            KrbClient client = new KrbClient(new KrbConfig());
+            client.setKdcRealm(REALM);
+            client.setKdcHost("localhost");
+            client.setKdcTcpPort(port);
+            client.setAllowUdp(false);
+            client.setTimeout(10 * 1000);
+            client.init();
+            return client;
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws KrbException {
+            kdcServer.stop();
+        }
+    }
+
+    @Benchmark
+    public int threadPerRequest(final Kdc kdc) throws InterruptedException {
+        final AtomicInteger tickets = new AtomicInteger();
+        Thread[] threads = new Thread[kdc.requests];
+        for (int i = 0; i < threads.length; i++) {
+            final KrbClient client = kdc.threadClients[i];
+            final String server = kdc.servers[i];
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        client.requestSgt(kdc.tgt, server);
+                        tickets.incrementAndGet();
+                    } catch (KrbException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return tickets.get();
+    }
+
+    @Benchmark
+    public int async(Kdc kdc) {
+        List<CompletableFuture<SgtTicket>> futures = new ArrayList<>(kdc.requests);
+        for (String server : kdc.servers) {
+            futures.add(kdc.krbClient.requestSgtAsync(kdc.tgt, server));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return futures.size();
+    }
+}
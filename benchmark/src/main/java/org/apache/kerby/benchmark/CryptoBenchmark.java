@@ -0,0 +1,100 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.CheckSumHandler;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSum;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptedData;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryption, decryption and keyed checksum of a ticket sized message with
+ * the {@link EncryptionHandler} and {@link CheckSumHandler} entry points,
+ * as done by the KDC for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CryptoBenchmark {
+
+    @Param({"aes128-cts-hmac-sha1-96", "aes256-cts-hmac-sha1-96",
+        "aes128-cts-hmac-sha256-128", "aes256-cts-hmac-sha384-192",
+        "des3-cbc-sha1-kd", "arcfour-hmac", "camellia128-cts-cmac"})
+    private String encryptionType;
+
+    @Param({"1024"})
+    private int messageSize;
+
+    private EncryptionKey key;
+    private byte[] message;
+    private EncryptedData encrypted;
+
+    @Setup
+    public void setup() throws KrbException {
+        key = EncryptionHandler.random2Key(EncryptionType.fromName(encryptionType));
+        message = new byte[messageSize];
+        ThreadLocalRandom.current().nextBytes(message);
+        encrypted = EncryptionHandler.encrypt(message, key, KeyUsage.KDC_REP_TICKET);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public EncryptedData encrypt() throws KrbException {
+        return EncryptionHandler.encrypt(message, key, KeyUsage.KDC_REP_TICKET);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public byte[] decrypt() throws KrbException {
+        return EncryptionHandler.decrypt(encrypted, key, KeyUsage.KDC_REP_TICKET);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public CheckSum checksum() throws KrbException {
+        return CheckSumHandler.checksumWithKey(
+            EncryptionHandler.getEncHandler(key.getKeyType()).checksumType(),
+            message, key.getKeyData(), KeyUsage.APP_DATA_CKSUM);
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Md5Provider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Sha1Provider;
+import org.apache.kerby.kerberos.kerb.crypto.util.Hmac;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC throughput through the JCE Mac, with the same key as for a cached
+ * Ki or Kc and with a new key every time, against the HMAC computed over
+ * the hash provider.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class HmacBenchmark {
+
+    @Param({"SHA1", "MD5"})
+    private String hash;
+
+    @Param({"64", "1024"})
+    private int messageSize;
+
+    private HashProvider hashProvider;
+    private byte[] key;
+    private byte[][] keys;
+    private byte[] message;
+    private int next;
+
+    @Setup
+    public void setup() {
+        hashProvider = "SHA1".equals(hash) ? new Sha1Provider() : new Md5Provider();
+        key = newKey();
+        keys = new byte[16][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = newKey();
+        }
+        message = new byte[messageSize];
+        ThreadLocalRandom.current().nextBytes(message);
+    }
+
+    private static byte[] newKey() {
+        byte[] key = new byte[16];
+        ThreadLocalRandom.current().nextBytes(key);
+        return key;
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public byte[] macSameKey() throws KrbException {
+        return Hmac.hmac(hashProvider, key, message);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public byte[] macNewKey() throws KrbException {
+        next = (next + 1) % keys.length;
+        return Hmac.hmac(hashProvider, keys[next], message);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public byte[] hashProviderHmac() throws KrbException {
+        return Hmac.hashHmac(hashProvider, key, message, 0, message.length);
+    }
+}
@@ -23,30 +23,52 @@ import org.apache.kerby.config.Conf;
 import org.apache.kerby.config.Config;
 import org.apache.kerby.kerberos.kdc.identitybackend.JsonIdentityBackend;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
 import org.apache.kerby.kerberos.kerb.identity.backend.BackendTestUtil;
 import org.apache.kerby.kerberos.kerb.identity.backend.IdentityBackend;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Lookups and provisioning with the json backend. Adding an identity costs
+ * a log append, so it shouldn't depend on the number of identities, and
+ * concurrent adds share the log syncs.
+ */
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
 @State(Scope.Benchmark)
 public class JsonBackendBenchmark {
 
+    @Param({"100", "10000"})
+    private int identities;
+
+    @Param({"true", "false"})
+    private boolean syncLog;
+
     private IdentityBackend backend;
 
     private File jsonBackendFile;
 
+    private List<EncryptionKey> keys;
+
+    private final AtomicLong nextPrincipal = new AtomicLong();
+
     @Setup
     public void setup() throws KrbException {
         prepareBackend();
@@ -56,26 +78,59 @@ public class JsonBackendBenchmark {
     private void prepareBackend() throws KrbException {
         File testDir = new File(System.getProperty("test.dir", "target"));
         jsonBackendFile = new File(testDir, "json-identity-backend-file");
+        deleteBackendFiles();
         String jsonBackendFileString = jsonBackendFile.getAbsolutePath();
 
         Config backendConfig = new Conf();
         backendConfig.setString(JsonIdentityBackend.JSON_IDENTITY_BACKEND_DIR,
                 jsonBackendFileString);
+        backendConfig.setBoolean(JsonIdentityBackend.JSON_IDENTITY_BACKEND_LOG_SYNC, syncLog);
         backend = new JsonIdentityBackend(backendConfig);
         backend.initialize();
     }
 
     private void prepareIdentities() throws KrbException {
-        BackendTestUtil.createManyIdentities(backend, 100);
+        keys = BackendTestUtil.generateKeys();
+
+        BatchTrans batchTrans = backend.startBatchTrans();
+        for (int i = 0; i < identities; i++) {
+            batchTrans.addIdentity(newIdentity());
+        }
+        batchTrans.commit();
         BackendTestUtil.createTheTestIdentity(backend);
     }
 
+    private KrbIdentity newIdentity() {
+        KrbIdentity identity = new KrbIdentity("provisioned" + nextPrincipal.incrementAndGet()
+            + "@EXAMPLE.COM");
+        identity.addKeys(keys);
+        return identity;
+    }
+
     @Benchmark
     @Fork(1)
     public void queryTest() throws Exception {
         BackendTestUtil.getTheTestIdentity(backend);
     }
 
+    /**
+     * Add and delete a principal, keeping the number of identities.
+     */
+    @Benchmark
+    @Fork(1)
+    public void addDeleteTest() throws Exception {
+        KrbIdentity identity = backend.addIdentity(newIdentity());
+        backend.deleteIdentity(identity.getPrincipalName());
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Threads(8)
+    public void concurrentAddDeleteTest() throws Exception {
+        KrbIdentity identity = backend.addIdentity(newIdentity());
+        backend.deleteIdentity(identity.getPrincipalName());
+    }
+
     @TearDown
     public void cleanup() throws KrbException {
         if (backend != null) {
@@ -83,11 +138,20 @@ public class JsonBackendBenchmark {
             backend.release();
         }
 
-        if (jsonBackendFile.exists()) {
-            boolean delete = jsonBackendFile.delete();
-            if (!delete) {
-                throw new RuntimeException("File delete error!");
+        deleteBackendFiles();
+    }
+
+    private void deleteBackendFiles() {
+        File[] files = jsonBackendFile.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    throw new RuntimeException("File delete error!");
+                }
             }
         }
+        if (jsonBackendFile.exists() && !jsonBackendFile.delete()) {
+            throw new RuntimeException("File delete error!");
+        }
     }
 }
@@ -0,0 +1,100 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbRuntime;
+import org.apache.kerby.kerberos.kerb.type.base.AuthToken;
+import org.apache.kerby.kerberos.provider.token.JwtTokenDecoder;
+import org.apache.kerby.kerberos.provider.token.JwtTokenEncoder;
+import org.apache.kerby.kerberos.provider.token.JwtVerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a re-presented JWT token, signed or signed and encrypted with
+ * RSA keys, with and without the cache of verified tokens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class JwtTokenBenchmark {
+    private static final String AUDIENCE = "krbtgt/EXAMPLE.COM@EXAMPLE.COM";
+
+    @Param({"false", "true"})
+    private boolean encrypted;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private JwtTokenDecoder decoder;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair signKeyPair = kpg.generateKeyPair();
+        KeyPair encryptionKeyPair = kpg.generateKeyPair();
+
+        AuthToken authToken = KrbRuntime.getTokenProvider("JWT").createTokenFactory().createToken();
+        authToken.setIssuer("oauth2.com");
+        authToken.setSubject("alice");
+        authToken.setAudiences(Collections.singletonList(AUDIENCE));
+        authToken.setExpirationTime(new Date(System.currentTimeMillis() + 24 * 60 * 60 * 1000));
+
+        JwtTokenEncoder encoder = new JwtTokenEncoder();
+        encoder.setSignKey((RSAPrivateKey) signKeyPair.getPrivate());
+        decoder = new JwtTokenDecoder();
+        decoder.setVerifyKey((RSAPublicKey) signKeyPair.getPublic());
+        decoder.setAudiences(Collections.singletonList(AUDIENCE));
+        if (encrypted) {
+            encoder.setEncryptionKey((RSAPublicKey) encryptionKeyPair.getPublic());
+            decoder.setDecryptionKey((RSAPrivateKey) encryptionKeyPair.getPrivate());
+        }
+        decoder.setVerifiedTokenCache(cached ? new JwtVerifiedTokenCache() : null);
+        token = encoder.encodeAsString(authToken);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public AuthToken decode() throws IOException {
+        return decoder.decodeFromString(token);
+    }
+}
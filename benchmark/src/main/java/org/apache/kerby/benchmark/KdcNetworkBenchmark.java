@@ -0,0 +1,217 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.transport.KdcNetwork;
+import org.apache.kerby.kerberos.kerb.transport.KdcNioNetwork;
+import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.apache.kerby.util.NetworkUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request latency of the thread per connection {@link KdcNetwork} and the
+ * selector based {@link KdcNioNetwork} under mixed TCP and UDP load, against
+ * an echo handler. The sample time mode reports the p50/p99 percentiles.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KdcNetworkBenchmark {
+    private static final int REQUEST_SIZE = 512;
+
+    @State(Scope.Group)
+    public static class Server {
+        @Param({"KdcNetwork", "KdcNioNetwork"})
+        private String network;
+
+        private TransportPair tpair;
+        private KdcNetwork kdcNetwork;
+        private KdcNioNetwork kdcNioNetwork;
+        private ExecutorService executor;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            tpair = new TransportPair();
+            tpair.tcpAddress = new InetSocketAddress("localhost", NetworkUtil.getServerPort());
+            tpair.udpAddress = new InetSocketAddress("localhost", NetworkUtil.getServerPort());
+            executor = Executors.newCachedThreadPool();
+
+            if ("KdcNetwork".equals(network)) {
+                kdcNetwork = new KdcNetwork() {
+                    @Override
+                    protected void onNewTransport(final KrbTransport transport) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                echoLoop(transport);
+                            }
+                        });
+                    }
+                };
+                kdcNetwork.init();
+                kdcNetwork.listen(tpair);
+                kdcNetwork.start();
+            } else {
+                kdcNioNetwork = new KdcNioNetwork() {
+                    @Override
+                    protected void onRecvMessage(final KrbTransport transport,
+                                                 final ByteBuffer message) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                echo(transport, message);
+                            }
+                        });
+                    }
+                };
+                kdcNioNetwork.init();
+                kdcNioNetwork.listen(tpair);
+                kdcNioNetwork.start();
+            }
+        }
+
+        private void echoLoop(KrbTransport transport) {
+            while (!kdcNetwork.isStopped()) {
+                ByteBuffer message;
+                try {
+                    message = transport.receiveMessage();
+                } catch (IOException e) {
+                    transport.release();
+                    return;
+                }
+                if (message != null) {
+                    echo(transport, message);
+                } else if (transport.isTcp()) {
+                    transport.release();
+                    return;
+                }
+            }
+        }
+
+        private static void echo(KrbTransport transport, ByteBuffer message) {
+            ByteBuffer response;
+            if (transport.isTcp()) {
+                response = ByteBuffer.allocate(message.remaining() + 4);
+                response.putInt(message.remaining());
+            } else {
+                response = ByteBuffer.allocate(message.remaining());
+            }
+            response.put(message);
+            response.flip();
+            try {
+                transport.sendMessage(response);
+            } catch (IOException e) {
+                transport.release();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() {
+            if (kdcNetwork != null) {
+                kdcNetwork.stop();
+            }
+            if (kdcNioNetwork != null) {
+                kdcNioNetwork.stop();
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private Socket socket;
+        private DataOutputStream tcpOut;
+        private DataInputStream tcpIn;
+        private DatagramChannel udpChannel;
+        private byte[] request;
+        private ByteBuffer udpResponse;
+
+        @Setup(Level.Trial)
+        public void setup(Server server) throws IOException {
+            request = new byte[REQUEST_SIZE];
+            udpResponse = ByteBuffer.allocate(REQUEST_SIZE);
+
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(server.tpair.tcpAddress);
+            tcpOut = new DataOutputStream(socket.getOutputStream());
+            tcpIn = new DataInputStream(socket.getInputStream());
+
+            udpChannel = DatagramChannel.open();
+            udpChannel.connect(server.tpair.udpAddress);
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws IOException {
+            socket.close();
+            udpChannel.close();
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public int tcpRequest(Client client) throws IOException {
+        client.tcpOut.writeInt(client.request.length);
+        client.tcpOut.write(client.request);
+        client.tcpOut.flush();
+
+        int len = client.tcpIn.readInt();
+        client.tcpIn.readFully(client.request, 0, len);
+        return len;
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public int udpRequest(Client client) throws IOException {
+        client.udpChannel.write(ByteBuffer.wrap(client.request));
+        client.udpResponse.clear();
+        return client.udpChannel.read(client.udpResponse);
+    }
+}
@@ -19,7 +19,24 @@
  */
 package org.apache.kerby.benchmark;
 
+import org.apache.kerby.asn1.Asn1Factory;
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
 import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.HostAddress;
+import org.apache.kerby.kerberos.kerb.type.base.HostAddresses;
+import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
+import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
+import org.apache.kerby.kerberos.kerb.type.kdc.AsReq;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcOption;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcOptions;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcReq;
+import org.apache.kerby.kerberos.kerb.type.kdc.KdcReqBody;
+import org.apache.kerby.kerberos.kerb.type.kdc.TgsReq;
+import org.apache.kerby.kerberos.kerb.type.pa.PaDataEntry;
+import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
+import org.apache.kerby.kerberos.kerb.type.ticket.Ticket;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -31,26 +48,61 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 @BenchmarkMode(Mode.AverageTime)
-@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
 public class KrbCodecBenchmark {
     private static final Logger LOG = LoggerFactory.getLogger(KrbCodecBenchmark.class);
 
     private static ByteBuffer apreqToken;
+    private static ByteBuffer asreqToken;
+    private static ByteBuffer tgsreqToken;
 
     static {
         try (InputStream is = KrbCodecBenchmark.class.getResourceAsStream("/apreq.token");) {
             byte[] bytes = new byte[is.available()];
             is.read(bytes);
             apreqToken = ByteBuffer.wrap(bytes);
+
+            AsReq asReq = new AsReq();
+            asReq.setReqBody(makeReqBody("krbtgt/EXAMPLE.COM@EXAMPLE.COM"));
+            asReq.addPaData(new PaDataEntry(PaDataType.ENC_TIMESTAMP, new byte[64]));
+            asreqToken = ByteBuffer.wrap(KrbCodec.encode(asReq));
+
+            TgsReq tgsReq = new TgsReq();
+            tgsReq.setReqBody(makeReqBody("HTTP/server.example.com@EXAMPLE.COM"));
+            tgsReq.addPaData(new PaDataEntry(PaDataType.TGS_REQ, bytes));
+            tgsreqToken = ByteBuffer.wrap(KrbCodec.encode(tgsReq));
         } catch (IOException e) {
             LOG.error("Fail to read bytes from input stream. " + e);
+        } catch (Exception e) {
+            LOG.error("Fail to encode the KDC requests. " + e);
         }
     }
 
+    private static KdcReqBody makeReqBody(String serverName) throws IOException {
+        KdcReqBody body = new KdcReqBody();
+        KdcOptions options = new KdcOptions();
+        options.setFlag(KdcOption.FORWARDABLE);
+        options.setFlag(KdcOption.RENEWABLE_OK);
+        body.setKdcOptions(options);
+        body.setCname(new PrincipalName("client@EXAMPLE.COM"));
+        body.setSname(new PrincipalName(serverName));
+        body.setRealm("EXAMPLE.COM");
+        body.setTill(new KerberosTime(System.currentTimeMillis() + 86400000L));
+        body.setNonce(12345);
+        body.setEtypes(Arrays.asList(EncryptionType.AES256_CTS_HMAC_SHA1_96,
+            EncryptionType.AES128_CTS_HMAC_SHA1_96, EncryptionType.DES3_CBC_SHA1_KD));
+        HostAddresses addresses = new HostAddresses();
+        addresses.addElement(new HostAddress(InetAddress.getByName("127.0.0.1")));
+        body.setAddresses(addresses);
+        return body;
+    }
+
     @Benchmark
     @Fork(1)
     @Warmup(iterations = 5)
@@ -62,4 +114,53 @@ public class KrbCodecBenchmark {
             throw new RuntimeException("Decoding test failed");
         }
     }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public KrbMessage decodeAsReq() throws Exception {
+        KdcReq kdcReq = (KdcReq) KrbCodec.decodeMessage(asreqToken.duplicate());
+        if (kdcReq.getReqBody().getSname() == null) {
+            throw new RuntimeException("Decoding test failed");
+        }
+        return kdcReq;
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public KrbMessage decodeTgsReq() throws Exception {
+        KdcReq kdcReq = (KdcReq) KrbCodec.decodeMessage(tgsreqToken.duplicate());
+        ApReq apReq = KrbCodec.decode(kdcReq.getPaData().findEntry(PaDataType.TGS_REQ)
+            .getPaDataValue(), ApReq.class);
+        if (apReq.getTicket().getSname() == null) {
+            throw new RuntimeException("Decoding test failed");
+        }
+        return kdcReq;
+    }
+
+    /**
+     * How a field value used to be created.
+     */
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    @SuppressWarnings("deprecation")
+    public Ticket newFieldValueReflectively() throws Exception {
+        return Ticket.class.newInstance();
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public Ticket newFieldValueWithCachedConstructor() {
+        return Asn1Factory.create(Ticket.class);
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 5)
+    public Ticket newFieldValueWithFactory() {
+        return new Ticket();
+    }
 }
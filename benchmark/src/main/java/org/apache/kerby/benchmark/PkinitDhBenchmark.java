@@ -0,0 +1,119 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.crypto.dh.DhGroup;
+import org.apache.kerby.kerberos.kerb.crypto.dh.DhKeyPairPool;
+import org.apache.kerby.kerberos.kerb.crypto.dh.DiffieHellmanServer;
+import org.apache.kerby.kerberos.kerb.crypto.dh.EcGroup;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.PublicKey;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The KDC side of the PKINIT key agreement, from the client public value to
+ * the AS reply key, for the MODP groups and the RFC 5349 curves. When
+ * pooled, the server key pair is pre-generated by the pool thread between
+ * two requests, as on a KDC that isn't saturated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PkinitDhBenchmark {
+
+    @Param({"modp2", "modp14", "P-256", "P-384"})
+    private String group;
+
+    @Param({"false", "true"})
+    private boolean pooled;
+
+    private AlgorithmParameterSpec params;
+    private PublicKey clientPubKey;
+    private DhKeyPairPool keyPairPool;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (group) {
+            case "modp2":
+                params = DhGroup.MODP_GROUP2;
+                break;
+            case "modp14":
+                params = DhGroup.MODP_GROUP14;
+                break;
+            case "P-256":
+                params = EcGroup.P256;
+                break;
+            default:
+                params = EcGroup.P384;
+                break;
+        }
+        clientPubKey = DhKeyPairPool.generateKeyPair(params).getPublic();
+
+        if (pooled) {
+            keyPairPool = new DhKeyPairPool(1, 1);
+            keyPairPool.start();
+            // Pools are filled once their group is first used
+            keyPairPool.getKeyPair(params);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void waitForKeyPair() throws Exception {
+        if (keyPairPool != null) {
+            // Only this group is requested, so the pool holds one of its pairs
+            while (keyPairPool.getPooledCount() == 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (keyPairPool != null) {
+            keyPairPool.stop();
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public EncryptionKey keyAgreement() throws Exception {
+        DiffieHellmanServer server = new DiffieHellmanServer(keyPairPool);
+        server.initAndDoPhase(clientPubKey);
+        return server.generateKey(null, null, EncryptionType.AES256_CTS_HMAC_SHA1_96);
+    }
+}
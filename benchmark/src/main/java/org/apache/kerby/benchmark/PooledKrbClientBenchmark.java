@@ -0,0 +1,123 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadmin;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.client.KrbConfigKey;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcServer;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.apache.kerby.util.NetworkUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a service ticket request to a local KDC over TCP, with a new
+ * connection per request and with pooled connections, from one thread and
+ * from several threads sharing the client, whose requests get pipelined.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PooledKrbClientBenchmark {
+    private static final String REALM = "EXAMPLE.COM";
+    private static final String CLIENT_PRINCIPAL = "client@" + REALM;
+    private static final String SERVER_PRINCIPAL = "service/localhost@" + REALM;
+    private static final String PASSWORD = "123456";
+
+    @State(Scope.Benchmark)
+    public static class Kdc {
+        @Param({"false", "true"})
+        private boolean pooled;
+
+        private KdcServer kdcServer;
+        private KrbClient krbClient;
+        private TgtTicket tgt;
+
+        @Setup(Level.Trial)
+        public void setup() throws KrbException {
+            int port = NetworkUtil.getServerPort();
+            kdcServer = new KdcServer(new KdcConfig(), new BackendConfig());
+            kdcServer.setKdcRealm(REALM);
+            kdcServer.setKdcHost("localhost");
+            kdcServer.setKdcTcpPort(port);
+            kdcServer.setAllowUdp(false);
+            kdcServer.init();
+
+            LocalKadmin kadmin = new LocalKadminImpl(kdcServer.getKdcSetting(),
+                kdcServer.getIdentityService());
+            kadmin.createBuiltinPrincipals();
+            kadmin.addPrincipal(CLIENT_PRINCIPAL, PASSWORD);
+            kadmin.addPrincipal(SERVER_PRINCIPAL, PASSWORD);
+            kdcServer.start();
+
+            KrbConfig krbConfig = new KrbConfig();
+            // Kerby's KDC answers pipelined requests in order
+            krbConfig.setInt(KrbConfigKey.KDC_POOL_MAX_PIPELINED, 4);
+            krbClient = new KrbClient(krbConfig);
+            krbClient.setKdcRealm(REALM);
+            krbClient.setKdcHost("localhost");
+            krbClient.setKdcTcpPort(port);
+            krbClient.setAllowUdp(false);
+            krbClient.setTimeout(10 * 1000);
+            krbClient.setConnectionPooled(pooled);
+            krbClient.init();
+            tgt = krbClient.requestTgt(CLIENT_PRINCIPAL, PASSWORD);
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws KrbException {
+            kdcServer.stop();
+        }
+    }
+
+    @Benchmark
+    public SgtTicket requestSgt(Kdc kdc) throws KrbException {
+        return kdc.krbClient.requestSgt(kdc.tgt, SERVER_PRINCIPAL);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SgtTicket requestSgtConcurrently(Kdc kdc) throws KrbException {
+        return kdc.krbClient.requestSgt(kdc.tgt, SERVER_PRINCIPAL);
+    }
+}
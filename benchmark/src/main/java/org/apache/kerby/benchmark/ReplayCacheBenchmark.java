@@ -0,0 +1,106 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.benchmark;
+
+import org.apache.kerby.kerberos.kerb.server.replay.CacheService;
+import org.apache.kerby.kerberos.kerb.server.replay.RequestRecord;
+import org.apache.kerby.kerberos.kerb.server.replay.SimpleCacheService;
+import org.apache.kerby.kerberos.kerb.server.replay.TimeWindowCacheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replay checks of fresh TGS requests from several threads, with the
+ * concurrent {@link TimeWindowCacheService} and a synchronized
+ * {@link SimpleCacheService} as the baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class ReplayCacheBenchmark {
+    private static final String SERVER_PRINCIPAL = "krbtgt/EXAMPLE.COM@EXAMPLE.COM";
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+        @Param({"SimpleCacheService", "TimeWindowCacheService"})
+        private String cacheService;
+
+        private CacheService cache;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            if ("SimpleCacheService".equals(cacheService)) {
+                final SimpleCacheService simpleCache = new SimpleCacheService();
+                cache = new CacheService() {
+                    @Override
+                    public synchronized boolean checkAndCache(RequestRecord request) {
+                        return simpleCache.checkAndCache(request);
+                    }
+
+                    @Override
+                    public synchronized void clear() {
+                        simpleCache.clear();
+                    }
+                };
+            } else {
+                cache = new TimeWindowCacheService(5 * 60 * 1000L, 1 << 24);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger CLIENTS = new AtomicInteger();
+
+        private final String clientPrincipal = "client" + CLIENTS.incrementAndGet() + "@EXAMPLE.COM";
+        private final byte[] authenticator = new byte[96];
+        private int sequence;
+
+        RequestRecord nextRequest() {
+            ThreadLocalRandom.current().nextBytes(authenticator);
+            long now = System.currentTimeMillis();
+            return new RequestRecord(clientPrincipal, SERVER_PRINCIPAL, now,
+                (int) (now % 1000) * 1000 + (sequence++ % 1000), authenticator.clone());
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public boolean checkReplay(Cache cache, Client client) {
+        return cache.cache.checkAndCache(client.nextRequest());
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.kerby.kerberos.kdc.identitybackend;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import org.apache.kerby.config.Config;
 import org.apache.kerby.kerberos.kdc.identitybackend.typeAdapter.EncryptionKeyAdapter;
@@ -33,13 +34,32 @@ import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
 import org.apache.kerby.kerberos.kerb.type.KerberosTime;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
-import org.apache.kerby.util.IOUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,26 +67,60 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A Json file based backend implementation.
+ *
+ * Identities are kept in a compact json snapshot file, and mutations are
+ * appended to a log of json lines next to it. Concurrent mutations are
+ * written and synced to the log together, and the log is compacted into a
+ * new snapshot once it grows over a size limit. Only one process should
+ * modify the backend at a time, others see the changes by reloading.
+ *
+ * Lookups only read the in memory map. Changes made to the files by other
+ * processes are noticed by a background watcher, and a reload, either full
+ * or of the new log entries only, builds a new map which replaces the
+ * current one at once.
  */
 public class JsonIdentityBackend extends AbstractIdentityBackend {
     private static final Logger LOG =
             LoggerFactory.getLogger(JsonIdentityBackend.class);
 
     public static final String JSON_IDENTITY_BACKEND_DIR = "backend.json.dir";
+    /** The log size in bytes over which it's compacted into the snapshot */
+    public static final String JSON_IDENTITY_BACKEND_LOG_MAX_SIZE = "backend.json.log.max.size";
+    /** Whether to sync the log to disk before a mutation returns */
+    public static final String JSON_IDENTITY_BACKEND_LOG_SYNC = "backend.json.log.sync";
+    public static final long DEFAULT_LOG_MAX_SIZE = 8 * 1024 * 1024;
+
     private File jsonKdbFile;
+    private File logFile;
+    private File oldLogFile;
     private Gson gson;
-
-    // Identities loaded from file
-    private final Map<String, KrbIdentity> identities =
-        new ConcurrentHashMap<>(new TreeMap<String, KrbIdentity>());
-    private long kdbFileUpdateTime = -1;
-
-    private Lock lock = new ReentrantLock();
+    private long maxLogSize = DEFAULT_LOG_MAX_SIZE;
+    private boolean syncLog = true;
+
+    // Identities loaded from file, replaced as a whole when reloading
+    private volatile Map<String, KrbIdentity> identities =
+        new ConcurrentHashMap<>();
+    private volatile long kdbFileUpdateTime = -1;
+    private volatile long logPosition;
+
+    // Mutations waiting to be written to the log, applied in memory once
+    // they're in it
+    private final Object logLock = new Object();
+    private PendingBatch pending = new PendingBatch();
+
+    // Held to write the log, and to load or compact the files
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private FileChannel logChannel;
+    // A write failed, what it left after logPosition is to be truncated
+    private boolean logDamaged;
+
+    private WatchService watchService;
+    private Thread watcher;
 
     public JsonIdentityBackend() {
 
@@ -94,11 +148,8 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     public BatchTrans startBatchTrans() throws KrbException {
-        if (lock.tryLock()) {
-            checkAndReload();
-            return new JsonBatchTrans();
-        }
-        return null;
+        checkAndReload();
+        return new JsonBatchTrans();
     }
 
     /**
@@ -120,8 +171,12 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
                 throw new KrbException("Failed to create json file dir " + jsonFileDir);
             }
         }
+        maxLogSize = getConfig().getLong(JSON_IDENTITY_BACKEND_LOG_MAX_SIZE, DEFAULT_LOG_MAX_SIZE);
+        syncLog = getConfig().getBoolean(JSON_IDENTITY_BACKEND_LOG_SYNC, true);
 
         jsonKdbFile = new File(jsonFileDir, "json-backend.json");
+        logFile = new File(jsonFileDir, "json-backend.log");
+        oldLogFile = new File(jsonFileDir, "json-backend.log.old");
         if (!jsonKdbFile.exists()) {
             try {
                 jsonKdbFile.createNewFile();
@@ -129,46 +184,96 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
                 throw new KrbException("Failed to create " + jsonKdbFile.getAbsolutePath());
             }
         }
+
+        boolean complete;
+        syncLock.lock();
+        try {
+            complete = load();
+        } finally {
+            syncLock.unlock();
+        }
+        // Fold an interrupted compaction or a partly written log
+        if (!complete || oldLogFile.exists()) {
+            compact();
+        }
+
+        startWatcher(jsonFileDir);
     }
 
-    private void load() throws KrbException {
+    /**
+     * Load the snapshot and replay the logs, called with the sync lock.
+     * @return false if the log ends with a partly written mutation
+     */
+    private boolean load() throws KrbException {
         LOG.info("Loading the identities from json file.");
 
+        flushPending();
         long nowTimeStamp = jsonKdbFile.lastModified();
-        String reloadedJsonContent;
-        if (lock.tryLock()) {
-            try {
-                try {
-                    reloadedJsonContent = IOUtil.readFile(jsonKdbFile);
-                } catch (IOException e) {
-                    throw new KrbException("Failed to read file", e);
-                }
-
-                Map<String, KrbIdentity> reloadedEntries =
-                        gson.fromJson(reloadedJsonContent,
-                                new TypeToken<HashMap<String, KrbIdentity>>() {
-                                }.getType());
-
-                if (reloadedEntries != null) {
-                    identities.clear();
-                    identities.putAll(reloadedEntries);
-                }
-
-                kdbFileUpdateTime = nowTimeStamp;
-            } finally {
-                lock.unlock();
+        Map<String, KrbIdentity> reloadedEntries = readSnapshot();
+        long position;
+        try {
+            if (oldLogFile.exists()) {
+                replayLog(oldLogFile, 0, reloadedEntries);
             }
+            position = logFile.exists() ? replayLog(logFile, 0, reloadedEntries) : 0;
+        } catch (IOException e) {
+            throw new KrbException("Failed to read " + logFile, e);
+        }
+
+        Map<String, KrbIdentity> reloaded = new ConcurrentHashMap<>(reloadedEntries);
+        synchronized (logLock) {
+            identities = reloaded;
         }
+        kdbFileUpdateTime = nowTimeStamp;
+        logPosition = position;
+
+        return position == logFile.length();
     }
 
     /**
-     * Check kdb file timestamp to see if it's changed or not. If
-     * necessary load the kdb again.
+     * Check kdb file timestamp and the log size to see if they're changed or
+     * not. If necessary load the kdb again, or only the new log entries.
+     * Called by the watcher and before mutations, not for lookups.
      */
     private void checkAndReload() throws KrbException {
-        long nowTimeStamp = jsonKdbFile.lastModified();
-        if (nowTimeStamp != kdbFileUpdateTime) {
-            load();
+        if (jsonKdbFile.lastModified() == kdbFileUpdateTime
+            && logFile.length() == logPosition) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            flushPending();
+            if (logDamaged) {
+                throw new KrbException("Failed to repair " + logFile + " after a failed write");
+            }
+            if (jsonKdbFile.lastModified() != kdbFileUpdateTime) {
+                load();
+                return;
+            }
+
+            long logLength = logFile.length();
+            if (logLength > logPosition) {
+                Map<String, KrbIdentity> appended = new HashMap<>();
+                List<String> deleted = new ArrayList<>();
+                long position;
+                try {
+                    position = replayLog(logFile, logPosition, appended, deleted);
+                } catch (IOException e) {
+                    throw new KrbException("Failed to read " + logFile, e);
+                }
+                Map<String, KrbIdentity> reloaded = new ConcurrentHashMap<>(identities);
+                reloaded.keySet().removeAll(deleted);
+                reloaded.putAll(appended);
+                synchronized (logLock) {
+                    identities = reloaded;
+                }
+                logPosition = position;
+            } else if (logLength < logPosition) {
+                load();
+            }
+        } finally {
+            syncLock.unlock();
         }
     }
 
@@ -177,7 +282,6 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected KrbIdentity doGetIdentity(String principalName) throws KrbException {
-        checkAndReload();
         return identities.get(principalName);
     }
 
@@ -188,16 +292,9 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
     protected KrbIdentity doAddIdentity(KrbIdentity identity) throws KrbException {
         checkAndReload();
 
-        if (lock.tryLock()) {
-            try {
-                identities.put(identity.getPrincipalName(), identity);
-                persistToFile();
-            } finally {
-                lock.unlock();
-            }
-        }
+        commit(append(Collections.singletonList(LogRecord.put(identity))));
 
-        return doGetIdentity(identity.getPrincipalName());
+        return identities.get(identity.getPrincipalName());
     }
 
     /**
@@ -207,16 +304,9 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
     protected KrbIdentity doUpdateIdentity(KrbIdentity identity) throws KrbException {
         checkAndReload();
 
-        if (lock.tryLock()) {
-            try {
-                identities.put(identity.getPrincipalName(), identity);
-                persistToFile();
-            } finally {
-                lock.unlock();
-            }
-        }
+        commit(append(Collections.singletonList(LogRecord.put(identity))));
 
-        return doGetIdentity(identity.getPrincipalName());
+        return identities.get(identity.getPrincipalName());
     }
 
     /**
@@ -230,14 +320,7 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
             return;
         }
 
-        if (lock.tryLock()) {
-            try {
-                identities.remove(principalName);
-                persistToFile();
-            } finally {
-                lock.unlock();
-            }
-        }
+        commit(append(Collections.singletonList(LogRecord.delete(principalName))));
     }
 
     /**
@@ -245,71 +328,444 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected Iterable<String> doGetIdentities() throws KrbException {
-        load();
+        checkAndReload();
         List<String> principals = new ArrayList<>(identities.keySet());
         Collections.sort(principals);
 
         return principals;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doStop() throws KrbException {
+        stopWatcher();
+
+        syncLock.lock();
+        try {
+            flushPending();
+            closeLog();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
     private void initGsonBuilder() {
         GsonBuilder gsonBuilder = new GsonBuilder();
         gsonBuilder.registerTypeAdapter(EncryptionKey.class, new EncryptionKeyAdapter());
         gsonBuilder.registerTypeAdapter(PrincipalName.class, new PrincipalNameAdapter());
         gsonBuilder.registerTypeAdapter(KerberosTime.class, new KerberosTimeAdapter());
         gsonBuilder.enableComplexMapKeySerialization();
-        gsonBuilder.setPrettyPrinting();
         gson = gsonBuilder.create();
     }
 
-    private void persistToFile() throws KrbException {
-        String newJsonContent = gson.toJson(identities);
+    /**
+     * Queue mutations for the log.
+     * @return the batch to wait for with {@link #commit(PendingBatch)}
+     */
+    private PendingBatch append(List<LogRecord> records) {
+        List<byte[]> lines = new ArrayList<>(records.size());
+        for (LogRecord record : records) {
+            lines.add((gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        synchronized (logLock) {
+            pending.records.addAll(records);
+            pending.lines.addAll(lines);
+            return pending;
+        }
+    }
+
+    /**
+     * Wait until the batch of mutations is in the log and applied.
+     * The first waiter writes all the queued mutations for the others.
+     */
+    private void commit(PendingBatch batch) throws KrbException {
+        syncLock.lock();
+        try {
+            if (!batch.written) {
+                flushPending();
+            }
+            if (batch.failure != null) {
+                throw new KrbException("Failed to write " + logFile, batch.failure);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+
+        if (logPosition > maxLogSize) {
+            compact();
+        }
+    }
+
+    /**
+     * Write the queued mutations to the log and apply them in memory, called
+     * with the sync lock. If the write fails, the mutations are dropped and
+     * the log is truncated back before the next write.
+     */
+    private void flushPending() {
+        PendingBatch batch;
+        synchronized (logLock) {
+            batch = pending;
+            pending = new PendingBatch();
+        }
+
         try {
-            File newJsonKdbFile = Files.createTempFile(jsonKdbFile.getParentFile().toPath(), "kerby-kdb",
-                    ".json").toFile();
-            IOUtil.writeFile(newJsonContent, newJsonKdbFile);
-            boolean delete = jsonKdbFile.delete();
-            if (!delete) {
-                throw new RuntimeException("File delete error!");
+            if (logDamaged) {
+                openLog();
             }
-            boolean rename = newJsonKdbFile.renameTo(jsonKdbFile);
-            if (!rename) {
-                throw new RuntimeException("File rename error!");
+            if (!batch.lines.isEmpty()) {
+                writeLog(batch.lines);
+                synchronized (logLock) {
+                    for (LogRecord record : batch.records) {
+                        record.apply(identities);
+                    }
+                }
             }
+        } catch (IOException e) {
+            LOG.error("Error occurred while writing identities to file: " + logFile + ". " + e);
+            batch.failure = e;
+            logDamaged = true;
+            closeLog();
+        }
+        batch.written = true;
+    }
+
+    private void writeLog(List<byte[]> lines) throws IOException {
+        int size = 0;
+        for (byte[] line : lines) {
+            size += line.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] line : lines) {
+            buffer.put(line);
+        }
+        buffer.flip();
+
+        openLog();
+        while (buffer.hasRemaining()) {
+            logChannel.write(buffer);
+        }
+        if (syncLog) {
+            logChannel.force(false);
+        }
+        logPosition += size;
+    }
+
+    private void openLog() throws IOException {
+        if (logChannel == null) {
+            logChannel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        if (logDamaged) {
+            // Drop what a failed write left after the last mutation in the log
+            logChannel.truncate(logPosition);
+            if (syncLog) {
+                logChannel.force(false);
+            }
+            logDamaged = false;
+        }
+    }
+
+    private void closeLog() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close " + logFile + ". " + e);
+            }
+            logChannel = null;
+        }
+    }
+
+    /**
+     * Fold the log into a new snapshot. The log is switched first, so the
+     * mutations can go on while the snapshot is written.
+     */
+    private void compact() throws KrbException {
+        if (!compactLock.tryLock()) {
+            return; // Already compacting
+        }
+
+        boolean locked = false;
+        try {
+            syncLock.lock();
+            locked = true;
+            flushPending();
+            if (logDamaged) {
+                return;
+            }
+
+            Map<String, KrbIdentity> snapshot;
+            synchronized (logLock) {
+                snapshot = new TreeMap<>(identities);
+            }
+
+            // A log left by an interrupted compaction is folded with the
+            // current one, holding the lock all along.
+            boolean foldAll = oldLogFile.exists();
+            if (!foldAll) {
+                closeLog();
+                if (logFile.exists()) {
+                    Files.move(logFile.toPath(), oldLogFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+                }
+                logPosition = 0;
+                syncLock.unlock();
+                locked = false;
+            }
+
+            File newJsonKdbFile = writeSnapshot(snapshot);
+
+            if (!locked) {
+                syncLock.lock();
+                locked = true;
+            }
+            Files.move(newJsonKdbFile.toPath(), jsonKdbFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
             kdbFileUpdateTime = jsonKdbFile.lastModified();
+            Files.deleteIfExists(oldLogFile.toPath());
+            if (foldAll) {
+                closeLog();
+                Files.deleteIfExists(logFile.toPath());
+                logPosition = 0;
+            }
+        } catch (IOException e) {
+            throw new KrbException("Failed to compact " + logFile, e);
+        } finally {
+            if (locked) {
+                syncLock.unlock();
+            }
+            compactLock.unlock();
+        }
+    }
+
+    private void startWatcher(File jsonFileDir) throws KrbException {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            jsonFileDir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new KrbException("Failed to watch " + jsonFileDir, e);
+        }
+
+        watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "json-backend-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void stopWatcher() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close the watch service. " + e);
+            }
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    /**
+     * Reload on changes of the backend files, until the watch service is
+     * closed.
+     */
+    private void watch() {
+        WatchService service = watchService;
+        String jsonKdbFileName = jsonKdbFile.getName();
+        String logFileName = logFile.getName();
+
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed = true;
+                } else {
+                    String fileName = event.context().toString();
+                    changed |= fileName.equals(jsonKdbFileName) || fileName.equals(logFileName);
+                }
+            }
+            if (!key.reset()) {
+                LOG.warn("Stop watching the json backend files, the directory is gone.");
+                return;
+            }
+
+            if (changed) {
+                try {
+                    checkAndReload();
+                } catch (KrbException e) {
+                    LOG.error("Failed to reload the json backend. " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Map<String, KrbIdentity> readSnapshot() throws KrbException {
+        Map<String, KrbIdentity> entries = null;
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+            new FileInputStream(jsonKdbFile), StandardCharsets.UTF_8))) {
+            entries = gson.fromJson(reader,
+                new TypeToken<HashMap<String, KrbIdentity>>() {
+                }.getType());
+        } catch (IOException | JsonParseException e) {
+            throw new KrbException("Failed to read file", e);
+        }
+
+        return entries != null ? entries : new HashMap<String, KrbIdentity>();
+    }
+
+    private File writeSnapshot(Map<String, KrbIdentity> snapshot) throws KrbException {
+        File newJsonKdbFile = null;
+        try {
+            newJsonKdbFile = Files.createTempFile(jsonKdbFile.getParentFile().toPath(),
+                "kerby-kdb", ".json").toFile();
+            try (FileOutputStream out = new FileOutputStream(newJsonKdbFile)) {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                gson.toJson(snapshot, writer);
+                writer.flush();
+                out.getFD().sync();
+            }
+            return newJsonKdbFile;
         } catch (IOException e) {
             LOG.error("Error occurred while writing identities to file: " + jsonKdbFile);
+            if (newJsonKdbFile != null && !newJsonKdbFile.delete()) {
+                LOG.warn("Failed to delete " + newJsonKdbFile);
+            }
             throw new KrbException("Failed to write file", e);
         }
     }
 
+    private long replayLog(File file, long from,
+                           Map<String, KrbIdentity> entries) throws IOException {
+        return replayLog(file, from, entries, null);
+    }
+
+    /**
+     * Apply the complete log lines after a position.
+     * @return the position after the last complete line
+     */
+    private long replayLog(File file, long from, Map<String, KrbIdentity> entries,
+                           List<String> deleted) throws IOException {
+        byte[] content;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long length = raf.length();
+            if (length <= from) {
+                return from;
+            }
+            content = new byte[(int) (length - from)];
+            raf.seek(from);
+            raf.readFully(content);
+        } catch (FileNotFoundException e) {
+            // Switched by a compaction in another process, reloaded again
+            // once the new snapshot is in place
+            return from;
+        }
+
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+
+            String line = new String(content, start, i - start, StandardCharsets.UTF_8);
+            LogRecord record;
+            try {
+                record = gson.fromJson(line, LogRecord.class);
+            } catch (JsonParseException e) {
+                throw new IOException("Corrupted log entry at " + (from + start) + " in " + file, e);
+            }
+            record.apply(entries);
+            if (deleted != null && record.identity == null) {
+                deleted.add(record.principal);
+            }
+            start = i + 1;
+        }
+
+        if (start < content.length) {
+            LOG.warn("Ignoring a partly written log entry at " + (from + start) + " in " + file);
+        }
+        return from + start;
+    }
+
+    /**
+     * A mutation in the log, either an identity to put or a principal to
+     * delete.
+     */
+    private static final class LogRecord {
+        private String principal;
+        private KrbIdentity identity;
+
+        private LogRecord() {
+        }
+
+        static LogRecord put(KrbIdentity identity) {
+            LogRecord record = new LogRecord();
+            record.principal = identity.getPrincipalName();
+            record.identity = identity;
+            return record;
+        }
+
+        static LogRecord delete(String principalName) {
+            LogRecord record = new LogRecord();
+            record.principal = principalName;
+            return record;
+        }
+
+        void apply(Map<String, KrbIdentity> entries) {
+            if (identity != null) {
+                entries.put(principal, identity);
+            } else {
+                entries.remove(principal);
+            }
+        }
+    }
+
+    /**
+     * Mutations written to the log together.
+     */
+    private static final class PendingBatch {
+        private final List<LogRecord> records = new ArrayList<>();
+        private final List<byte[]> lines = new ArrayList<>();
+        // Set and read with the sync lock
+        private boolean written;
+        private IOException failure;
+    }
+
     class JsonBatchTrans implements BatchTrans {
+        private final List<LogRecord> records = new ArrayList<>();
 
         @Override
         public void commit() throws KrbException {
-            try {
-                // Force to persist memory states to disk file.
-                persistToFile();
-            } finally {
-                lock.unlock();
+            if (!records.isEmpty()) {
+                JsonIdentityBackend.this.commit(append(records));
+                records.clear();
             }
         }
 
         @Override
         public void rollback() throws KrbException {
-            // Force to reload from disk file and disgard the memory states.
-            try {
-                load();
-            } finally {
-                lock.unlock();
-            }
+            // Nothing applied yet, just forget the mutations.
+            records.clear();
         }
 
         @Override
         public BatchTrans addIdentity(KrbIdentity identity) throws KrbException {
             if (identity != null
-                    && identities.containsKey(identity.getPrincipalName())) {
-                identities.put(identity.getPrincipalName(), identity);
+                    && !identities.containsKey(identity.getPrincipalName())) {
+                records.add(LogRecord.put(identity));
             }
             return this;
         }
@@ -318,7 +774,7 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
         public BatchTrans updateIdentity(KrbIdentity identity) throws KrbException {
             if (identity != null
                     && identities.containsKey(identity.getPrincipalName())) {
-                identities.put(identity.getPrincipalName(), identity);
+                records.add(LogRecord.put(identity));
             }
             return this;
         }
@@ -326,7 +782,7 @@ public class JsonIdentityBackend extends AbstractIdentityBackend {
         @Override
         public BatchTrans deleteIdentity(String principalName) throws KrbException {
             if (principalName != null && identities.containsKey(principalName)) {
-                identities.remove(principalName);
+                records.add(LogRecord.delete(principalName));
             }
             return this;
         }
@@ -0,0 +1,199 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.identity.backend;
+
+import org.apache.kerby.config.Conf;
+import org.apache.kerby.config.Config;
+import org.apache.kerby.kerberos.kdc.identitybackend.JsonIdentityBackend;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Json backend log and compaction test
+ */
+public class JsonBackendLogTest {
+    @TempDir
+    File testDir;
+
+    private final List<JsonIdentityBackend> backends = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (JsonIdentityBackend backend : backends) {
+            backend.stop();
+        }
+    }
+
+    private JsonIdentityBackend createBackend(long maxLogSize) throws Exception {
+        Config backendConfig = new Conf();
+        backendConfig.setString(JsonIdentityBackend.JSON_IDENTITY_BACKEND_DIR,
+            testDir.getAbsolutePath());
+        backendConfig.setLong(JsonIdentityBackend.JSON_IDENTITY_BACKEND_LOG_MAX_SIZE, maxLogSize);
+        JsonIdentityBackend backend = new JsonIdentityBackend(backendConfig);
+        backend.initialize();
+        backends.add(backend);
+        return backend;
+    }
+
+    @Test
+    public void testReplayLog() throws Exception {
+        JsonIdentityBackend backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        BackendTestUtil.createManyIdentities(backend, 10);
+        backend.deleteIdentity(BackendTestUtil.TEST_PRINCIPAL_PREFIX + 0 + "@"
+            + BackendTestUtil.TEST_REALM);
+        backend.stop();
+
+        File logFile = new File(testDir, "json-backend.log");
+        assertThat(logFile.length()).isPositive();
+        assertThat(new File(testDir, "json-backend.json").length()).isZero();
+
+        backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        assertThat(backend.getIdentities()).hasSize(9);
+        assertThat(logFile.length()).isPositive();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        JsonIdentityBackend backend = createBackend(4096);
+        BackendTestUtil.createManyIdentities(backend, 50);
+
+        File logFile = new File(testDir, "json-backend.log");
+        assertThat(logFile.length()).isLessThan(8192);
+        assertThat(new File(testDir, "json-backend.json").length()).isPositive();
+        assertThat(new File(testDir, "json-backend.log.old")).doesNotExist();
+        backend.stop();
+
+        backend = createBackend(4096);
+        assertThat(backend.getIdentities()).hasSize(50);
+    }
+
+    @Test
+    public void testPartlyWrittenLog() throws Exception {
+        JsonIdentityBackend backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        BackendTestUtil.createManyIdentities(backend, 3);
+        backend.stop();
+
+        File logFile = new File(testDir, "json-backend.log");
+        try (FileOutputStream out = new FileOutputStream(logFile, true)) {
+            out.write("{\"principal\":\"broken".getBytes(StandardCharsets.UTF_8));
+        }
+
+        backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        assertThat(backend.getIdentities()).hasSize(3);
+        // Folded into the snapshot, so new entries don't follow the broken one
+        assertThat(logFile.length()).isZero();
+        backend.addIdentity(BackendTestUtil.createOneIdentity("new@" + BackendTestUtil.TEST_REALM));
+        backend.stop();
+
+        backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        assertThat(backend.getIdentities()).hasSize(4);
+    }
+
+    @Test
+    public void testFailedWrite() throws Exception {
+        JsonIdentityBackend backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        String failed = "failed@" + BackendTestUtil.TEST_REALM;
+        String added = "added@" + BackendTestUtil.TEST_REALM;
+
+        // The log can't be opened while a directory is in its place
+        File logFile = new File(testDir, "json-backend.log");
+        assertThat(logFile.mkdir()).isTrue();
+        assertThatThrownBy(() -> backend.addIdentity(BackendTestUtil.createOneIdentity(failed)))
+            .isInstanceOf(KrbException.class);
+        assertThat(backend.getIdentity(failed)).isNull();
+
+        assertThat(logFile.delete()).isTrue();
+        backend.addIdentity(BackendTestUtil.createOneIdentity(added));
+        assertThat(backend.getIdentity(added)).isNotNull();
+        backend.stop();
+
+        JsonIdentityBackend reloaded = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        assertThat(reloaded.getIdentities()).containsExactly(added);
+    }
+
+    @Test
+    public void testBatchTrans() throws Exception {
+        JsonIdentityBackend backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        KrbIdentity kept = BackendTestUtil.createOneIdentity("kept@" + BackendTestUtil.TEST_REALM);
+        KrbIdentity dropped = BackendTestUtil.createOneIdentity("dropped@" + BackendTestUtil.TEST_REALM);
+
+        BatchTrans trans = backend.startBatchTrans();
+        trans.addIdentity(dropped);
+        trans.rollback();
+        assertThat(backend.getIdentity(dropped.getPrincipalName())).isNull();
+
+        trans = backend.startBatchTrans();
+        trans.addIdentity(kept);
+        trans.commit();
+        backend.stop();
+
+        backend = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        assertThat(backend.getIdentity(kept.getPrincipalName())).isNotNull();
+        assertThat(backend.getIdentity(dropped.getPrincipalName())).isNull();
+    }
+
+    @Test
+    public void testReloadAppended() throws Exception {
+        JsonIdentityBackend writer = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+        JsonIdentityBackend reader = createBackend(JsonIdentityBackend.DEFAULT_LOG_MAX_SIZE);
+
+        writer.addIdentity(BackendTestUtil.createOneIdentity("new@" + BackendTestUtil.TEST_REALM));
+        assertThat(waitFor(reader, "new@" + BackendTestUtil.TEST_REALM, true)).isTrue();
+
+        writer.deleteIdentity("new@" + BackendTestUtil.TEST_REALM);
+        assertThat(waitFor(reader, "new@" + BackendTestUtil.TEST_REALM, false)).isTrue();
+
+        // Compactions replace the snapshot and restart the log
+        writer.stop();
+        writer = createBackend(4096);
+        BackendTestUtil.createManyIdentities(writer, 50);
+        assertThat(new File(testDir, "json-backend.json").length()).isPositive();
+        assertThat(waitFor(reader, BackendTestUtil.TEST_PRINCIPAL_PREFIX + 49 + "@"
+            + BackendTestUtil.TEST_REALM, true)).isTrue();
+        assertThat(reader.getIdentities()).hasSize(50);
+    }
+
+    /**
+     * Wait for the watcher to reload the changes made by another instance.
+     */
+    private static boolean waitFor(JsonIdentityBackend backend, String principal,
+                                   boolean exists) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            if ((backend.getIdentity(principal) != null) == exists) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+}
@@ -23,6 +23,7 @@ import com.alibaba.druid.pool.DruidDataSource;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.kerby.config.Config;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
 import org.apache.kerby.kerberos.kerb.identity.backend.AbstractIdentityBackend;
 import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
 import org.apache.kerby.kerberos.kerb.type.KerberosTime;
@@ -35,17 +36,31 @@ import java.sql.ResultSet;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
-import javax.sql.rowset.serial.SerialBlob;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A MySQL based backend implementation.
+ *
+ * All the changes, including the ones in a {@link BatchTrans}, are written
+ * in one transaction with JDBC batches.
  */
 public class MySQLIdentityBackend extends AbstractIdentityBackend {
     private String keyInfoTable;
     private String identityTable;
+    private String sqlSelectIdentity;
+    private String sqlSelectPrincipals;
+    private String sqlInsertIdentity;
+    private String sqlUpdateIdentity;
+    private String sqlDeleteIdentity;
+    private String sqlInsertKey;
+    private String sqlDeleteKeys;
+    private int pageSize;
     private static DruidDataSource dataSource = null;
     private static final Logger LOG = LoggerFactory.getLogger(MySQLIdentityBackend.class);
 
@@ -100,6 +115,7 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
     @Override
     protected void doInitialize() throws KrbException {
         LOG.info("Initializing the MySQL identity backend.");
+        pageSize = getConfig().getInt(MySQLConfKey.MYSQL_FETCH_SIZE, true);
 
         // Initialize data base connection pool
         if (MySQLIdentityBackend.dataSource == null) {
@@ -175,6 +191,8 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
             preKey = connection.prepareStatement(stmKey);
             preKey.executeUpdate();
 
+            prepareStatements();
+
         } catch (SQLException e) {
             LOG.error("Error occurred while initialize MySQL backend.", e);
             throw new KrbException("Failed to create table in database. ", e);
@@ -189,6 +207,31 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
         }
     }
 
+    /**
+     * Prepare the statements used for every request, once the table names
+     * are known. The statement text is kept the same, so the statements are
+     * prepared once per pooled connection and then reused from the
+     * statement cache of the data source.
+     */
+    private void prepareStatements() {
+        sqlSelectIdentity = "SELECT a.key_version, a.kdc_flags, a.disabled, a.locked,"
+            + " a.created_time, a.expire_time, b.key_type, b.kvno, b.key_value"
+            + " FROM " + identityTable + " a LEFT JOIN " + keyInfoTable
+            + " b ON a.principal = b.principal WHERE a.principal = ?";
+        sqlSelectPrincipals = "SELECT principal FROM " + identityTable
+            + " WHERE principal > ? ORDER BY principal LIMIT ?";
+        sqlInsertIdentity = "INSERT INTO " + identityTable
+            + " (principal, key_version, kdc_flags, disabled, locked,"
+            + " created_time, expire_time) VALUES(?, ?, ?, ?, ?, ?, ?)";
+        sqlUpdateIdentity = "UPDATE " + identityTable
+            + " SET key_version = ?, kdc_flags = ?, disabled = ?, locked = ?,"
+            + " created_time = ?, expire_time = ? WHERE principal = ?";
+        sqlDeleteIdentity = "DELETE FROM " + identityTable + " WHERE principal = ?";
+        sqlInsertKey = "INSERT INTO " + keyInfoTable
+            + " (key_type, kvno, key_value, principal) VALUES(?, ?, ?, ?)";
+        sqlDeleteKeys = "DELETE FROM " + keyInfoTable + " WHERE principal = ?";
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -199,6 +242,7 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
         }
         dataSource.close();
         if (dataSource.isClosed()) {
+            dataSource = null;
             LOG.info("Succeeded in closing connection with MySQL.");
         } else {
             throw new KrbException("Failed to close connection with MySQL.");
@@ -209,77 +253,31 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
      * {@inheritDoc}
      */
     @Override
-    protected KrbIdentity doAddIdentity(KrbIdentity identity) throws KrbException {
-        String principalName = identity.getPrincipalName();
-        int keyVersion = identity.getKeyVersion();
-        int kdcFlags = identity.getKdcFlags();
-        boolean disabled = identity.isDisabled();
-        boolean locked = identity.isLocked();
-        long createdTime = identity.getCreatedTime().getTime();
-        long expireTime = identity.getExpireTime().getTime();
-        Map<EncryptionType, EncryptionKey> keys = identity.getKeys();
-
-        Connection connection = null;
-
-        KrbIdentity duplicateIdentity = doGetIdentity(principalName);
-        if (duplicateIdentity != null) {
-            LOG.warn("The identity maybe duplicate.");
-
-            return duplicateIdentity;
-        } else {
-            try {
-                connection = dataSource.getConnection();
-                connection.setAutoCommit(false);
-
-                // Insert identity to identity table
-                String stmIdentity = "INSERT INTO " + identityTable
-                    + " (principal, key_version, kdc_flags, disabled, locked,"
-                    + " created_time, expire_time) VALUES(?, ?, ?, ?, ?, ?, ?)";
-                try (PreparedStatement preIdentity = connection.prepareStatement(stmIdentity)) {
-                    preIdentity.setString(1, principalName);
-                    preIdentity.setInt(2, keyVersion);
-                    preIdentity.setInt(3, kdcFlags);
-                    preIdentity.setBoolean(4, disabled);
-                    preIdentity.setBoolean(5, locked);
-                    preIdentity.setLong(6, createdTime);
-                    preIdentity.setLong(7, expireTime);
-                    preIdentity.executeUpdate();
-                }
+    public boolean supportBatchTrans() {
+        return true;
+    }
 
-                // Insert keys to key table
-                for (Map.Entry<EncryptionType, EncryptionKey> entry : keys.entrySet()) {
-                    String stmKey = "INSERT INTO " + keyInfoTable
-                        + " (key_type, kvno, key_value, principal) VALUES(?, ?, ?, ?)";
-                    try (PreparedStatement preKey = connection.prepareStatement(stmKey)) {
-                        preKey.setString(1, entry.getKey().getName());
-                        preKey.setInt(2, entry.getValue().getKvno());
-                        preKey.setBlob(3, new SerialBlob(entry.getValue().getKeyData()));
-                        preKey.setString(4, principalName);
-                        preKey.executeUpdate();
-                    }
-                }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BatchTrans startBatchTrans() throws KrbException {
+        return new MySQLBatchTrans();
+    }
 
-                connection.commit();
-                return identity;
-            } catch (SQLException e) {
-                try {
-                    LOG.info("Transaction is being rolled back.");
-                    if (connection != null) {
-                        connection.rollback();
-                    }
-                } catch (SQLException ex) {
-                    throw new KrbException("Transaction roll back failed. ", ex);
-                }
-                LOG.error("Error occurred while adding identity.");
-                throw new KrbException("Failed to add identity. ", e);
-            } finally {
-                DbUtils.closeQuietly(connection);
-            }
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected KrbIdentity doAddIdentity(KrbIdentity identity) throws KrbException {
+        new MySQLBatchTrans().addIdentity(identity).commit();
+        return identity;
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The identity and its keys are fetched with a single query.
      */
     @Override
     protected KrbIdentity doGetIdentity(final String principalName) throws KrbException {
@@ -292,40 +290,30 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
             connection = dataSource.getConnection();
 
             // Get identity from identity and key table
-            String stmIdentity = String.format("SELECT * FROM %s a left join %s b on "
-                + "a.principal = b.principal where a.principal = ?", identityTable, keyInfoTable);
-            preIdentity = connection.prepareStatement(stmIdentity);
+            preIdentity = connection.prepareStatement(sqlSelectIdentity);
             preIdentity.setString(1, principalName);
             resIdentity = preIdentity.executeQuery();
-            List<EncryptionKey> keys = new ArrayList<>();
-
-            if (resIdentity.isBeforeFirst()) {
-                while (resIdentity.next()) {
-                    if (krbIdentity == null) {
-                        krbIdentity = new KrbIdentity(principalName);
-                        krbIdentity.setKeyVersion(resIdentity.getInt("key_version"));
-                        krbIdentity.setKdcFlags(resIdentity.getInt("kdc_flags"));
-                        krbIdentity.setDisabled(resIdentity.getBoolean("disabled"));
-                        krbIdentity.setLocked(resIdentity.getBoolean("locked"));
-                        krbIdentity.setCreatedTime(new KerberosTime(resIdentity.getLong("created_time")));
-                        krbIdentity.setExpireTime(new KerberosTime(resIdentity.getLong("expire_time")));
-                    }
 
-                    // Get key info
-                    int kvno = resIdentity.getInt("kvno");
-                    String keyType = resIdentity.getString("key_type");
-                    EncryptionType eType = EncryptionType.fromName(keyType);
-                    byte[] keyValue = resIdentity.getBytes("key_value");
-                    EncryptionKey key = new EncryptionKey(eType, keyValue, kvno);
-                    keys.add(key);
+            while (resIdentity.next()) {
+                if (krbIdentity == null) {
+                    krbIdentity = new KrbIdentity(principalName);
+                    krbIdentity.setKeyVersion(resIdentity.getInt(1));
+                    krbIdentity.setKdcFlags(resIdentity.getInt(2));
+                    krbIdentity.setDisabled(resIdentity.getBoolean(3));
+                    krbIdentity.setLocked(resIdentity.getBoolean(4));
+                    krbIdentity.setCreatedTime(new KerberosTime(resIdentity.getLong(5)));
+                    krbIdentity.setExpireTime(new KerberosTime(resIdentity.getLong(6)));
                 }
-                if (krbIdentity != null && keys.size() > 0) {
-                    krbIdentity.addKeys(keys);
+
+                // Get key info, none for an identity without keys
+                String keyType = resIdentity.getString(7);
+                if (keyType != null) {
+                    EncryptionType eType = EncryptionType.fromName(keyType);
+                    krbIdentity.addKey(new EncryptionKey(eType, resIdentity.getBytes(9),
+                        resIdentity.getInt(8)));
                 }
-                return krbIdentity;
-            } else {
-                return null;
             }
+            return krbIdentity;
         } catch (SQLException e) {
             LOG.error("Error occurred while getting identity. " + e.toString());
             throw new KrbException("Failed to get identity. ", e);
@@ -341,18 +329,8 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected KrbIdentity doUpdateIdentity(KrbIdentity identity) throws KrbException {
-        String principalName = identity.getPrincipalName();
-        try {
-            // Delete old identity
-            doDeleteIdentity(principalName);
-            // Insert new identity
-            doAddIdentity(identity);
-        } catch (KrbException e) {
-            LOG.error("Error occurred while updating identity: " + principalName);
-            throw new KrbException("Failed to update identity. ", e);
-        }
-
-        return getIdentity(principalName);
+        new MySQLBatchTrans().updateIdentity(identity).commit();
+        return identity;
     }
 
     /**
@@ -360,72 +338,288 @@ public class MySQLIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected void doDeleteIdentity(String principalName) throws KrbException {
-        Connection connection = null;
-        PreparedStatement preKey = null;
-        PreparedStatement preIdentity = null;
-        try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-
-            // Delete keys from key table
-            String stmKey = "DELETE FROM  " + keyInfoTable + " WHERE principal = ?";
-            preKey = connection.prepareStatement(stmKey);
-            preKey.setString(1, principalName);
-            preKey.executeUpdate();
-
-            // Delete identity from identity table
-            String stmIdentity = "DELETE FROM " + identityTable + " WHERE principal = ? ";
-            preIdentity = connection.prepareStatement(stmIdentity);
-            preIdentity.setString(1, principalName);
-            preIdentity.executeUpdate();
-
-            connection.commit();
-        } catch (SQLException e) {
-            try {
-                LOG.warn("Transaction is being rolled back.");
-                if (connection != null) {
-                    connection.rollback();
-                }
-            } catch (SQLException ex) {
-                throw new KrbException("Transaction roll back failed. ", ex);
-            }
-            LOG.error("Error occurred while deleting identity.");
-            throw new KrbException("Failed to delete identity. ", e);
-        } finally {
-            DbUtils.closeQuietly(preIdentity);
-            DbUtils.closeQuietly(preKey);
-            DbUtils.closeQuietly(connection);
-        }
+        new MySQLBatchTrans().deleteIdentity(principalName).commit();
     }
 
     /**
      * {@inheritDoc}
+     *
+     * The principals are fetched page by page in order while iterating, each
+     * page with its own short connection checkout, so neither the whole list
+     * nor a connection is held.
      */
     @Override
     protected Iterable<String> doGetIdentities() throws KrbException {
-        List<String> identityNames = new ArrayList<>();
+        final List<String> firstPage;
+        try {
+            firstPage = getPrincipals("");
+        } catch (SQLException e) {
+            LOG.error("Error occurred while getting identities.", e);
+            throw new KrbException("Failed to get identities. ", e);
+        }
+
+        return new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new PrincipalIterator(firstPage);
+            }
+        };
+    }
+
+    /**
+     * Get a page of principals in order.
+     * @param after The last principal of the previous page
+     */
+    private List<String> getPrincipals(String after) throws SQLException {
+        List<String> principals = new ArrayList<>(pageSize);
         Connection connection = null;
         PreparedStatement preSmt = null;
         ResultSet result = null;
         try {
             connection = dataSource.getConnection();
-            String statement = "SELECT * FROM " + identityTable;
-            preSmt = connection.prepareStatement(statement);
+            preSmt = connection.prepareStatement(sqlSelectPrincipals);
+            preSmt.setString(1, after);
+            preSmt.setInt(2, pageSize);
+            preSmt.setFetchSize(pageSize);
             result = preSmt.executeQuery();
             while (result.next()) {
-                identityNames.add(result.getString("principal"));
+                principals.add(result.getString(1));
             }
-            result.close();
-            preSmt.close();
-        } catch (SQLException e) {
-            LOG.error("Error occurred while getting identities.", e);
-            throw new KrbException("Failed to get identities. ", e);
         } finally {
-            DbUtils.closeQuietly(preSmt);
             DbUtils.closeQuietly(result);
+            DbUtils.closeQuietly(preSmt);
             DbUtils.closeQuietly(connection);
         }
+        return principals;
+    }
+
+    /**
+     * Iterate over the principals, fetching the next page when the current
+     * one is consumed.
+     */
+    private class PrincipalIterator implements Iterator<String> {
+        private List<String> page;
+        private int index;
+
+        PrincipalIterator(List<String> firstPage) {
+            this.page = firstPage;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < page.size()) {
+                return true;
+            }
+            if (page.size() < pageSize) {
+                return false;
+            }
+
+            try {
+                page = getPrincipals(page.get(page.size() - 1));
+            } catch (SQLException e) {
+                LOG.error("Error occurred while getting identities.", e);
+                throw new IllegalStateException("Failed to get identities.", e);
+            }
+            index = 0;
+            return !page.isEmpty();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Buffer the changes and write them in a single database transaction on
+     * commit, with one connection checkout. Consecutive changes of the same
+     * kind are sent as JDBC batches, so adding many identities takes a few
+     * round trips whatever their number.
+     */
+    class MySQLBatchTrans implements BatchTrans {
+        private static final int ADD = 0;
+        private static final int UPDATE = 1;
+        private static final int DELETE = 2;
+
+        private final List<KrbIdentity> identities = new ArrayList<>();
+        private final List<String> principals = new ArrayList<>();
+        private final List<Integer> operations = new ArrayList<>();
+
+        @Override
+        public void commit() throws KrbException {
+            if (operations.isEmpty()) {
+                return;
+            }
+
+            Connection connection = null;
+            try {
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+
+                // A principal changed twice goes in the next batch, as the
+                // key deletions of a batch run before its key insertions
+                int from = 0;
+                Set<String> batched = new HashSet<>();
+                for (int i = 0; i < operations.size(); i++) {
+                    if (i > from && (!operations.get(i).equals(operations.get(from))
+                        || batched.contains(principals.get(i)))) {
+                        execute(connection, operations.get(from), from, i);
+                        from = i;
+                        batched.clear();
+                    }
+                    batched.add(principals.get(i));
+                }
+                execute(connection, operations.get(from), from, operations.size());
+
+                connection.commit();
+            } catch (SQLException e) {
+                try {
+                    LOG.warn("Transaction is being rolled back.");
+                    if (connection != null) {
+                        connection.rollback();
+                    }
+                } catch (SQLException ex) {
+                    throw new KrbException("Transaction roll back failed. ", ex);
+                }
+                LOG.error("Error occurred while writing identities.");
+                throw new KrbException("Failed to write identities. ", e);
+            } finally {
+                DbUtils.closeQuietly(connection);
+                clear();
+            }
+        }
+
+        @Override
+        public void rollback() throws KrbException {
+            // Nothing written yet, just forget the changes.
+            clear();
+        }
+
+        @Override
+        public BatchTrans addIdentity(KrbIdentity identity) throws KrbException {
+            return add(ADD, identity, identity.getPrincipalName());
+        }
+
+        @Override
+        public BatchTrans updateIdentity(KrbIdentity identity) throws KrbException {
+            return add(UPDATE, identity, identity.getPrincipalName());
+        }
+
+        @Override
+        public BatchTrans deleteIdentity(String principalName) throws KrbException {
+            return add(DELETE, null, principalName);
+        }
+
+        private BatchTrans add(int operation, KrbIdentity identity, String principalName) {
+            operations.add(operation);
+            identities.add(identity);
+            principals.add(principalName);
+            return this;
+        }
+
+        private void clear() {
+            operations.clear();
+            identities.clear();
+            principals.clear();
+        }
+
+        /**
+         * Execute the changes from index from to index to, all of the same kind.
+         */
+        private void execute(Connection connection, int operation,
+                             int from, int to) throws SQLException {
+            switch (operation) {
+                case ADD:
+                    executeIdentities(connection, sqlInsertIdentity, from, to, true);
+                    executeKeys(connection, from, to);
+                    break;
+                case UPDATE:
+                    executePrincipals(connection, sqlDeleteKeys, from, to, false);
+                    executeIdentities(connection, sqlUpdateIdentity, from, to, false);
+                    executeKeys(connection, from, to);
+                    break;
+                default:
+                    executePrincipals(connection, sqlDeleteKeys, from, to, false);
+                    executePrincipals(connection, sqlDeleteIdentity, from, to, true);
+                    break;
+            }
+        }
 
-        return identityNames;
+        private void executeIdentities(Connection connection, String sql, int from,
+                                       int to, boolean insert) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    KrbIdentity identity = identities.get(i);
+                    int index = 1;
+                    if (insert) {
+                        statement.setString(index++, identity.getPrincipalName());
+                    }
+                    statement.setInt(index++, identity.getKeyVersion());
+                    statement.setInt(index++, identity.getKdcFlags());
+                    statement.setBoolean(index++, identity.isDisabled());
+                    statement.setBoolean(index++, identity.isLocked());
+                    statement.setLong(index++, identity.getCreatedTime().getTime());
+                    statement.setLong(index++, identity.getExpireTime().getTime());
+                    if (!insert) {
+                        statement.setString(index, identity.getPrincipalName());
+                    }
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                if (!insert) {
+                    checkUpdated(counts, from);
+                }
+            }
+        }
+
+        private void executeKeys(Connection connection, int from, int to) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(sqlInsertKey)) {
+                boolean empty = true;
+                for (int i = from; i < to; i++) {
+                    KrbIdentity identity = identities.get(i);
+                    for (Map.Entry<EncryptionType, EncryptionKey> entry : identity.getKeys().entrySet()) {
+                        statement.setString(1, entry.getKey().getName());
+                        statement.setInt(2, entry.getValue().getKvno());
+                        statement.setBytes(3, entry.getValue().getKeyData());
+                        statement.setString(4, identity.getPrincipalName());
+                        statement.addBatch();
+                        empty = false;
+                    }
+                }
+                if (!empty) {
+                    statement.executeBatch();
+                }
+            }
+        }
+
+        private void executePrincipals(Connection connection, String sql, int from,
+                                       int to, boolean check) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    statement.setString(1, principals.get(i));
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                if (check) {
+                    checkUpdated(counts, from);
+                }
+            }
+        }
+
+        private void checkUpdated(int[] counts, int from) throws SQLException {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new SQLException("Principal does not exist: " + principals.get(from + i));
+                }
+            }
+        }
     }
 }
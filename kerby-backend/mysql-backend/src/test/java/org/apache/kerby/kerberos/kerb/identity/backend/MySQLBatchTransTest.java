@@ -0,0 +1,168 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.identity.backend;
+
+import org.apache.kerby.config.Conf;
+import org.apache.kerby.kerberos.kdc.identitybackend.MySQLConfKey;
+import org.apache.kerby.kerberos.kdc.identitybackend.MySQLIdentityBackend;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MySQLBatchTransTest {
+    private static File testDir = new File(System.getProperty("test.dir", "target"));
+    private static File dbFile = new File(testDir, "mysqlbatch.mv.db");
+    private static String url;
+    private static MySQLIdentityBackend backend;
+
+    @BeforeAll
+    public static void setup() throws KrbException, IOException {
+        Conf config = new Conf();
+        config.setString(MySQLConfKey.MYSQL_DRIVER, "org.h2.Driver");
+        url = "jdbc:h2:" + testDir.getCanonicalPath() + "/mysqlbatch;MODE=MySQL";
+        config.setString(MySQLConfKey.MYSQL_URL, url);
+        config.setString(MySQLConfKey.MYSQL_USER, "root");
+        config.setString(MySQLConfKey.MYSQL_PASSWORD, "123456");
+        config.setInt(MySQLConfKey.MYSQL_FETCH_SIZE, 7);
+        backend = new MySQLIdentityBackend(config);
+        backend.initialize();
+    }
+
+    @AfterAll
+    public static void tearDown() throws KrbException {
+        if (backend != null) {
+            backend.stop();
+        }
+        if (dbFile.exists() && !dbFile.delete()) {
+            System.err.println("Failed to delete the test database file.");
+        }
+    }
+
+    @Test
+    public void testBatchTrans() throws KrbException {
+        assertThat(backend.supportBatchTrans()).isTrue();
+        List<KrbIdentity> identities = BackendTestUtil.createManyIdentities(50);
+
+        BatchTrans batch = backend.startBatchTrans();
+        for (KrbIdentity identity : identities) {
+            batch.addIdentity(identity);
+        }
+        batch.commit();
+        for (KrbIdentity identity : identities) {
+            assertThat(backend.getIdentity(identity.getPrincipalName())).isEqualTo(identity);
+        }
+
+        // Pages of 7 principals
+        List<String> principals = new ArrayList<>();
+        for (String principal : backend.getIdentities()) {
+            principals.add(principal);
+        }
+        assertThat(principals).hasSize(identities.size()).isSorted();
+
+        // Mixed changes, applied in order
+        KrbIdentity updated = identities.get(0);
+        updated.setDisabled(true);
+        updated.setKeyVersion(2);
+        KrbIdentity readded = identities.get(1);
+        batch = backend.startBatchTrans();
+        batch.updateIdentity(updated)
+            .deleteIdentity(readded.getPrincipalName())
+            .addIdentity(readded)
+            .deleteIdentity(identities.get(2).getPrincipalName());
+        batch.commit();
+        assertThat(backend.getIdentity(updated.getPrincipalName())).isEqualTo(updated);
+        assertThat(backend.getIdentity(readded.getPrincipalName())).isEqualTo(readded);
+        assertThat(backend.getIdentity(identities.get(2).getPrincipalName())).isNull();
+
+        // Nothing written on rollback
+        batch = backend.startBatchTrans();
+        batch.deleteIdentity(identities.get(3).getPrincipalName());
+        batch.rollback();
+        batch.commit();
+        assertThat(backend.getIdentity(identities.get(3).getPrincipalName())).isNotNull();
+
+        // Nothing written if any change fails
+        batch = backend.startBatchTrans();
+        batch.deleteIdentity(identities.get(3).getPrincipalName())
+            .deleteIdentity(identities.get(2).getPrincipalName());
+        final BatchTrans failing = batch;
+        assertThatThrownBy(failing::commit).isInstanceOf(KrbException.class);
+        assertThat(backend.getIdentity(identities.get(3).getPrincipalName())).isNotNull();
+
+        batch = backend.startBatchTrans();
+        for (KrbIdentity identity : identities.subList(3, identities.size())) {
+            batch.deleteIdentity(identity.getPrincipalName());
+        }
+        batch.deleteIdentity(updated.getPrincipalName())
+            .deleteIdentity(readded.getPrincipalName());
+        batch.commit();
+        assertThat(backend.getIdentities()).isEmpty();
+    }
+
+    @Test
+    public void testUpdateTwice() throws Exception {
+        String principal = "twice@" + BackendTestUtil.TEST_REALM;
+        backend.addIdentity(BackendTestUtil.createOneIdentity(principal));
+
+        try {
+            KrbIdentity first = BackendTestUtil.createOneIdentity(principal);
+            KrbIdentity second = BackendTestUtil.createOneIdentity(principal);
+            second.setKeyVersion(3);
+            backend.startBatchTrans()
+                .updateIdentity(first)
+                .updateIdentity(second)
+                .commit();
+
+            KrbIdentity updated = backend.getIdentity(principal);
+            assertThat(updated.getKeyVersion()).isEqualTo(3);
+            assertThat(updated.getKeys()).isEqualTo(second.getKeys());
+            assertThat(countKeys(principal)).isEqualTo(second.getKeys().size());
+        } finally {
+            backend.deleteIdentity(principal);
+        }
+    }
+
+    private static int countKeys(String principal) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "root", "123456");
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT COUNT(*) FROM `kerby_key` WHERE principal = ?")) {
+            statement.setString(1, principal);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kdc.identitybackend;
+
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.apache.kerby.kerberos.kerb.type.KerberosTime;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Encode and decode an identity as the data of its single znode, replacing
+ * the legacy layout of one znode per attribute. The record starts with a
+ * format version, so an identity znode with empty data is a legacy one.
+ */
+public final class IdentityZNodeCodec {
+    static final byte VERSION = 1;
+
+    private static final int DISABLED = 0x01;
+    private static final int LOCKED = 0x02;
+
+    private IdentityZNodeCodec() { }
+
+    /**
+     * Tell whether the znode data is an encoded identity record.
+     * @param data The znode data
+     * @return true if encoded by this codec, false for a legacy identity znode
+     */
+    public static boolean isRecord(byte[] data) {
+        return data != null && data.length > 0 && data[0] == VERSION;
+    }
+
+    /**
+     * Encode the identity.
+     * @param identity The identity
+     * @return The znode data
+     * @throws IOException e
+     */
+    public static byte[] encode(KrbIdentity identity) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(VERSION);
+        out.writeUTF(identity.getPrincipalName());
+        out.writeLong(identity.getCreatedTime().getTime());
+        out.writeLong(identity.getExpireTime().getTime());
+        out.writeInt(identity.getKeyVersion());
+        out.writeInt(identity.getKdcFlags());
+        int flags = 0;
+        if (identity.isDisabled()) {
+            flags |= DISABLED;
+        }
+        if (identity.isLocked()) {
+            flags |= LOCKED;
+        }
+        out.writeByte(flags);
+
+        out.writeShort(identity.getKeys().size());
+        for (EncryptionKey key : identity.getKeys().values()) {
+            out.writeInt(key.getKeyType().getValue());
+            out.writeInt(key.getKvno());
+            byte[] keyData = key.getKeyData();
+            out.writeShort(keyData.length);
+            out.write(keyData);
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode an identity record.
+     * @param data The znode data
+     * @return The identity
+     * @throws IOException if not a valid record
+     */
+    public static KrbIdentity decode(byte[] data) throws IOException {
+        if (!isRecord(data)) {
+            throw new IOException("Not an identity record, legacy identity znode?");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1));
+        KrbIdentity identity = new KrbIdentity(in.readUTF());
+        identity.setCreatedTime(new KerberosTime(in.readLong()));
+        identity.setExpireTime(new KerberosTime(in.readLong()));
+        identity.setKeyVersion(in.readInt());
+        identity.setKdcFlags(in.readInt());
+        int flags = in.readUnsignedByte();
+        identity.setDisabled((flags & DISABLED) != 0);
+        identity.setLocked((flags & LOCKED) != 0);
+
+        int keys = in.readUnsignedShort();
+        for (int i = 0; i < keys; i++) {
+            EncryptionType keyType = EncryptionType.fromValue(in.readInt());
+            int kvno = in.readInt();
+            byte[] keyData = new byte[in.readUnsignedShort()];
+            in.readFully(keyData);
+            identity.addKey(new EncryptionKey(keyType, keyData, kvno));
+        }
+        return identity;
+    }
+}
@@ -21,12 +21,20 @@ package org.apache.kerby.kerberos.kdc.identitybackend;
 
 import org.apache.kerby.config.Config;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
 import org.apache.kerby.kerberos.kerb.identity.backend.AbstractIdentityBackend;
 import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
 import org.apache.zookeeper.server.ServerConfig;
 import org.apache.zookeeper.server.ZooKeeperServerMain;
 import org.apache.zookeeper.server.quorum.QuorumPeerConfig;
@@ -37,14 +45,26 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A Zookeeper based backend implementation. Currently it uses an embedded
- * Zookeeper. In follow up it will be enhanced to support standalone Zookeeper
- * cluster for replication and reliability.
- * 
+ * A Zookeeper based backend implementation, either with an embedded
+ * Zookeeper or a standalone Zookeeper cluster for replication and
+ * reliability.
+ *
+ * Every identity is encoded in a single znode under /kerby/identities, and
+ * written with a zookeeper transaction. All the identities are kept in a
+ * local replica, maintained by a persistent recursive watch, so lookups
+ * never go to zookeeper. Identities in the legacy layout of one znode per
+ * attribute are migrated when initializing.
  */
 public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
     private static Thread zookeeperThread;
@@ -53,7 +73,11 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
     private int zkPort;
     private String serverStr;
     private File dataDir;
-    private ZooKeeper zooKeeper;
+    private volatile ZooKeeper zooKeeper;
+    private volatile boolean stopped;
+    private final Map<String, KrbIdentity> replica = new ConcurrentHashMap<>();
+    private final ReplicaWatcher replicaWatcher = new ReplicaWatcher();
+    private static final long LOAD_TIMEOUT_SECONDS = 60;
     private static final Logger LOG = LoggerFactory.getLogger(ZookeeperIdentityBackend.class);
 
     public ZookeeperIdentityBackend() {
@@ -83,6 +107,7 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected void doStop() throws KrbException {
+        stopped = true;
         try {
             zooKeeper.close();
         } catch (InterruptedException e) {
@@ -122,6 +147,8 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
             startEmbeddedZookeeper();
         }
         connectZK();
+        migrateLegacyIdentities();
+        startReplica();
     }
 
     /**
@@ -130,7 +157,7 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
     private void connectZK() throws KrbException {
         assert !serverStr.isEmpty() : " zkHosts may be empty ";
         try {
-            zooKeeper = new ZooKeeper(serverStr, 10000, new MyWatcher());
+            zooKeeper = new ZooKeeper(serverStr, 10000, replicaWatcher);
             while (true) {
                 if (!zooKeeper.getState().isConnected()) {
                     try {
@@ -182,17 +209,76 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
     }
 
     /**
-     * {@inheritDoc}
+     * Convert the identities stored in the legacy layout, one znode per
+     * attribute, to a single encoded znode each. Every conversion replaces
+     * the attribute znodes and sets the record in one transaction, and is
+     * skipped if the identity got changed meanwhile: the versions of the
+     * identity znode and of all the attribute znodes are recorded before
+     * reading them, and checked by the transaction.
      */
-    @Override
-    protected KrbIdentity doGetIdentity(String principalName) throws KrbException {
-        principalName = replaceSlash(principalName);
-        IdentityZNode identityZNode = new IdentityZNode(zooKeeper, principalName);
-        KrbIdentity krb = new KrbIdentity(principalName);
+    private void migrateLegacyIdentities() throws KrbException {
+        String identitiesZNode = IdentityZNodeHelper.getIdentitiesZNode();
         try {
-            if (!identityZNode.exist()) {
-                return null;
+            List<String> names = ZKUtil.listChildrenNoWatch(zooKeeper, identitiesZNode);
+            if (names == null) {
+                return;
+            }
+
+            int migrated = 0;
+            for (String name : names) {
+                String znode = IdentityZNodeHelper.getIndentityZNode(name);
+                Stat stat = new Stat();
+                byte[] data;
+                try {
+                    data = zooKeeper.getData(znode, false, stat);
+                } catch (KeeperException.NoNodeException e) {
+                    continue;
+                }
+                if (IdentityZNodeCodec.isRecord(data)) {
+                    continue;
+                }
+
+                Map<String, Integer> children = new LinkedHashMap<>();
+                listDescendants(znode, children);
+                KrbIdentity identity = readLegacyIdentity(name);
+                if (identity == null) {
+                    LOG.warn("Skip migrating the incomplete identity znode " + znode);
+                    continue;
+                }
+
+                List<Op> ops = new ArrayList<>(children.size() + 1);
+                for (Map.Entry<String, Integer> child : children.entrySet()) {
+                    ops.add(Op.delete(child.getKey(), child.getValue()));
+                }
+                ops.add(Op.setData(znode, IdentityZNodeCodec.encode(identity), stat.getVersion()));
+                try {
+                    zooKeeper.multi(ops);
+                    migrated++;
+                } catch (KeeperException.BadVersionException | KeeperException.NoNodeException
+                    | KeeperException.NotEmptyException e) {
+                    LOG.warn("Identity " + name + " changed while migrating it, skipped. " + e);
+                }
+            }
+
+            if (migrated > 0) {
+                LOG.info("Migrated " + migrated + " identities to the single znode layout.");
             }
+        } catch (KeeperException | IOException e) {
+            throw new KrbException("Failed to migrate the legacy identities in zookeeper", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KrbException("Migrating the legacy identities interrupted", e);
+        }
+    }
+
+    /**
+     * Read an identity stored in the legacy layout.
+     * @return the identity, or null if it's incomplete
+     */
+    private KrbIdentity readLegacyIdentity(String name) throws KeeperException {
+        IdentityZNode identityZNode = new IdentityZNode(zooKeeper, name);
+        KrbIdentity krb = new KrbIdentity(name);
+        try {
             krb.setPrincipal(identityZNode.getPrincipalName());
             krb.setCreatedTime(identityZNode.getCreatedTime());
             krb.setDisabled(identityZNode.getDisabled());
@@ -201,11 +287,63 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
             krb.addKeys(identityZNode.getKeys());
             krb.setKeyVersion(identityZNode.getKeyVersion());
             krb.setLocked(identityZNode.getLocked());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return krb;
+    }
+
+    /**
+     * List all the descendants of the znode with their versions, the deepest first.
+     */
+    private void listDescendants(String znode, Map<String, Integer> descendants)
+        throws KeeperException, InterruptedException {
+        List<String> children = ZKUtil.listChildrenNoWatch(zooKeeper, znode);
+        if (children != null) {
+            for (String child : children) {
+                String childZNode = ZKUtil.joinZNode(znode, child);
+                listDescendants(childZNode, descendants);
+                Stat stat = zooKeeper.exists(childZNode, false);
+                if (stat != null) {
+                    descendants.put(childZNode, stat.getVersion());
+                }
+            }
+        }
+    }
+
+    /**
+     * Watch all the identity znodes, then load all of them in the replica.
+     */
+    private void startReplica() throws KrbException {
+        String identitiesZNode = IdentityZNodeHelper.getIdentitiesZNode();
+        Resync resync = new Resync();
+        try {
+            ZKUtil.createWithParents(zooKeeper, identitiesZNode);
+            zooKeeper.addWatch(identitiesZNode, replicaWatcher, AddWatchMode.PERSISTENT_RECURSIVE);
+            zooKeeper.getChildren(identitiesZNode, false, replicaWatcher, resync);
+            if (!resync.loaded.await(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new KrbException("Timed out loading the identities from zookeeper");
+            }
         } catch (KeeperException e) {
-            throw new KrbException("Fail to get identity from zookeeper", e);
+            throw new KrbException("Failed to watch the identities in zookeeper", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KrbException("Loading the identities interrupted", e);
+        }
+        if (resync.error != null) {
+            throw new KrbException("Failed to load the identities from zookeeper", resync.error);
         }
+        LOG.info("Loaded " + replica.size() + " identities from zookeeper.");
+    }
 
-        return krb;
+    /**
+     * {@inheritDoc}
+     *
+     * Served from the local replica, without any round trip to zookeeper.
+     */
+    @Override
+    protected KrbIdentity doGetIdentity(String principalName) throws KrbException {
+        return replica.get(replaceSlash(principalName));
     }
 
     /**
@@ -213,11 +351,9 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected KrbIdentity doAddIdentity(KrbIdentity identity) throws KrbException {
-        try {
-            setIdentity(identity);
-        } catch (Exception e) {
-            throw new KrbException("Fail to add identity to zookeeper", e);
-        }
+        ZKBatchTrans trans = new ZKBatchTrans();
+        trans.addIdentity(identity);
+        trans.commit();
         return doGetIdentity(identity.getPrincipalName());
     }
 
@@ -226,11 +362,9 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected KrbIdentity doUpdateIdentity(KrbIdentity identity) throws KrbException {
-        try {
-            setIdentity(identity);
-        } catch (Exception e) {
-            throw new KrbException("Fail to update identity in zookeeper", e);
-        }
+        ZKBatchTrans trans = new ZKBatchTrans();
+        trans.updateIdentity(identity);
+        trans.commit();
         return doGetIdentity(identity.getPrincipalName());
     }
 
@@ -239,13 +373,9 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected void doDeleteIdentity(String principalName) throws KrbException {
-        principalName = replaceSlash(principalName);
-        IdentityZNode identityZNode = new IdentityZNode(zooKeeper, principalName);
-        try {
-            identityZNode.deleteIdentity();
-        } catch (KeeperException e) {
-            throw new KrbException("Fail to delete identity in zookeeper", e);
-        }
+        ZKBatchTrans trans = new ZKBatchTrans();
+        trans.deleteIdentity(principalName);
+        trans.commit();
     }
 
     /**
@@ -253,21 +383,12 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
      */
     @Override
     protected Iterable<String> doGetIdentities() throws KrbException {
-        List<String> identityNames;
-
-        try {
-            // The identities getting from zookeeper is unordered
-            identityNames = IdentityZNodeHelper.getIdentityNames(zooKeeper);
-        } catch (KeeperException e) {
-            throw new KrbException("Fail to get identities from zookeeper", e);
-        }
-
-        if (identityNames == null || identityNames.isEmpty()) {
+        if (replica.isEmpty()) {
             return null;
         }
 
-        List<String> newIdentities = new ArrayList<>(identityNames.size());
-        for (String name : identityNames) {
+        List<String> newIdentities = new ArrayList<>(replica.size());
+        for (String name : replica.keySet()) {
             if (name.contains("\\")) {
                 name = name.replace("\\", "/");
             }
@@ -278,22 +399,40 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
     }
 
     /**
-     * Set the identity to add or update an indentity in the backend.
-     * @param identity . The identity to update
-     * @throws org.apache.zookeeper.KeeperException
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportBatchTrans() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
      */
-    private void setIdentity(KrbIdentity identity) throws KeeperException, IOException {
-        String principalName = identity.getPrincipalName();
-        principalName = replaceSlash(principalName);
-        IdentityZNode identityZNode = new IdentityZNode(zooKeeper, principalName);
-        identityZNode.setPrincipalName(identity.getPrincipalName());
-        identityZNode.setCreatedTime(identity.getCreatedTime());
-        identityZNode.setDisabled(identity.isDisabled());
-        identityZNode.setExpireTime(identity.getExpireTime());
-        identityZNode.setKdcFlags(identity.getKdcFlags());
-        identityZNode.setKeys(identity.getKeys());
-        identityZNode.setKeyVersion(identity.getKeyVersion());
-        identityZNode.setLocked(identity.isLocked());
+    @Override
+    public BatchTrans startBatchTrans() throws KrbException {
+        return new ZKBatchTrans();
+    }
+
+    /**
+     * Run the operations in one zookeeper transaction. The changes are
+     * applied to the replica by the zookeeper event thread, in order with
+     * the watch notifications, before returning.
+     */
+    private void multi(List<Op> ops, Map<String, KrbIdentity> changes) throws KrbException {
+        Transaction transaction = new Transaction(changes);
+        zooKeeper.multi(ops, transaction, null);
+        try {
+            if (!transaction.done.await(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new KrbException("Timed out writing the identities to zookeeper");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KrbException("Writing the identities interrupted", e);
+        }
+        if (transaction.error != null) {
+            throw new KrbException("Fail to write the identities to zookeeper", transaction.error);
+        }
     }
 
     /**
@@ -308,15 +447,247 @@ public class ZookeeperIdentityBackend extends AbstractIdentityBackend {
         return name;
     }
 
-    private static class MyWatcher implements Watcher {
+    /**
+     * The context of a resync of the replica, counting the identities still
+     * to load.
+     */
+    private static class Resync {
+        private final CountDownLatch loaded = new CountDownLatch(1);
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile Exception error;
+
+        void loaded() {
+            if (pending.decrementAndGet() == 0) {
+                loaded.countDown();
+            }
+        }
+    }
+
+    /**
+     * A write transaction, with the changes to apply to the replica on
+     * success, null for a deletion.
+     */
+    private class Transaction implements AsyncCallback.MultiCallback {
+        private final Map<String, KrbIdentity> changes;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Exception error;
+
+        Transaction(Map<String, KrbIdentity> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void processResult(int rc, String path, Object ctx, List<OpResult> opResults) {
+            if (rc == KeeperException.Code.OK.intValue()) {
+                for (Map.Entry<String, KrbIdentity> change : changes.entrySet()) {
+                    if (change.getValue() != null) {
+                        replica.put(change.getKey(), change.getValue());
+                    } else {
+                        replica.remove(change.getKey());
+                    }
+                }
+            } else {
+                error = KeeperException.create(KeeperException.Code.get(rc));
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Maintain the replica from the zookeeper notifications and the replies.
+     * All of them are handled by the single zookeeper event thread in the
+     * order of the session, so the replica never goes back in time.
+     */
+    private class ReplicaWatcher implements Watcher, AsyncCallback.DataCallback,
+        AsyncCallback.ChildrenCallback {
+        private boolean disconnected;
 
         /**
          * This will watch all the kdb update event so that it's timely synced.
          * @param event The kdb update event ot watch.
          */
+        @Override
         public void process(WatchedEvent event) {
-//            System.out.println("I got an event: " + event.getPath());
+            if (event.getType() == Event.EventType.None) {
+                processState(event.getState());
+                return;
+            }
+
+            String path = event.getPath();
+            if (path == null || !IdentityZNodeHelper.getIdentitiesZNode().equals(ZKUtil.getParent(path))) {
+                return;
+            }
+            switch (event.getType()) {
+                case NodeCreated:
+                case NodeDataChanged:
+                    zooKeeper.getData(path, false, this, null);
+                    break;
+                case NodeDeleted:
+                    replica.remove(getName(path));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void processState(Event.KeeperState state) {
+            switch (state) {
+                case Disconnected:
+                    disconnected = true;
+                    break;
+                case SyncConnected:
+                    if (disconnected) {
+                        // Notifications may be lost while disconnected
+                        disconnected = false;
+                        LOG.info("Reconnected to zookeeper, resyncing the identities.");
+                        zooKeeper.getChildren(IdentityZNodeHelper.getIdentitiesZNode(),
+                            false, this, new Resync());
+                    }
+                    break;
+                case Expired:
+                    if (!stopped) {
+                        LOG.warn("Zookeeper session expired, reconnecting.");
+                        reconnect();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void processResult(int rc, String path, Object ctx, List<String> children) {
+            Resync resync = (Resync) ctx;
+            if (rc != KeeperException.Code.OK.intValue()) {
+                resync.error = KeeperException.create(KeeperException.Code.get(rc), path);
+                resync.loaded.countDown();
+                return;
+            }
+
+            replica.keySet().retainAll(new HashSet<>(children));
+            resync.pending.set(children.size() + 1);
+            for (String child : children) {
+                zooKeeper.getData(ZKUtil.joinZNode(path, child), false, this, resync);
+            }
+            resync.loaded();
+        }
+
+        @Override
+        public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+            String name = getName(path);
+            if (rc == KeeperException.Code.OK.intValue()) {
+                if (IdentityZNodeCodec.isRecord(data)) {
+                    try {
+                        replica.put(name, IdentityZNodeCodec.decode(data));
+                    } catch (IOException e) {
+                        LOG.error("Fail to decode the identity " + path, e);
+                    }
+                }
+                // Else a legacy identity, visible once migrated
+            } else if (rc == KeeperException.Code.NONODE.intValue()) {
+                replica.remove(name);
+            } else {
+                LOG.warn("Fail to load the identity " + path + ": " + KeeperException.Code.get(rc));
+            }
+
+            if (ctx != null) {
+                ((Resync) ctx).loaded();
+            }
+        }
+
+        private String getName(String path) {
+            return path.substring(path.lastIndexOf(ZKUtil.ZNODE_PATH_SEPARATOR) + 1);
         }
+    }
+
+    /**
+     * Connect with a new session and reload the replica, after the session
+     * expired.
+     */
+    private void reconnect() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    zooKeeper.close();
+                    connectZK();
+                    startReplica();
+                } catch (KrbException e) {
+                    LOG.error("Fail to reconnect to zookeeper. " + e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "zookeeper-backend-reconnect");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    /**
+     * Buffer the changes and write them in a single zookeeper transaction.
+     */
+    class ZKBatchTrans implements BatchTrans {
+        private final List<Op> ops = new ArrayList<>();
+        private final Map<String, KrbIdentity> changes = new LinkedHashMap<>();
+
+        @Override
+        public void commit() throws KrbException {
+            if (!ops.isEmpty()) {
+                multi(ops, changes);
+                ops.clear();
+                changes.clear();
+            }
+        }
+
+        @Override
+        public void rollback() throws KrbException {
+            // Nothing written yet, just forget the operations.
+            ops.clear();
+            changes.clear();
+        }
+
+        @Override
+        public BatchTrans addIdentity(KrbIdentity identity) throws KrbException {
+            String name = replaceSlash(identity.getPrincipalName());
+            byte[] data = encode(identity);
+            ops.add(Op.create(IdentityZNodeHelper.getIndentityZNode(name), data,
+                ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT));
+            changes.put(name, decode(data));
+            return this;
+        }
+
+        @Override
+        public BatchTrans updateIdentity(KrbIdentity identity) throws KrbException {
+            String name = replaceSlash(identity.getPrincipalName());
+            byte[] data = encode(identity);
+            ops.add(Op.setData(IdentityZNodeHelper.getIndentityZNode(name), data, -1));
+            changes.put(name, decode(data));
+            return this;
+        }
+
+        @Override
+        public BatchTrans deleteIdentity(String principalName) throws KrbException {
+            String name = replaceSlash(principalName);
+            ops.add(Op.delete(IdentityZNodeHelper.getIndentityZNode(name), -1));
+            changes.put(name, null);
+            return this;
+        }
+
+        private byte[] encode(KrbIdentity identity) throws KrbException {
+            try {
+                return IdentityZNodeCodec.encode(identity);
+            } catch (IOException e) {
+                throw new KrbException("Fail to encode identity " + identity.getPrincipalName(), e);
+            }
+        }
+
+        private KrbIdentity decode(byte[] data) throws KrbException {
+            // A copy for the replica, not shared with the caller
+            try {
+                return IdentityZNodeCodec.decode(data);
+            } catch (IOException e) {
+                throw new KrbException("Fail to decode identity", e);
+            }
+        }
     }
 }
@@ -0,0 +1,192 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.identity.backend;
+
+import org.apache.kerby.config.Conf;
+import org.apache.kerby.kerberos.kdc.identitybackend.IdentityZNode;
+import org.apache.kerby.kerberos.kdc.identitybackend.IdentityZNodeCodec;
+import org.apache.kerby.kerberos.kdc.identitybackend.IdentityZNodeHelper;
+import org.apache.kerby.kerberos.kdc.identitybackend.ZKConfKey;
+import org.apache.kerby.kerberos.kdc.identitybackend.ZKUtil;
+import org.apache.kerby.kerberos.kdc.identitybackend.ZookeeperIdentityBackend;
+import org.apache.kerby.kerberos.kerb.identity.BatchTrans;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.apache.zookeeper.ZooKeeper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test the local replicas of two backends sharing the in-process zookeeper,
+ * and the migration from the legacy layout.
+ */
+public class ZookeeperReplicaTest {
+    private static File dataDir;
+    private static ZookeeperIdentityBackend writer;
+    private static ZookeeperIdentityBackend reader;
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        File testdir = new File(System.getProperty("test.dir", "target"));
+        dataDir = new File(new File(testdir, "zookeeper"), "data");
+        dataDir.mkdirs();
+
+        writer = createBackend(true);
+        reader = createBackend(false);
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (reader != null) {
+            reader.stop();
+        }
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private static ZookeeperIdentityBackend createBackend(boolean embedded) throws Exception {
+        Conf config = new Conf();
+        config.setString(ZKConfKey.DATA_DIR.getPropertyKey(), dataDir.getAbsolutePath());
+        config.setBoolean(ZKConfKey.EMBEDDED_ZK.getPropertyKey(), embedded);
+        ZookeeperIdentityBackend backend = new ZookeeperIdentityBackend(config);
+        backend.initialize();
+        backend.start();
+        return backend;
+    }
+
+    private static void waitFor(ZookeeperIdentityBackend backend, String principal,
+                                boolean disabled, boolean exists) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            KrbIdentity identity = backend.getIdentity(principal);
+            if (exists ? identity != null && identity.isDisabled() == disabled : identity == null) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void testReplica() throws Exception {
+        String principal = "replica/host@EXAMPLE.COM";
+        KrbIdentity identity = BackendTestUtil.createOneIdentity(principal);
+        writer.addIdentity(identity);
+        assertThat(writer.getIdentity(principal)).isEqualTo(identity);
+
+        waitFor(reader, principal, false, true);
+        assertThat(reader.getIdentity(principal)).isEqualTo(identity);
+
+        identity.setDisabled(true);
+        writer.updateIdentity(identity);
+        waitFor(reader, principal, true, true);
+        assertThat(reader.getIdentity(principal)).isEqualTo(identity);
+
+        writer.deleteIdentity(principal);
+        assertThat(writer.getIdentity(principal)).isNull();
+        waitFor(reader, principal, true, false);
+        assertThat(reader.getIdentity(principal)).isNull();
+    }
+
+    @Test
+    public void testBatchTrans() throws Exception {
+        List<KrbIdentity> identities = BackendTestUtil.createManyIdentities(3);
+        assertThat(writer.supportBatchTrans()).isTrue();
+
+        BatchTrans batch = writer.startBatchTrans();
+        for (KrbIdentity identity : identities) {
+            batch.addIdentity(identity);
+        }
+        batch.commit();
+        for (KrbIdentity identity : identities) {
+            assertThat(writer.getIdentity(identity.getPrincipalName())).isEqualTo(identity);
+            waitFor(reader, identity.getPrincipalName(), false, true);
+            assertThat(reader.getIdentity(identity.getPrincipalName())).isEqualTo(identity);
+        }
+
+        // The whole transaction fails if any operation fails
+        batch = writer.startBatchTrans();
+        batch.deleteIdentity(identities.get(0).getPrincipalName());
+        batch.deleteIdentity("missing@EXAMPLE.COM");
+        try {
+            batch.commit();
+        } catch (Exception e) { //NOPMD
+            // Expected
+        }
+        assertThat(writer.getIdentity(identities.get(0).getPrincipalName())).isNotNull();
+
+        batch = writer.startBatchTrans();
+        for (KrbIdentity identity : identities) {
+            batch.deleteIdentity(identity.getPrincipalName());
+        }
+        batch.commit();
+        for (KrbIdentity identity : identities) {
+            assertThat(writer.getIdentity(identity.getPrincipalName())).isNull();
+        }
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        String principal = "legacy/host@EXAMPLE.COM";
+        String name = "legacy\\host@EXAMPLE.COM";
+        KrbIdentity identity = BackendTestUtil.createOneIdentity(principal);
+
+        ZooKeeper zk = new ZooKeeper("127.0.0.1:" + ZKConfKey.ZK_PORT.getDefaultValue(), 10000, null);
+        try {
+            while (!zk.getState().isConnected()) {
+                Thread.sleep(10);
+            }
+            IdentityZNode identityZNode = new IdentityZNode(zk, name);
+            identityZNode.setPrincipalName(identity.getPrincipalName());
+            identityZNode.setCreatedTime(identity.getCreatedTime());
+            identityZNode.setDisabled(identity.isDisabled());
+            identityZNode.setExpireTime(identity.getExpireTime());
+            identityZNode.setKdcFlags(identity.getKdcFlags());
+            identityZNode.setKeys(identity.getKeys());
+            identityZNode.setKeyVersion(identity.getKeyVersion());
+            identityZNode.setLocked(identity.isLocked());
+            assertThat(reader.getIdentity(principal)).isNull();
+
+            ZookeeperIdentityBackend migrated = createBackend(false);
+            try {
+                assertThat(migrated.getIdentity(principal)).isEqualTo(identity);
+
+                String znode = IdentityZNodeHelper.getIndentityZNode(name);
+                assertThat(ZKUtil.listChildrenNoWatch(zk, znode)).isEmpty();
+                assertThat(IdentityZNodeCodec.decode(ZKUtil.getData(zk, znode))).isEqualTo(identity);
+
+                // Picked up by the running backends once migrated
+                waitFor(reader, principal, identity.isDisabled(), true);
+                assertThat(reader.getIdentity(principal)).isEqualTo(identity);
+
+                migrated.deleteIdentity(principal);
+            } finally {
+                migrated.stop();
+            }
+        } finally {
+            ZKUtil.deleteNodeRecursively(zk, IdentityZNodeHelper.getIndentityZNode(name));
+            zk.close();
+        }
+    }
+}
@@ -77,8 +77,8 @@ public final class Asn1Converter {
                                      Class<? extends Asn1Type> type) throws IOException {
         Asn1Type value;
         try {
-            value = type.newInstance();
-        } catch (Exception e) {
+            value = Asn1Factory.create(type);
+        } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid type: "
                 + type.getCanonicalName(), e);
         }
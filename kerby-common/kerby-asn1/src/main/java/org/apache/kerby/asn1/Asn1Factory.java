@@ -23,10 +23,24 @@ import org.apache.kerby.asn1.type.Asn1Collection;
 import org.apache.kerby.asn1.type.Asn1Simple;
 import org.apache.kerby.asn1.type.Asn1Type;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
 /**
  * ASN1 type factory
  */
 public class Asn1Factory {
+    private static final ClassValue<Constructor<?>> CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                return type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Bad type provided, no default constructor? "
+                    + type.getName(), e);
+            }
+        }
+    };
 
     /**
      * Create an ASN1 type with specified tag number
@@ -54,4 +68,24 @@ public class Asn1Factory {
         }
         throw new IllegalArgumentException("Unexpected tag " + tagNo);
     }
+
+    /**
+     * Create an ASN1 type with its default constructor, looked up once per
+     * type.
+     * @param type The type
+     * @param <T> The type
+     * @return ASN1 type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Asn1Type> T create(Class<T> type) {
+        try {
+            return (T) CONSTRUCTORS.get(type).newInstance();
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Failed to create "
+                + type.getName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Failed to create "
+                + type.getName() + ", no default constructor?", e);
+        }
+    }
 }
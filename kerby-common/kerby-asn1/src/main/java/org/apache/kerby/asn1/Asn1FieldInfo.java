@@ -21,14 +21,20 @@ package org.apache.kerby.asn1;
 
 import org.apache.kerby.asn1.type.Asn1Type;
 
+import java.util.function.Supplier;
+
 /**
  * Representing a field in a ASN1 collection or choice.
+ *
+ * The field value is created with the given factory, like a constructor
+ * reference, rather than reflectively from the field type when decoding.
  */
 public class Asn1FieldInfo {
     private EnumType index;
     private int tagNo = -1; // Indicate a non-tagged field
     private boolean isImplicit;
     private Class<? extends Asn1Type> type;
+    private Supplier<? extends Asn1Type> factory;
     private Tag tag = null;
 
     /**
@@ -68,6 +74,43 @@ public class Asn1FieldInfo {
         this.tagNo = -1; // Indicate a non-tagged field
     }
 
+    /**
+     * Constructor for a tagged field, the tagNo being the same of index.
+     * @param index
+     * @param factory
+     * @param isImplicit
+     */
+    public Asn1FieldInfo(EnumType index, Supplier<? extends Asn1Type> factory,
+                         boolean isImplicit) {
+        this(index, index.getValue(), factory, isImplicit);
+    }
+
+    /**
+     * Constructor for a tagged field.
+     * @param index
+     * @param tagNo
+     * @param factory
+     * @param isImplicit
+     */
+    public Asn1FieldInfo(EnumType index, int tagNo, Supplier<? extends Asn1Type> factory,
+                         boolean isImplicit) {
+        this.index = index;
+        this.tagNo = tagNo;
+        this.factory = factory;
+        this.isImplicit = isImplicit;
+    }
+
+    /**
+     * Constructor for a non-tagged field.
+     * @param index
+     * @param factory
+     */
+    public Asn1FieldInfo(EnumType index, Supplier<? extends Asn1Type> factory) {
+        this.index = index;
+        this.factory = factory;
+        this.tagNo = -1; // Indicate a non-tagged field
+    }
+
     public boolean isTagged() {
         return tagNo != -1;
     }
@@ -93,23 +136,40 @@ public class Asn1FieldInfo {
     }
 
     public Asn1Type createFieldValue() {
-        try {
-            return type.newInstance();
-        } catch (Exception e) {
-            throw new IllegalArgumentException(
-                "Bad field type provided, no default constructor?", e);
+        if (factory != null) {
+            return factory.get();
         }
+        return Asn1Factory.create(type);
     }
 
+    /**
+     * Get the tag of the field value, computed once.
+     * @return The tag
+     */
     public Tag getFieldTag() {
         if (tag == null) {
-            Asn1Type fieldValue = createFieldValue();
-            tag = fieldValue.tag();
+            resolve();
         }
         return tag;
     }
 
     public Class<? extends Asn1Type> getType() {
+        if (type == null) {
+            resolve();
+        }
         return type;
     }
+
+    /**
+     * Learn the tag and the type from a sample value. Not done when
+     * constructing, as the field infos are built when initializing the
+     * classes, and types can contain each other.
+     */
+    private void resolve() {
+        Asn1Type fieldValue = createFieldValue();
+        if (type == null) {
+            type = fieldValue.getClass();
+        }
+        tag = fieldValue.tag();
+    }
 }
@@ -21,6 +21,8 @@ package org.apache.kerby.asn1;
 
 import org.apache.kerby.asn1.type.Asn1Type;
 
+import java.util.function.Supplier;
+
 /**
  * Representing an explicitly tagged field in a ASN1 collection or choice.
  */
@@ -43,4 +45,22 @@ public class ExplicitField extends Asn1FieldInfo {
     public ExplicitField(EnumType index, Class<? extends Asn1Type> type) {
         super(index, index.getValue(), type, false);
     }
+
+    /**
+     * Constructor for an explicitly tagged field.
+     * @param index
+     * @param factory
+     */
+    public ExplicitField(EnumType index, int tagNo, Supplier<? extends Asn1Type> factory) {
+        super(index, tagNo, factory, false);
+    }
+
+    /**
+     * Constructor for an explicitly tagged field, the tagNo being the same of index.
+     * @param index
+     * @param factory
+     */
+    public ExplicitField(EnumType index, Supplier<? extends Asn1Type> factory) {
+        super(index, index.getValue(), factory, false);
+    }
 }
@@ -21,6 +21,8 @@ package org.apache.kerby.asn1;
 
 import org.apache.kerby.asn1.type.Asn1Type;
 
+import java.util.function.Supplier;
+
 /**
  * Representing an implicitly tagged field in a ASN1 collection or choice.
  */
@@ -43,4 +45,22 @@ public class ImplicitField extends Asn1FieldInfo {
     public ImplicitField(EnumType index, Class<? extends Asn1Type> type) {
         super(index, index.getValue(), type, true);
     }
+
+    /**
+     * Constructor for an implicitly tagged field.
+     * @param index
+     * @param factory
+     */
+    public ImplicitField(EnumType index, int tagNo, Supplier<? extends Asn1Type> factory) {
+        super(index, tagNo, factory, true);
+    }
+
+    /**
+     * Constructor for an implicitly tagged field, the tagNo being the same of index.
+     * @param index
+     * @param factory
+     */
+    public ImplicitField(EnumType index, Supplier<? extends Asn1Type> factory) {
+        super(index, index.getValue(), factory, true);
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.kerby.asn1.Asn1Binder;
 import org.apache.kerby.asn1.Asn1Converter;
 import org.apache.kerby.asn1.Asn1Dumpable;
 import org.apache.kerby.asn1.Asn1Dumper;
+import org.apache.kerby.asn1.Asn1Factory;
 import org.apache.kerby.asn1.Asn1FieldInfo;
 import org.apache.kerby.asn1.Tag;
 import org.apache.kerby.asn1.TaggingOption;
@@ -185,8 +186,8 @@ public class Asn1Any
     private <T extends Asn1Type> void typeAwareDecode(Class<T> t) throws IOException {
         T result;
         try {
-            result = t.newInstance();
-        } catch (Exception e) {
+            result = Asn1Factory.create(t);
+        } catch (IllegalArgumentException e) {
             throw new IOException("No default constructor?", e);
         }
 
@@ -20,6 +20,7 @@
 package org.apache.kerby.asn1.type;
 
 import org.apache.kerby.asn1.Asn1Binder;
+import org.apache.kerby.asn1.Asn1Factory;
 import org.apache.kerby.asn1.UniversalTag;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 
@@ -29,6 +30,13 @@ import java.util.List;
 
 public abstract class Asn1CollectionOf<T extends Asn1Type>
     extends Asn1Collection {
+    private static final ClassValue<Class<?>> ELEMENT_TYPES = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            return (Class<?>) ((ParameterizedType)
+                type.getGenericSuperclass()).getActualTypeArguments()[0];
+        }
+    };
 
     public Asn1CollectionOf(UniversalTag universalTag) {
         super(universalTag);
@@ -70,17 +78,20 @@ public abstract class Asn1CollectionOf<T extends Asn1Type>
     }
 
     private Class<T> getElementType() {
-        Class<T> elementType = (Class<T>) ((ParameterizedType)
-            getClass().getGenericSuperclass()).getActualTypeArguments()[0];
-        return elementType;
+        return (Class<T>) ELEMENT_TYPES.get(getClass());
     }
 
+    /**
+     * Create an element when decoding, by default with the default
+     * constructor of the element type. Override to avoid the reflection.
+     * @return The element
+     * @throws IOException e
+     */
     protected T createElement() throws IOException {
-        Class<?> eleType = getElementType();
+        Class<T> eleType = getElementType();
         try {
-            T result = (T) eleType.newInstance();
-            return result;
-        } catch (Exception e) {
+            return Asn1Factory.create(eleType);
+        } catch (IllegalArgumentException e) {
             throw new IOException("Failed to create element type, "
                 + "no default constructor? " + eleType.getName(), e);
         }
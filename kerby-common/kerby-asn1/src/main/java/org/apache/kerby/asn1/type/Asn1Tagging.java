@@ -21,6 +21,7 @@ package org.apache.kerby.asn1.type;
 
 import org.apache.kerby.asn1.Asn1Dumpable;
 import org.apache.kerby.asn1.Asn1Dumper;
+import org.apache.kerby.asn1.Asn1Factory;
 import org.apache.kerby.asn1.Tag;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
@@ -34,6 +35,13 @@ import java.nio.ByteBuffer;
  */
 public class Asn1Tagging<T extends Asn1Type>
     extends AbstractAsn1Type<T> implements Asn1Dumpable {
+    private static final ClassValue<Class<?>> VALUE_TYPES = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            return (Class<?>) ((ParameterizedType)
+                type.getGenericSuperclass()).getActualTypeArguments()[0];
+        }
+    };
 
     public Asn1Tagging(int tagNo, T value,
                        boolean isAppSpecific, boolean isImplicit) {
@@ -94,11 +102,10 @@ public class Asn1Tagging<T extends Asn1Type>
     }
 
     private void initValue() {
-        Class<? extends Asn1Type> valueType = (Class<T>) ((ParameterizedType)
-                getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+        Class<? extends Asn1Type> valueType = (Class<T>) VALUE_TYPES.get(getClass());
         AbstractAsn1Type<?> value;
         try {
-            value = (AbstractAsn1Type<?>) valueType.newInstance();
+            value = (AbstractAsn1Type<?>) Asn1Factory.create(valueType);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create tagged value", e);
         }
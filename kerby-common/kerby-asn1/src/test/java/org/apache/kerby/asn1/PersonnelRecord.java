@@ -52,12 +52,12 @@ public class PersonnelRecord extends Asn1TaggingSet {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PersonnelRecordField.NAME, -1, Name.class),
-            new ExplicitField(PersonnelRecordField.TITLE, 0, Asn1VisibleString.class),
-            new ExplicitField(PersonnelRecordField.NUMBER, -1, EmployeeNumber.class),
-            new ExplicitField(PersonnelRecordField.DATE_OF_HIRE, 1, Date.class),
-            new ExplicitField(PersonnelRecordField.NAME_OF_SPOUSE, 2, Name.class),
-            new ImplicitField(PersonnelRecordField.CHILDREN, 3, Children.class)
+            new ExplicitField(PersonnelRecordField.NAME, -1, Name::new),
+            new ExplicitField(PersonnelRecordField.TITLE, 0, Asn1VisibleString::new),
+            new ExplicitField(PersonnelRecordField.NUMBER, -1, EmployeeNumber::new),
+            new ExplicitField(PersonnelRecordField.DATE_OF_HIRE, 1, Date::new),
+            new ExplicitField(PersonnelRecordField.NAME_OF_SPOUSE, 2, Name::new),
+            new ImplicitField(PersonnelRecordField.CHILDREN, 3, Children::new)
     };
 
     public PersonnelRecord() {
@@ -142,8 +142,8 @@ public class PersonnelRecord extends Asn1TaggingSet {
         }
 
         static Asn1FieldInfo[] tags = new Asn1FieldInfo[] {
-                new ExplicitField(ChildInformationField.CHILD_NAME, -1, Name.class),
-                new ExplicitField(ChildInformationField.DATE_OF_BIRTH, 0, Date.class)
+                new ExplicitField(ChildInformationField.CHILD_NAME, -1, Name::new),
+                new ExplicitField(ChildInformationField.DATE_OF_BIRTH, 0, Date::new)
         };
 
         public ChildInformation() {
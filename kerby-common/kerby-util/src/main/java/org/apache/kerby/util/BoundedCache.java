@@ -0,0 +1,193 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A cache shared by threads, holding up to a number of entries. Once full,
+ * entries are evicted in the order they were added, either strictly or
+ * with a second chance: the oldest entry goes, unless it was used since it
+ * was last considered, then it's kept for another round.
+ *
+ * Override {@link #evicted(Object, Object)} to release what an entry holds
+ * when it's evicted or cleared.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class BoundedCache<K, V> {
+    public enum Eviction {
+        /** The oldest entry goes first */
+        FIFO,
+        /** The oldest entry not used lately goes first */
+        SECOND_CHANCE
+    }
+
+    private final int maxEntries;
+    private final Eviction eviction;
+    private final ConcurrentMap<K, Entry<V>> cache = new ConcurrentHashMap<>();
+    private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries The number of entries kept, nothing is cached if 0
+     * @param eviction How entries are evicted once full
+     */
+    public BoundedCache(int maxEntries, Eviction eviction) {
+        this.maxEntries = maxEntries;
+        this.eviction = eviction;
+    }
+
+    /**
+     * @param key The key
+     * @return the cached value, or null if not cached
+     */
+    public V get(K key) {
+        return get(key, null);
+    }
+
+    /**
+     * @param key The key
+     * @param usable Checks the cached value can be used, e.g. isn't expired,
+     *               any value if null
+     * @return the cached value, or null if not cached or not usable
+     */
+    public V get(K key, Predicate<? super V> usable) {
+        Entry<V> entry = cache.get(key);
+        if (entry == null || usable != null && !usable.test(entry.value)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Cache a value, replacing the one of the key if any, evicting entries
+     * if full.
+     * @param key The key
+     * @param value The value
+     */
+    public void put(K key, V value) {
+        if (maxEntries > 0 && cache.put(key, new Entry<>(value)) == null) {
+            added(key);
+        }
+    }
+
+    /**
+     * Cache a value unless the key has one, evicting entries if full.
+     * @param key The key
+     * @param value The value
+     * @return true if cached, false if the key already has a value
+     */
+    public boolean putIfAbsent(K key, V value) {
+        if (maxEntries <= 0 || cache.putIfAbsent(key, new Entry<>(value)) != null) {
+            return false;
+        }
+        added(key);
+        return true;
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear() {
+        K key;
+        while ((key = insertionOrder.poll()) != null) {
+            evict(key);
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups not found or not usable
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Called once an entry is evicted or cleared.
+     * @param key The key
+     * @param value The value
+     */
+    protected void evicted(K key, V value) {
+    }
+
+    private void added(K key) {
+        insertionOrder.add(key);
+        size.incrementAndGet();
+
+        // Every entry passed over loses its mark, so it's at most two rounds
+        while (size.get() > maxEntries) {
+            K eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            Entry<V> entry = cache.get(eldest);
+            if (eviction == Eviction.SECOND_CHANCE && entry != null && entry.referenced) {
+                entry.referenced = false;
+                insertionOrder.add(eldest);
+            } else {
+                evict(eldest);
+            }
+        }
+    }
+
+    private void evict(K key) {
+        Entry<V> entry = cache.remove(key);
+        size.decrementAndGet();
+        if (entry != null) {
+            evicted(key, entry.value);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile boolean referenced;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
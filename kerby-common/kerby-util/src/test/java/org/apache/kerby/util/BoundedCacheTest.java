@@ -0,0 +1,109 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testFifo() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Eviction.FIFO);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertThat(cache.get("a")).isEqualTo(1);
+
+        // Used or not, the oldest goes
+        cache.put("c", 3);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo(2);
+        assertThat(cache.get("c")).isEqualTo(3);
+
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSecondChance() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Eviction.SECOND_CHANCE);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertThat(cache.get("a")).isEqualTo(1);
+
+        // The oldest entry used lately is kept
+        cache.put("c", 3);
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+    }
+
+    @Test
+    public void testPut() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Eviction.FIFO);
+        assertThat(cache.putIfAbsent("a", 1)).isTrue();
+        assertThat(cache.putIfAbsent("a", 2)).isFalse();
+        assertThat(cache.get("a")).isEqualTo(1);
+
+        cache.put("a", 3);
+        assertThat(cache.get("a")).isEqualTo(3);
+        assertThat(cache.size()).isEqualTo(1);
+
+        BoundedCache<String, Integer> disabled = new BoundedCache<>(0, BoundedCache.Eviction.FIFO);
+        disabled.put("a", 1);
+        assertThat(disabled.putIfAbsent("b", 2)).isFalse();
+        assertThat(disabled.size()).isZero();
+    }
+
+    @Test
+    public void testUsable() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, BoundedCache.Eviction.FIFO);
+        cache.put("a", 1);
+
+        assertThat(cache.get("a", value -> value > 1)).isNull();
+        assertThat(cache.get("a", value -> value > 0)).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvicted() {
+        final List<String> evicted = new ArrayList<>();
+        BoundedCache<String, Integer> cache = new BoundedCache<String, Integer>(2, BoundedCache.Eviction.FIFO) {
+            @Override
+            protected void evicted(String key, Integer value) {
+                evicted.add(key + "=" + value);
+            }
+        };
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertThat(evicted).containsExactly("a=1");
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+        assertThat(evicted).containsExactly("a=1", "b=2", "c=3");
+    }
+}
@@ -22,7 +22,6 @@ package org.apache.kerby.kerberos.kdc.impl;
 import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.KdcSetting;
 import org.apache.kerby.kerberos.kerb.server.impl.AbstractInternalKdcServer;
-import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,7 +47,7 @@ public class NettyKdcServerImpl extends AbstractInternalKdcServer {
     protected void doStart() throws Exception {
         super.doStart();
 
-        prepareHandler();
+        kdcContext = prepareKdcContext();
 
         executor = Executors.newCachedThreadPool();
 
@@ -68,14 +67,6 @@ public class NettyKdcServerImpl extends AbstractInternalKdcServer {
         LOG.info("Netty kdc server started.");
     }
 
-    private void prepareHandler() {
-        kdcContext = new KdcContext(getSetting());
-        kdcContext.setIdentityService(getIdentityService());
-        PreauthHandler preauthHandler = new PreauthHandler();
-        preauthHandler.init();
-        kdcContext.setPreauthHandler(preauthHandler);
-    }
-
     @Override
     protected void doStop() throws Exception {
         super.doStop();
@@ -98,6 +89,10 @@ public class NettyKdcServerImpl extends AbstractInternalKdcServer {
                 LOG.warn("waitForTermination interrupted");
             }
         }
+
+        if (kdcContext != null) {
+            destroyKdcContext(kdcContext);
+        }
         LOG.info("Netty kdc server stopped.");
     }
 }
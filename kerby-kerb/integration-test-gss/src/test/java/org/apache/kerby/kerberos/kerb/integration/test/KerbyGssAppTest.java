@@ -19,12 +19,33 @@
  */
 package org.apache.kerby.kerberos.kerb.integration.test;
 
+import org.apache.kerby.kerberos.kerb.gss.GssMechFactory;
 import org.apache.kerby.kerberos.kerb.gss.KerbyGssProvider;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssContext;
+import org.apache.kerby.kerberos.kerb.gss.impl.GssNameElement;
+import org.ietf.jgss.GSSContext;
+import org.ietf.jgss.GSSCredential;
+import org.ietf.jgss.GSSException;
+import org.ietf.jgss.GSSManager;
+import org.ietf.jgss.GSSName;
+import org.ietf.jgss.MessageProp;
+import org.ietf.jgss.Oid;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import sun.security.jgss.GSSCaller;
+import sun.security.jgss.spi.GSSCredentialSpi;
+
+import javax.security.auth.Subject;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivilegedExceptionAction;
 import java.security.Provider;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class KerbyGssAppTest extends GssAppTest {
 
     @BeforeEach
@@ -44,4 +65,123 @@ public class KerbyGssAppTest extends GssAppTest {
         }
     }
 
+    @Test
+    public void testReplayedToken() throws Exception {
+        final GSSManager manager = GSSManager.getInstance();
+        final Oid krb5Mech = new Oid("1.2.840.113554.1.2.2");
+        final GSSName serverName = manager.createName(getServerPrincipal(), GSSName.NT_USER_NAME);
+
+        final byte[] token = Subject.doAs(loginClientUsingTicketCache(),
+            new PrivilegedExceptionAction<byte[]>() {
+                @Override
+                public byte[] run() throws GSSException {
+                    GSSContext context = manager.createContext(serverName, krb5Mech,
+                        null, GSSContext.DEFAULT_LIFETIME);
+                    context.requestMutualAuth(true);
+                    return context.initSecContext(new byte[0], 0, 0);
+                }
+            });
+
+        PrivilegedExceptionAction<byte[]> accept = new PrivilegedExceptionAction<byte[]>() {
+            @Override
+            public byte[] run() throws GSSException {
+                GSSContext context = manager.createContext((GSSCredential) null);
+                return context.acceptSecContext(token, 0, token.length);
+            }
+        };
+        Subject serviceSubject = loginServiceUsingKeytab();
+        assertThat(Subject.doAs(serviceSubject, accept)).isNotEmpty();
+
+        Exception e = assertThrows(Exception.class, () -> Subject.doAs(serviceSubject, accept));
+        assertThat(e.getCause()).isInstanceOf(GSSException.class);
+        assertThat(((GSSException) e.getCause()).getMajor()).isEqualTo(GSSException.DUPLICATE_TOKEN);
+    }
+
+    @Test
+    public void testByteBufferWrap() throws Exception {
+        final GssContext initiator = Subject.doAs(loginClientUsingTicketCache(),
+            new PrivilegedExceptionAction<GssContext>() {
+                @Override
+                public GssContext run() throws GSSException {
+                    GssNameElement serverName = GssNameElement.getInstance(getServerPrincipal(),
+                        GSSName.NT_USER_NAME);
+                    GssContext context = (GssContext) new GssMechFactory(GSSCaller.CALLER_INITIATE)
+                        .getMechanismContext(serverName, null, GSSContext.DEFAULT_LIFETIME);
+                    context.requestMutualAuth(true);
+                    context.requestConf(true);
+                    return context;
+                }
+            });
+        final byte[] apReq = Subject.doAs(loginClientUsingTicketCache(),
+            new PrivilegedExceptionAction<byte[]>() {
+                @Override
+                public byte[] run() throws GSSException {
+                    return initiator.initSecContext(new ByteArrayInputStream(new byte[0]), 0);
+                }
+            });
+        final GssContext acceptor = Subject.doAs(loginServiceUsingKeytab(),
+            new PrivilegedExceptionAction<GssContext>() {
+                @Override
+                public GssContext run() throws GSSException {
+                    return (GssContext) new GssMechFactory(GSSCaller.CALLER_ACCEPT)
+                        .getMechanismContext((GSSCredentialSpi) null);
+                }
+            });
+        byte[] apRep = Subject.doAs(loginServiceUsingKeytab(),
+            new PrivilegedExceptionAction<byte[]>() {
+                @Override
+                public byte[] run() throws GSSException {
+                    return acceptor.acceptSecContext(new ByteArrayInputStream(apReq), apReq.length);
+                }
+            });
+        initiator.initSecContext(new ByteArrayInputStream(apRep), apRep.length);
+        assertThat(initiator.isEstablished()).isTrue();
+        assertThat(initiator.getGssEncryptor().isV2()).isTrue();
+
+        byte[] message = "Hello Kerby, in a buffer".getBytes(StandardCharsets.UTF_8);
+        for (boolean privacy : new boolean[] {true, false}) {
+            for (boolean direct : new boolean[] {false, true}) {
+                // initiator wraps into a buffer, acceptor unwraps the bytes
+                ByteBuffer msg = direct ? ByteBuffer.allocateDirect(message.length) : ByteBuffer.allocate(100);
+                msg.put(message).flip();
+                int tokenSize = initiator.getWrapTokenSize(message.length, privacy);
+                ByteBuffer token = direct ? ByteBuffer.allocateDirect(tokenSize) : ByteBuffer.allocate(tokenSize + 10);
+                token.position(direct ? 0 : 5);
+                int tokenLen = initiator.wrap(msg, token, new MessageProp(0, privacy));
+                assertThat(tokenLen).isEqualTo(tokenSize);
+                assertThat(msg.hasRemaining()).isFalse();
+                token.flip().position(direct ? 0 : 5);
+                byte[] tokenBytes = new byte[tokenLen];
+                token.get(tokenBytes);
+                MessageProp prop = new MessageProp(0, false);
+                assertThat(acceptor.unwrap(tokenBytes, 0, tokenLen, prop)).isEqualTo(message);
+                assertThat(prop.getPrivacy()).isEqualTo(privacy);
+
+                // acceptor wraps the bytes, initiator unwraps from a buffer
+                tokenBytes = acceptor.wrap(message, 0, message.length, new MessageProp(0, privacy));
+                token = direct ? ByteBuffer.allocateDirect(tokenBytes.length) : ByteBuffer.allocate(tokenBytes.length);
+                token.put(tokenBytes).flip();
+                ByteBuffer out = direct ? ByteBuffer.allocateDirect(100) : ByteBuffer.allocate(100);
+                assertThat(initiator.unwrap(token, out, new MessageProp(0, false))).isEqualTo(message.length);
+                byte[] unwrapped = new byte[message.length];
+                out.flip();
+                out.get(unwrapped);
+                assertThat(unwrapped).isEqualTo(message);
+            }
+        }
+
+        ByteBuffer mic = ByteBuffer.allocate(100);
+        initiator.getMIC(ByteBuffer.wrap(message), mic, new MessageProp(0, false));
+        mic.flip();
+        byte[] micBytes = new byte[mic.remaining()];
+        mic.duplicate().get(micBytes);
+        acceptor.verifyMIC(micBytes, 0, micBytes.length, message, 0, message.length, new MessageProp(0, false));
+
+        byte[] acceptorMic = acceptor.getMIC(message, 0, message.length, new MessageProp(0, false));
+        initiator.verifyMIC(ByteBuffer.wrap(acceptorMic), ByteBuffer.wrap(message), new MessageProp(0, false));
+        message[0] ^= 1;
+        GSSException e = assertThrows(GSSException.class, () -> initiator.verifyMIC(ByteBuffer.wrap(acceptorMic),
+            ByteBuffer.wrap(message), new MessageProp(0, false)));
+        assertThat(e.getMajor()).isEqualTo(GSSException.BAD_MIC);
+    }
 }
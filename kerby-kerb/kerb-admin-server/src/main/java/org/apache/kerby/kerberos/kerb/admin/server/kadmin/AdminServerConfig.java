@@ -102,4 +102,21 @@ public class AdminServerConfig extends Krb5Conf {
     public String getServerName() {
         return getString(AdminServerConfigKey.SERVER_NAME, true, KDCDEFAULT);
     }
+
+    /**
+     * Get the maximum number of worker threads, each one serving a client
+     * session. Connections beyond that are closed.
+     * @return the maximum number of workers
+     */
+    public int getAdminWorkerMaxThreads() {
+        return getInt(AdminServerConfigKey.ADMIN_WORKER_MAX_THREADS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the time a client session can be left idle before it's closed
+     * @return The idle timeout in seconds
+     */
+    public long getAdminSessionIdleTimeout() {
+        return getLong(AdminServerConfigKey.ADMIN_SESSION_IDLE_TIMEOUT, true, KDCDEFAULT);
+    }
 }
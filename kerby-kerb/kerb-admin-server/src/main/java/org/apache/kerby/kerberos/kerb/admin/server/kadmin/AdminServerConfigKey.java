@@ -35,7 +35,9 @@ public enum AdminServerConfigKey implements ConfigKey {
     ADMIN_REALM("EXAMPLE.COM"),
     KEYTAB_FILE,
     PROTOCOL,
-    SERVER_NAME("localhost");
+    SERVER_NAME("localhost"),
+    ADMIN_WORKER_MAX_THREADS(32),
+    ADMIN_SESSION_IDLE_TIMEOUT(300L);
 
     private Object defaultValue;
 
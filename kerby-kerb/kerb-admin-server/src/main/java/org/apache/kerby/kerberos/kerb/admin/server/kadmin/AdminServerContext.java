@@ -20,11 +20,16 @@
 package org.apache.kerby.kerberos.kerb.admin.server.kadmin;
 
 import org.apache.kerby.kerberos.kerb.identity.IdentityService;
+import org.apache.kerby.kerberos.kerb.identity.backend.IdentityBackend;
+
+import javax.security.auth.Subject;
 
 public class AdminServerContext {
     private final AdminServerSetting adminServerSetting;
 
     private IdentityService identityService;
+    private IdentityBackend identityBackend;
+    private Subject serviceSubject;
 
     public AdminServerContext(AdminServerSetting adminServerSetting) {
         this.adminServerSetting = adminServerSetting;
@@ -49,4 +54,25 @@ public class AdminServerContext {
     public String getAdminRealm() {
         return adminServerSetting.getAdminRealm();
     }
+
+    public void setIdentityBackend(IdentityBackend identityBackend) {
+        this.identityBackend = identityBackend;
+    }
+
+    public IdentityBackend getIdentityBackend() {
+        return identityBackend;
+    }
+
+    /**
+     * Set the subject the admin service logged in with, shared by the
+     * client sessions.
+     * @param serviceSubject The service subject
+     */
+    public void setServiceSubject(Subject serviceSubject) {
+        this.serviceSubject = serviceSubject;
+    }
+
+    public Subject getServiceSubject() {
+        return serviceSubject;
+    }
 }
@@ -35,6 +35,7 @@ import org.apache.kerby.kerberos.kerb.admin.message.ExportKeytabRep;
 import org.apache.kerby.kerberos.kerb.admin.message.ChangePasswordRep;
 import org.apache.kerby.kerberos.kerb.admin.message.IdentityInfoCode;
 import org.apache.kerby.kerberos.kerb.admin.message.GetPrincipalRep;
+import org.apache.kerby.kerberos.kerb.identity.backend.IdentityBackend;
 import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
@@ -62,6 +63,7 @@ public class AdminServerHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AdminServerHandler.class);
     private final AdminServerContext adminServerContext;
     private SaslWrapper saslServerWrapper;
+    private LocalKadmin localKadmin;
 
     /**
      * Constructor with admin server context.
@@ -96,8 +98,7 @@ public class AdminServerHandler {
         XdrFieldInfo[] fieldInfos = decoded.getValue().getXdrFieldInfos();
         AdminMessageType type = (AdminMessageType) fieldInfos[0].getValue();
 
-        /**Create LocalKadmin here*/
-        LocalKadmin localKadmin = new LocalKadminImpl(adminServerContext.getAdminServerSetting());
+        LocalKadmin localKadmin = getLocalKadmin();
         ByteBuffer responseMessage = null;
 
         switch (type) {
@@ -136,6 +137,22 @@ public class AdminServerHandler {
 
     }
 
+    /**
+     * Get the local kadmin doing the operations, on the backend of the admin
+     * server when available rather than on a new backend per request.
+     */
+    private LocalKadmin getLocalKadmin() throws KrbException {
+        if (localKadmin == null) {
+            IdentityBackend backend = adminServerContext.getIdentityBackend();
+            if (backend != null) {
+                localKadmin = new LocalKadminImpl(adminServerContext.getAdminServerSetting(), backend);
+            } else {
+                localKadmin = new LocalKadminImpl(adminServerContext.getAdminServerSetting());
+            }
+        }
+        return localKadmin;
+    }
+
     private ByteBuffer handleAddPrincipalReq(LocalKadmin localKadmin, XdrFieldInfo[] fieldInfos) throws IOException {
         String principal = (String) fieldInfos[2].getValue();
         int paramNum = (int) fieldInfos[1].getValue();
@@ -19,12 +19,10 @@
  */
 package org.apache.kerby.kerberos.kerb.admin.server.kadmin.impl;
 
-import org.apache.kerby.kerberos.kerb.admin.AuthUtil;
 import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.NegotiationStatus;
 import org.apache.kerby.kerberos.kerb.admin.message.KadminCode;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerContext;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerHandler;
-import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerUtil;
 import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.transport.KrbTcpTransport;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
@@ -41,7 +39,6 @@ import javax.security.sasl.AuthorizeCallback;
 import javax.security.sasl.Sasl;
 import javax.security.sasl.SaslException;
 import javax.security.sasl.SaslServer;
-import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketTimeoutException;
@@ -70,6 +67,10 @@ public class DefaultAdminServerHandler extends AdminServerHandler implements Run
             logger.error("With exception when SASL negotiation." + e);
             return;
         }
+
+        // Serve the session until the client closes it, or leaves it idle
+        long idleTimeout = adminServerContext.getConfig().getAdminSessionIdleTimeout() * 1000;
+        long lastUsed = System.currentTimeMillis();
         do {
             try {
                 ByteBuffer message = transport.receiveMessage();
@@ -81,6 +82,14 @@ public class DefaultAdminServerHandler extends AdminServerHandler implements Run
                 // unwrap SASL message
                 ByteBuffer unwrapMessage = ByteBuffer.wrap(getSaslServerWrapper().unwrap(message));
                 handleMessage(unwrapMessage);
+                lastUsed = System.currentTimeMillis();
+            } catch (SocketTimeoutException e) {
+                if (System.currentTimeMillis() - lastUsed >= idleTimeout
+                    || Thread.currentThread().isInterrupted()) {
+                    logger.debug("Closing the idle session");
+                    transport.release();
+                    break;
+                }
             } catch (IOException e) {
                 transport.release();
                 logger.debug("Transport or decoding error occurred, "
@@ -103,27 +112,20 @@ public class DefaultAdminServerHandler extends AdminServerHandler implements Run
     }
 
     private void doSaslHandshake() throws Exception {
-        File keytabFile = new File(adminServerContext.getConfig().getKeyTabFile());
-        String principal = adminServerContext.getConfig().getProtocol() + "/"
-            + adminServerContext.getConfig().getAdminHost();
-        String fixedPrincipal = AdminServerUtil.fixPrincipal(principal, adminServerContext.getAdminServerSetting());
         String adminPrincipal = KrbUtil.makeKadminPrincipal(
                 adminServerContext.getAdminServerSetting().getKdcRealm()).getName();
-        
-        Subject subject = AuthUtil.loginUsingKeytab(fixedPrincipal, keytabFile);
+
+        // The service logged in once when the admin server started
+        Subject subject = adminServerContext.getServiceSubject();
+        if (subject == null) {
+            transport.release();
+            throw new Exception("The admin service isn't logged in");
+        }
         Subject.doAs(subject, (PrivilegedExceptionAction<Object>) () -> {
             boolean success = false;
             try {
-                ByteBuffer message;
-                try {
-                    message = transport.receiveMessage();
-                } catch (SocketTimeoutException ignore) {
-                    // Ignore time out, wake up to see if should continue to run.
-                    // When client create a new tpc transport, socket always timeout,
-                    // because the first connection will not send message to the server.
-                    // SASL handshake is not performed until the connection is established.
-                    return null;
-                }
+                // A client not starting the handshake in time is closed
+                ByteBuffer message = transport.receiveMessage();
 
                 Map<String, Object> props = new HashMap<>();
                 props.put(Sasl.QOP, "auth-conf");
@@ -19,21 +19,42 @@
  */
 package org.apache.kerby.kerberos.kerb.admin.server.kadmin.impl;
 
+import org.apache.kerby.kerberos.kerb.admin.AuthUtil;
+import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerConfig;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerContext;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerSetting;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerUtil;
 import org.apache.kerby.kerberos.kerb.transport.KdcNetwork;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import javax.security.auth.Subject;
+import javax.security.auth.login.LoginException;
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A default admin admin implementation.
+ *
+ * The service logs in once, at start. A client session is then served by a
+ * worker until the client closes it or leaves it idle, and the number of
+ * workers is bounded: a connection beyond that is closed right away.
  */
 public class DefaultInternalAdminServerImpl extends AbstractInternalAdminServer {
-    private ExecutorService executor;
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultInternalAdminServerImpl.class);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final Set<KrbTransport> sessions =
+        Collections.newSetFromMap(new ConcurrentHashMap<KrbTransport, Boolean>());
+    private ThreadPoolExecutor executor;
     private AdminServerContext adminContext;
     private KdcNetwork network;
 
@@ -47,14 +68,14 @@ public class DefaultInternalAdminServerImpl extends AbstractInternalAdminServer
 
         prepareHandler();
 
-        executor = Executors.newCachedThreadPool();
+        int maxThreads = Math.max(1, getSetting().getAdminServerConfig().getAdminWorkerMaxThreads());
+        executor = new ThreadPoolExecutor(0, maxThreads,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
 
         network = new KdcNetwork() {
             @Override
             protected void onNewTransport(KrbTransport transport) {
-                DefaultAdminServerHandler kdcHandler = 
-                    new DefaultAdminServerHandler(adminContext, transport);
-                executor.execute(kdcHandler);
+                startSession(transport);
             }
         };
 
@@ -64,9 +85,46 @@ public class DefaultInternalAdminServerImpl extends AbstractInternalAdminServer
         network.start();
     }
 
-    private void prepareHandler() {
+    private void prepareHandler() throws LoginException {
         adminContext = new AdminServerContext(getSetting());
         adminContext.setIdentityService(getIdentityService());
+        adminContext.setIdentityBackend(getIdentityBackend());
+        adminContext.setServiceSubject(login());
+    }
+
+    /**
+     * Log in the admin service with its keytab, the subject is shared by
+     * all the client sessions.
+     */
+    private Subject login() throws LoginException {
+        AdminServerConfig config = getSetting().getAdminServerConfig();
+        File keytabFile = new File(config.getKeyTabFile());
+        String principal = AdminServerUtil.fixPrincipal(
+            config.getProtocol() + "/" + config.getAdminHost(), getSetting());
+        return AuthUtil.loginUsingKeytab(principal, keytabFile);
+    }
+
+    private void startSession(final KrbTransport transport) {
+        final DefaultAdminServerHandler adminHandler =
+            new DefaultAdminServerHandler(adminContext, transport);
+        sessions.add(transport);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        adminHandler.run();
+                    } finally {
+                        sessions.remove(transport);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            sessions.remove(transport);
+            transport.release();
+            LOG.warn("Too many admin sessions, closed the connection from "
+                + transport.getRemoteAddress());
+        }
     }
 
     @Override
@@ -76,5 +134,8 @@ public class DefaultInternalAdminServerImpl extends AbstractInternalAdminServer
         network.stop();
 
         executor.shutdownNow();
+        for (KrbTransport transport : sessions) {
+            transport.release();
+        }
     }
 }
@@ -27,6 +27,7 @@ import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminConfig;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServer;
 import org.apache.kerby.kerberos.kerb.admin.server.kadmin.AdminServerConfig;
 import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.identity.backend.IdentityBackend;
 import org.apache.kerby.kerberos.kerb.keytab.Keytab;
 import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
 import org.apache.kerby.kerberos.kerb.server.KdcConfig;
@@ -158,17 +159,17 @@ public class RemoteKadminTest {
         String testPrincipal = "test/EXAMPLE.COM";
         String renamePrincipal = "test_rename/EXAMPLE.COM";
         adminClient.requestAddPrincipal(testPrincipal);
-        assertTrue(localKadmin.getPrincipals().contains(testPrincipal + "@EXAMPLE.COM"),
+        assertTrue(waitForPrincipal(kdcServer.getIdentityService(), testPrincipal + "@EXAMPLE.COM", true),
                 "Remote kadmin add principal test failed.");
 
         adminClient.requestRenamePrincipal(testPrincipal, renamePrincipal);
-        assertTrue(localKadmin.getPrincipals().contains(renamePrincipal + "@EXAMPLE.COM"),
+        assertTrue(waitForPrincipal(kdcServer.getIdentityService(), renamePrincipal + "@EXAMPLE.COM", true),
                 "Remote kadmin rename principal test failed, the renamed principal does not exist.");
-        assertFalse(localKadmin.getPrincipals().contains(testPrincipal + "@EXAMPLE.COM"),
+        assertFalse(waitForPrincipal(kdcServer.getIdentityService(), testPrincipal + "@EXAMPLE.COM", false),
                 "Remote kadmin rename principal test failed, the old principal still exists.");
 
         adminClient.requestDeletePrincipal(renamePrincipal);
-        assertFalse(localKadmin.getPrincipals().contains(renamePrincipal + "@EXAMPLE.COM"),
+        assertFalse(waitForPrincipal(kdcServer.getIdentityService(), renamePrincipal + "@EXAMPLE.COM", false),
                 "Remote kadmin delete principal test failed.");
     }
 
@@ -178,6 +179,7 @@ public class RemoteKadminTest {
         String testPrincipal = "test/EXAMPLE.COM";
         File keytabOutput = new File(testDir, "test.keytab");
         localKadmin.addPrincipal(testPrincipal);
+        waitForPrincipal(adminServer.getIdentityService(), testPrincipal + "@EXAMPLE.COM", true);
         adminClient.requestExportKeytab(keytabOutput, testPrincipal);
         Keytab localKeytab = Keytab.loadKeytab(keytabOutput);
         List<String> principalNames = localKeytab.getPrincipals()
@@ -192,6 +194,7 @@ public class RemoteKadminTest {
         String oldPassword = "old_pwd";
         String newPassword = "new_pwd";
         localKadmin.addPrincipal(testPrincipal, oldPassword);
+        waitForPrincipal(adminServer.getIdentityService(), testPrincipal + "@EXAMPLE.COM", true);
         adminClient.requestChangePassword(testPrincipal, newPassword);
         try {
             AuthUtil.loginUsingPassword(testPrincipal, new PasswordCallbackHandler(newPassword));
@@ -208,6 +211,40 @@ public class RemoteKadminTest {
         assertEquals(identity, expectIdentity);
     }
 
+    @Test
+    public void remoteSessionReuseTest() throws Exception {
+        AdminClient adminClient = buildKadminRemoteClient();
+        for (int i = 0; i < 10; i++) {
+            adminClient.requestAddPrincipal("session" + i + "/EXAMPLE.COM");
+        }
+        List<String> principals = adminClient.requestGetprincsWithExp("session*");
+        assertEquals(10, principals.size());
+
+        // A released session is replaced by the next request
+        adminClient.release();
+        for (int i = 0; i < 10; i++) {
+            adminClient.requestDeletePrincipal("session" + i + "/EXAMPLE.COM");
+        }
+        assertFalse(waitForPrincipal(adminServer.getIdentityService(), "session9/EXAMPLE.COM@EXAMPLE.COM", false));
+        adminClient.release();
+    }
+
+    /**
+     * The KDC and the admin server have each a replica of the identities in
+     * zookeeper, updated asynchronously. Wait for a change made through one
+     * to show up in the other.
+     */
+    private static boolean waitForPrincipal(IdentityBackend backend, String principal,
+                                            boolean exists) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        boolean found = backend.getIdentity(principal) != null;
+        while (found != exists && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            found = backend.getIdentity(principal) != null;
+        }
+        return found;
+    }
+
     private void doSaslHandShake(AdminClient adminClient, AdminConfig config) throws Exception {
         Subject subject = AuthUtil.loginUsingKeytab(ADMIN_PRINCIPAL, new File(config.getKeyTabFile()));
         adminClient.setSubject(subject);
@@ -167,6 +167,7 @@ public class RemoteAdminClientTool {
                 System.err.println(e.getMessage());
             }
         }
+        adminClient.release();
     }
 
     private static void execute(AdminClient adminClient, String input) throws KrbException {
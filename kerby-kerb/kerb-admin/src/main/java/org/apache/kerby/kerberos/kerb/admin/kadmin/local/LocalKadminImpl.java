@@ -101,7 +101,18 @@ public class LocalKadminImpl implements LocalKadmin {
      * @param backend    The identity backend
      */
     public LocalKadminImpl(KdcSetting kdcSetting, IdentityBackend backend) {
-        this.serverSetting = kdcSetting;
+        this((ServerSetting) kdcSetting, backend);
+    }
+
+    /**
+     * Construct with prepared server setting and a started backend, shared
+     * with the caller.
+     *
+     * @param serverSetting The server setting
+     * @param backend       The identity backend
+     */
+    public LocalKadminImpl(ServerSetting serverSetting, IdentityBackend backend) {
+        this.serverSetting = serverSetting;
         this.backend = backend;
     }
 
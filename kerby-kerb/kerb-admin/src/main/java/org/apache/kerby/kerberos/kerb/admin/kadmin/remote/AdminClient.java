@@ -31,7 +31,11 @@ import java.io.File;
 import java.util.List;
 
 /**
- * A Admin client API for applications to interact with Admin Server
+ * A Admin client API for applications to interact with Admin Server.
+ *
+ * The requests share a session with the admin server, authenticated once
+ * and kept until released. A session serves one request at a time, so
+ * concurrent callers can use an AdminClient each.
  */
 public class AdminClient {
 
@@ -41,6 +45,7 @@ public class AdminClient {
 
     private InternalAdminClient innerClient;
     private Subject subject = null;
+    private RemoteKadminImpl remoteKadmin;
 
     /**
      * Default constructor.
@@ -173,57 +178,82 @@ public class AdminClient {
         return adminConfig;
     }
 
-    public void setSubject(Subject subject) {
+    public synchronized void setSubject(Subject subject) {
+        release();
         this.subject = subject;
     }
 
+    /**
+     * Close the session with the admin server, if any. A new one is made by
+     * the next request.
+     */
+    public synchronized void release() {
+        if (remoteKadmin != null) {
+            remoteKadmin.release();
+            remoteKadmin = null;
+        }
+    }
+
     public void requestAddPrincipal(String principal) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.addPrincipal(principal);
     }
 
     public void requestAddPrincipal(String principal, String password) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.addPrincipal(principal, password);
     }
 
     public void requestDeletePrincipal(String principal) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.deletePrincipal(principal);
     }
 
     public void requestRenamePrincipal(String oldPrincipal, String newPrincipal) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.renamePrincipal(oldPrincipal, newPrincipal);
     }
 
     public List<String> requestGetprincs() throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         return remote.getPrincipals();
     }
 
     public List<String> requestGetprincsWithExp(String exp) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         return remote.getPrincipals(exp);
     }
     
     public void requestExportKeytab(File keytabFile, String principal) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.exportKeytab(keytabFile, principal);
     }
 
     public void requestExportKeytab(File keytabFile, List<String> principals) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.exportKeytab(keytabFile, principals);
     }
 
     public void requestChangePassword(String principal, String newPassword) throws KrbException {
-        Kadmin remote = new RemoteKadminImpl(innerClient, subject);
+        Kadmin remote = getRemoteKadmin();
         remote.changePassword(principal, newPassword);
     }
 
     public KrbIdentity requestGetPrincipal(String principal) throws KrbException {
-        RemoteKadminImpl remote = new RemoteKadminImpl(innerClient, subject);
+        RemoteKadminImpl remote = getRemoteKadmin();
         return remote.getPrincipal(principal);
     }
+
+    /**
+     * Get the session with the admin server, reconnecting if it was closed.
+     */
+    private synchronized RemoteKadminImpl getRemoteKadmin() throws KrbException {
+        if (remoteKadmin != null && !remoteKadmin.isAlive()) {
+            release();
+        }
+        if (remoteKadmin == null) {
+            remoteKadmin = new RemoteKadminImpl(innerClient, subject);
+        }
+        return remoteKadmin;
+    }
 }
@@ -38,6 +38,7 @@ import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.keytab.Keytab;
 import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
 import org.apache.kerby.kerberos.kerb.transport.KrbNetwork;
+import org.apache.kerby.kerberos.kerb.transport.KrbTcpTransport;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.apache.kerby.kerberos.kerb.transport.TransportPair;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
@@ -67,17 +68,23 @@ import java.util.Map;
  * request info to the admin kadmind side, and then unwraps the response for
  * the operation result.
  *
+ * An instance is a session: it connects and does the SASL handshake once,
+ * then serves any number of operations, one at a time, until released.
+ *
  * TO BE IMPLEMENTED.
  */
 public class RemoteKadminImpl implements Kadmin {
     private static final Logger LOG = LoggerFactory.getLogger(RemoteKadminImpl.class);
     private static final String MECHANISM = "GSSAPI";
     private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final long CHECK_IDLE_TIME = 1000;
     private InternalAdminClient innerClient;
     private KrbTransport transport;
     private SaslClient saslClient = null;
     private SaslWrapper saslClientWrapper = null;
     private final Subject subject;
+    private final AdminHandler handler = new DefaultAdminHandler();
+    private long lastUsed;
 
     public RemoteKadminImpl(InternalAdminClient innerClient, Subject subject) throws KrbException {
         this.innerClient = innerClient;
@@ -100,6 +107,7 @@ public class RemoteKadminImpl implements Kadmin {
         } catch (Exception e) {
             throw new KrbException("Failed to do SASL handshake. " + e);
         }
+        lastUsed = System.currentTimeMillis();
     }
 
     public InternalAdminClient getInnerClient() {
@@ -113,32 +121,32 @@ public class RemoteKadminImpl implements Kadmin {
     }
 
     @Override
-    public void addPrincipal(String principal) throws KrbException {
+    public synchronized void addPrincipal(String principal) throws KrbException {
         //generate an admin request
         AdminRequest adRequest = new AddPrincipalRequest(principal);
         adRequest.setTransport(transport);
         //handle it
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(adRequest, saslClientWrapper);
 
     }
 
     @Override
-    public void addPrincipal(String principal,
+    public synchronized void addPrincipal(String principal,
                              KOptions kOptions) throws KrbException {
         AdminRequest adRequest = new AddPrincipalRequest(principal, kOptions);
         //wrap buffer problem
         adRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(adRequest, saslClientWrapper);
     }
 
     @Override
-    public void addPrincipal(String principal,
+    public synchronized void addPrincipal(String principal,
                              String password) throws KrbException {
         AdminRequest addPrincipalRequest = new AddPrincipalRequest(principal, password);
         addPrincipalRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(addPrincipalRequest, saslClientWrapper);
     }
 
@@ -155,12 +163,12 @@ public class RemoteKadminImpl implements Kadmin {
     }
 
     @Override
-    public void exportKeytab(File keytabFile,
+    public synchronized void exportKeytab(File keytabFile,
                              List<String> principals) throws KrbException {
         String principalsStr = listToString(principals);
         AdminRequest exportKeytabRequest = new ExportKeytabRequest(principalsStr);
         exportKeytabRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         byte[] keytabFileBytes = adminHandler.handleRequestForBytes(exportKeytabRequest, saslClientWrapper);
         
         Keytab keytab = AdminHelper.loadKeytab(new ByteArrayInputStream(keytabFileBytes));
@@ -197,10 +205,10 @@ public class RemoteKadminImpl implements Kadmin {
     }
 
     @Override
-    public void deletePrincipal(String principal) throws KrbException {
+    public synchronized void deletePrincipal(String principal) throws KrbException {
         AdminRequest deletePrincipalRequest = new DeletePrincipalRequest(principal);
         deletePrincipalRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(deletePrincipalRequest, saslClientWrapper);
     }
 
@@ -211,36 +219,36 @@ public class RemoteKadminImpl implements Kadmin {
     }
 
     @Override
-    public void renamePrincipal(String oldPrincipalName,
+    public synchronized void renamePrincipal(String oldPrincipalName,
                                 String newPrincipalName) throws KrbException {
         AdminRequest renamePrincipalRequest =  new RenamePrincipalRequest(oldPrincipalName, newPrincipalName);
         renamePrincipalRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(renamePrincipalRequest, saslClientWrapper);
     }
 
     @Override
-    public List<String> getPrincipals() throws KrbException {
+    public synchronized List<String> getPrincipals() throws KrbException {
         AdminRequest getPrincsRequest = new GetprincsRequest();
         getPrincsRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         return adminHandler.handleRequestForList(getPrincsRequest, saslClientWrapper);
     }
 
     @Override
-    public List<String> getPrincipals(String globString) throws KrbException {
+    public synchronized List<String> getPrincipals(String globString) throws KrbException {
         AdminRequest getPrincsRequest = new GetprincsRequest(globString);
         getPrincsRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         return adminHandler.handleRequestForList(getPrincsRequest, saslClientWrapper);
     }
 
     @Override
-    public void changePassword(String principal,
+    public synchronized void changePassword(String principal,
                                String newPassword) throws KrbException {
         AdminRequest changePwdRequest = new ChangePasswordRequest(principal, newPassword);
         changePwdRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         adminHandler.handleRequest(changePwdRequest, saslClientWrapper);
     }
 
@@ -250,17 +258,38 @@ public class RemoteKadminImpl implements Kadmin {
     }
 
     @Override
-    public void release() throws KrbException {
+    public synchronized void release() {
+        transport.release();
+    }
 
+    /**
+     * Check the session can still be used, the admin server closes the
+     * sessions left idle for too long.
+     * @return true if the session can serve more operations
+     */
+    public synchronized boolean isAlive() {
+        if (!(transport instanceof KrbTcpTransport)) {
+            return true;
+        }
+        KrbTcpTransport tcpTransport = (KrbTcpTransport) transport;
+        if (System.currentTimeMillis() - lastUsed < CHECK_IDLE_TIME) {
+            return !tcpTransport.isClosed();
+        }
+        return tcpTransport.isAlive();
     }
     
-    public KrbIdentity getPrincipal(String principalName) throws KrbException {
+    public synchronized KrbIdentity getPrincipal(String principalName) throws KrbException {
         AdminRequest getPrincipalRequest = new GetPrincipalRequest(principalName);
         getPrincipalRequest.setTransport(transport);
-        AdminHandler adminHandler = new DefaultAdminHandler();
+        AdminHandler adminHandler = getAdminHandler();
         return adminHandler.handleRequestForIdentity(getPrincipalRequest, saslClientWrapper);
     }
 
+    private AdminHandler getAdminHandler() {
+        lastUsed = System.currentTimeMillis();
+        return handler;
+    }
+
     private String listToString(List<String> list) {
         if (list.isEmpty()) {
             return null;
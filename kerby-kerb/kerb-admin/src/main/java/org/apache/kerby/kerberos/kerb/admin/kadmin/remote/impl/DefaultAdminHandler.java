@@ -47,6 +47,7 @@ public class DefaultAdminHandler extends AdminHandler {
             ByteBuffer unwrapMessage = ByteBuffer.wrap(sasl.unwrap(receiveMessage));
             super.onResponseMessage(adminRequest, unwrapMessage);
         } catch (IOException e) {
+            transport.release();
             throw new KrbException("Admin receives response message failed", e);
         }
     }
@@ -58,7 +59,13 @@ public class DefaultAdminHandler extends AdminHandler {
     protected void sendMessage(AdminRequest adminRequest,
                                ByteBuffer requestMessage) throws IOException {
         KrbTransport transport = adminRequest.getTransport();
-        transport.sendMessage(requestMessage);
+        try {
+            transport.sendMessage(requestMessage);
+        } catch (IOException e) {
+            // The session is out of sync, don't let it be reused
+            transport.release();
+            throw e;
+        }
     }
 
     @Override
@@ -74,6 +81,7 @@ public class DefaultAdminHandler extends AdminHandler {
             ByteBuffer unwrapMessage = ByteBuffer.wrap(sasl.unwrap(receiveMessage));
             prinicalList = super.onResponseMessageForList(adminRequest, unwrapMessage);
         } catch (IOException e) {
+            transport.release();
             throw new KrbException("Admin receives response message failed", e);
         }
 
@@ -92,6 +100,7 @@ public class DefaultAdminHandler extends AdminHandler {
             ByteBuffer unwrapMessage = ByteBuffer.wrap(sasl.unwrap(receiveMessage));
             keytabFileBytes = super.onResponseMessageForBytesArray(adminRequest, unwrapMessage);
         } catch (IOException e) {
+            transport.release();
             throw new KrbException("Admin receives response message failed", e);
         }
         return keytabFileBytes;
@@ -109,6 +118,7 @@ public class DefaultAdminHandler extends AdminHandler {
             ByteBuffer unwrapMessage = ByteBuffer.wrap(sasl.unwrap(receiveMessage));
             identity = super.onResponseMessageForIdentity(adminRequest, unwrapMessage);
         } catch (IOException e) {
+            transport.release();
             throw new KrbException("Admin receives response message failed", e);
         }
         return identity;
@@ -22,20 +22,14 @@ package org.apache.kerby.kerberos.kerb.admin.kadmin.remote.impl;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminHandler;
 import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminSetting;
-import org.apache.kerby.kerberos.kerb.admin.kadmin.remote.AdminUtil;
-import org.apache.kerby.kerberos.kerb.transport.KrbNetwork;
-import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
-import org.apache.kerby.kerberos.kerb.transport.TransportPair;
-
-import java.io.IOException;
 
 /**
- * A default krb client implementation.
+ * A default krb client implementation. The connection to the admin server
+ * is made by the remote admin session, see RemoteKadminImpl.
  */
 public class DefaultInternalAdminClient extends AbstractInternalAdminClient {
 
     private DefaultAdminHandler adminHandler;
-    private KrbTransport transport;
 
     public DefaultInternalAdminClient(AdminSetting krbSetting) {
         super(krbSetting);
@@ -45,10 +39,6 @@ public class DefaultInternalAdminClient extends AbstractInternalAdminClient {
         return adminHandler;
     }
 
-    public KrbTransport getTransport() {
-        return transport;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -58,14 +48,5 @@ public class DefaultInternalAdminClient extends AbstractInternalAdminClient {
 
         this.adminHandler = new DefaultAdminHandler();
         adminHandler.init(getContext());
-
-        TransportPair tpair = AdminUtil.getTransportPair(getSetting());
-        KrbNetwork network = new KrbNetwork();
-        network.setSocketTimeout(getSetting().getTimeout());
-        try {
-            transport = network.connect(tpair);
-        } catch (IOException e) {
-            throw new KrbException("Failed to create transport", e);
-        }
     }
 }
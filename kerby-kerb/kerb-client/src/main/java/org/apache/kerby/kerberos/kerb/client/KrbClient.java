@@ -24,6 +24,7 @@ import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A Krb client API for applications to interact with KDC
@@ -71,6 +72,21 @@ public class KrbClient extends KrbClientBase {
         return requestTgt(requestOptions);
     }
 
+    /**
+     * Request a TGT with user plain credential, without blocking.
+     * @param principal The principal
+     * @param password The password
+     * @return the future of the tgt ticket, failed with a KrbException
+     */
+    public CompletableFuture<TgtTicket> requestTgtAsync(String principal,
+                                                        String password) {
+        KOptions requestOptions = new KOptions();
+        requestOptions.add(KrbOption.CLIENT_PRINCIPAL, principal);
+        requestOptions.add(KrbOption.USE_PASSWD, true);
+        requestOptions.add(KrbOption.USER_PASSWD, password);
+        return requestTgtAsync(requestOptions);
+    }
+
     /**
      * Request a TGT with user plain credential
      * @param principal The principal
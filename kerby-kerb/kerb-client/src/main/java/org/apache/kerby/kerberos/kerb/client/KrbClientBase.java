@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A Krb client API for applications to interact with KDC
@@ -152,6 +153,24 @@ public class KrbClientBase {
         commonOptions.add(KrbOption.CONN_TIMEOUT, timeout);
     }
 
+    /**
+     * Set to keep the TCP connections to the KDCs open, and share them
+     * between the requests, or not.
+     * @param pooled true if pool connections
+     */
+    public void setConnectionPooled(boolean pooled) {
+        commonOptions.add(KrbOption.CONN_POOL, pooled);
+    }
+
+    /**
+     * Set to send a request slow to be answered to another KDC of the realm
+     * as well, taking the first response, or not.
+     * @param hedged true if hedge requests
+     */
+    public void setRequestsHedged(boolean hedged) {
+        commonOptions.add(KrbOption.HEDGE_REQUESTS, hedged);
+    }
+
     /**
      * Init the client.
      * @throws KrbException e
@@ -212,6 +231,45 @@ public class KrbClientBase {
         return innerClient.requestSgt(requestOptions);
     }
 
+    /**
+     * Request a TGT with using well prepared requestOptions, without blocking.
+     * The requests are multiplexed on a network thread shared by the clients,
+     * and the responses processed with the common fork join pool.
+     * @param requestOptions The request options
+     * @return the future of the TGT, failed with a KrbException
+     */
+    public CompletableFuture<TgtTicket> requestTgtAsync(KOptions requestOptions) {
+        if (requestOptions == null) {
+            throw new IllegalArgumentException("Null requestOptions specified");
+        }
+
+        return innerClient.requestTgtAsync(requestOptions);
+    }
+
+    /**
+     * Request a service ticket with a TGT targeting for a server, without
+     * blocking.
+     * @param tgt The tgt ticket
+     * @param serverPrincipal The server principal
+     * @return the future of the service ticket, failed with a KrbException
+     */
+    public CompletableFuture<SgtTicket> requestSgtAsync(TgtTicket tgt,
+                                                        String serverPrincipal) {
+        KOptions requestOptions = new KOptions();
+        requestOptions.add(KrbOption.USE_TGT, tgt);
+        requestOptions.add(KrbOption.SERVER_PRINCIPAL, serverPrincipal);
+        return innerClient.requestSgtAsync(requestOptions);
+    }
+
+    /**
+     * Request a service ticket provided request options, without blocking.
+     * @param requestOptions The request options
+     * @return the future of the service ticket, failed with a KrbException
+     */
+    public CompletableFuture<SgtTicket> requestSgtAsync(KOptions requestOptions) {
+        return innerClient.requestSgtAsync(requestOptions);
+    }
+
     /**
      * Request a service ticket
      * @param ccFile The credential cache file
@@ -328,6 +328,76 @@ public class KrbConfig extends Krb5Conf {
                 KrbConfigKey.PKINIT_KDC_HOSTNAME, true, LIBDEFAULT);
     }
 
+    /**
+     * Get whether the TCP connections to the KDCs are kept open and shared
+     * by the requests.
+     * @return true if connections are pooled
+     */
+    public boolean isKdcConnectionPooled() {
+        return getBoolean(KrbConfigKey.KDC_CONNECTION_POOL, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the number of pooled connections opened per KDC, requests wait for
+     * one to be free beyond that.
+     * @return The maximum number of connections per KDC
+     */
+    public int getKdcPoolMaxConnections() {
+        return getInt(KrbConfigKey.KDC_POOL_MAX_CONNECTIONS, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the number of requests in flight on a pooled connection. Responses
+     * are matched to pipelined requests by their order, so more than one
+     * needs KDCs answering in order, as Kerby's KDC does, RFC 4120 allowing
+     * them not to.
+     * @return The maximum number of pipelined requests per connection
+     */
+    public int getKdcPoolMaxPipelined() {
+        return getInt(KrbConfigKey.KDC_POOL_MAX_PIPELINED, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the time an unused pooled connection is kept, in seconds.
+     * @return The idle timeout
+     */
+    public long getKdcPoolIdleTimeout() {
+        return getLong(KrbConfigKey.KDC_POOL_IDLE_TIMEOUT, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get whether the KDCs of a realm are tried by their health and latency,
+     * rather than in the configured order.
+     * @return true if KDCs are selected by health
+     */
+    public boolean isKdcHealthSelection() {
+        return getBoolean(KrbConfigKey.KDC_HEALTH_SELECTION, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the time the resolved addresses of a KDC are kept, in seconds.
+     * @return The address time to live
+     */
+    public long getKdcAddressTtl() {
+        return getLong(KrbConfigKey.KDC_ADDRESS_TTL, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get whether a request slow to be answered is sent to another KDC too.
+     * @return true if requests are hedged
+     */
+    public boolean isKdcHedged() {
+        return getBoolean(KrbConfigKey.KDC_HEDGE_REQUESTS, true, LIBDEFAULT);
+    }
+
+    /**
+     * Get the shortest time to wait before hedging a request, in milliseconds.
+     * @return The minimum hedge delay
+     */
+    public long getKdcHedgeMinDelay() {
+        return getLong(KrbConfigKey.KDC_HEDGE_MIN_DELAY, true, LIBDEFAULT);
+    }
+
     public List<Object> getRealmSectionItems(String realm, String key) {
         Map<String, Object> map = getRealmSection(realm);
         if (map.isEmpty()) {
@@ -60,7 +60,16 @@ public enum KrbConfigKey implements ConfigKey {
 
     PKINIT_ANCHORS(null),
     PKINIT_IDENTITIES(null),
-    PKINIT_KDC_HOSTNAME();
+    PKINIT_KDC_HOSTNAME(),
+
+    KDC_CONNECTION_POOL(false),
+    KDC_POOL_MAX_CONNECTIONS(8),
+    KDC_POOL_MAX_PIPELINED(1),
+    KDC_POOL_IDLE_TIMEOUT(30L),
+    KDC_HEALTH_SELECTION(true),
+    KDC_ADDRESS_TTL(60L),
+    KDC_HEDGE_REQUESTS(false),
+    KDC_HEDGE_MIN_DELAY(10L);
 
     private Object defaultValue;
 
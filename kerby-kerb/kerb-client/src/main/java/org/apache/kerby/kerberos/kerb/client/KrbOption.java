@@ -43,6 +43,10 @@ public enum KrbOption implements KOption {
         KOptionType.INT)),
     CONN_TIMEOUT(new KOptionInfo("conn-timeout", "connection timeout",
         KOptionType.INT)),
+    CONN_POOL(new KOptionInfo("conn-pool", "pool kdc connections",
+        KOptionType.BOOL)),
+    HEDGE_REQUESTS(new KOptionInfo("hedge-requests", "hedge slow kdc requests",
+        KOptionType.BOOL)),
 
     LIFE_TIME(new KOptionInfo("-l", "life time",
         KOptionType.INT)),
@@ -124,4 +124,44 @@ public class KrbSetting {
         }
         return 1000; // by default
     }
+
+    public boolean isKdcConnectionPooled() {
+        return commonOptions.getBooleanOption(
+                KrbOption.CONN_POOL, krbConfig.isKdcConnectionPooled());
+    }
+
+    public int getKdcPoolMaxConnections() {
+        return krbConfig.getKdcPoolMaxConnections();
+    }
+
+    public int getKdcPoolMaxPipelined() {
+        return krbConfig.getKdcPoolMaxPipelined();
+    }
+
+    /**
+     * @return the idle timeout of pooled connections in milliseconds
+     */
+    public long getKdcPoolIdleTimeout() {
+        return krbConfig.getKdcPoolIdleTimeout() * 1000L;
+    }
+
+    public boolean isKdcHealthSelection() {
+        return krbConfig.isKdcHealthSelection();
+    }
+
+    /**
+     * @return the time to live of resolved KDC addresses in milliseconds
+     */
+    public long getKdcAddressTtl() {
+        return krbConfig.getKdcAddressTtl() * 1000L;
+    }
+
+    public boolean isKdcHedged() {
+        return commonOptions.getBooleanOption(
+                KrbOption.HEDGE_REQUESTS, krbConfig.isKdcHedged());
+    }
+
+    public long getKdcHedgeMinDelay() {
+        return krbConfig.getKdcHedgeMinDelay();
+    }
 }
@@ -42,7 +42,11 @@ import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
 import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A krb client API for applications to interact with KDC
@@ -81,6 +85,18 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
      */
     @Override
     public TgtTicket requestTgt(KOptions requestOptions) throws KrbException {
+        return doRequestTgt(makeAsRequest(requestOptions));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<TgtTicket> requestTgtAsync(KOptions requestOptions) {
+        return doRequestTgtAsync(makeAsRequest(requestOptions));
+    }
+
+    private AsRequest makeAsRequest(KOptions requestOptions) {
         AsRequest asRequest = null;
         PrincipalName clientPrincipalName = null;
 
@@ -126,7 +142,7 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
 
         asRequest.setRequestOptions(requestOptions);
 
-        return doRequestTgt(asRequest);
+        return asRequest;
     }
 
     /**
@@ -134,63 +150,144 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
      */
     @Override
     public SgtTicket requestSgt(KOptions requestOptions) throws KrbException {
+        TgsRequest tgsRequest = makeTgsRequest(requestOptions);
+        TgtTicket tgtTicket = getTgt(requestOptions);
+        PrincipalName serverPrincipalName = getServerPrincipal(requestOptions);
+        PrincipalName clientPrincipalName = getClientPrincipal(requestOptions, tgtTicket);
+
+        for (PrincipalName tgsPrincipalName : getCapath(tgtTicket, serverPrincipalName)) {
+            tgsRequest.setServerPrincipal(tgsPrincipalName);
+            tgsRequest.setRequestOptions(requestOptions);
+            SgtTicket sgtTicket = doRequestSgt(tgsRequest);
+            sgtTicket.setClientPrincipal(clientPrincipalName);
+            tgsRequest = new TgsRequestWithTgt(context, sgtTicket);
+        }
+
+        tgsRequest.setServerPrincipal(serverPrincipalName);
+        tgsRequest.setRequestOptions(requestOptions);
+        SgtTicket sgtTicket = doRequestSgt(tgsRequest);
+
+        if (clientPrincipalName != null) {
+            sgtTicket.setClientPrincipal(clientPrincipalName);
+        }
+
+        return sgtTicket;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<SgtTicket> requestSgtAsync(KOptions requestOptions) {
+        TgsRequest tgsRequest;
+        List<PrincipalName> capath;
+        TgtTicket tgtTicket = getTgt(requestOptions);
+        PrincipalName serverPrincipalName = getServerPrincipal(requestOptions);
+        PrincipalName clientPrincipalName = getClientPrincipal(requestOptions, tgtTicket);
+        try {
+            tgsRequest = makeTgsRequest(requestOptions);
+            capath = getCapath(tgtTicket, serverPrincipalName);
+        } catch (KrbException e) {
+            CompletableFuture<SgtTicket> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return requestSgtAsync(tgsRequest, capath.iterator(),
+            serverPrincipalName, clientPrincipalName, requestOptions);
+    }
+
+    /**
+     * Request the service ticket after the cross-realm TGTs of the path, one
+     * after another.
+     */
+    private CompletableFuture<SgtTicket> requestSgtAsync(TgsRequest tgsRequest,
+                                                         Iterator<PrincipalName> capath,
+                                                         PrincipalName serverPrincipalName,
+                                                         PrincipalName clientPrincipalName,
+                                                         KOptions requestOptions) {
+        boolean isLastHop = !capath.hasNext();
+        tgsRequest.setServerPrincipal(isLastHop ? serverPrincipalName : capath.next());
+        tgsRequest.setRequestOptions(requestOptions);
+
+        return doRequestSgtAsync(tgsRequest).thenCompose(sgtTicket -> {
+            if (clientPrincipalName != null) {
+                sgtTicket.setClientPrincipal(clientPrincipalName);
+            }
+            if (isLastHop) {
+                return CompletableFuture.completedFuture(sgtTicket);
+            }
+            return requestSgtAsync(new TgsRequestWithTgt(context, sgtTicket), capath,
+                serverPrincipalName, clientPrincipalName, requestOptions);
+        });
+    }
+
+    private TgsRequest makeTgsRequest(KOptions requestOptions) throws KrbException {
         TgsRequest tgsRequest = null;
-        TgtTicket tgtTicket = null;
         if (requestOptions.contains(TokenOption.USER_AC_TOKEN)) {
             tgsRequest = new TgsRequestWithToken(context);
         } else if (requestOptions.contains(KrbOption.USE_TGT)) {
-            KOption kOpt = requestOptions.getOption(KrbOption.USE_TGT);
-            tgtTicket = (TgtTicket) kOpt.getOptionInfo().getValue();
-            tgsRequest = new TgsRequestWithTgt(context, tgtTicket);
+            tgsRequest = new TgsRequestWithTgt(context, getTgt(requestOptions));
         }
 
         if (tgsRequest == null) {
             throw new IllegalArgumentException(
                     "No valid krb client request option found");
         }
+        return tgsRequest;
+    }
 
+    private TgtTicket getTgt(KOptions requestOptions) {
+        if (requestOptions.contains(TokenOption.USER_AC_TOKEN)
+            || !requestOptions.contains(KrbOption.USE_TGT)) {
+            return null;
+        }
+        KOption kOpt = requestOptions.getOption(KrbOption.USE_TGT);
+        return (TgtTicket) kOpt.getOptionInfo().getValue();
+    }
+
+    private PrincipalName getServerPrincipal(KOptions requestOptions) {
         String serverPrincipalString = fixPrincipal(requestOptions.
                 getStringOption(KrbOption.SERVER_PRINCIPAL));
-        PrincipalName serverPrincipalName = new PrincipalName(serverPrincipalString);
-        PrincipalName clientPrincipalName = null;
+        return new PrincipalName(serverPrincipalString);
+    }
 
+    private PrincipalName getClientPrincipal(KOptions requestOptions, TgtTicket tgtTicket) {
         if (tgtTicket != null) {
-            String sourceRealm = tgtTicket.getRealm();
-            String destRealm = serverPrincipalName.getRealm();
-            clientPrincipalName = tgtTicket.getClientPrincipal();
-
-            if (!sourceRealm.equals(destRealm)) {
-                KrbConfig krbConfig = krbSetting.getKrbConfig();
-                LinkedList<String> capath = krbConfig.getCapath(sourceRealm, destRealm);
-                for (int i = 0; i < capath.size() - 1; i++) {
-                    PrincipalName tgsPrincipalName = KrbUtil.makeTgsPrincipal(
-                        capath.get(i), capath.get(i + 1));
-                    tgsRequest.setServerPrincipal(tgsPrincipalName);
-                    tgsRequest.setRequestOptions(requestOptions);
-                    SgtTicket sgtTicket = doRequestSgt(tgsRequest);
-                    sgtTicket.setClientPrincipal(clientPrincipalName);
-                    tgsRequest = new TgsRequestWithTgt(context, sgtTicket);
-                }
-            }
-
-        } else {
-            //This code is for the no-tgt case but works only with CLIENT_PRINCIPAL option
-            //Should be expanded later to encompass more use-cases
-            String clientPrincipalString = (String) requestOptions.getOptionValue(KrbOption.CLIENT_PRINCIPAL);
-            if (clientPrincipalString != null) {
-                clientPrincipalName = new PrincipalName(clientPrincipalString);
-            }
+            return tgtTicket.getClientPrincipal();
         }
 
-        tgsRequest.setServerPrincipal(serverPrincipalName);
-        tgsRequest.setRequestOptions(requestOptions);
-        SgtTicket sgtTicket = doRequestSgt(tgsRequest);
+        //This code is for the no-tgt case but works only with CLIENT_PRINCIPAL option
+        //Should be expanded later to encompass more use-cases
+        String clientPrincipalString = (String) requestOptions.getOptionValue(KrbOption.CLIENT_PRINCIPAL);
+        if (clientPrincipalString != null) {
+            return new PrincipalName(clientPrincipalString);
+        }
+        return null;
+    }
 
-        if (clientPrincipalName != null) {
-            sgtTicket.setClientPrincipal(clientPrincipalName);
+    /**
+     * Get the cross-realm TGS principals to go through before the server
+     * realm, none within the realm of the TGT.
+     */
+    private List<PrincipalName> getCapath(TgtTicket tgtTicket,
+                                          PrincipalName serverPrincipalName) throws KrbException {
+        List<PrincipalName> tgsPrincipalNames = new ArrayList<>();
+        if (tgtTicket == null) {
+            return tgsPrincipalNames;
         }
 
-        return sgtTicket;
+        String sourceRealm = tgtTicket.getRealm();
+        String destRealm = serverPrincipalName.getRealm();
+        if (!sourceRealm.equals(destRealm)) {
+            KrbConfig krbConfig = krbSetting.getKrbConfig();
+            LinkedList<String> capath = krbConfig.getCapath(sourceRealm, destRealm);
+            for (int i = 0; i < capath.size() - 1; i++) {
+                tgsPrincipalNames.add(KrbUtil.makeTgsPrincipal(
+                    capath.get(i), capath.get(i + 1)));
+            }
+        }
+        return tgsPrincipalNames;
     }
 
     protected abstract TgtTicket doRequestTgt(
@@ -199,6 +296,40 @@ public abstract class AbstractInternalKrbClient implements InternalKrbClient {
     protected abstract SgtTicket doRequestSgt(
         TgsRequest tgsRequest) throws KrbException;
 
+    /**
+     * Request a TGT without blocking. By default the request is done in
+     * the calling thread, and the future is completed when returned.
+     *
+     * @param tgtTktReq The AS request
+     * @return the future of the TGT
+     */
+    protected CompletableFuture<TgtTicket> doRequestTgtAsync(AsRequest tgtTktReq) {
+        CompletableFuture<TgtTicket> future = new CompletableFuture<>();
+        try {
+            future.complete(doRequestTgt(tgtTktReq));
+        } catch (KrbException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Request a service ticket without blocking. By default the request is
+     * done in the calling thread, and the future is completed when returned.
+     *
+     * @param tgsRequest The TGS request
+     * @return the future of the service ticket
+     */
+    protected CompletableFuture<SgtTicket> doRequestSgtAsync(TgsRequest tgsRequest) {
+        CompletableFuture<SgtTicket> future = new CompletableFuture<>();
+        try {
+            future.complete(doRequestSgt(tgsRequest));
+        } catch (KrbException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Fix principal name.
      *
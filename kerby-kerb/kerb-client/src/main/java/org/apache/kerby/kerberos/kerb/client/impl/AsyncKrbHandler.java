@@ -0,0 +1,357 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbHandler;
+import org.apache.kerby.kerberos.kerb.client.KrbSetting;
+import org.apache.kerby.kerberos.kerb.client.request.KdcRequest;
+import org.apache.kerby.kerberos.kerb.transport.KrbNioNetwork;
+import org.apache.kerby.kerberos.kerb.transport.KrbNioTransport;
+import org.apache.kerby.kerberos.kerb.transport.KrbResponseListener;
+import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Krb handler sending the requests over a shared {@link KrbNioNetwork}
+ * without waiting for the responses. The responses are processed by an
+ * executor, off the network thread, and a request is tried with the KDCs
+ * of the realm in turn, like {@link DefaultInternalKrbClient} does.
+ *
+ * When hedging is enabled, a request the KDC takes longer than usual to
+ * answer is sent to the next KDC as well, and the first response is taken.
+ * The delay is the 95th percentile of the latency of the KDC, kept by the
+ * {@link KdcSelector}, which also learns of the outcome of every request.
+ */
+public class AsyncKrbHandler extends KrbHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncKrbHandler.class);
+
+    private final KrbNioNetwork network;
+    private final Executor executor;
+    private final KdcSelector selector;
+
+    /**
+     * @param network The network to send the requests with
+     * @param executor The executor to process the responses with
+     */
+    public AsyncKrbHandler(KrbNioNetwork network, Executor executor) {
+        this(network, executor, new KdcSelector(false, 0));
+    }
+
+    /**
+     * @param network The network to send the requests with
+     * @param executor The executor to process the responses with
+     * @param selector The selector resolving the KDCs, and recording how
+     *                 they answered
+     */
+    public AsyncKrbHandler(KrbNioNetwork network, Executor executor, KdcSelector selector) {
+        this.network = network;
+        this.executor = executor;
+        this.selector = selector;
+    }
+
+    /**
+     * Send a request to the KDCs in turn until one of them answers it.
+     * @param kdcRequest The kdc request
+     * @param kdcList The KDCs of the realm, in the order to try them
+     * @param setting The krb setting
+     * @return the future completed once the response is processed
+     */
+    public CompletableFuture<Void> handleRequestAsync(KdcRequest kdcRequest,
+                                                      List<String> kdcList,
+                                                      KrbSetting setting) {
+        Exchange exchange = new Exchange(kdcRequest, kdcList.iterator(), setting);
+        exchange.sendToNextKdc();
+        return exchange.future;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void sendMessage(KdcRequest kdcRequest,
+                               ByteBuffer requestMessage) throws IOException {
+        KrbTransport transport = (KrbTransport) kdcRequest.getSessionData();
+        ((Exchange) transport.getAttachment()).isSent = true;
+        transport.sendMessage(requestMessage);
+    }
+
+    /**
+     * A KDC a request is sent to.
+     */
+    private static final class Attempt {
+        private final String kdc;
+        private final TransportPair tpair;
+        private long startTime = System.nanoTime();
+        private KrbNioTransport transport;
+
+        Attempt(String kdc, TransportPair tpair) {
+            this.kdc = kdc;
+            this.tpair = tpair;
+        }
+
+        long elapsed() {
+            return System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * The exchange of a request with the KDCs. The network thread only hands
+     * the responses, failures and hedging times to the executor, the steps
+     * are serialized by locking the exchange. Callbacks of a transport given
+     * up on already are ignored.
+     */
+    private final class Exchange implements KrbResponseListener {
+        private final KdcRequest kdcRequest;
+        private final Iterator<String> kdcs;
+        private final KrbSetting setting;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private Attempt attempt;
+        private Attempt hedge;
+        private boolean tryNextKdc;
+        private boolean isSent;
+        private Exception firstError;
+
+        Exchange(KdcRequest kdcRequest, Iterator<String> kdcs, KrbSetting setting) {
+            this.kdcRequest = kdcRequest;
+            this.kdcs = kdcs;
+            this.setting = setting;
+        }
+
+        synchronized void sendToNextKdc() {
+            if (!kdcs.hasNext()) {
+                if (firstError == null) {
+                    future.completeExceptionally(new KrbException(
+                        "Cannot get kdc for realm " + setting.getKdcRealm()));
+                } else if (firstError instanceof KrbException) {
+                    future.completeExceptionally(firstError);
+                } else {
+                    future.completeExceptionally(new KrbException(
+                        "The request failed " + firstError.getMessage(), firstError));
+                }
+                return;
+            }
+
+            String kdc = kdcs.next();
+            try {
+                attempt = new Attempt(kdc, selector.getTransportPair(setting, kdc));
+            } catch (KrbException | IOException e) {
+                attempt = null;
+                onError(e);
+                return;
+            }
+            // Try TCP first, as KrbNetwork does
+            if (send(attempt, attempt.tpair.tcpAddress != null)) {
+                scheduleHedge();
+            }
+        }
+
+        private boolean send(Attempt to, boolean useTcp) {
+            InetSocketAddress address = useTcp ? to.tpair.tcpAddress : to.tpair.udpAddress;
+            to.transport = null;
+            try {
+                to.transport = network.connect(address, useTcp, setting.getTimeout(), this);
+                to.transport.setAttachment(this);
+                kdcRequest.setSessionData(to.transport);
+                handleRequest(kdcRequest, tryNextKdc);
+                return true;
+            } catch (KrbException | IOException e) {
+                if (to.transport != null) {
+                    to.transport.release();
+                }
+                if (to == hedge) {
+                    giveUpHedge(e);
+                } else {
+                    onError(e);
+                }
+                return false;
+            } finally {
+                tryNextKdc = true;
+            }
+        }
+
+        private void scheduleHedge() {
+            if (!setting.isKdcHedged() || !kdcs.hasNext()) {
+                return;
+            }
+            final Attempt hedged = attempt;
+            long delay = Math.max(setting.getKdcHedgeMinDelay(),
+                selector.getHedgeDelay(hedged.kdc, setting.getTimeout() / 2));
+            network.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendHedge(hedged);
+                        }
+                    });
+                }
+            }, delay);
+        }
+
+        /**
+         * Send the request to the next KDC as well, if still waiting for the
+         * one it was sent to.
+         */
+        private synchronized void sendHedge(Attempt hedged) {
+            if (hedged != attempt || hedge != null || future.isDone() || !kdcs.hasNext()) {
+                return;
+            }
+
+            String kdc = kdcs.next();
+            try {
+                hedge = new Attempt(kdc, selector.getTransportPair(setting, kdc));
+            } catch (KrbException | IOException e) {
+                LOG.info("Hedged request to kdc failed. " + e);
+                return;
+            }
+            LOG.debug("No response from " + attempt.kdc + " yet, sending to " + kdc);
+            send(hedge, hedge.tpair.tcpAddress != null);
+        }
+
+        private void giveUpHedge(Exception e) {
+            LOG.info("Hedged request to kdc failed. " + e);
+            selector.recordFailure(hedge.kdc);
+            hedge = null;
+            // The request is sent with the transport still waited for
+            if (attempt != null && attempt.transport != null) {
+                kdcRequest.setSessionData(attempt.transport);
+            }
+        }
+
+        private void onError(Exception e) {
+            LOG.info("Request to kdc failed. " + e);
+            if (attempt != null) {
+                selector.recordFailure(attempt.kdc);
+                attempt = null;
+            }
+            if (firstError == null) {
+                firstError = e;
+            }
+            if (hedge != null) {
+                // Keep waiting for the KDC the request was also sent to
+                attempt = hedge;
+                hedge = null;
+                kdcRequest.setSessionData(attempt.transport);
+                return;
+            }
+            sendToNextKdc();
+        }
+
+        private Attempt find(KrbTransport from) {
+            if (attempt != null && from == attempt.transport) {
+                return attempt;
+            }
+            if (hedge != null && from == hedge.transport) {
+                return hedge;
+            }
+            return null;
+        }
+
+        @Override
+        public void onResponse(final KrbTransport from, final ByteBuffer message) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    processResponse(from, message);
+                }
+            });
+        }
+
+        private synchronized void processResponse(KrbTransport from, ByteBuffer message) {
+            Attempt answered = find(from);
+            if (answered == null || future.isDone()) {
+                return;
+            }
+
+            if (hedge != null) {
+                // The first response is taken, the other KDC is given up
+                Attempt other = answered == hedge ? attempt : hedge;
+                if (other == attempt) {
+                    // Slower than the hedged request, by that much at least
+                    selector.recordLatency(other.kdc, other.elapsed());
+                }
+                other.transport.release();
+                attempt = answered;
+                hedge = null;
+            }
+            selector.recordLatency(answered.kdc, answered.elapsed());
+
+            isSent = false;
+            kdcRequest.setSessionData(from);
+            try {
+                onResponseMessage(kdcRequest, message);
+            } catch (KrbException | RuntimeException e) {
+                from.release();
+                // Answered, even if with an error
+                attempt = null;
+                onError(e);
+                return;
+            }
+
+            // Sent again with pre-authentication, wait for the next response
+            if (isSent) {
+                answered.startTime = System.nanoTime();
+            } else {
+                from.release();
+                future.complete(null);
+            }
+        }
+
+        @Override
+        public void onFailure(final KrbTransport from, final IOException cause) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    processFailure(from, cause);
+                }
+            });
+        }
+
+        private synchronized void processFailure(KrbTransport from, IOException cause) {
+            Attempt failed = find(from);
+            if (failed == null || future.isDone()) {
+                return;
+            }
+
+            KrbNioTransport transport = failed.transport;
+            if (from.isTcp() && !transport.isConnected() && failed.tpair.udpAddress != null) {
+                // Fall back to UDP, as KrbNetwork does
+                LOG.info("Failed to connect to kdc, trying UDP. " + cause);
+                send(failed, false);
+            } else if (failed == hedge) {
+                giveUpHedge(cause);
+            } else {
+                onError(cause);
+            }
+        }
+    }
+}
@@ -25,7 +25,9 @@ import org.apache.kerby.kerberos.kerb.client.KrbSetting;
 import org.apache.kerby.kerberos.kerb.client.request.AsRequest;
 import org.apache.kerby.kerberos.kerb.client.request.KdcRequest;
 import org.apache.kerby.kerberos.kerb.client.request.TgsRequest;
+import org.apache.kerby.kerberos.kerb.transport.KrbConnectionPool;
 import org.apache.kerby.kerberos.kerb.transport.KrbNetwork;
+import org.apache.kerby.kerberos.kerb.transport.KrbNioNetwork;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.apache.kerby.kerberos.kerb.transport.TransportPair;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
@@ -37,6 +39,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A default krb client implementation.
@@ -44,8 +49,12 @@ import java.util.List;
 public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultInternalKrbClient.class);
 
+    private static KrbNioNetwork asyncNetwork;
+
     private DefaultKrbHandler krbHandler;
-    private KrbTransport transport;
+    private AsyncKrbHandler asyncHandler;
+    private KrbConnectionPool connectionPool;
+    private KdcSelector kdcSelector;
 
     public DefaultInternalKrbClient(KrbSetting krbSetting) {
         super(krbSetting);
@@ -60,16 +69,78 @@ public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
 
         this.krbHandler = new DefaultKrbHandler();
         krbHandler.init(getContext());
+
+        KrbSetting setting = getSetting();
+        kdcSelector = new KdcSelector(setting.isKdcHealthSelection(), setting.getKdcAddressTtl());
+        if (setting.isKdcConnectionPooled()) {
+            connectionPool = new KrbConnectionPool(setting.getKdcPoolMaxConnections(),
+                setting.getKdcPoolMaxPipelined(), setting.getKdcPoolIdleTimeout());
+            connectionPool.setSocketTimeout(setting.getTimeout());
+        }
     }
 
-    private void doRequest(KdcRequest request) throws KrbException {    //NOPMD
+    /**
+     * Get the selector of the KDCs, to inspect their latency and error rate.
+     * @return the KDC selector
+     */
+    public KdcSelector getKdcSelector() {
+        return kdcSelector;
+    }
+
+    /**
+     * Get the pool of the connections to the KDCs, to inspect its statistics.
+     * @return the connection pool, null if connections aren't pooled
+     */
+    public KrbConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Get the network of the requests made without blocking, shared by all
+     * the clients and started with the first of these requests.
+     */
+    private static synchronized KrbNioNetwork getAsyncNetwork() throws IOException {
+        if (asyncNetwork == null) {
+            KrbNioNetwork network = new KrbNioNetwork();
+            network.start();
+            asyncNetwork = network;
+        }
+        return asyncNetwork;
+    }
 
+    private synchronized AsyncKrbHandler getAsyncHandler() throws IOException {
+        if (asyncHandler == null) {
+            asyncHandler = new AsyncKrbHandler(getAsyncNetwork(), ForkJoinPool.commonPool(),
+                kdcSelector);
+            asyncHandler.init(getContext());
+        }
+        return asyncHandler;
+    }
+
+    private List<String> getKdcList(KdcRequest request) throws KrbException {
         String realm = getSetting().getKdcRealm();
         PrincipalName serverPrincipalName = request.getServerPrincipal();
         if (serverPrincipalName != null && serverPrincipalName.getRealm() != null) {
             realm = serverPrincipalName.getRealm();
         }
-        List<String> kdcList = ClientUtil.getKDCList(realm, getSetting());
+        return kdcSelector.order(ClientUtil.getKDCList(realm, getSetting()));
+    }
+
+    private void doRequest(KdcRequest request) throws KrbException {    //NOPMD
+        if (getSetting().isKdcHedged()) {
+            // Hedged over the non-blocking network, waiting for the result
+            try {
+                doRequestAsync(request).join();
+                return;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof KrbException) {
+                    throw (KrbException) e.getCause();
+                }
+                throw new KrbException("The request failed " + e.getCause(), e.getCause());
+            }
+        }
+
+        List<String> kdcList = getKdcList(request);
 
         // tempKdc may include the port number
         Iterator<String> tempKdc = kdcList.iterator();
@@ -98,24 +169,44 @@ public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
                 }
                 throw new KrbException("The request failed " + first.getMessage(), first);
             }
-        } finally {
-            if (transport != null) {
-                transport.release();
-            }
         }
-
     }
 
     private void sendIfPossible(KdcRequest request, String kdcString, KrbSetting setting,
                                 boolean tryNextKdc)
         throws KrbException, IOException {
 
-        TransportPair tpair = ClientUtil.getTransportPair(setting, kdcString);
-        KrbNetwork network = new KrbNetwork();
-        network.setSocketTimeout(setting.getTimeout());
-        transport = network.connect(tpair);
-        request.setSessionData(transport);
-        krbHandler.handleRequest(request, tryNextKdc);
+        TransportPair tpair = kdcSelector.getTransportPair(setting, kdcString);
+        long startTime = System.nanoTime();
+        KrbTransport transport;
+        try {
+            if (connectionPool != null) {
+                transport = connectionPool.connect(tpair);
+            } else {
+                KrbNetwork network = new KrbNetwork();
+                network.setSocketTimeout(setting.getTimeout());
+                transport = network.connect(tpair);
+            }
+        } catch (IOException e) {
+            kdcSelector.recordFailure(kdcString);
+            throw e;
+        }
+
+        try {
+            request.setSessionData(transport);
+            krbHandler.handleRequest(request, tryNextKdc);
+            kdcSelector.recordLatency(kdcString, System.nanoTime() - startTime);
+        } catch (KrbException e) {
+            // Failing to send or receive, else answered with an error
+            if (e.getCause() instanceof IOException) {
+                kdcSelector.recordFailure(kdcString);
+            } else {
+                kdcSelector.recordLatency(kdcString, System.nanoTime() - startTime);
+            }
+            throw e;
+        } finally {
+            transport.release();
+        }
     }
 
     /**
@@ -138,4 +229,39 @@ public class DefaultInternalKrbClient extends AbstractInternalKrbClient {
         return ticketReq.getSgt();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The request is sent over the shared {@link KrbNioNetwork}, and the
+     * response processed with the common fork join pool.
+     */
+    @Override
+    protected CompletableFuture<TgtTicket> doRequestTgtAsync(AsRequest tgtTktReq) {
+        return doRequestAsync(tgtTktReq).thenApply(v -> tgtTktReq.getTicket());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The request is sent over the shared {@link KrbNioNetwork}, and the
+     * response processed with the common fork join pool.
+     */
+    @Override
+    protected CompletableFuture<SgtTicket> doRequestSgtAsync(TgsRequest ticketReq) {
+        return doRequestAsync(ticketReq).thenApply(v -> ticketReq.getSgt());
+    }
+
+    private CompletableFuture<Void> doRequestAsync(KdcRequest request) {    //NOPMD
+        try {
+            return getAsyncHandler().handleRequestAsync(request, getKdcList(request), getSetting());
+        } catch (KrbException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        } catch (IOException e) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(new KrbException("Failed to start the network", e));
+            return future;
+        }
+    }
 }
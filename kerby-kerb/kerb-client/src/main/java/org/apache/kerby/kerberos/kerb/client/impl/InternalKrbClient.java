@@ -25,6 +25,8 @@ import org.apache.kerby.kerberos.kerb.client.KrbSetting;
 import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
 import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * An internal krb client interface.
  */
@@ -57,4 +59,18 @@ public interface InternalKrbClient {
      * @throws KrbException e
      */
     SgtTicket requestSgt(KOptions requestOptions) throws KrbException;
+
+    /**
+     * Request a Ticket Granting Ticket without blocking.
+     * @param requestOptions The request options
+     * @return the future of the TGT, failed with a KrbException
+     */
+    CompletableFuture<TgtTicket> requestTgtAsync(KOptions requestOptions);
+
+    /**
+     * Request a service ticket provided request options, without blocking.
+     * @param requestOptions The request options
+     * @return the future of the service ticket, failed with a KrbException
+     */
+    CompletableFuture<SgtTicket> requestSgtAsync(KOptions requestOptions);
 }
@@ -0,0 +1,263 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.ClientUtil;
+import org.apache.kerby.kerberos.kerb.client.KrbSetting;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order the KDCs of a realm by their health, as seen by the requests of a
+ * client: a KDC that failed recently goes last, and the others by their
+ * average latency, so that a slow or dead KDC listed first doesn't cost a
+ * timeout to every request. The KDCs not used yet go after the ones known
+ * to answer, in the configured order.
+ *
+ * Averages are exponentially weighted, and the latencies of the last
+ * requests to a KDC are kept to delay hedged requests by their 95th
+ * percentile. The addresses of the KDCs are resolved once per time to live,
+ * not once per request.
+ */
+public class KdcSelector {
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final double ERROR_WEIGHT = 0.5;
+    private static final double DOWN_ERROR_RATE = 0.5;
+    private static final long RETRY_INTERVAL = 30 * 1000L;
+    private static final int SAMPLES = 64;
+    private static final int MIN_HEDGE_SAMPLES = 10;
+    private static final double UNKNOWN_SCORE = Double.MAX_VALUE / 2;
+    private static final double DOWN_SCORE = Double.MAX_VALUE;
+
+    private final boolean ordered;
+    private final long addressTtl;
+    private final ConcurrentMap<String, KdcStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ResolvedKdc> addresses = new ConcurrentHashMap<>();
+
+    /**
+     * @param ordered Whether to order the KDCs by health, else keep the
+     *                configured order
+     * @param addressTtl The time in milliseconds the addresses are kept
+     */
+    public KdcSelector(boolean ordered, long addressTtl) {
+        this.ordered = ordered;
+        this.addressTtl = addressTtl;
+    }
+
+    /**
+     * Order the KDCs to try a request with.
+     * @param kdcs The KDCs in the configured order
+     * @return the KDCs in the order to try them
+     */
+    public List<String> order(List<String> kdcs) {
+        if (!ordered || kdcs.size() < 2) {
+            return kdcs;
+        }
+
+        final long now = now();
+        final double[] scores = new double[kdcs.size()];
+        List<Integer> indexes = new ArrayList<>(kdcs.size());
+        for (int i = 0; i < scores.length; i++) {
+            KdcStats kdcStats = stats.get(kdcs.get(i));
+            scores[i] = kdcStats == null ? UNKNOWN_SCORE : kdcStats.score(now);
+            indexes.add(i);
+        }
+        // Stable, KDCs scoring the same keep their configured order
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(scores[i1], scores[i2]);
+            }
+        });
+
+        List<String> result = new ArrayList<>(kdcs.size());
+        for (int i : indexes) {
+            result.add(kdcs.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get the addresses of a KDC, resolved again once the time to live is
+     * over or after a failure.
+     * @param setting The krb setting
+     * @param kdc The KDC, may include the port number
+     * @return the addresses
+     * @throws KrbException e
+     * @throws IOException e
+     */
+    public TransportPair getTransportPair(KrbSetting setting, String kdc)
+        throws KrbException, IOException {
+        long now = now();
+        ResolvedKdc resolved = addresses.get(kdc);
+        if (resolved != null && now - resolved.resolvedAt < addressTtl) {
+            return resolved.tpair;
+        }
+
+        TransportPair tpair = ClientUtil.getTransportPair(setting, kdc);
+        if (tpair.tcpAddress != null && tpair.tcpAddress.isUnresolved()
+            || tpair.udpAddress != null && tpair.udpAddress.isUnresolved()) {
+            addresses.remove(kdc);
+        } else {
+            addresses.put(kdc, new ResolvedKdc(tpair, now));
+        }
+        return tpair;
+    }
+
+    /**
+     * Record a message answered by a KDC, even with an error.
+     * @param kdc The KDC
+     * @param latency The time the response took, in nanoseconds
+     */
+    public void recordLatency(String kdc, long latency) {
+        getStats(kdc).recordLatency(TimeUnit.NANOSECONDS.toMicros(latency) / 1000.0);
+    }
+
+    /**
+     * Record a message a KDC failed to answer, resolving its addresses
+     * again for the next request. The time waited isn't a latency, it only
+     * counts in the error rate.
+     * @param kdc The KDC
+     */
+    public void recordFailure(String kdc) {
+        getStats(kdc).recordFailure();
+        addresses.remove(kdc);
+    }
+
+    /**
+     * Get the time to wait for a KDC before sending the request to another
+     * one as well, the 95th percentile of its latency.
+     * @param kdc The KDC
+     * @param defaultDelay The delay while too few requests were made
+     * @return the delay in milliseconds
+     */
+    public long getHedgeDelay(String kdc, long defaultDelay) {
+        KdcStats kdcStats = stats.get(kdc);
+        if (kdcStats == null) {
+            return defaultDelay;
+        }
+        double p95 = kdcStats.percentile(0.95, MIN_HEDGE_SAMPLES);
+        return p95 < 0 ? defaultDelay : (long) Math.ceil(p95);
+    }
+
+    /**
+     * @param kdc The KDC
+     * @return the average latency of a KDC in milliseconds, -1 if not used yet
+     */
+    public double getLatency(String kdc) {
+        KdcStats kdcStats = stats.get(kdc);
+        return kdcStats == null ? -1 : kdcStats.getLatency();
+    }
+
+    /**
+     * @param kdc The KDC
+     * @return the average rate of the failed requests of a KDC, from 0 to 1
+     */
+    public double getErrorRate(String kdc) {
+        KdcStats kdcStats = stats.get(kdc);
+        return kdcStats == null ? 0 : kdcStats.getErrorRate();
+    }
+
+    private KdcStats getStats(String kdc) {
+        KdcStats kdcStats = stats.get(kdc);
+        if (kdcStats == null) {
+            kdcStats = new KdcStats();
+            KdcStats existing = stats.putIfAbsent(kdc, kdcStats);
+            if (existing != null) {
+                kdcStats = existing;
+            }
+        }
+        return kdcStats;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class KdcStats {
+        private final double[] samples = new double[SAMPLES];
+        private int sampleCount;
+        private double latency = -1;
+        private double errorRate;
+        private long failedAt;
+
+        synchronized void recordLatency(double millis) {
+            latency = latency < 0 ? millis
+                : latency + LATENCY_WEIGHT * (millis - latency);
+            errorRate -= ERROR_WEIGHT * errorRate;
+            samples[sampleCount % SAMPLES] = millis;
+            sampleCount++;
+        }
+
+        synchronized void recordFailure() {
+            errorRate += ERROR_WEIGHT * (1 - errorRate);
+            failedAt = now();
+        }
+
+        /**
+         * The lower the better, a KDC down is tried once the others were.
+         */
+        synchronized double score(long now) {
+            if (errorRate >= DOWN_ERROR_RATE && now - failedAt < RETRY_INTERVAL) {
+                return DOWN_SCORE;
+            }
+            // Failed only, but not lately
+            return latency < 0 ? UNKNOWN_SCORE : latency;
+        }
+
+        synchronized double percentile(double percentile, int minSamples) {
+            int count = Math.min(sampleCount, SAMPLES);
+            if (count < minSamples) {
+                return -1;
+            }
+            double[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(percentile * count) - 1];
+        }
+
+        synchronized double getLatency() {
+            return latency;
+        }
+
+        synchronized double getErrorRate() {
+            return errorRate;
+        }
+    }
+
+    private static final class ResolvedKdc {
+        private final TransportPair tpair;
+        private final long resolvedAt;
+
+        ResolvedKdc(TransportPair tpair, long resolvedAt) {
+            this.tpair = tpair;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
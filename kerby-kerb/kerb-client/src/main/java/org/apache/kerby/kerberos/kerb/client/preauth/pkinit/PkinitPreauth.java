@@ -40,6 +40,7 @@ import org.apache.kerby.kerberos.kerb.crypto.dh.DiffieHellmanClient;
 import org.apache.kerby.kerberos.kerb.preauth.PaFlag;
 import org.apache.kerby.kerberos.kerb.preauth.PaFlags;
 import org.apache.kerby.kerberos.kerb.preauth.PluginRequestContext;
+import org.apache.kerby.kerberos.kerb.preauth.pkinit.CertificateChainCache;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.CertificateHelper;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.CmsMessageType;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PkinitCrypto;
@@ -77,6 +78,7 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -84,6 +86,7 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
     private static final Logger LOG = LoggerFactory.getLogger(PkinitPreauth.class);
 
     private PkinitContext pkinitContext;
+    private CertificateChainCache chainCache;
 
     public PkinitPreauth() {
         super(new PkinitPreauthMeta());
@@ -346,27 +349,7 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
             PkinitCrypto.verifyCmsSignedData(
                     CmsMessageType.CMS_SIGN_SERVER, signedData);
 
-            if (kdcRequest.getContext().getConfig().getPkinitAnchors().isEmpty()) {
-                LOG.error("No PKINIT anchors specified");
-                throw new KrbException("No PKINIT anchors specified");
-            }
-            String anchorFileName = kdcRequest.getContext().getConfig().getPkinitAnchors().get(0);
-
-            X509Certificate x509Certificate = null;
-            try {
-                List<java.security.cert.Certificate> certs =
-                    CertificateHelper.loadCerts(anchorFileName);
-                if (certs != null && !certs.isEmpty()) {
-                    x509Certificate = (X509Certificate) certs.iterator().next();
-                }
-            } catch (KrbException e) {
-                LOG.error("Fail to load certs from archor file. " + e);
-            }
-
-            if (x509Certificate == null) {
-                LOG.error("Failed to load PKINIT anchor");
-                throw new KrbException("Failed to load PKINIT anchor");
-            }
+            CertificateChainCache chainCache = getChainCache(kdcRequest);
 
             CertificateSet certificateSet = signedData.getCertificates();
             if (certificateSet == null || certificateSet.getElements().isEmpty()) {
@@ -379,7 +362,7 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
             }
 
             try {
-                PkinitCrypto.validateChain(certificates, x509Certificate);
+                chainCache.validateChain(certificates);
             } catch (Exception e) {
                 throw new KrbException(KrbErrorCode.KDC_ERR_INVALID_CERTIFICATE, e);
             }
@@ -486,4 +469,39 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
         paDataEntry.setPaDataValue(KrbCodec.encode(paPkAsReq));
         return paDataEntry;
     }
+
+    /**
+     * Get the cache validating the KDC certificates, with the anchor loaded
+     * on first use.
+     */
+    private synchronized CertificateChainCache getChainCache(KdcRequest kdcRequest) throws KrbException {
+        if (chainCache != null) {
+            return chainCache;
+        }
+
+        if (kdcRequest.getContext().getConfig().getPkinitAnchors().isEmpty()) {
+            LOG.error("No PKINIT anchors specified");
+            throw new KrbException("No PKINIT anchors specified");
+        }
+        String anchorFileName = kdcRequest.getContext().getConfig().getPkinitAnchors().get(0);
+
+        X509Certificate x509Certificate = null;
+        try {
+            List<java.security.cert.Certificate> certs =
+                CertificateHelper.loadCerts(anchorFileName);
+            if (certs != null && !certs.isEmpty()) {
+                x509Certificate = (X509Certificate) certs.iterator().next();
+            }
+        } catch (KrbException e) {
+            LOG.error("Fail to load certs from archor file. " + e);
+        }
+
+        if (x509Certificate == null) {
+            LOG.error("Failed to load PKINIT anchor");
+            throw new KrbException("Failed to load PKINIT anchor");
+        }
+
+        chainCache = new CertificateChainCache(Collections.singletonList(x509Certificate));
+        return chainCache;
+    }
 }
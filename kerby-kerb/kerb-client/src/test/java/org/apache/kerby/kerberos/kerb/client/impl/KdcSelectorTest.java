@@ -0,0 +1,106 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.client.impl;
+
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.client.KrbSetting;
+import org.apache.kerby.kerberos.kerb.transport.TransportPair;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcSelectorTest {
+    private static final List<String> KDCS = Arrays.asList("kdc1", "kdc2", "kdc3");
+
+    @Test
+    public void testOrderByLatency() {
+        KdcSelector selector = new KdcSelector(true, 0);
+        assertThat(selector.order(KDCS)).containsExactly("kdc1", "kdc2", "kdc3");
+
+        selector.recordLatency("kdc1", millis(50));
+        selector.recordLatency("kdc2", millis(5));
+        // Not used yet, tried once the others
+        assertThat(selector.order(KDCS)).containsExactly("kdc2", "kdc1", "kdc3");
+
+        selector.recordLatency("kdc3", millis(20));
+        assertThat(selector.order(KDCS)).containsExactly("kdc2", "kdc3", "kdc1");
+        assertThat(selector.getLatency("kdc2")).isEqualTo(5.0);
+    }
+
+    @Test
+    public void testFailedKdcLast() {
+        KdcSelector selector = new KdcSelector(true, 0);
+        selector.recordLatency("kdc1", millis(1));
+        selector.recordLatency("kdc2", millis(30));
+        selector.recordLatency("kdc3", millis(40));
+        selector.recordFailure("kdc1");
+
+        assertThat(selector.getErrorRate("kdc1")).isEqualTo(0.5);
+        assertThat(selector.getLatency("kdc1")).isEqualTo(1.0);
+        assertThat(selector.order(KDCS)).containsExactly("kdc2", "kdc3", "kdc1");
+
+        KdcSelector unordered = new KdcSelector(false, 0);
+        unordered.recordFailure("kdc1");
+        assertThat(unordered.order(KDCS)).containsExactly("kdc1", "kdc2", "kdc3");
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        KdcSelector selector = new KdcSelector(true, 0);
+        assertThat(selector.getHedgeDelay("kdc1", 500)).isEqualTo(500);
+
+        for (int i = 1; i <= 20; i++) {
+            selector.recordLatency("kdc1", millis(i));
+        }
+        assertThat(selector.getHedgeDelay("kdc1", 500)).isEqualTo(19);
+
+        // Timeouts don't count as latencies
+        for (int i = 0; i < 5; i++) {
+            selector.recordFailure("kdc1");
+        }
+        assertThat(selector.getHedgeDelay("kdc1", 500)).isEqualTo(19);
+    }
+
+    @Test
+    public void testAddressCache() throws Exception {
+        KrbSetting setting = new KrbSetting(new KrbConfig());
+        KdcSelector selector = new KdcSelector(true, 60 * 1000L);
+
+        TransportPair tpair = selector.getTransportPair(setting, "localhost:8888");
+        assertThat(tpair.tcpAddress.getPort()).isEqualTo(8888);
+        assertThat(selector.getTransportPair(setting, "localhost:8888")).isSameAs(tpair);
+
+        // Resolved again after a failure
+        selector.recordFailure("localhost:8888");
+        assertThat(selector.getTransportPair(setting, "localhost:8888")).isNotSameAs(tpair);
+
+        KdcSelector uncached = new KdcSelector(true, 0);
+        tpair = uncached.getTransportPair(setting, "localhost:8888");
+        assertThat(uncached.getTransportPair(setting, "localhost:8888")).isNotSameAs(tpair);
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.preauth.pkinit;
+
+import org.apache.kerby.util.BoundedCache;
+import org.apache.kerby.x509.type.Certificate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertStore;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates PKINIT certificate chains against preloaded trust anchors, and
+ * remembers the chains found valid, keyed by the SHA-256 fingerprint of
+ * their certificates. Peers keep presenting the same chain, so a hit saves
+ * parsing the X.509 certificates and building and validating the path.
+ *
+ * A chain is remembered until its first certificate expires. The anchors
+ * and the CRLs are replaced with {@link #reload(Collection, Collection)},
+ * which forgets all the chains, e.g. when a new CRL is published. Chains
+ * are evicted oldest first once the cache is full.
+ */
+public class CertificateChainCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final BoundedCache<ByteBuffer, Entry> cache;
+    private volatile Validator validator;
+
+    public CertificateChainCache(Collection<X509Certificate> anchors) {
+        this(anchors, Collections.<X509CRL>emptyList(), DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param anchors The trust anchors
+     * @param crls The CRLs to check the chains with, revocation isn't
+     *             checked if empty
+     * @param maxEntries The number of chains remembered
+     */
+    public CertificateChainCache(Collection<X509Certificate> anchors,
+                                 Collection<X509CRL> crls, int maxEntries) {
+        this.cache = new BoundedCache<>(maxEntries, BoundedCache.Eviction.FIFO);
+        this.validator = new Validator(anchors, crls);
+    }
+
+    /**
+     * Validate a certificate chain, unless already found valid.
+     * @param certificates The chain, starting with the end entity certificate
+     * @return the parsed chain
+     * @throws GeneralSecurityException if the chain isn't valid
+     * @throws IOException if a certificate can't be encoded
+     */
+    public List<X509Certificate> validateChain(List<Certificate> certificates)
+        throws GeneralSecurityException, IOException {
+        if (certificates.isEmpty()) {
+            throw new CertificateException("No certificates");
+        }
+        Validator current = validator;
+
+        List<byte[]> encodedCerts = new ArrayList<>(certificates.size());
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (Certificate certificate : certificates) {
+            byte[] encoded = certificate.encode();
+            encodedCerts.add(encoded);
+            md.update(encoded);
+        }
+        ByteBuffer fingerprint = ByteBuffer.wrap(md.digest());
+
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(fingerprint, e -> e.validator == current
+            && e.notBefore <= now && now < e.notAfter);
+        if (entry != null) {
+            return entry.chain;
+        }
+
+        List<X509Certificate> chain = Collections.unmodifiableList(current.validate(encodedCerts));
+        long notBefore = Long.MIN_VALUE;
+        long notAfter = Long.MAX_VALUE;
+        for (X509Certificate certificate : chain) {
+            notBefore = Math.max(notBefore, certificate.getNotBefore().getTime());
+            notAfter = Math.min(notAfter, certificate.getNotAfter().getTime());
+        }
+        // Not remembered if validated with replaced anchors
+        if (current == validator) {
+            cache.put(fingerprint, new Entry(chain, current, notBefore, notAfter));
+        }
+        return chain;
+    }
+
+    /**
+     * Replace the trust anchors and the CRLs, and forget all the chains.
+     * @param anchors The trust anchors
+     * @param crls The CRLs, revocation isn't checked if empty
+     */
+    public void reload(Collection<X509Certificate> anchors, Collection<X509CRL> crls) {
+        validator = new Validator(anchors, crls);
+        clear();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of chains found already validated
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return the number of chains validated
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * The anchors and CRLs chains are validated with, entries only match
+     * the validator they were validated with.
+     */
+    private static final class Validator {
+        private final Set<TrustAnchor> trustAnchors;
+        private final CertStore crlStore;
+
+        Validator(Collection<X509Certificate> anchors, Collection<X509CRL> crls) {
+            trustAnchors = new HashSet<>();
+            for (X509Certificate anchor : anchors) {
+                trustAnchors.add(new TrustAnchor(anchor, null));
+            }
+
+            CertStore store = null;
+            if (!crls.isEmpty()) {
+                try {
+                    store = CertStore.getInstance("Collection",
+                        new CollectionCertStoreParameters(new ArrayList<>(crls)));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException("Invalid CRLs", e);
+                }
+            }
+            crlStore = store;
+        }
+
+        List<X509Certificate> validate(List<byte[]> encodedCerts) throws GeneralSecurityException {
+            CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            List<X509Certificate> chain = new ArrayList<>(encodedCerts.size());
+            for (byte[] encoded : encodedCerts) {
+                chain.add((X509Certificate) certificateFactory.generateCertificate(
+                    new ByteArrayInputStream(encoded)));
+            }
+            CertPath certPath = certificateFactory.generateCertPath(chain);
+
+            PKIXParameters parameters = new PKIXParameters(trustAnchors);
+            if (crlStore != null) {
+                parameters.addCertStore(crlStore);
+            } else {
+                parameters.setRevocationEnabled(false);
+            }
+
+            CertPathValidator.getInstance("PKIX").validate(certPath, parameters);
+            return chain;
+        }
+    }
+
+    private static final class Entry {
+        private final List<X509Certificate> chain;
+        private final Validator validator;
+        private final long notBefore;
+        private final long notAfter;
+
+        Entry(List<X509Certificate> chain, Validator validator, long notBefore, long notAfter) {
+            this.chain = chain;
+            this.validator = validator;
+            this.notBefore = notBefore;
+            this.notAfter = notAfter;
+        }
+    }
+}
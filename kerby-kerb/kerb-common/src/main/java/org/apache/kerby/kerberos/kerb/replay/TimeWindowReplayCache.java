@@ -0,0 +1,355 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent replay cache remembering requests for the clock skew window.
+ *
+ * Requests are kept as 64 bits digests in a ring of buckets by request time,
+ * each bucket split in lock striped open addressing tables. A bucket is
+ * recycled as a whole once its time slot is past the window, so there's no
+ * per entry expiry to track.
+ *
+ * The number of entries is bounded. With a steady load, the live entries are
+ * about the request rate times the window plus a time slot, see
+ * {@link #sizeFor(int, long)}, and the tables only grow as needed. When the
+ * cache is full of live entries, new requests are let through without being
+ * remembered, counted by {@link #getOverflowedCount()} and logged, rather
+ * than rejecting legitimate requests until the window moves on. A fail
+ * closed cache considers them replayed instead.
+ *
+ * It's shared by the KDC and the GSS acceptor, a request being identified
+ * by the digest computed with {@link #digest(String, String, long, int, byte[])}.
+ */
+public class TimeWindowReplayCache {
+    private static final Logger LOG = LoggerFactory.getLogger(TimeWindowReplayCache.class);
+    private static final int BUCKETS_PER_WINDOW = 4;
+    private static final int MAX_SIZE = 1 << 30;
+    private static final long DEFAULT_WINDOW = 5 * 60 * 1000L;
+    /** The request rate the default size is for, per second */
+    public static final int DEFAULT_REQUEST_RATE = 100000;
+    public static final int DEFAULT_MAX_ENTRIES = sizeFor(DEFAULT_REQUEST_RATE, DEFAULT_WINDOW);
+    private static final long OVERFLOW_WARNING_INTERVAL = 60 * 1000L;
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int maxEntries;
+    private final boolean failClosed;
+    private final Stripe[][] buckets;
+    private volatile long purgedEpoch = Long.MIN_VALUE;
+    private final AtomicLong lastOverflowWarning = new AtomicLong();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * @param windowMillis The clock skew allowed, requests older than that
+     *                     are expected to be rejected before the replay check
+     * @param maxEntries The maximum number of requests remembered
+     */
+    public TimeWindowReplayCache(long windowMillis, int maxEntries) {
+        this(windowMillis, maxEntries, false);
+    }
+
+    /**
+     * @param windowMillis The clock skew allowed, requests older than that
+     *                     are expected to be rejected before the replay check
+     * @param maxEntries The maximum number of requests remembered
+     * @param failClosed Whether to consider requests replayed when the cache
+     *                   is full, instead of letting them through
+     */
+    public TimeWindowReplayCache(long windowMillis, int maxEntries, boolean failClosed) {
+        this.failClosed = failClosed;
+        this.windowMillis = Math.max(1000, windowMillis);
+        this.bucketMillis = Math.max(1, this.windowMillis / BUCKETS_PER_WINDOW);
+        this.maxEntries = Math.max(1, maxEntries);
+
+        // Requests may come from the future as well as from the past, plus
+        // a bucket of margin on both sides for the partial time slots.
+        int bucketCount = 2 * BUCKETS_PER_WINDOW + 2;
+        buckets = new Stripe[bucketCount][STRIPES];
+        for (Stripe[] bucket : buckets) {
+            for (int i = 0; i < STRIPES; i++) {
+                bucket[i] = new Stripe();
+            }
+        }
+    }
+
+    /**
+     * Check a request and remember it.
+     * @param requestTime The request time, in milliseconds
+     * @param digest The request digest
+     * @return true if the request was seen before, or can't be checked by
+     *         a fail closed cache
+     */
+    public boolean checkAndCache(long requestTime, long digest) {
+        checked.increment();
+
+        long epoch = Math.floorDiv(requestTime, bucketMillis);
+        Stripe[] bucket = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+        Stripe stripe = bucket[(int) (digest >>> 32) & (STRIPES - 1)];
+        long key = digest == 0 ? 1 : digest;
+
+        int result = stripe.checkAndAdd(epoch, key);
+        if (result == Stripe.FULL) {
+            // Only purge again once the window moved, not for every request
+            long now = System.currentTimeMillis();
+            long oldestEpoch = Math.floorDiv(now - windowMillis, bucketMillis);
+            if (oldestEpoch > purgedEpoch) {
+                purge(now);
+                result = stripe.checkAndAdd(epoch, key);
+            }
+        }
+
+        switch (result) {
+            case Stripe.ADDED:
+                return false;
+            case Stripe.FULL:
+                overflowed.increment();
+                warnOverflow();
+                return failClosed;
+            case Stripe.TOO_OLD:
+                LOG.debug("Request time is out of the replay cache window");
+                return true;
+            default:
+                replayed.increment();
+                return true;
+        }
+    }
+
+    /**
+     * Drop the requests too old to be replayed.
+     * @param now The current time, in milliseconds
+     */
+    public void purge(long now) {
+        long oldestEpoch = Math.floorDiv(now - windowMillis, bucketMillis);
+        purgedEpoch = oldestEpoch;
+        for (Stripe[] bucket : buckets) {
+            for (Stripe stripe : bucket) {
+                stripe.expire(oldestEpoch);
+            }
+        }
+    }
+
+    /**
+     * Forget all the requests.
+     */
+    public void clear() {
+        for (Stripe[] bucket : buckets) {
+            for (Stripe stripe : bucket) {
+                stripe.expire(Long.MAX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests remembered
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public boolean isFailClosed() {
+        return failClosed;
+    }
+
+    /**
+     * @return the number of requests checked
+     */
+    public long getCheckedCount() {
+        return checked.sum();
+    }
+
+    /**
+     * @return the number of replayed requests detected
+     */
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    /**
+     * @return the number of requests not remembered because the cache was
+     *         full, rejected as well by a fail closed cache
+     */
+    public long getOverflowedCount() {
+        return overflowed.sum();
+    }
+
+    /**
+     * Compute the number of entries to remember a steady request rate.
+     * @param requestsPerSecond The expected peak request rate
+     * @param windowMillis The clock skew allowed
+     * @return the cache size
+     */
+    public static int sizeFor(int requestsPerSecond, long windowMillis) {
+        long liveMillis = windowMillis + windowMillis / BUCKETS_PER_WINDOW;
+        long size = (long) requestsPerSecond * liveMillis / 1000;
+        return (int) Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    private void warnOverflow() {
+        long now = System.currentTimeMillis();
+        long last = lastOverflowWarning.get();
+        if (now - last >= OVERFLOW_WARNING_INTERVAL && lastOverflowWarning.compareAndSet(last, now)) {
+            LOG.warn("Replay cache is full with " + maxEntries + " requests, "
+                + (failClosed ? "rejecting new requests as replayed" : "new requests aren't remembered")
+                + ", " + overflowed.sum() + " so far. The cache size should be at least the peak"
+                + " request rate times " + (windowMillis / 1000) + " seconds.");
+        }
+    }
+
+    /**
+     * Compute a 64 bits hash of a request, to remember it compactly.
+     * @param clientPrincipal The client principal name
+     * @param serverPrincipal The server principal name
+     * @param requestTime The request time, in milliseconds
+     * @param microseconds The microseconds part of the request time
+     * @param authenticator The encrypted authenticator, telling apart requests
+     *                      made by the same client in the same microsecond, or null
+     * @return the digest
+     */
+    public static long digest(String clientPrincipal, String serverPrincipal,
+                              long requestTime, int microseconds, byte[] authenticator) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = update(hash, clientPrincipal);
+        hash = update(hash, serverPrincipal);
+        hash = update(hash, requestTime);
+        hash = update(hash, microseconds);
+        if (authenticator != null) {
+            for (byte b : authenticator) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+        }
+
+        // Spread the bits, the low and high ones are used as table indexes
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long update(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xff) * FNV_PRIME;
+    }
+
+    private static long update(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    /**
+     * A table of digests, all of requests in the same time slot.
+     */
+    private final class Stripe {
+        static final int ADDED = 0;
+        static final int REPLAYED = 1;
+        static final int FULL = 2;
+        static final int TOO_OLD = 3;
+
+        private long epoch = Long.MIN_VALUE;
+        private long[] table = new long[INITIAL_CAPACITY];
+        private int count;
+
+        synchronized int checkAndAdd(long requestEpoch, long key) {
+            if (requestEpoch < epoch) {
+                return TOO_OLD;
+            }
+            if (requestEpoch > epoch) {
+                reset();
+                epoch = requestEpoch;
+            }
+
+            int mask = table.length - 1;
+            int index = (int) key & mask;
+            long current;
+            while ((current = table[index]) != 0) {
+                if (current == key) {
+                    return REPLAYED;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (size.incrementAndGet() > maxEntries) {
+                size.decrementAndGet();
+                return FULL;
+            }
+            table[index] = key;
+            if (++count * 2 > table.length) {
+                resize();
+            }
+            return ADDED;
+        }
+
+        synchronized void expire(long oldestEpoch) {
+            if (epoch < oldestEpoch) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            if (count > 0) {
+                size.addAndGet(-count);
+                count = 0;
+                table = new long[INITIAL_CAPACITY];
+            }
+        }
+
+        private void resize() {
+            long[] oldTable = table;
+            long[] newTable = new long[oldTable.length * 2];
+            int mask = newTable.length - 1;
+            for (long key : oldTable) {
+                if (key != 0) {
+                    int index = (int) key & mask;
+                    while (newTable[index] != 0) {
+                        index = (index + 1) & mask;
+                    }
+                    newTable[index] = key;
+                }
+            }
+            table = newTable;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of message buffers in power of two size classes, shared by all the
+ * connections so buffer memory follows the requests in flight rather than
+ * the open connections. Buffers larger than the biggest size class aren't
+ * pooled.
+ */
+public class ByteBufferPool {
+    public static final int MIN_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_MAX_POOLED_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_BUFFERS_PER_CLASS = 256;
+
+    private final boolean direct;
+    private final int maxPooledSize;
+    private final int maxBuffersPerClass;
+    private final Queue<ByteBuffer>[] pools;
+    private final AtomicInteger[] poolSizes;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    public ByteBufferPool(boolean direct) {
+        this(direct, DEFAULT_MAX_POOLED_SIZE, DEFAULT_MAX_BUFFERS_PER_CLASS);
+    }
+
+    /**
+     * @param direct Whether to allocate direct buffers
+     * @param maxPooledSize The biggest size class, rounded up to a power of two
+     * @param maxBuffersPerClass The number of free buffers kept per size class
+     */
+    @SuppressWarnings("unchecked")
+    public ByteBufferPool(boolean direct, int maxPooledSize, int maxBuffersPerClass) {
+        this.direct = direct;
+        this.maxPooledSize = roundUp(Math.max(MIN_BUFFER_SIZE, maxPooledSize));
+        this.maxBuffersPerClass = maxBuffersPerClass;
+
+        int classes = sizeClass(this.maxPooledSize) + 1;
+        pools = new Queue[classes];
+        poolSizes = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            pools[i] = new ConcurrentLinkedQueue<>();
+            poolSizes[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Borrow a buffer, to be given back with {@link #release(ByteBuffer)}.
+     * @param size The wanted size
+     * @return a buffer with the position at zero and the limit at size
+     */
+    public ByteBuffer acquire(int size) {
+        acquired.incrementAndGet();
+
+        ByteBuffer buffer = null;
+        if (size <= maxPooledSize) {
+            int sizeClass = sizeClass(size);
+            buffer = pools[sizeClass].poll();
+            if (buffer != null) {
+                poolSizes[sizeClass].decrementAndGet();
+                reused.incrementAndGet();
+            } else {
+                buffer = allocate(MIN_BUFFER_SIZE << sizeClass);
+            }
+        } else {
+            buffer = allocate(size);
+        }
+
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer got from {@link #acquire(int)}. It must not be
+     * used any more, including its duplicates and slices.
+     * @param buffer The buffer
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != direct || capacity > maxPooledSize
+            || capacity < MIN_BUFFER_SIZE || Integer.bitCount(capacity) != 1) {
+            discarded.incrementAndGet();
+            return;
+        }
+
+        int sizeClass = sizeClass(capacity);
+        if (poolSizes[sizeClass].incrementAndGet() > maxBuffersPerClass) {
+            poolSizes[sizeClass].decrementAndGet();
+            discarded.incrementAndGet();
+            return;
+        }
+        pools[sizeClass].add(buffer);
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * @return the number of buffers borrowed
+     */
+    public long getAcquiredCount() {
+        return acquired.get();
+    }
+
+    /**
+     * @return the number of borrows served from the pool
+     */
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    /**
+     * @return the number of buffers allocated because the pool was empty
+     */
+    public long getAllocatedCount() {
+        return allocated.get();
+    }
+
+    /**
+     * @return the number of buffers given back but not kept
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    /**
+     * @return the number of free buffers in the pool
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (AtomicInteger poolSize : poolSizes) {
+            count += poolSize.get();
+        }
+        return count;
+    }
+
+    /**
+     * @return the memory held by the free buffers in the pool
+     */
+    public long getPooledBytes() {
+        long bytes = 0;
+        for (int i = 0; i < poolSizes.length; i++) {
+            bytes += (long) poolSizes[i].get() * (MIN_BUFFER_SIZE << i);
+        }
+        return bytes;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocated.incrementAndGet();
+        if (direct) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        return ByteBuffer.allocate(capacity);
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1)
+            - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+    private static int roundUp(int size) {
+        return MIN_BUFFER_SIZE << sizeClass(size);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A selector and the thread running it, multiplexing the channels of
+ * a {@link KdcNioNetwork}. Channel registration and interest changes
+ * from other threads are queued as tasks and run by the loop itself.
+ */
+class KdcNioEventLoop implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(KdcNioEventLoop.class);
+
+    private final KdcNioNetwork network;
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean isStopped;
+
+    KdcNioEventLoop(KdcNioNetwork network, String name) throws IOException {
+        this.network = network;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        isStopped = true;
+        selector.wakeup();
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Run the task on the loop thread, soon.
+     * @param task The task
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    void register(final SelectableChannel channel, final int ops,
+                  final KdcNioTcpTransport transport) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SelectionKey key = channel.register(selector, ops, transport);
+                    if (transport != null) {
+                        transport.setSelectionKey(key);
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Failed to register channel " + e);
+                    closeQuietly(channel);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (!isStopped) {
+            try {
+                // Tasks queued by the loop itself don't wake it up
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                processSelectedKeys();
+                runTasks();
+            } catch (IOException e) {
+                if (!isStopped) {
+                    LOG.error("Error occurred in KDC network event loop", e);
+                }
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        try {
+            selector.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void processSelectedKeys() throws IOException {
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+            SelectionKey key = iter.next();
+            iter.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+
+            if (key.isAcceptable()) {
+                network.accept();
+            } else if (key.channel() instanceof DatagramChannel) {
+                network.readUdp();
+            } else {
+                KdcNioTcpTransport transport = (KdcNioTcpTransport) key.attachment();
+                try {
+                    if (key.isReadable()) {
+                        transport.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        transport.onWritable();
+                    }
+                } catch (IOException e) {
+                    LOG.debug("Transport error occurred, disconnecting", e);
+                    transport.release();
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(SelectableChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A non-blocking network server handling UDP and TCP, driven by selector
+ * based event loops instead of a thread per connection.
+ *
+ * The first event loop owns the TCP acceptor and the UDP channel, accepted
+ * TCP connections are spread over all the loops. Every complete Kerberos
+ * message is handed to {@link #onRecvMessage(KrbTransport, ByteBuffer)} on
+ * the event loop thread, so implementations should pass it on to workers.
+ * Messages are borrowed from the shared {@link ByteBufferPool}, and should
+ * be given back with {@link #releaseMessage(ByteBuffer)} once processed.
+ */
+public abstract class KdcNioNetwork {
+    private static final Logger LOG = LoggerFactory.getLogger(KdcNioNetwork.class);
+    protected static final int MAX_MESSAGE_SIZE = 65507;
+    public static final int DEFAULT_MAX_TCP_MESSAGE_SIZE = 4 * 1024 * 1024;
+
+    private final int ioThreads;
+    private int maxMessageSize = DEFAULT_MAX_TCP_MESSAGE_SIZE;
+    private ByteBufferPool bufferPool = new ByteBufferPool(false);
+    private KdcNioEventLoop[] loops;
+    private int nextLoop;
+    private boolean isStopped;
+    private ServerSocketChannel tcpServer;
+    private DatagramChannel udpServer;
+    private ByteBuffer recvBuffer;
+
+    public KdcNioNetwork() {
+        this(1);
+    }
+
+    /**
+     * Construct with the number of event loops to run, normally no more
+     * than the available processors.
+     * @param ioThreads The number of event loop threads
+     */
+    public KdcNioNetwork(int ioThreads) {
+        this.ioThreads = Math.max(1, ioThreads);
+    }
+
+    /**
+     * Set the maximum size of TCP messages, larger requests are rejected
+     * by closing the connection.
+     * @param maxMessageSize The maximum message size
+     */
+    public void setMaxMessageSize(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public void setBufferPool(ByteBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Give back a message got with {@link #onRecvMessage(KrbTransport, ByteBuffer)}.
+     * @param message The message, not to be used any more
+     */
+    public void releaseMessage(ByteBuffer message) {
+        bufferPool.release(message);
+    }
+
+    public synchronized void init() throws IOException {
+        isStopped = false;
+        loops = new KdcNioEventLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new KdcNioEventLoop(this, "kdc-nio-" + i);
+        }
+    }
+
+    public synchronized void listen(TransportPair tpair) throws IOException {
+        KdcNioEventLoop mainLoop = loops[0];
+
+        if (tpair.tcpAddress != null) {
+            tcpServer = ServerSocketChannel.open();
+            tcpServer.configureBlocking(false);
+            tcpServer.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            tcpServer.bind(tpair.tcpAddress);
+            mainLoop.register(tcpServer, SelectionKey.OP_ACCEPT, null);
+        }
+
+        if (tpair.udpAddress != null) {
+            udpServer = DatagramChannel.open();
+            udpServer.configureBlocking(false);
+            udpServer.bind(tpair.udpAddress);
+            recvBuffer = ByteBuffer.allocate(MAX_MESSAGE_SIZE);
+            mainLoop.register(udpServer, SelectionKey.OP_READ, null);
+        }
+    }
+
+    public synchronized void start() {
+        for (KdcNioEventLoop loop : loops) {
+            loop.start();
+        }
+    }
+
+    public synchronized void stop() {
+        isStopped = true;
+
+        if (loops != null) {
+            for (KdcNioEventLoop loop : loops) {
+                loop.stop();
+            }
+        }
+
+        try {
+            if (tcpServer != null) {
+                tcpServer.close();
+            }
+
+            if (udpServer != null) {
+                udpServer.close();
+            }
+        } catch (IOException e) {
+            LOG.warn("KDC network stopping error " + e);
+        }
+    }
+
+    public synchronized boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * Accept all the pending connections, called on the main event loop.
+     */
+    void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = tcpServer.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            KdcNioEventLoop loop = nextLoop();
+            KdcNioTcpTransport transport = new KdcNioTcpTransport(this, loop,
+                channel, bufferPool, maxMessageSize);
+            loop.register(channel, SelectionKey.OP_READ, transport);
+        }
+    }
+
+    /**
+     * Drain all the pending datagrams, called on the main event loop.
+     */
+    void readUdp() throws IOException {
+        InetSocketAddress fromAddress;
+        while ((fromAddress = (InetSocketAddress) udpServer.receive(recvBuffer)) != null) {
+            recvBuffer.flip();
+            ByteBuffer message = bufferPool.acquire(recvBuffer.remaining());
+            message.put(recvBuffer);
+            message.flip();
+            recvBuffer.clear();
+
+            onRecvMessage(new KdcNioUdpTransport(udpServer, fromAddress), message);
+        }
+    }
+
+    private synchronized KdcNioEventLoop nextLoop() {
+        KdcNioEventLoop loop = loops[nextLoop];
+        nextLoop = (nextLoop + 1) % loops.length;
+        return loop;
+    }
+
+    /**
+     * Called on an event loop thread with every complete request message.
+     * @param transport The transport to send the response with
+     * @param message The request message, without the TCP length prefix,
+     *                to be given back with {@link #releaseMessage(ByteBuffer)}
+     */
+    protected abstract void onRecvMessage(KrbTransport transport, ByteBuffer message);
+}
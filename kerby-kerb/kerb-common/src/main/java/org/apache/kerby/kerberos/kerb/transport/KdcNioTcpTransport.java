@@ -0,0 +1,176 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Implementation of {@link KrbTransport} using TCP in non-blocking mode,
+ * driven by a {@link KdcNioEventLoop}. Received messages are pushed to the
+ * network, so {@link #receiveMessage()} isn't supported.
+ */
+public class KdcNioTcpTransport extends AbstractKrbTransport {
+    private final KdcNioNetwork network;
+    private final KdcNioEventLoop loop;
+    private final SocketChannel channel;
+    private final ByteBufferPool bufferPool;
+    private final int maxMessageSize;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+    private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private ByteBuffer messageBuffer; // for message body
+    private SelectionKey selectionKey;
+
+    KdcNioTcpTransport(KdcNioNetwork network, KdcNioEventLoop loop,
+                       SocketChannel channel, ByteBufferPool bufferPool,
+                       int maxMessageSize) {
+        this.network = network;
+        this.loop = loop;
+        this.channel = channel;
+        this.bufferPool = bufferPool;
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    /**
+     * Read as much as available, delivering every complete message.
+     */
+    void onReadable() throws IOException {
+        while (true) {
+            if (messageBuffer == null) {
+                if (channel.read(lengthBuffer) < 0) {
+                    release();
+                    return;
+                }
+                if (lengthBuffer.hasRemaining()) {
+                    return;
+                }
+
+                lengthBuffer.flip();
+                int msgLen = lengthBuffer.getInt();
+                lengthBuffer.clear();
+                if (msgLen <= 0 || msgLen > maxMessageSize) {
+                    throw new IOException("Invalid message length " + msgLen
+                        + ", too large message?");
+                }
+                messageBuffer = bufferPool.acquire(msgLen);
+            }
+
+            if (channel.read(messageBuffer) < 0) {
+                release();
+                return;
+            }
+            if (messageBuffer.hasRemaining()) {
+                return;
+            }
+
+            ByteBuffer message = messageBuffer;
+            messageBuffer = null;
+            message.flip();
+            network.onRecvMessage(this, message);
+        }
+    }
+
+    /**
+     * Flush the pending responses, called when the channel is writable again.
+     */
+    void onWritable() throws IOException {
+        synchronized (writeQueue) {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                writeQueue.poll();
+            }
+            selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The message is written directly when nothing is pending, otherwise
+     * it's queued and flushed by the event loop.
+     */
+    @Override
+    public void sendMessage(ByteBuffer message) throws IOException {
+        synchronized (writeQueue) {
+            if (writeQueue.isEmpty()) {
+                channel.write(message);
+                if (!message.hasRemaining()) {
+                    return;
+                }
+            }
+            writeQueue.add(message);
+        }
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (selectionKey != null && selectionKey.isValid()) {
+                    selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_WRITE);
+                }
+            }
+        });
+    }
+
+    @Override
+    public ByteBuffer receiveMessage() throws IOException {
+        throw new IOException("Messages are delivered by the network event loop");
+    }
+
+    @Override
+    public boolean isTcp() {
+        return true;
+    }
+
+    @Override
+    public InetAddress getRemoteAddress() {
+        return channel.socket().getInetAddress();
+    }
+
+    @Override
+    public void release() {
+        try {
+            channel.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+
+        if (loop.inEventLoop() && messageBuffer != null) {
+            bufferPool.release(messageBuffer);
+            messageBuffer = null;
+        }
+    }
+
+    public boolean isClosed() {
+        return !channel.isOpen();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Implementation of {@link KrbTransport} replying a single UDP request
+ * received by a {@link KdcNioNetwork} over the shared server channel.
+ */
+public class KdcNioUdpTransport extends AbstractKrbTransport {
+    private final DatagramChannel channel;
+    private final InetSocketAddress remoteAddress;
+
+    KdcNioUdpTransport(DatagramChannel channel, InetSocketAddress remoteAddress) {
+        this.channel = channel;
+        this.remoteAddress = remoteAddress;
+    }
+
+    @Override
+    public void sendMessage(ByteBuffer message) throws IOException {
+        channel.send(message, remoteAddress);
+    }
+
+    @Override
+    public ByteBuffer receiveMessage() throws IOException {
+        throw new IOException("Messages are delivered by the network event loop");
+    }
+
+    @Override
+    public boolean isTcp() {
+        return false;
+    }
+
+    @Override
+    public InetAddress getRemoteAddress() {
+        return remoteAddress.getAddress();
+    }
+
+    @Override
+    public void release() {
+        // The server channel is shared, nothing to release per request
+    }
+}
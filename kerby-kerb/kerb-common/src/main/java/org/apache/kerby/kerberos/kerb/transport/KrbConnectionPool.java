@@ -0,0 +1,403 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP connections to KDCs kept open across requests, instead of one new
+ * connection per request as with {@link KrbNetwork}. Up to a number of
+ * connections are opened per KDC, and a request waits for one to be free
+ * when they are all busy.
+ *
+ * A connection may also carry several requests at once, written one after
+ * the other without waiting for the responses. Responses are matched to the
+ * requests by their order, while RFC 4120 section 7.2.2 lets a KDC answer
+ * them in any order, so pipelining is off by default and should only be
+ * enabled with KDCs answering in order, as Kerby's KDC does.
+ *
+ * A connection idle for longer than the idle timeout is closed, and one
+ * idle for more than a second is checked before being reused, as the KDC
+ * may have closed it meanwhile. A KDC may also close a connection right
+ * after a response, so a request failing on a reused connection before any
+ * response is sent again once on a new connection. UDP isn't pooled, a UDP
+ * transport is returned when TCP isn't allowed or the KDC can't be reached
+ * with it.
+ */
+public class KrbConnectionPool {
+    private static final Logger LOG = LoggerFactory.getLogger(KrbConnectionPool.class);
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+    public static final int DEFAULT_MAX_PIPELINED = 1;
+    public static final long DEFAULT_IDLE_TIMEOUT = 30 * 1000L;
+    private static final long CHECK_IDLE_TIME = 1000L;
+
+    private final int maxConnections;
+    private final int maxPipelined;
+    private final long idleTimeout;
+    private int socketTimeout = 10 * 1000;
+    private final Map<InetSocketAddress, KdcConnections> kdcs = new HashMap<>();
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong reuses = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public KrbConnectionPool() {
+        this(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_PIPELINED, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param maxConnections The number of connections opened per KDC
+     * @param maxPipelined The number of requests in flight per connection,
+     *                     more than one only for KDCs answering in order
+     * @param idleTimeout The time in milliseconds an unused connection is kept
+     */
+    public KrbConnectionPool(int maxConnections, int maxPipelined, long idleTimeout) {
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxPipelined = Math.max(1, maxPipelined);
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void setSocketTimeout(int milliSeconds) {
+        socketTimeout = milliSeconds;
+    }
+
+    /**
+     * Get a transport for one request to a KDC, to be released once the
+     * response is received. The TCP connection it uses is reused by the
+     * following requests.
+     * @param tpair The KDC addresses
+     * @return the transport
+     * @throws IOException e
+     */
+    public KrbTransport connect(TransportPair tpair) throws IOException {
+        if (tpair.tcpAddress != null) {
+            try {
+                KdcConnections connections = getConnections(tpair.tcpAddress);
+                KrbPooledConnection connection = connections.acquire(false);
+                return new PooledTransport(connections, connection, connection.getUseCount() > 1);
+            } catch (IOException e) {
+                if (tpair.udpAddress == null) {
+                    throw e;
+                }
+                LOG.info("TCP connect failed, trying UDP. " + e);
+            }
+        }
+        if (tpair.udpAddress != null) {
+            return new KrbUdpTransport(tpair.udpAddress);
+        }
+        throw new IOException("Failed to establish the transport");
+    }
+
+    /**
+     * Close all the connections. The requests in flight fail.
+     */
+    public void close() {
+        List<KdcConnections> all;
+        synchronized (kdcs) {
+            all = new ArrayList<>(kdcs.values());
+            kdcs.clear();
+        }
+        for (KdcConnections connections : all) {
+            connections.close();
+        }
+    }
+
+    /**
+     * @return the number of connections opened
+     */
+    public long getConnectCount() {
+        return connects.get();
+    }
+
+    /**
+     * @return the number of requests sent over a connection already used
+     */
+    public long getReuseCount() {
+        return reuses.get();
+    }
+
+    /**
+     * @return the number of connections closed as idle, broken or
+     * found closed by the KDC
+     */
+    public long getDiscardCount() {
+        return discards.get();
+    }
+
+    /**
+     * @return the number of requests sent again on a new connection, the
+     * connection reused having been closed by the KDC
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return the number of connections open
+     */
+    public int getConnectionCount() {
+        int count = 0;
+        synchronized (kdcs) {
+            for (KdcConnections connections : kdcs.values()) {
+                count += connections.size();
+            }
+        }
+        return count;
+    }
+
+    private KdcConnections getConnections(InetSocketAddress address) {
+        synchronized (kdcs) {
+            KdcConnections connections = kdcs.get(address);
+            if (connections == null) {
+                connections = new KdcConnections(address);
+                kdcs.put(address, connections);
+            }
+            return connections;
+        }
+    }
+
+    /**
+     * The connections to a KDC.
+     */
+    private final class KdcConnections {
+        private final InetSocketAddress address;
+        private final List<KrbPooledConnection> connections = new ArrayList<>();
+
+        KdcConnections(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        synchronized int size() {
+            return connections.size();
+        }
+
+        /**
+         * Take the least loaded connection, unless all are busy enough to open
+         * another one, or wait for one to be released when there are already
+         * as many as allowed. The connection is opened under the lock, so that
+         * the requests made meanwhile wait to share it rather than open their own.
+         * @param fresh Whether to open a new connection, to send a request again
+         */
+        synchronized KrbPooledConnection acquire(boolean fresh) throws IOException {
+            long deadline = System.currentTimeMillis() + socketTimeout;
+            KrbPooledConnection connection;
+            while ((connection = tryAcquire(fresh)) == null) {
+                waitForRelease(deadline - System.currentTimeMillis());
+            }
+            return connection;
+        }
+
+        /**
+         * @return the connection, or null if all are busy
+         */
+        private KrbPooledConnection tryAcquire(boolean fresh) throws IOException {
+            long now = System.currentTimeMillis();
+            KrbPooledConnection chosen = null;
+            Iterator<KrbPooledConnection> iterator = connections.iterator();
+            while (iterator.hasNext()) {
+                KrbPooledConnection connection = iterator.next();
+                if (connection.isBroken() || connection.getInFlight() == 0
+                    && now - connection.getLastUsed() > idleTimeout) {
+                    iterator.remove();
+                    discard(connection);
+                } else if (chosen == null || connection.getInFlight() < chosen.getInFlight()) {
+                    chosen = connection;
+                }
+            }
+
+            if (!fresh && chosen != null && chosen.getInFlight() == 0
+                && now - chosen.getLastUsed() > CHECK_IDLE_TIME && !chosen.isHealthy()) {
+                connections.remove(chosen);
+                discard(chosen);
+                return tryAcquire(false);
+            }
+
+            if (fresh || chosen == null || chosen.getInFlight() >= maxPipelined
+                && connections.size() < maxConnections) {
+                chosen = new KrbPooledConnection(address, socketTimeout);
+                connections.add(chosen);
+                connects.incrementAndGet();
+            } else if (chosen.getInFlight() >= maxPipelined) {
+                return null;
+            } else {
+                reuses.incrementAndGet();
+            }
+            chosen.setInFlight(chosen.getInFlight() + 1);
+            chosen.setUseCount(chosen.getUseCount() + 1);
+            return chosen;
+        }
+
+        /**
+         * Send a request again on a new connection, after the connection reused
+         * for it was found closed.
+         */
+        KrbPooledConnection reacquire(KrbPooledConnection broken) throws IOException {
+            release(broken);
+            retries.incrementAndGet();
+            return acquire(true);
+        }
+
+        synchronized void release(KrbPooledConnection connection) {
+            connection.setInFlight(connection.getInFlight() - 1);
+            connection.setLastUsed(System.currentTimeMillis());
+            if (connection.isBroken() && connections.remove(connection)) {
+                discard(connection);
+            }
+            notifyAll();
+        }
+
+        synchronized void close() {
+            for (KrbPooledConnection connection : connections) {
+                connection.close();
+            }
+            connections.clear();
+            notifyAll();
+        }
+
+        private void waitForRelease(long timeout) throws IOException {
+            if (timeout <= 0) {
+                throw new IOException("No connection to " + address + " available, all the "
+                    + maxConnections + " connections are busy");
+            }
+            try {
+                wait(timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for a connection", e);
+            }
+        }
+
+        private void discard(KrbPooledConnection connection) {
+            connection.close();
+            discards.incrementAndGet();
+        }
+    }
+
+    /**
+     * The transport of one request over a pooled connection.
+     */
+    private static final class PooledTransport extends AbstractKrbTransport {
+        private final KdcConnections connections;
+        private KrbPooledConnection connection;
+        private KrbPooledConnection.Exchange exchange;
+        private ByteBuffer request;
+        private boolean retriable;
+        private boolean released;
+
+        /**
+         * @param retriable Whether the connection was reused, and may have
+         *                  been closed by the KDC after its last response
+         */
+        PooledTransport(KdcConnections connections, KrbPooledConnection connection,
+                        boolean retriable) {
+            this.connections = connections;
+            this.connection = connection;
+            this.retriable = retriable;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * A request sent again, as after a pre-authentication error, is
+         * pipelined as a new exchange of the same connection.
+         */
+        @Override
+        public void sendMessage(ByteBuffer message) throws IOException {
+            request = message;
+            try {
+                exchange = connection.send(message);
+            } catch (IOException e) {
+                retry(e);
+            }
+        }
+
+        @Override
+        public ByteBuffer receiveMessage() throws IOException {
+            if (exchange == null) {
+                throw new IOException("No request sent");
+            }
+            ByteBuffer response;
+            try {
+                response = connection.receive(takeExchange());
+            } catch (IOException e) {
+                retry(e);
+                response = connection.receive(takeExchange());
+            }
+            retriable = false;
+            return response;
+        }
+
+        private KrbPooledConnection.Exchange takeExchange() {
+            KrbPooledConnection.Exchange sent = exchange;
+            exchange = null;
+            return sent;
+        }
+
+        /**
+         * Send the request again on a new connection, once and only if nothing
+         * was received on the reused connection. A KDC too slow to answer isn't
+         * asked again.
+         */
+        private void retry(IOException e) throws IOException {
+            if (!retriable || released || e instanceof SocketTimeoutException
+                || e.getCause() instanceof SocketTimeoutException) {
+                throw e;
+            }
+            retriable = false;
+            LOG.debug("Reused connection to " + connection.getAddress()
+                + " failed, sending the request again. " + e);
+            connection = connections.reacquire(connection);
+            exchange = connection.send(request);
+        }
+
+        @Override
+        public boolean isTcp() {
+            return true;
+        }
+
+        @Override
+        public InetAddress getRemoteAddress() {
+            return connection.getAddress().getAddress();
+        }
+
+        @Override
+        public void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            connections.release(connection);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking Krb client network. The connections of all the requests in
+ * flight are multiplexed on one selector thread, instead of blocking a
+ * thread per request as with {@link KrbNetwork}.
+ *
+ * Every request gets its own TCP connection or connected UDP channel, with
+ * a timeout armed by every message sent and cleared by the response.
+ * Responses and failures are reported to the {@link KrbResponseListener}
+ * of the transport, on the network thread, which also runs the tasks
+ * scheduled with a delay.
+ */
+public class KrbNioNetwork implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(KrbNioNetwork.class);
+    private static final int MAX_UDP_MESSAGE_SIZE = 65507;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<Timeout> timeouts = new PriorityQueue<>();
+    private final ByteBuffer udpRecvBuffer = ByteBuffer.allocate(MAX_UDP_MESSAGE_SIZE);
+    private int maxMessageSize = KrbTcpTransport.DEFAULT_MAX_MESSAGE_SIZE;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean isStopped;
+
+    /**
+     * Set the maximum size of TCP responses, larger ones fail the transport.
+     * @param maxMessageSize The maximum message size
+     */
+    public void setMaxMessageSize(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    public int getMaxMessageSize() {
+        return maxMessageSize;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        selector = Selector.open();
+        thread = new Thread(this, "krb-nio-network");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the network, failing the requests in flight.
+     */
+    public synchronized void stop() {
+        isStopped = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * Open a transport to a KDC, connecting in the background. Messages
+     * can be sent with it right away, they're written once connected.
+     * @param address The KDC address
+     * @param isTcp Whether to use TCP, else UDP
+     * @param timeout The time to wait for the connection and for every
+     *                response, in milliseconds
+     * @param listener The listener of the responses
+     * @return the transport
+     * @throws IOException e
+     */
+    public KrbNioTransport connect(InetSocketAddress address, boolean isTcp, int timeout,
+                                   KrbResponseListener listener) throws IOException {
+        if (isStopped || selector == null) {
+            throw new IOException("Krb network not started");
+        }
+
+        SelectableChannel channel;
+        if (isTcp) {
+            SocketChannel socketChannel = SocketChannel.open();
+            channel = socketChannel;
+            try {
+                socketChannel.configureBlocking(false);
+                socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                socketChannel.connect(address);
+            } catch (IOException e) {
+                socketChannel.close();
+                throw e;
+            }
+        } else {
+            DatagramChannel datagramChannel = DatagramChannel.open();
+            channel = datagramChannel;
+            try {
+                datagramChannel.configureBlocking(false);
+                datagramChannel.connect(address);
+            } catch (IOException e) {
+                datagramChannel.close();
+                throw e;
+            }
+        }
+
+        final KrbNioTransport transport = new KrbNioTransport(this, channel,
+            address, isTcp, timeout, listener);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                transport.register(selector);
+            }
+        });
+        return transport;
+    }
+
+    /**
+     * Run the task on the network thread, soon.
+     * @param task The task
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Run a task on the network thread after a delay. The task should be
+     * short, and hand any real work to another thread.
+     * @param task The task
+     * @param delay The delay in milliseconds
+     */
+    public void schedule(final Runnable task, long delay) {
+        final long deadline = now() + delay;
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                timeouts.add(new Timeout(deadline, null, task));
+            }
+        });
+    }
+
+    /**
+     * Start waiting for a response, called on the network thread.
+     */
+    void armTimeout(KrbNioTransport transport) {
+        long deadline = now() + transport.getTimeout();
+        transport.setDeadline(deadline);
+        timeouts.add(new Timeout(deadline, transport, null));
+    }
+
+    ByteBuffer getUdpRecvBuffer() {
+        return udpRecvBuffer;
+    }
+
+    @Override
+    public void run() {
+        while (!isStopped) {
+            try {
+                long wait = expireTimeouts();
+                // Tasks queued by the loop itself don't wake it up
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else {
+                    selector.select(wait);
+                }
+                processSelectedKeys();
+                runTasks();
+            } catch (IOException e) {
+                if (!isStopped) {
+                    LOG.error("Error occurred in Krb network event loop", e);
+                }
+            }
+        }
+
+        runTasks();
+        IOException stopped = new IOException("Krb network stopped");
+        for (SelectionKey key : selector.keys()) {
+            ((KrbNioTransport) key.attachment()).fail(stopped);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+
+    /**
+     * Fail the transports waiting too long.
+     * @return the time to the next timeout, 0 if none
+     */
+    private long expireTimeouts() {
+        long now = now();
+        Timeout timeout;
+        while ((timeout = timeouts.peek()) != null) {
+            if (timeout.deadline > now) {
+                return timeout.deadline - now;
+            }
+            timeouts.poll();
+            // A transport may have got its response, or been re-armed
+            if (timeout.task != null) {
+                timeout.task.run();
+            } else if (timeout.transport.getDeadline() == timeout.deadline) {
+                timeout.transport.onTimeout();
+            }
+        }
+        return 0;
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+            SelectionKey key = iter.next();
+            iter.remove();
+            KrbNioTransport transport = (KrbNioTransport) key.attachment();
+            if (!key.isValid()) {
+                continue;
+            }
+
+            if (key.isConnectable()) {
+                transport.onConnectable();
+            }
+            if (key.isValid() && key.isReadable()) {
+                transport.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                transport.onWritable();
+            }
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class Timeout implements Comparable<Timeout> {
+        private final long deadline;
+        private final KrbNioTransport transport;
+        private final Runnable task;
+
+        Timeout(long deadline, KrbNioTransport transport, Runnable task) {
+            this.deadline = deadline;
+            this.transport = transport;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Timeout other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Implementation of {@link KrbTransport} in non-blocking mode, over TCP or
+ * UDP, driven by a {@link KrbNioNetwork}. Messages are sent from any thread
+ * and written by the network thread, responses are pushed to the
+ * {@link KrbResponseListener}, so {@link #receiveMessage()} isn't supported.
+ */
+public class KrbNioTransport extends AbstractKrbTransport {
+    private static final Logger LOG = LoggerFactory.getLogger(KrbNioTransport.class);
+
+    private final KrbNioNetwork network;
+    private final SelectableChannel channel;
+    private final InetSocketAddress remoteAddress;
+    private final boolean isTcp;
+    private final int timeout;
+    private final KrbResponseListener listener;
+
+    // Only used on the network thread
+    private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+    private ByteBuffer messageBuffer; // for message body
+    private SelectionKey selectionKey;
+    private long deadline;
+    private boolean isReleased;
+
+    private volatile boolean isConnected;
+
+    KrbNioTransport(KrbNioNetwork network, SelectableChannel channel,
+                    InetSocketAddress remoteAddress, boolean isTcp, int timeout,
+                    KrbResponseListener listener) {
+        this.network = network;
+        this.channel = channel;
+        this.remoteAddress = remoteAddress;
+        this.isTcp = isTcp;
+        this.timeout = timeout;
+        this.listener = listener;
+    }
+
+    int getTimeout() {
+        return timeout;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Whether connected to the KDC, always true over UDP.
+     * @return true if connected
+     */
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    void register(Selector selector) {
+        if (isReleased) {
+            return;
+        }
+
+        boolean connecting = isTcp && !((SocketChannel) channel).isConnected();
+        try {
+            selectionKey = channel.register(selector,
+                connecting ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+        } catch (ClosedChannelException e) {
+            fail(e);
+            return;
+        }
+        isConnected = !connecting;
+        if (connecting) {
+            network.armTimeout(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The message is queued and written by the network thread, which then
+     * waits for the response until the timeout.
+     */
+    @Override
+    public void sendMessage(final ByteBuffer message) {
+        network.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isReleased) {
+                    return;
+                }
+                writeQueue.add(message);
+                network.armTimeout(KrbNioTransport.this);
+                if (isConnected) {
+                    flush();
+                }
+            }
+        });
+    }
+
+    void onConnectable() {
+        try {
+            ((SocketChannel) channel).finishConnect();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        isConnected = true;
+        flush();
+    }
+
+    void onWritable() {
+        flush();
+    }
+
+    /**
+     * Read the available responses, delivering every complete one.
+     */
+    void onReadable() {
+        try {
+            if (isTcp) {
+                readTcp();
+            } else {
+                readUdp();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void readTcp() throws IOException {
+        SocketChannel socketChannel = (SocketChannel) channel;
+        while (!isReleased) {
+            if (messageBuffer == null) {
+                if (socketChannel.read(lengthBuffer) < 0) {
+                    throw new IOException("Connection closed by the KDC");
+                }
+                if (lengthBuffer.hasRemaining()) {
+                    return;
+                }
+
+                lengthBuffer.flip();
+                int msgLen = lengthBuffer.getInt();
+                lengthBuffer.clear();
+                if (msgLen <= 0 || msgLen > network.getMaxMessageSize()) {
+                    throw new IOException("Invalid message length " + msgLen
+                        + ", too large message?");
+                }
+                messageBuffer = ByteBuffer.allocate(msgLen);
+            }
+
+            if (socketChannel.read(messageBuffer) < 0) {
+                throw new IOException("Connection closed by the KDC");
+            }
+            if (messageBuffer.hasRemaining()) {
+                return;
+            }
+
+            ByteBuffer message = messageBuffer;
+            messageBuffer = null;
+            message.flip();
+            deliver(message);
+        }
+    }
+
+    private void readUdp() throws IOException {
+        ByteBuffer recvBuffer = network.getUdpRecvBuffer();
+        while (!isReleased) {
+            recvBuffer.clear();
+            if (((ByteChannel) channel).read(recvBuffer) <= 0) {
+                return;
+            }
+            recvBuffer.flip();
+            ByteBuffer message = ByteBuffer.allocate(recvBuffer.remaining());
+            message.put(recvBuffer);
+            message.flip();
+            deliver(message);
+        }
+    }
+
+    private void deliver(ByteBuffer message) {
+        deadline = 0;
+        try {
+            listener.onResponse(this, message);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to handle the KDC response", e);
+        }
+    }
+
+    private void flush() {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                ((ByteChannel) channel).write(buffer);
+                if (buffer.hasRemaining()) {
+                    selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                writeQueue.poll();
+            }
+            selectionKey.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    void onTimeout() {
+        fail(new SocketTimeoutException("No response from " + remoteAddress
+            + " in " + timeout + " ms"));
+    }
+
+    /**
+     * Release and report the failure, called on the network thread.
+     */
+    void fail(IOException cause) {
+        if (isReleased) {
+            return;
+        }
+        close();
+        try {
+            listener.onFailure(this, cause);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to handle the transport failure", e);
+        }
+    }
+
+    @Override
+    public ByteBuffer receiveMessage() throws IOException {
+        throw new IOException("Messages are delivered by the network event loop");
+    }
+
+    @Override
+    public boolean isTcp() {
+        return isTcp;
+    }
+
+    @Override
+    public InetAddress getRemoteAddress() {
+        return remoteAddress.getAddress();
+    }
+
+    @Override
+    public void release() {
+        network.execute(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    private void close() {
+        isReleased = true;
+        deadline = 0;
+        writeQueue.clear();
+        messageBuffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) { //NOPMD
+            // NOOP
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * A TCP connection of {@link KrbConnectionPool}, carrying one or several
+ * requests at once. Requests are written as they come and queued as
+ * exchanges; the responses are expected back in the same order, as the
+ * KDC answering pipelined requests has to guarantee. A thread waiting for its response
+ * reads the next one off the connection and hands it to the oldest exchange,
+ * until its own is there, while the other threads wait.
+ *
+ * Any error breaks the connection, and fails all the exchanges in flight.
+ */
+final class KrbPooledConnection {
+    private final InetSocketAddress address;
+    private final Socket socket;
+    private final int socketTimeout;
+    private final DataOutputStream outputStream;
+    private final DataInputStream inputStream;
+    private final int maxMessageSize;
+    private final Queue<Exchange> exchanges = new ArrayDeque<>(); // guarded by this
+    private boolean reading; // guarded by this
+    private volatile IOException failure;
+
+    // guarded by the pool
+    private int inFlight;
+    private int useCount;
+    private long lastUsed;
+
+    KrbPooledConnection(InetSocketAddress address, int socketTimeout) throws IOException {
+        this.address = address;
+        this.socketTimeout = socketTimeout;
+        this.maxMessageSize = KrbTcpTransport.DEFAULT_MAX_MESSAGE_SIZE;
+        this.socket = new Socket();
+        try {
+            socket.setSoTimeout(socketTimeout);
+            socket.setTcpNoDelay(true);
+            socket.connect(address, socketTimeout);
+            this.outputStream = new DataOutputStream(socket.getOutputStream());
+            this.inputStream = new DataInputStream(socket.getInputStream());
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    InetSocketAddress getAddress() {
+        return address;
+    }
+
+    int getInFlight() {
+        return inFlight;
+    }
+
+    void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    int getUseCount() {
+        return useCount;
+    }
+
+    void setUseCount(int useCount) {
+        this.useCount = useCount;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+
+    boolean isBroken() {
+        return failure != null;
+    }
+
+    /**
+     * Write a request, with its length prefix.
+     * @param message The request
+     * @return the exchange to wait the response on
+     * @throws IOException e
+     */
+    Exchange send(ByteBuffer message) throws IOException {
+        Exchange exchange = new Exchange();
+        synchronized (outputStream) {
+            checkFailure();
+            synchronized (this) {
+                exchanges.add(exchange);
+            }
+            try {
+                outputStream.write(message.array(), message.arrayOffset() + message.position(),
+                    message.remaining());
+                outputStream.flush();
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+        }
+        return exchange;
+    }
+
+    /**
+     * Wait for the response of a request, reading the responses of the
+     * requests sent before it if no other thread does.
+     * @param exchange The exchange of the request
+     * @return the response
+     * @throws IOException e
+     */
+    ByteBuffer receive(Exchange exchange) throws IOException {
+        while (true) {
+            synchronized (this) {
+                while (exchange.response == null && failure == null && reading) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted waiting for the response", e);
+                    }
+                }
+                if (exchange.response != null) {
+                    return exchange.response;
+                }
+                checkFailure();
+                reading = true;
+            }
+
+            ByteBuffer response;
+            try {
+                response = readMessage();
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+
+            synchronized (this) {
+                reading = false;
+                Exchange head = exchanges.poll();
+                if (head != null) {
+                    head.response = response;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Check an idle connection wasn't closed by the KDC: nothing should be
+     * there to read.
+     * @return true if the connection can be used
+     */
+    boolean isHealthy() {
+        if (failure != null || socket.isClosed()) {
+            return false;
+        }
+        try {
+            socket.setSoTimeout(1);
+            try {
+                inputStream.read();
+                return false;
+            } finally {
+                socket.setSoTimeout(socketTimeout);
+            }
+        } catch (SocketTimeoutException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void close() {
+        fail(new IOException("Connection to " + address + " closed"));
+    }
+
+    private ByteBuffer readMessage() throws IOException {
+        int msgLen = inputStream.readInt();
+        if (msgLen <= 0 || msgLen > maxMessageSize) {
+            throw new IOException("Invalid message length " + msgLen
+                + ", too large message?");
+        }
+        byte[] messageBuffer = new byte[msgLen];
+        inputStream.readFully(messageBuffer);
+        return ByteBuffer.wrap(messageBuffer);
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("Connection to " + address + " failed", e);
+        }
+    }
+
+    private void fail(IOException e) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = e;
+            }
+            reading = false;
+            exchanges.clear();
+            notifyAll();
+        }
+        try {
+            socket.close();
+        } catch (IOException ignore) { //NOPMD
+            // NOOP
+        }
+    }
+
+    /**
+     * A request waiting for its response.
+     */
+    static final class Exchange {
+        private ByteBuffer response; // guarded by the connection
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Listener of the responses received over a {@link KrbNioTransport}. It's
+ * called on the thread of the {@link KrbNioNetwork}, so implementations
+ * should pass the responses on to other threads for any real work.
+ */
+public interface KrbResponseListener {
+
+    /**
+     * Called with every message received from the KDC.
+     * @param transport The transport the message was received over
+     * @param message The message, without the TCP length prefix
+     */
+    void onResponse(KrbTransport transport, ByteBuffer message);
+
+    /**
+     * Called once when the transport fails to connect, send or receive,
+     * when no response comes in time, or when the network is stopped.
+     * The transport is released already.
+     * @param transport The failed transport
+     * @param cause The cause
+     */
+    void onFailure(KrbTransport transport, IOException cause);
+}
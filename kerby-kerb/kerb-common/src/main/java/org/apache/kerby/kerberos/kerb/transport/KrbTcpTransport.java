@@ -24,6 +24,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 
 /**
@@ -31,16 +32,29 @@ import java.nio.ByteBuffer;
  */
 public class KrbTcpTransport
         extends AbstractKrbTransport implements KrbTransport {
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 4 * 1024 * 1024;
+
     private Socket socket;
     private DataOutputStream outputStream;
     private DataInputStream inputStream;
-    private byte[] messageBuffer; // for message body
+    private final int maxMessageSize;
 
     public KrbTcpTransport(Socket socket) throws IOException {
+        this(socket, DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    /**
+     * Construct with the largest message allowed. The body buffer is sized
+     * per message, so an idle connection holds no message buffer.
+     * @param socket The connected socket
+     * @param maxMessageSize The maximum message size
+     * @throws IOException e
+     */
+    public KrbTcpTransport(Socket socket, int maxMessageSize) throws IOException {
         this.socket = socket;
         this.outputStream = new DataOutputStream(socket.getOutputStream());
         this.inputStream = new DataInputStream(socket.getInputStream());
-        this.messageBuffer = new byte[4 * 1024 * 1024]; // TODO.
+        this.maxMessageSize = maxMessageSize;
     }
 
 
@@ -53,11 +67,12 @@ public class KrbTcpTransport
     public ByteBuffer receiveMessage() throws IOException {
         int msgLen = inputStream.readInt();
         if (msgLen > 0) {
-            if (msgLen > messageBuffer.length) {
+            if (msgLen > maxMessageSize) {
                 throw new IOException("Recv buffer overflowed, too large message?");
             }
-            inputStream.readFully(messageBuffer, 0, msgLen);
-            return ByteBuffer.wrap(messageBuffer, 0, msgLen);
+            byte[] messageBuffer = new byte[msgLen];
+            inputStream.readFully(messageBuffer);
+            return ByteBuffer.wrap(messageBuffer);
         }
 
         return null;
@@ -85,4 +100,30 @@ public class KrbTcpTransport
     public boolean isClosed() {
         return socket.isClosed();
     }
+
+    /**
+     * Check that an idle connection hasn't been closed by the peer, with a
+     * read expected to time out. Only to be called between two exchanges,
+     * when nothing is to be received.
+     * @return true if the connection can still be used
+     */
+    public boolean isAlive() {
+        if (socket.isClosed()) {
+            return false;
+        }
+        try {
+            int timeout = socket.getSoTimeout();
+            socket.setSoTimeout(1);
+            try {
+                inputStream.read();
+                return false;
+            } finally {
+                socket.setSoTimeout(timeout);
+            }
+        } catch (SocketTimeoutException e) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
 }
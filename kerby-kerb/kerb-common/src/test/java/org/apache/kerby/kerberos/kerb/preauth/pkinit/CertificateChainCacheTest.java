@@ -0,0 +1,80 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.preauth.pkinit;
+
+import org.apache.kerby.x509.type.Certificate;
+import org.junit.jupiter.api.Test;
+
+import java.security.cert.CertPathValidatorException;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The test certificates, a CA and a KDC certificate it issued, are valid
+ * from 2025 to the end of 2049, as far as the UTCTime Kerby decodes allows.
+ */
+public class CertificateChainCacheTest {
+
+    private static X509Certificate load(String name) throws Exception {
+        return (X509Certificate) CertificateHelper.loadCerts(name).get(0);
+    }
+
+    private static List<Certificate> chain(X509Certificate x509Certificate) {
+        return Collections.singletonList(PkinitCrypto.changeToCertificate(x509Certificate));
+    }
+
+    @Test
+    public void testValidChainCached() throws Exception {
+        X509Certificate kdcCert = load("chainkdccert.pem");
+        X509Certificate caCert = load("chaincacert.pem");
+
+        CertificateChainCache cache = new CertificateChainCache(Collections.singletonList(caCert));
+        List<X509Certificate> validated = cache.validateChain(chain(kdcCert));
+        assertThat(validated).containsExactly(kdcCert);
+        assertThat(cache.validateChain(chain(kdcCert))).isSameAs(validated);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        cache.reload(Collections.singletonList(caCert), Collections.<X509CRL>emptyList());
+        assertThat(cache.size()).isZero();
+        cache.validateChain(chain(kdcCert));
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidChainNotCached() throws Exception {
+        X509Certificate kdcCert = load("chainkdccert.pem");
+
+        // Only trusting itself, the KDC certificate isn't issued by a trusted CA
+        CertificateChainCache cache = new CertificateChainCache(Collections.singletonList(kdcCert));
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> cache.validateChain(chain(kdcCert)))
+                .isInstanceOf(CertPathValidatorException.class);
+        }
+        assertThat(cache.getMissCount()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ByteBufferPoolTest {
+
+    @Test
+    public void testSizeClasses() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+
+        ByteBuffer buffer = pool.acquire(100);
+        assertThat(buffer.capacity()).isEqualTo(1024);
+        assertThat(buffer.position()).isZero();
+        assertThat(buffer.limit()).isEqualTo(100);
+
+        assertThat(pool.acquire(1025).capacity()).isEqualTo(2048);
+        assertThat(pool.acquire(4096).capacity()).isEqualTo(4096);
+        assertThat(pool.acquire(100 * 1024).capacity()).isEqualTo(100 * 1024);
+    }
+
+    @Test
+    public void testReuse() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+
+        ByteBuffer buffer = pool.acquire(3000);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertThat(pool.getPooledCount()).isEqualTo(1);
+        assertThat(pool.getPooledBytes()).isEqualTo(4096);
+
+        ByteBuffer reused = pool.acquire(2500);
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.position()).isZero();
+        assertThat(reused.limit()).isEqualTo(2500);
+
+        assertThat(pool.getAcquiredCount()).isEqualTo(2);
+        assertThat(pool.getAllocatedCount()).isEqualTo(1);
+        assertThat(pool.getReusedCount()).isEqualTo(1);
+        assertThat(pool.getPooledCount()).isZero();
+    }
+
+    @Test
+    public void testBounded() {
+        ByteBufferPool pool = new ByteBufferPool(true, 8192, 2);
+
+        ByteBuffer[] buffers = new ByteBuffer[3];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire(2000);
+            assertThat(buffers[i].isDirect()).isTrue();
+        }
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+        pool.release(pool.acquire(10000));
+        pool.release(ByteBuffer.allocate(2048));
+
+        assertThat(pool.getPooledCount()).isEqualTo(2);
+        assertThat(pool.getDiscardedCount()).isEqualTo(3);
+    }
+}
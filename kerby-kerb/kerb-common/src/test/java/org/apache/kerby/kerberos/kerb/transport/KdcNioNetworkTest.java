@@ -0,0 +1,164 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Echo messages over TCP and UDP through the selector based network.
+ */
+public class KdcNioNetworkTest {
+    private KdcNioNetwork network;
+    private TransportPair tpair;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tpair = new TransportPair();
+        tpair.tcpAddress = new InetSocketAddress("localhost", getFreePort());
+        tpair.udpAddress = new InetSocketAddress("localhost", getFreePort());
+
+        network = new KdcNioNetwork(2) {
+            @Override
+            protected void onRecvMessage(KrbTransport transport, ByteBuffer message) {
+                try {
+                    ByteBuffer response;
+                    if (transport.isTcp()) {
+                        response = ByteBuffer.allocate(message.remaining() + 4);
+                        response.putInt(message.remaining());
+                    } else {
+                        response = ByteBuffer.allocate(message.remaining());
+                    }
+                    response.put(message);
+                    response.flip();
+                    transport.sendMessage(response);
+                } catch (IOException e) {
+                    transport.release();
+                }
+            }
+        };
+        network.init();
+        network.listen(tpair);
+        network.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        network.stop();
+    }
+
+    @Test
+    public void testTcpPipelinedMessages() throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setSoTimeout(5000);
+            socket.connect(tpair.tcpAddress);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            // Two messages in one write, the second split over two writes
+            byte[] first = "first request".getBytes(StandardCharsets.UTF_8);
+            byte[] second = "second request".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(first.length);
+            out.write(first);
+            out.writeInt(second.length);
+            out.write(second, 0, 3);
+            out.flush();
+            out.write(second, 3, second.length - 3);
+            out.flush();
+
+            assertThat(readTcpMessage(in)).isEqualTo(first);
+            assertThat(readTcpMessage(in)).isEqualTo(second);
+        }
+    }
+
+    @Test
+    public void testTcpManyConnections() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            try (Socket socket = new Socket()) {
+                socket.setSoTimeout(5000);
+                socket.connect(tpair.tcpAddress);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                byte[] request = ("request " + i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(request.length);
+                out.write(request);
+                out.flush();
+
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                assertThat(readTcpMessage(in)).isEqualTo(request);
+            }
+        }
+    }
+
+    @Test
+    public void testUdp() throws IOException {
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.connect(tpair.udpAddress);
+            for (int i = 0; i < 10; i++) {
+                byte[] request = ("request " + i).getBytes(StandardCharsets.UTF_8);
+                channel.write(ByteBuffer.wrap(request));
+
+                ByteBuffer response = ByteBuffer.allocate(1024);
+                channel.read(response);
+                response.flip();
+                byte[] bytes = new byte[response.remaining()];
+                response.get(bytes);
+                assertThat(bytes).isEqualTo(request);
+            }
+        }
+    }
+
+    @Test
+    public void testTooLargeMessage() throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setSoTimeout(5000);
+            socket.connect(tpair.tcpAddress);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+
+            assertThat(socket.getInputStream().read()).isEqualTo(-1);
+        }
+    }
+
+    private static byte[] readTcpMessage(DataInputStream in) throws IOException {
+        byte[] message = new byte[in.readInt()];
+        in.readFully(message);
+        return message;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Send requests through pooled connections to an echo server, which closes
+ * the connection after answering a "close" request.
+ */
+public class KrbConnectionPoolTest {
+    private KdcNioNetwork server;
+    private TransportPair tpair;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tpair = new TransportPair();
+        tpair.tcpAddress = new InetSocketAddress("localhost", getFreePort());
+
+        server = new KdcNioNetwork() {
+            @Override
+            protected void onRecvMessage(KrbTransport transport, ByteBuffer message) {
+                boolean close = message.duplicate().equals(message("close"));
+                try {
+                    transport.sendMessage(frame(message));
+                } catch (IOException e) {
+                    close = true;
+                }
+                if (close) {
+                    transport.release();
+                }
+            }
+        };
+        server.init();
+        server.listen(tpair);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        KrbConnectionPool pool = new KrbConnectionPool();
+        for (int i = 0; i < 5; i++) {
+            assertThat(exchange(pool, "request " + i)).isEqualTo(message("request " + i));
+        }
+
+        assertThat(pool.getConnectCount()).isEqualTo(1);
+        assertThat(pool.getReuseCount()).isEqualTo(4);
+        assertThat(pool.getConnectionCount()).isEqualTo(1);
+
+        pool.close();
+        assertThat(pool.getConnectionCount()).isZero();
+    }
+
+    @Test
+    public void testPipelined() throws Exception {
+        final KrbConnectionPool pool = new KrbConnectionPool(2, 2, 60 * 1000L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ByteBuffer>> responses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String request = "request " + i;
+                responses.add(executor.submit(() -> exchange(pool, request)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertThat(responses.get(i).get(10, TimeUnit.SECONDS))
+                    .isEqualTo(message("request " + i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(pool.getConnectCount()).isBetween(1L, 2L);
+        assertThat(pool.getConnectCount() + pool.getReuseCount()).isEqualTo(100);
+        pool.close();
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        final KrbConnectionPool pool = new KrbConnectionPool(1, 1, 60 * 1000L);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ByteBuffer>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final String request = "request " + i;
+                responses.add(executor.submit(() -> exchange(pool, request)));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                assertThat(responses.get(i).get(10, TimeUnit.SECONDS))
+                    .isEqualTo(message("request " + i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Waiting for the connection rather than pipelining on it
+        assertThat(pool.getConnectCount()).isEqualTo(1);
+        assertThat(pool.getReuseCount()).isEqualTo(19);
+        pool.close();
+    }
+
+    @Test
+    public void testIdleTimeout() throws Exception {
+        KrbConnectionPool pool = new KrbConnectionPool(2, 2, 0);
+        exchange(pool, "request");
+        Thread.sleep(10);
+        exchange(pool, "request");
+
+        assertThat(pool.getConnectCount()).isEqualTo(2);
+        assertThat(pool.getDiscardCount()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    public void testClosedByKdc() throws Exception {
+        KrbConnectionPool pool = new KrbConnectionPool();
+        assertThat(exchange(pool, "close")).isEqualTo(message("close"));
+
+        // Checked before reuse once idle for a while
+        Thread.sleep(1100);
+        assertThat(exchange(pool, "request")).isEqualTo(message("request"));
+
+        assertThat(pool.getConnectCount()).isEqualTo(2);
+        assertThat(pool.getDiscardCount()).isEqualTo(1);
+        pool.close();
+    }
+
+    @Test
+    public void testClosedByKdcAfterResponse() throws Exception {
+        KrbConnectionPool pool = new KrbConnectionPool();
+        assertThat(exchange(pool, "close")).isEqualTo(message("close"));
+
+        // Reused right away without being checked, the request is sent again
+        assertThat(exchange(pool, "request")).isEqualTo(message("request"));
+
+        assertThat(pool.getConnectCount()).isEqualTo(2);
+        assertThat(pool.getRetryCount()).isEqualTo(1);
+        assertThat(pool.getConnectionCount()).isEqualTo(1);
+        pool.close();
+    }
+
+    private ByteBuffer exchange(KrbConnectionPool pool, String request) throws IOException {
+        KrbTransport transport = pool.connect(tpair);
+        try {
+            transport.sendMessage(frame(message(request)));
+            return transport.receiveMessage();
+        } finally {
+            transport.release();
+        }
+    }
+
+    private static ByteBuffer message(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer frame(ByteBuffer message) {
+        ByteBuffer framed = ByteBuffer.allocate(message.remaining() + 4);
+        framed.putInt(message.remaining());
+        framed.put(message);
+        framed.flip();
+        return framed;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Send requests in flight together through the non-blocking client network,
+ * to an echo server.
+ */
+public class KrbNioNetworkTest {
+    private KdcNioNetwork server;
+    private KrbNioNetwork network;
+    private TransportPair tpair;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tpair = new TransportPair();
+        tpair.tcpAddress = new InetSocketAddress("localhost", getFreePort());
+        tpair.udpAddress = new InetSocketAddress("localhost", getFreePort());
+
+        server = new KdcNioNetwork() {
+            @Override
+            protected void onRecvMessage(KrbTransport transport, ByteBuffer message) {
+                try {
+                    transport.sendMessage(frame(message, transport.isTcp()));
+                } catch (IOException e) {
+                    transport.release();
+                }
+            }
+        };
+        server.init();
+        server.listen(tpair);
+        server.start();
+
+        network = new KrbNioNetwork();
+        network.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        network.stop();
+        server.stop();
+    }
+
+    @Test
+    public void testRequestsInFlight() throws Exception {
+        List<CompletableFuture<ByteBuffer>> responses = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            boolean isTcp = i % 2 == 0;
+            ResponseFuture response = new ResponseFuture();
+            KrbTransport transport = network.connect(
+                isTcp ? tpair.tcpAddress : tpair.udpAddress, isTcp, 5000, response);
+            transport.sendMessage(frame(message("request " + i), isTcp));
+            responses.add(response);
+        }
+
+        for (int i = 0; i < responses.size(); i++) {
+            assertThat(responses.get(i).get(5, TimeUnit.SECONDS))
+                .isEqualTo(message("request " + i));
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        // Accepts connections in its backlog, but never answers
+        try (ServerSocket silentServer = new ServerSocket(0)) {
+            ResponseFuture response = new ResponseFuture();
+            KrbNioTransport transport = network.connect(new InetSocketAddress("localhost",
+                silentServer.getLocalPort()), true, 200, response);
+            transport.sendMessage(frame(message("request"), true));
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                () -> response.get(5, TimeUnit.SECONDS));
+            assertThat(e.getCause()).isInstanceOf(SocketTimeoutException.class);
+            assertThat(transport.isConnected()).isTrue();
+        }
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        ResponseFuture response = new ResponseFuture();
+        KrbNioTransport transport = network.connect(new InetSocketAddress("localhost",
+            getFreePort()), true, 5000, response);
+        transport.sendMessage(frame(message("request"), true));
+
+        assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+        assertThat(transport.isConnected()).isFalse();
+    }
+
+    private static ByteBuffer message(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer frame(ByteBuffer message, boolean isTcp) {
+        ByteBuffer framed = ByteBuffer.allocate(message.remaining() + (isTcp ? 4 : 0));
+        if (isTcp) {
+            framed.putInt(message.remaining());
+        }
+        framed.put(message);
+        framed.flip();
+        return framed;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    private static class ResponseFuture extends CompletableFuture<ByteBuffer>
+        implements KrbResponseListener {
+
+        @Override
+        public void onResponse(KrbTransport transport, ByteBuffer message) {
+            transport.release();
+            complete(message);
+        }
+
+        @Override
+        public void onFailure(KrbTransport transport, IOException cause) {
+            completeExceptionally(cause);
+        }
+    }
+}
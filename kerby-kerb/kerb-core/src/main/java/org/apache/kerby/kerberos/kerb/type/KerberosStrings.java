@@ -41,4 +41,9 @@ public class KerberosStrings extends KrbSequenceOfType<KerberosString> {
             }
         }
     }
+
+    @Override
+    protected KerberosString createElement() {
+        return new KerberosString();
+    }
 }
@@ -51,4 +51,9 @@ public class KrbIntegers extends KrbSequenceOfType<Asn1Integer> {
         }
         return results;
     }
+
+    @Override
+    protected Asn1Integer createElement() {
+        return new Asn1Integer();
+    }
 }
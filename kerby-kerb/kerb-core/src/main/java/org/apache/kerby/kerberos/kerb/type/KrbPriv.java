@@ -23,10 +23,13 @@ import org.apache.kerby.asn1.Asn1FieldInfo;
 import org.apache.kerby.asn1.EnumType;
 import org.apache.kerby.asn1.ExplicitField;
 import org.apache.kerby.asn1.type.Asn1Integer;
+import org.apache.kerby.asn1.type.Asn1Type;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptedData;
 import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
 import org.apache.kerby.kerberos.kerb.type.base.KrbMessageType;
 
+import java.util.function.Supplier;
+
 /**
  * The KRB_PRIV message, as defined in RFC 1510 :
  * The KRB_PRIV message contains user data encrypted in the Session Key.
@@ -62,10 +65,10 @@ public class KrbPriv extends KrbMessage {
         }
     }
    static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbPriv.KrbPrivField.PVNO, Asn1Integer.class),
-            new ExplicitField(KrbPriv.KrbPrivField.MSG_TYPE, Asn1Integer.class),
-            new ExplicitField(KrbPriv.KrbPrivField.UNUSED, null),
-            new ExplicitField(KrbPriv.KrbPrivField.ENC_PART, EncryptedData.class)
+            new ExplicitField(KrbPriv.KrbPrivField.PVNO, Asn1Integer::new),
+            new ExplicitField(KrbPriv.KrbPrivField.MSG_TYPE, Asn1Integer::new),
+            new ExplicitField(KrbPriv.KrbPrivField.UNUSED, (Supplier<Asn1Type>) null),
+            new ExplicitField(KrbPriv.KrbPrivField.ENC_PART, EncryptedData::new)
     };
 
     /**
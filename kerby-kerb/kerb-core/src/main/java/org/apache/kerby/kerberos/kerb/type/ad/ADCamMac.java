@@ -68,10 +68,10 @@ public class ADCamMac extends AuthorizationDataEntry {
 
         /** The CamMac's fields */
         private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-                new ExplicitField(CamMacField.CAMMAC_elements, AuthorizationData.class),
-                new ExplicitField(CamMacField.CAMMAC_kdc_verifier, CamMacVerifierMac.class),
-                new ExplicitField(CamMacField.CAMMAC_svc_verifier, CamMacVerifierMac.class),
-                new ExplicitField(CamMacField.CAMMAC_other_verifiers, CamMacOtherVerifiers.class)};
+                new ExplicitField(CamMacField.CAMMAC_elements, AuthorizationData::new),
+                new ExplicitField(CamMacField.CAMMAC_kdc_verifier, CamMacVerifierMac::new),
+                new ExplicitField(CamMacField.CAMMAC_svc_verifier, CamMacVerifierMac::new),
+                new ExplicitField(CamMacField.CAMMAC_other_verifiers, CamMacOtherVerifiers::new)};
 
         CamMac() {
             super(fieldInfos);
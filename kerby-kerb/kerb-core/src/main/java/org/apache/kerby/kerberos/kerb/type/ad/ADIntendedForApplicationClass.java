@@ -82,8 +82,8 @@ public class ADIntendedForApplicationClass extends AuthorizationDataEntry {
 
         /** The IntendedForApplicationClass's fields */
         private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-                new ExplicitField(IntendedForApplicationClassField.IFAC_intendedAppClass, KerberosStrings.class),
-                new ExplicitField(IntendedForApplicationClassField.IFAC_elements, AuthorizationData.class)};
+                new ExplicitField(IntendedForApplicationClassField.IFAC_intendedAppClass, KerberosStrings::new),
+                new ExplicitField(IntendedForApplicationClassField.IFAC_elements, AuthorizationData::new)};
 
         /**
          * Creates an IntendedForApplicationClass instance
@@ -77,8 +77,8 @@ public class ADIntendedForServer extends AuthorizationDataEntry {
 
         /** The IntendedForServer's fields */
         private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-                new ExplicitField(IntForSrvrField.IFS_intendedServer, PrincipalList.class),
-                new ExplicitField(IntForSrvrField.IFS_elements, AuthorizationData.class)};
+                new ExplicitField(IntForSrvrField.IFS_intendedServer, PrincipalList::new),
+                new ExplicitField(IntForSrvrField.IFS_elements, AuthorizationData::new)};
 
         IntForSrvr() {
             super(fieldInfos);
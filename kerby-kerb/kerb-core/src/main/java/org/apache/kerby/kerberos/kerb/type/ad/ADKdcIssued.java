@@ -66,10 +66,10 @@ public class ADKdcIssued extends AuthorizationDataEntry {
 
         /** The AuthorizationDataEntry's fields */
         private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-                new ExplicitField(KdcIssuedField.AD_CHECKSUM, CheckSum.class),
-                new ExplicitField(KdcIssuedField.I_REALM, Realm.class),
-                new ExplicitField(KdcIssuedField.I_SNAME, PrincipalName.class),
-                new ExplicitField(KdcIssuedField.ELEMENTS, AuthorizationData.class)};
+                new ExplicitField(KdcIssuedField.AD_CHECKSUM, CheckSum::new),
+                new ExplicitField(KdcIssuedField.I_REALM, Realm::new),
+                new ExplicitField(KdcIssuedField.I_SNAME, PrincipalName::new),
+                new ExplicitField(KdcIssuedField.ELEMENTS, AuthorizationData::new)};
 
         KdcIssued() {
             super(fieldInfos);
@@ -71,7 +71,7 @@ public class AdToken extends KrbSequenceType {
 
     /** The AdToken's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(AdTokenField.TOKEN, KrbToken.class)
+            new ExplicitField(AdTokenField.TOKEN, KrbToken::new)
     };
 
     /**
@@ -55,8 +55,8 @@ public class AndOr extends KrbSequenceType {
 
     /** The CamMac's fields */
     private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(AndOrField.AndOr_ConditionCount, Asn1Integer.class),
-            new ExplicitField(AndOrField.AndOr_Elements, AuthorizationData.class)};
+            new ExplicitField(AndOrField.AndOr_ConditionCount, Asn1Integer::new),
+            new ExplicitField(AndOrField.AndOr_Elements, AuthorizationData::new)};
 
     public AndOr() {
         super(fieldInfos);
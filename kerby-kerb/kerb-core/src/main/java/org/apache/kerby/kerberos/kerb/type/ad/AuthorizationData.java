@@ -45,4 +45,9 @@ public class AuthorizationData extends KrbSequenceOfType<AuthorizationDataEntry>
 
         return result;
     }
+
+    @Override
+    protected AuthorizationDataEntry createElement() {
+        return new AuthorizationDataEntry();
+    }
 }
@@ -75,8 +75,8 @@ public class AuthorizationDataEntry extends KrbSequenceType {
 
     /** The AuthorizationDataEntry's fields */
     private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(AuthorizationDataEntryField.AD_TYPE, Asn1Integer.class),
-            new ExplicitField(AuthorizationDataEntryField.AD_DATA, Asn1OctetString.class)
+            new ExplicitField(AuthorizationDataEntryField.AD_TYPE, Asn1Integer::new),
+            new ExplicitField(AuthorizationDataEntryField.AD_DATA, Asn1OctetString::new)
     };
 
     /**
@@ -55,7 +55,7 @@ public class CamMacVerifierChoice extends Asn1Choice {
 
     /** The CamMac's fields */
     private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(VerifierChoice.CAMMAC_verifierMac, CamMacVerifierMac.class)};
+            new ExplicitField(VerifierChoice.CAMMAC_verifierMac, CamMacVerifierMac::new)};
 
     public CamMacVerifierChoice() {
         super(fieldInfos);
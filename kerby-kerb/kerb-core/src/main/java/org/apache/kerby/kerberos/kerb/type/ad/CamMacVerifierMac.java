@@ -59,10 +59,10 @@ public class CamMacVerifierMac extends KrbSequenceType {
 
     /** The CamMac's fields */
     private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(CamMacField.CAMMAC_identifier, PrincipalName.class),
-            new ExplicitField(CamMacField.CAMMAC_kvno, Asn1Integer.class),
-            new ExplicitField(CamMacField.CAMMAC_enctype, Asn1Integer.class),
-            new ExplicitField(CamMacField.CAMMAC_mac, CheckSum.class)};
+            new ExplicitField(CamMacField.CAMMAC_identifier, PrincipalName::new),
+            new ExplicitField(CamMacField.CAMMAC_kvno, Asn1Integer::new),
+            new ExplicitField(CamMacField.CAMMAC_enctype, Asn1Integer::new),
+            new ExplicitField(CamMacField.CAMMAC_mac, CheckSum::new)};
 
     public CamMacVerifierMac() {
         super(fieldInfos);
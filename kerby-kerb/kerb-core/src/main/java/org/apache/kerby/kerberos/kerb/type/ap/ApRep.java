@@ -68,9 +68,9 @@ public class ApRep extends KrbMessage {
 
     /** The ApRep's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(ApRepField.PVNO, Asn1Integer.class),
-            new ExplicitField(ApRepField.MSG_TYPE, Asn1Integer.class),
-            new ExplicitField(ApRepField.ENC_PART, EncryptedData.class)
+            new ExplicitField(ApRepField.PVNO, Asn1Integer::new),
+            new ExplicitField(ApRepField.MSG_TYPE, Asn1Integer::new),
+            new ExplicitField(ApRepField.ENC_PART, EncryptedData::new)
     };
 
     /** The decrypted part of this message (Not used atm) */
@@ -71,11 +71,11 @@ public class ApReq extends KrbMessage {
 
     /** The ApReq's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(ApReqField.PVNO, Asn1Integer.class),
-            new ExplicitField(ApReqField.MSG_TYPE, Asn1Integer.class),
-            new ExplicitField(ApReqField.AP_OPTIONS, ApOptions.class),
-            new ExplicitField(ApReqField.TICKET, Ticket.class),
-            new ExplicitField(ApReqField.AUTHENTICATOR, EncryptedData.class)
+            new ExplicitField(ApReqField.PVNO, Asn1Integer::new),
+            new ExplicitField(ApReqField.MSG_TYPE, Asn1Integer::new),
+            new ExplicitField(ApReqField.AP_OPTIONS, ApOptions::new),
+            new ExplicitField(ApReqField.TICKET, Ticket::new),
+            new ExplicitField(ApReqField.AUTHENTICATOR, EncryptedData::new)
     };
 
     /** The decrypted authenticator. Not used atm*/
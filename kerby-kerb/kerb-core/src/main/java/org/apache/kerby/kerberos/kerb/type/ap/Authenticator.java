@@ -85,15 +85,15 @@ public class Authenticator extends KrbAppSequenceType {
 
     /** The ApReq's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(AuthenticatorField.AUTHENTICATOR_VNO, Asn1Integer.class),
-            new ExplicitField(AuthenticatorField.CREALM, KerberosString.class),
-            new ExplicitField(AuthenticatorField.CNAME, PrincipalName.class),
-            new ExplicitField(AuthenticatorField.CKSUM, CheckSum.class),
-            new ExplicitField(AuthenticatorField.CUSEC, Asn1Integer.class),
-            new ExplicitField(AuthenticatorField.CTIME, KerberosTime.class),
-            new ExplicitField(AuthenticatorField.SUBKEY, EncryptionKey.class),
-            new ExplicitField(AuthenticatorField.SEQ_NUMBER, Asn1Integer.class),
-            new ExplicitField(AuthenticatorField.AUTHORIZATION_DATA, AuthorizationData.class)
+            new ExplicitField(AuthenticatorField.AUTHENTICATOR_VNO, Asn1Integer::new),
+            new ExplicitField(AuthenticatorField.CREALM, KerberosString::new),
+            new ExplicitField(AuthenticatorField.CNAME, PrincipalName::new),
+            new ExplicitField(AuthenticatorField.CKSUM, CheckSum::new),
+            new ExplicitField(AuthenticatorField.CUSEC, Asn1Integer::new),
+            new ExplicitField(AuthenticatorField.CTIME, KerberosTime::new),
+            new ExplicitField(AuthenticatorField.SUBKEY, EncryptionKey::new),
+            new ExplicitField(AuthenticatorField.SEQ_NUMBER, Asn1Integer::new),
+            new ExplicitField(AuthenticatorField.AUTHORIZATION_DATA, AuthorizationData::new)
     };
 
     /**
@@ -72,10 +72,10 @@ public class EncAPRepPart extends KrbAppSequenceType {
 
     /** The EncAPRepPart's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EncAPRepPartField.CTIME, KerberosTime.class),
-            new ExplicitField(EncAPRepPartField.CUSEC, Asn1Integer.class),
-            new ExplicitField(EncAPRepPartField.SUBKEY, EncryptionKey.class),
-            new ExplicitField(EncAPRepPartField.SEQ_NUMBER, Asn1Integer.class)
+            new ExplicitField(EncAPRepPartField.CTIME, KerberosTime::new),
+            new ExplicitField(EncAPRepPartField.CUSEC, Asn1Integer::new),
+            new ExplicitField(EncAPRepPartField.SUBKEY, EncryptionKey::new),
+            new ExplicitField(EncAPRepPartField.SEQ_NUMBER, Asn1Integer::new)
     };
 
     /**
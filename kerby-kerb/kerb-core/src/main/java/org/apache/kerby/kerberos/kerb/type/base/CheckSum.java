@@ -65,8 +65,8 @@ public class CheckSum extends KrbSequenceType {
 
     /** The Checksum's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-        new ExplicitField(CheckSumField.CKSUM_TYPE, Asn1Integer.class),
-        new ExplicitField(CheckSumField.CHECK_SUM, Asn1OctetString.class)
+        new ExplicitField(CheckSumField.CKSUM_TYPE, Asn1Integer::new),
+        new ExplicitField(CheckSumField.CHECK_SUM, Asn1OctetString::new)
     };
 
     /**
@@ -68,9 +68,9 @@ public class EncryptedData extends KrbSequenceType {
 
     /** The EncryptedData's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EncryptedDataField.ETYPE, Asn1Integer.class),
-            new ExplicitField(EncryptedDataField.KVNO, Asn1Integer.class),
-            new ExplicitField(EncryptedDataField.CIPHER, Asn1OctetString.class)
+            new ExplicitField(EncryptedDataField.ETYPE, Asn1Integer::new),
+            new ExplicitField(EncryptedDataField.KVNO, Asn1Integer::new),
+            new ExplicitField(EncryptedDataField.CIPHER, Asn1OctetString::new)
     };
 
     /**
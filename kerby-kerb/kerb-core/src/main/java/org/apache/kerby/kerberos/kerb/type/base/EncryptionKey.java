@@ -53,8 +53,8 @@ public class EncryptionKey extends KrbSequenceType {
     private int kvno = -1;
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EncryptionKeyField.KEY_TYPE, Asn1Integer.class),
-            new ExplicitField(EncryptionKeyField.KEY_VALUE, Asn1OctetString.class)
+            new ExplicitField(EncryptionKeyField.KEY_TYPE, Asn1Integer::new),
+            new ExplicitField(EncryptionKeyField.KEY_VALUE, Asn1OctetString::new)
     };
 
     public EncryptionKey() {
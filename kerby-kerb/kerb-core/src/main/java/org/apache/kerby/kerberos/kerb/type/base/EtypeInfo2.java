@@ -26,4 +26,8 @@ import org.apache.kerby.kerberos.kerb.type.KrbSequenceOfType;
  */
 public class EtypeInfo2 extends KrbSequenceOfType<EtypeInfo2Entry> {
 
+    @Override
+    protected EtypeInfo2Entry createElement() {
+        return new EtypeInfo2Entry();
+    }
 }
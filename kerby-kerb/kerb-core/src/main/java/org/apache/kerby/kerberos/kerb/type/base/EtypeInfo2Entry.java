@@ -52,9 +52,9 @@ public class EtypeInfo2Entry extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EtypeInfo2EntryField.ETYPE, Asn1Integer.class),
-            new ExplicitField(EtypeInfo2EntryField.SALT, KerberosString.class),
-            new ExplicitField(EtypeInfo2EntryField.S2KPARAMS, Asn1OctetString.class)
+            new ExplicitField(EtypeInfo2EntryField.ETYPE, Asn1Integer::new),
+            new ExplicitField(EtypeInfo2EntryField.SALT, KerberosString::new),
+            new ExplicitField(EtypeInfo2EntryField.S2KPARAMS, Asn1OctetString::new)
     };
 
     public EtypeInfo2Entry() {
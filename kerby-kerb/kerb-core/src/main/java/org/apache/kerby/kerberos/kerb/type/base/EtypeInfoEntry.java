@@ -49,8 +49,8 @@ public class EtypeInfoEntry extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EtypeInfoEntryField.ETYPE, Asn1Integer.class),
-            new ExplicitField(EtypeInfoEntryField.SALT, Asn1OctetString.class)
+            new ExplicitField(EtypeInfoEntryField.ETYPE, Asn1Integer::new),
+            new ExplicitField(EtypeInfoEntryField.SALT, Asn1OctetString::new)
     };
 
     public EtypeInfoEntry() {
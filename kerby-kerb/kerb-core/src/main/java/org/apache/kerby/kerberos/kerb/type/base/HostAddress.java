@@ -67,8 +67,8 @@ public class HostAddress extends KrbSequenceType {
 
     /** The HostAddress' fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(HostAddressField.ADDR_TYPE, Asn1Integer.class),
-            new ExplicitField(HostAddressField.ADDRESS, Asn1OctetString.class)
+            new ExplicitField(HostAddressField.ADDR_TYPE, Asn1Integer::new),
+            new ExplicitField(HostAddressField.ADDRESS, Asn1OctetString::new)
     };
 
     /**
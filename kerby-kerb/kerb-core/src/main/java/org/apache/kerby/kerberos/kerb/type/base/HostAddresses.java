@@ -50,4 +50,9 @@ public class HostAddresses extends KrbSequenceOfType<HostAddress> {
         
         return false;
     }
+
+    @Override
+    protected HostAddress createElement() {
+        return new HostAddress();
+    }
 }
@@ -73,19 +73,19 @@ public class KrbError extends KrbMessage {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbErrorField.PVNO, Asn1Integer.class),
-            new ExplicitField(KrbErrorField.MSG_TYPE, Asn1Integer.class),
-            new ExplicitField(KrbErrorField.CTIME, KerberosTime.class),
-            new ExplicitField(KrbErrorField.CUSEC, Asn1Integer.class),
-            new ExplicitField(KrbErrorField.STIME, KerberosTime.class),
-            new ExplicitField(KrbErrorField.SUSEC, Asn1Integer.class),
-            new ExplicitField(KrbErrorField.ERROR_CODE, Asn1Integer.class),
-            new ExplicitField(KrbErrorField.CREALM, Realm.class),
-            new ExplicitField(KrbErrorField.CNAME, PrincipalName.class),
-            new ExplicitField(KrbErrorField.REALM, Realm.class),
-            new ExplicitField(KrbErrorField.SNAME, PrincipalName.class),
-            new ExplicitField(KrbErrorField.ETEXT, KerberosString.class),
-            new ExplicitField(KrbErrorField.EDATA, Asn1OctetString.class)
+            new ExplicitField(KrbErrorField.PVNO, Asn1Integer::new),
+            new ExplicitField(KrbErrorField.MSG_TYPE, Asn1Integer::new),
+            new ExplicitField(KrbErrorField.CTIME, KerberosTime::new),
+            new ExplicitField(KrbErrorField.CUSEC, Asn1Integer::new),
+            new ExplicitField(KrbErrorField.STIME, KerberosTime::new),
+            new ExplicitField(KrbErrorField.SUSEC, Asn1Integer::new),
+            new ExplicitField(KrbErrorField.ERROR_CODE, Asn1Integer::new),
+            new ExplicitField(KrbErrorField.CREALM, Realm::new),
+            new ExplicitField(KrbErrorField.CNAME, PrincipalName::new),
+            new ExplicitField(KrbErrorField.REALM, Realm::new),
+            new ExplicitField(KrbErrorField.SNAME, PrincipalName::new),
+            new ExplicitField(KrbErrorField.ETEXT, KerberosString::new),
+            new ExplicitField(KrbErrorField.EDATA, Asn1OctetString::new)
     };
 
     public KrbError() {
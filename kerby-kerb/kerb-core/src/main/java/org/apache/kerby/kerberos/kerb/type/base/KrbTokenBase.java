@@ -50,8 +50,8 @@ public class KrbTokenBase extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[]{
-            new ExplicitField(KrbTokenField.TOKEN_FORMAT, Asn1Integer.class),
-            new ExplicitField(KrbTokenField.TOKEN_VALUE, Asn1OctetString.class)
+            new ExplicitField(KrbTokenField.TOKEN_FORMAT, Asn1Integer::new),
+            new ExplicitField(KrbTokenField.TOKEN_VALUE, Asn1OctetString::new)
     };
     
     /**
@@ -29,4 +29,8 @@ import org.apache.kerby.kerberos.kerb.type.KrbSequenceOfType;
  */
 public class LastReq extends KrbSequenceOfType<LastReqEntry> {
 
+    @Override
+    protected LastReqEntry createElement() {
+        return new LastReqEntry();
+    }
 }
@@ -49,8 +49,8 @@ public class LastReqEntry extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(LastReqEntryField.LR_TYPE, Asn1Integer.class),
-            new ExplicitField(LastReqEntryField.LR_VALUE, KerberosTime.class)
+            new ExplicitField(LastReqEntryField.LR_TYPE, Asn1Integer::new),
+            new ExplicitField(LastReqEntryField.LR_VALUE, KerberosTime::new)
     };
 
     public LastReqEntry() {
@@ -27,4 +27,8 @@ import org.apache.kerby.kerberos.kerb.type.pa.PaDataEntry;
  */
 public class MethodData extends KrbSequenceOfType<PaDataEntry> {
 
+    @Override
+    protected PaDataEntry createElement() {
+        return new PaDataEntry();
+    }
 }
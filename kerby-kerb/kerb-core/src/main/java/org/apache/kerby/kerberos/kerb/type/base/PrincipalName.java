@@ -85,8 +85,8 @@ public class PrincipalName extends KrbSequenceType {
 
     /** The PrincipalName's fields */
     private static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PrincipalNameField.NAME_TYPE, Asn1Integer.class),
-            new ExplicitField(PrincipalNameField.NAME_STRING, KerberosStrings.class)
+            new ExplicitField(PrincipalNameField.NAME_TYPE, Asn1Integer::new),
+            new ExplicitField(PrincipalNameField.NAME_STRING, KerberosStrings::new)
     };
     
     /** The PrincipalName's realm */
@@ -49,8 +49,8 @@ public class TransitedEncoding extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(TransitedEncodingField.TR_TYPE, Asn1Integer.class),
-            new ExplicitField(TransitedEncodingField.CONTENTS, Asn1OctetString.class)
+            new ExplicitField(TransitedEncodingField.TR_TYPE, Asn1Integer::new),
+            new ExplicitField(TransitedEncodingField.CONTENTS, Asn1OctetString::new)
     };
 
     public TransitedEncoding() {
@@ -51,8 +51,8 @@ public class KrbFastArmor extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastArmorField.ARMOR_TYPE, Asn1Integer.class),
-            new ExplicitField(KrbFastArmorField.ARMOR_VALUE, Asn1OctetString.class)
+            new ExplicitField(KrbFastArmorField.ARMOR_TYPE, Asn1Integer::new),
+            new ExplicitField(KrbFastArmorField.ARMOR_VALUE, Asn1OctetString::new)
     };
 
     public KrbFastArmor() {
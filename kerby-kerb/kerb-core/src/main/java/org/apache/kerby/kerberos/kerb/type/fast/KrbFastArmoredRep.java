@@ -49,7 +49,7 @@ public class KrbFastArmoredRep extends KrbSequenceType {
 
     //private
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastArmoredRepField.ENC_FAST_REP, EncryptedData.class)
+            new ExplicitField(KrbFastArmoredRepField.ENC_FAST_REP, EncryptedData::new)
     };
 
     public KrbFastArmoredRep() {
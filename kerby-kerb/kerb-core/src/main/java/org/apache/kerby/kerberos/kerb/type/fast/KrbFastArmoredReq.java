@@ -66,9 +66,9 @@ public class KrbFastArmoredReq extends KrbSequenceType {
     private KrbFastReq fastReq;
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastArmoredReqField.ARMOR, KrbFastArmor.class),
-            new ExplicitField(KrbFastArmoredReqField.REQ_CHECKSUM, CheckSum.class),
-            new ExplicitField(KrbFastArmoredReqField.ENC_FAST_REQ, EncryptedData.class),
+            new ExplicitField(KrbFastArmoredReqField.ARMOR, KrbFastArmor::new),
+            new ExplicitField(KrbFastArmoredReqField.REQ_CHECKSUM, CheckSum::new),
+            new ExplicitField(KrbFastArmoredReqField.ENC_FAST_REQ, EncryptedData::new),
     };
 
     public KrbFastArmoredReq() {
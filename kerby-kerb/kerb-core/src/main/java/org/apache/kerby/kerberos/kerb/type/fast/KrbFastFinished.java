@@ -61,9 +61,9 @@ public class KrbFastFinished extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastFinishedField.FAST_OPTIONS, KrbFastArmor.class),
-            new ExplicitField(KrbFastFinishedField.PADATA, PaData.class),
-            new ExplicitField(KrbFastFinishedField.REQ_BODY, EncryptedData.class),
+            new ExplicitField(KrbFastFinishedField.FAST_OPTIONS, KrbFastArmor::new),
+            new ExplicitField(KrbFastFinishedField.PADATA, PaData::new),
+            new ExplicitField(KrbFastFinishedField.REQ_BODY, EncryptedData::new),
     };
 
     public KrbFastFinished() {
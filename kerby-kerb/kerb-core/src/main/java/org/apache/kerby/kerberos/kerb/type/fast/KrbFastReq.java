@@ -57,9 +57,9 @@ public class KrbFastReq extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastReqField.FAST_OPTIONS, FastOptions.class),
-            new ExplicitField(KrbFastReqField.PADATA, PaData.class),
-            new ExplicitField(KrbFastReqField.REQ_BODY, KdcReqBody.class),
+            new ExplicitField(KrbFastReqField.FAST_OPTIONS, FastOptions::new),
+            new ExplicitField(KrbFastReqField.PADATA, PaData::new),
+            new ExplicitField(KrbFastReqField.REQ_BODY, KdcReqBody::new),
     };
 
     public KrbFastReq() {
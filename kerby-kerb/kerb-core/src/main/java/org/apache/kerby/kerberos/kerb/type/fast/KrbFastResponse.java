@@ -60,10 +60,10 @@ public class KrbFastResponse extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KrbFastResponseField.PADATA, PaData.class),
-            new ExplicitField(KrbFastResponseField.STRENGTHEN_KEY, EncryptionKey.class),
-            new ExplicitField(KrbFastResponseField.FINISHED, KrbFastFinished.class),
-            new ExplicitField(KrbFastResponseField.NONCE, Asn1Integer.class)
+            new ExplicitField(KrbFastResponseField.PADATA, PaData::new),
+            new ExplicitField(KrbFastResponseField.STRENGTHEN_KEY, EncryptionKey::new),
+            new ExplicitField(KrbFastResponseField.FINISHED, KrbFastFinished::new),
+            new ExplicitField(KrbFastResponseField.NONCE, Asn1Integer::new)
     };
 
     public KrbFastResponse() {
@@ -52,9 +52,9 @@ public class PaAuthnEntry extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaAuthnEntryField.PA_TYPE, Asn1Integer.class),
-            new ExplicitField(PaAuthnEntryField.PA_HINT, Asn1OctetString.class),
-            new ExplicitField(PaAuthnEntryField.PA_VALUE, Asn1OctetString.class)
+            new ExplicitField(PaAuthnEntryField.PA_TYPE, Asn1Integer::new),
+            new ExplicitField(PaAuthnEntryField.PA_HINT, Asn1OctetString::new),
+            new ExplicitField(PaAuthnEntryField.PA_VALUE, Asn1OctetString::new)
     };
 
     public PaAuthnEntry() {
@@ -45,7 +45,7 @@ public class PaFxFastReply extends Asn1Choice {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaFxFastReplyField.ARMORED_DATA, KrbFastArmoredRep.class)
+            new ExplicitField(PaFxFastReplyField.ARMORED_DATA, KrbFastArmoredRep::new)
     };
 
     public PaFxFastReply() {
@@ -45,7 +45,7 @@ public class PaFxFastRequest extends Asn1Choice {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaFxFastRequestField.ARMORED_DATA, KrbFastArmoredReq.class)
+            new ExplicitField(PaFxFastRequestField.ARMORED_DATA, KrbFastArmoredReq::new)
     };
 
     public PaFxFastRequest() {
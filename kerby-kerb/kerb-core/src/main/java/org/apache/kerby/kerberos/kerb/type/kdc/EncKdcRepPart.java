@@ -75,18 +75,18 @@ public abstract class EncKdcRepPart extends KrbAppSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EncKdcRepPartField.KEY, EncryptionKey.class),
-            new ExplicitField(EncKdcRepPartField.LAST_REQ, LastReq.class),
-            new ExplicitField(EncKdcRepPartField.NONCE, Asn1Integer.class),
-            new ExplicitField(EncKdcRepPartField.KEY_EXPIRATION, KerberosTime.class),
-            new ExplicitField(EncKdcRepPartField.FLAGS, TicketFlags.class),
-            new ExplicitField(EncKdcRepPartField.AUTHTIME, KerberosTime.class),
-            new ExplicitField(EncKdcRepPartField.STARTTIME, KerberosTime.class),
-            new ExplicitField(EncKdcRepPartField.ENDTIME, KerberosTime.class),
-            new ExplicitField(EncKdcRepPartField.RENEW_TILL, KerberosTime.class),
-            new ExplicitField(EncKdcRepPartField.SREALM, KerberosString.class),
-            new ExplicitField(EncKdcRepPartField.SNAME, PrincipalName.class),
-            new ExplicitField(EncKdcRepPartField.CADDR, HostAddresses.class)
+            new ExplicitField(EncKdcRepPartField.KEY, EncryptionKey::new),
+            new ExplicitField(EncKdcRepPartField.LAST_REQ, LastReq::new),
+            new ExplicitField(EncKdcRepPartField.NONCE, Asn1Integer::new),
+            new ExplicitField(EncKdcRepPartField.KEY_EXPIRATION, KerberosTime::new),
+            new ExplicitField(EncKdcRepPartField.FLAGS, TicketFlags::new),
+            new ExplicitField(EncKdcRepPartField.AUTHTIME, KerberosTime::new),
+            new ExplicitField(EncKdcRepPartField.STARTTIME, KerberosTime::new),
+            new ExplicitField(EncKdcRepPartField.ENDTIME, KerberosTime::new),
+            new ExplicitField(EncKdcRepPartField.RENEW_TILL, KerberosTime::new),
+            new ExplicitField(EncKdcRepPartField.SREALM, KerberosString::new),
+            new ExplicitField(EncKdcRepPartField.SNAME, PrincipalName::new),
+            new ExplicitField(EncKdcRepPartField.CADDR, HostAddresses::new)
     };
 
     public EncKdcRepPart(int tagNo) {
@@ -67,13 +67,13 @@ public class KdcRep extends KrbMessage {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KdcRepField.PVNO, Asn1Integer.class),
-            new ExplicitField(KdcRepField.MSG_TYPE, Asn1Integer.class),
-            new ExplicitField(KdcRepField.PADATA, PaData.class),
-            new ExplicitField(KdcRepField.CREALM, KerberosString.class),
-            new ExplicitField(KdcRepField.CNAME, PrincipalName.class),
-            new ExplicitField(KdcRepField.TICKET, Ticket.class),
-            new ExplicitField(KdcRepField.ENC_PART, EncryptedData.class)
+            new ExplicitField(KdcRepField.PVNO, Asn1Integer::new),
+            new ExplicitField(KdcRepField.MSG_TYPE, Asn1Integer::new),
+            new ExplicitField(KdcRepField.PADATA, PaData::new),
+            new ExplicitField(KdcRepField.CREALM, KerberosString::new),
+            new ExplicitField(KdcRepField.CNAME, PrincipalName::new),
+            new ExplicitField(KdcRepField.TICKET, Ticket::new),
+            new ExplicitField(KdcRepField.ENC_PART, EncryptedData::new)
     };
 
     private EncKdcRepPart encPart;
@@ -57,10 +57,10 @@ public class KdcReq extends KrbMessage {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KdcReqField.PVNO, 1, Asn1Integer.class),
-            new ExplicitField(KdcReqField.MSG_TYPE, 2, Asn1Integer.class),
-            new ExplicitField(KdcReqField.PADATA, 3, PaData.class),
-            new ExplicitField(KdcReqField.REQ_BODY, 4, KdcReqBody.class)
+            new ExplicitField(KdcReqField.PVNO, 1, Asn1Integer::new),
+            new ExplicitField(KdcReqField.MSG_TYPE, 2, Asn1Integer::new),
+            new ExplicitField(KdcReqField.PADATA, 3, PaData::new),
+            new ExplicitField(KdcReqField.REQ_BODY, 4, KdcReqBody::new)
     };
 
     public KdcReq(KrbMessageType msgType) {
@@ -87,18 +87,18 @@ public class KdcReqBody extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KdcReqBodyField.KDC_OPTIONS, KdcOptions.class),
-            new ExplicitField(KdcReqBodyField.CNAME, PrincipalName.class),
-            new ExplicitField(KdcReqBodyField.REALM, KerberosString.class),
-            new ExplicitField(KdcReqBodyField.SNAME, PrincipalName.class),
-            new ExplicitField(KdcReqBodyField.FROM, KerberosTime.class),
-            new ExplicitField(KdcReqBodyField.TILL, KerberosTime.class),
-            new ExplicitField(KdcReqBodyField.RTIME, KerberosTime.class),
-            new ExplicitField(KdcReqBodyField.NONCE, Asn1Integer.class),
-            new ExplicitField(KdcReqBodyField.ETYPE, KrbIntegers.class),
-            new ExplicitField(KdcReqBodyField.ADDRESSES, HostAddresses.class),
-            new ExplicitField(KdcReqBodyField.ENC_AUTHORIZATION_DATA, AuthorizationData.class),
-            new ExplicitField(KdcReqBodyField.ADDITIONAL_TICKETS, Tickets.class)
+            new ExplicitField(KdcReqBodyField.KDC_OPTIONS, KdcOptions::new),
+            new ExplicitField(KdcReqBodyField.CNAME, PrincipalName::new),
+            new ExplicitField(KdcReqBodyField.REALM, KerberosString::new),
+            new ExplicitField(KdcReqBodyField.SNAME, PrincipalName::new),
+            new ExplicitField(KdcReqBodyField.FROM, KerberosTime::new),
+            new ExplicitField(KdcReqBodyField.TILL, KerberosTime::new),
+            new ExplicitField(KdcReqBodyField.RTIME, KerberosTime::new),
+            new ExplicitField(KdcReqBodyField.NONCE, Asn1Integer::new),
+            new ExplicitField(KdcReqBodyField.ETYPE, KrbIntegers::new),
+            new ExplicitField(KdcReqBodyField.ADDRESSES, HostAddresses::new),
+            new ExplicitField(KdcReqBodyField.ENC_AUTHORIZATION_DATA, AuthorizationData::new),
+            new ExplicitField(KdcReqBodyField.ADDITIONAL_TICKETS, Tickets::new)
     };
 
     public KdcReqBody() {
@@ -52,9 +52,9 @@ public class PaAuthenticationSetElem extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaAuthenticationSetElemField.PA_TYPE, Asn1Integer.class),
-            new ExplicitField(PaAuthenticationSetElemField.PA_HINT, Asn1OctetString.class),
-            new ExplicitField(PaAuthenticationSetElemField.PA_VALUE, Asn1OctetString.class)
+            new ExplicitField(PaAuthenticationSetElemField.PA_TYPE, Asn1Integer::new),
+            new ExplicitField(PaAuthenticationSetElemField.PA_HINT, Asn1OctetString::new),
+            new ExplicitField(PaAuthenticationSetElemField.PA_VALUE, Asn1OctetString::new)
     };
 
     public PaAuthenticationSetElem() {
@@ -48,4 +48,9 @@ public class PaData extends KrbSequenceOfType<PaDataEntry> {
         
         return null;
     }
+
+    @Override
+    protected PaDataEntry createElement() {
+        return new PaDataEntry();
+    }
 }
@@ -66,8 +66,8 @@ public class PaDataEntry extends KrbSequenceType {
 
     /** The PaDataEntrey's fields */
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaDataEntryField.PADATA_TYPE, 1, Asn1Integer.class),
-            new ExplicitField(PaDataEntryField.PADATA_VALUE, 2, Asn1OctetString.class)
+            new ExplicitField(PaDataEntryField.PADATA_TYPE, 1, Asn1Integer::new),
+            new ExplicitField(PaDataEntryField.PADATA_VALUE, 2, Asn1OctetString::new)
     };
 
     /**
@@ -49,8 +49,8 @@ public class PaEncTsEnc extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaEncTsEncField.PATIMESTAMP, KerberosTime.class),
-            new ExplicitField(PaEncTsEncField.PAUSEC, Asn1Integer.class)
+            new ExplicitField(PaEncTsEncField.PATIMESTAMP, KerberosTime::new),
+            new ExplicitField(PaEncTsEncField.PAUSEC, Asn1Integer::new)
     };
 
     public PaEncTsEnc() {
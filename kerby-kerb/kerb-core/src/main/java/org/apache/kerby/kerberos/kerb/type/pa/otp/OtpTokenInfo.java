@@ -67,15 +67,15 @@ public class OtpTokenInfo extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(OtpTokenInfoField.FLAGS, Asn1OctetString.class),
-            new ExplicitField(OtpTokenInfoField.OTP_VENDOR, Asn1Utf8String.class),
-            new ExplicitField(OtpTokenInfoField.OTP_CHALLENGE, Asn1OctetString.class),
-            new ExplicitField(OtpTokenInfoField.OTP_LENGTH, KerberosString.class),
-            new ExplicitField(OtpTokenInfoField.OTP_FORMAT, Asn1OctetString.class),
-            new ExplicitField(OtpTokenInfoField.OTP_TOKEN_ID, Asn1Utf8String.class),
-            new ExplicitField(OtpTokenInfoField.OTP_ALG_ID, Asn1OctetString.class),
-            new ExplicitField(OtpTokenInfoField.SUPPORTED_HASH_ALG, AlgorithmIdentifiers.class),
-            new ExplicitField(OtpTokenInfoField.ITERATION_COUNT, Asn1Integer.class)
+            new ExplicitField(OtpTokenInfoField.FLAGS, Asn1OctetString::new),
+            new ExplicitField(OtpTokenInfoField.OTP_VENDOR, Asn1Utf8String::new),
+            new ExplicitField(OtpTokenInfoField.OTP_CHALLENGE, Asn1OctetString::new),
+            new ExplicitField(OtpTokenInfoField.OTP_LENGTH, KerberosString::new),
+            new ExplicitField(OtpTokenInfoField.OTP_FORMAT, Asn1OctetString::new),
+            new ExplicitField(OtpTokenInfoField.OTP_TOKEN_ID, Asn1Utf8String::new),
+            new ExplicitField(OtpTokenInfoField.OTP_ALG_ID, Asn1OctetString::new),
+            new ExplicitField(OtpTokenInfoField.SUPPORTED_HASH_ALG, AlgorithmIdentifiers::new),
+            new ExplicitField(OtpTokenInfoField.ITERATION_COUNT, Asn1Integer::new)
     };
 
     public OtpTokenInfo() {
@@ -56,11 +56,11 @@ public class PaOtpChallenge extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaOtpChallengeField.NONCE, Asn1OctetString.class),
-            new ExplicitField(PaOtpChallengeField.OTP_SERVICE, Asn1Utf8String.class),
-            new ExplicitField(PaOtpChallengeField.OTP_TOKEN_INFO, Asn1OctetString.class),
-            new ExplicitField(PaOtpChallengeField.SALT, KerberosString.class),
-            new ExplicitField(PaOtpChallengeField.S2KPARAMS, Asn1OctetString.class)
+            new ExplicitField(PaOtpChallengeField.NONCE, Asn1OctetString::new),
+            new ExplicitField(PaOtpChallengeField.OTP_SERVICE, Asn1Utf8String::new),
+            new ExplicitField(PaOtpChallengeField.OTP_TOKEN_INFO, Asn1OctetString::new),
+            new ExplicitField(PaOtpChallengeField.SALT, KerberosString::new),
+            new ExplicitField(PaOtpChallengeField.S2KPARAMS, Asn1OctetString::new)
     };
 
     public PaOtpChallenge() {
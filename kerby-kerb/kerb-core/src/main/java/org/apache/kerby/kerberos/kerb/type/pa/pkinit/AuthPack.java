@@ -58,11 +58,11 @@ public class AuthPack extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(AuthPackField.PK_AUTHENTICATOR, PkAuthenticator.class),
-            new ExplicitField(AuthPackField.CLIENT_PUBLIC_VALUE, SubjectPublicKeyInfo.class),
-            new ExplicitField(AuthPackField.SUPPORTED_CMS_TYPES, AlgorithmIdentifiers.class),
-            new ExplicitField(AuthPackField.CLIENT_DH_NONCE, DhNonce.class),
-            new ExplicitField(AuthPackField.SUPPORTED_KDFS, SupportedKdfs.class)
+            new ExplicitField(AuthPackField.PK_AUTHENTICATOR, PkAuthenticator::new),
+            new ExplicitField(AuthPackField.CLIENT_PUBLIC_VALUE, SubjectPublicKeyInfo::new),
+            new ExplicitField(AuthPackField.SUPPORTED_CMS_TYPES, AlgorithmIdentifiers::new),
+            new ExplicitField(AuthPackField.CLIENT_DH_NONCE, DhNonce::new),
+            new ExplicitField(AuthPackField.SUPPORTED_KDFS, SupportedKdfs::new)
     };
 
     public AuthPack() {
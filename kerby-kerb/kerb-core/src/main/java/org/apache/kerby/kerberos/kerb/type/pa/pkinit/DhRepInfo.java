@@ -52,9 +52,9 @@ public class DhRepInfo extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ImplicitField(DhRepInfoField.DH_SIGNED_DATA, Asn1OctetString.class),
-            new ExplicitField(DhRepInfoField.SERVER_DH_NONCE, DhNonce.class),
-            new ExplicitField(DhRepInfoField.KDF_ID, KdfAlgorithmId.class)
+            new ImplicitField(DhRepInfoField.DH_SIGNED_DATA, Asn1OctetString::new),
+            new ExplicitField(DhRepInfoField.SERVER_DH_NONCE, DhNonce::new),
+            new ExplicitField(DhRepInfoField.KDF_ID, KdfAlgorithmId::new)
     };
 
     public DhRepInfo() {
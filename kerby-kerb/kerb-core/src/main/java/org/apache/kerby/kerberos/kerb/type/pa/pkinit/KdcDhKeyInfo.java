@@ -52,9 +52,9 @@ public class KdcDhKeyInfo extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KdcDhKeyInfoField.SUBJECT_PUBLIC_KEY, Asn1BitString.class),
-            new ExplicitField(KdcDhKeyInfoField.NONCE, Asn1Integer.class),
-            new ExplicitField(KdcDhKeyInfoField.DH_KEY_EXPIRATION, KerberosTime.class)
+            new ExplicitField(KdcDhKeyInfoField.SUBJECT_PUBLIC_KEY, Asn1BitString::new),
+            new ExplicitField(KdcDhKeyInfoField.NONCE, Asn1Integer::new),
+            new ExplicitField(KdcDhKeyInfoField.DH_KEY_EXPIRATION, KerberosTime::new)
     };
 
     public KdcDhKeyInfo() {
@@ -47,7 +47,7 @@ public class KdfAlgorithmId extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(KdfAlgorithmIdField.KDF_ID, Asn1ObjectIdentifier.class)
+            new ExplicitField(KdfAlgorithmIdField.KDF_ID, Asn1ObjectIdentifier::new)
     };
 
     public KdfAlgorithmId() {
@@ -49,8 +49,8 @@ public class Krb5PrincipalName extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(Krb5PrincipalNameField.REALM, Realm.class),
-            new ExplicitField(Krb5PrincipalNameField.PRINCIPAL_NAME, PrincipalName.class)
+            new ExplicitField(Krb5PrincipalNameField.REALM, Realm::new),
+            new ExplicitField(Krb5PrincipalNameField.PRINCIPAL_NAME, PrincipalName::new)
     };
 
     public Krb5PrincipalName() {
@@ -49,8 +49,8 @@ public class PaPkAsRep extends Asn1Choice {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaPkAsRepField.DH_INFO, DhRepInfo.class),
-            new ImplicitField(PaPkAsRepField.ENCKEY_PACK, Asn1OctetString.class)
+            new ExplicitField(PaPkAsRepField.DH_INFO, DhRepInfo::new),
+            new ImplicitField(PaPkAsRepField.ENCKEY_PACK, Asn1OctetString::new)
     };
 
     public PaPkAsRep() {
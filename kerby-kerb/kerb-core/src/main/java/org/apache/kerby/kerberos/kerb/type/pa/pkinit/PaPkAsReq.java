@@ -51,9 +51,9 @@ public class PaPkAsReq extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ImplicitField(PaPkAsReqField.SIGNED_AUTH_PACK, Asn1OctetString.class),
-            new ExplicitField(PaPkAsReqField.TRUSTED_CERTIFIERS, TrustedCertifiers.class),
-            new ImplicitField(PaPkAsReqField.KDC_PKID, Asn1OctetString.class)
+            new ImplicitField(PaPkAsReqField.SIGNED_AUTH_PACK, Asn1OctetString::new),
+            new ExplicitField(PaPkAsReqField.TRUSTED_CERTIFIERS, TrustedCertifiers::new),
+            new ImplicitField(PaPkAsReqField.KDC_PKID, Asn1OctetString::new)
     };
 
     public PaPkAsReq() {
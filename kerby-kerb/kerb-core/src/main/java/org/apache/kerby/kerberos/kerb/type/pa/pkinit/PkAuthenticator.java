@@ -61,10 +61,10 @@ public class PkAuthenticator extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PkAuthenticatorField.CUSEC, Asn1Integer.class),
-            new ExplicitField(PkAuthenticatorField.CTIME, KerberosTime.class),
-            new ExplicitField(PkAuthenticatorField.NONCE, Asn1Integer.class),
-            new ExplicitField(PkAuthenticatorField.PA_CHECKSUM, Asn1OctetString.class)
+            new ExplicitField(PkAuthenticatorField.CUSEC, Asn1Integer::new),
+            new ExplicitField(PkAuthenticatorField.CTIME, KerberosTime::new),
+            new ExplicitField(PkAuthenticatorField.NONCE, Asn1Integer::new),
+            new ExplicitField(PkAuthenticatorField.PA_CHECKSUM, Asn1OctetString::new)
     };
 
     public PkAuthenticator() {
@@ -49,8 +49,8 @@ public class ReplyKeyPack extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(ReplyKeyPackField.REPLY_KEY, EncryptionKey.class),
-            new ExplicitField(ReplyKeyPackField.AS_CHECKSUM, CheckSum.class)
+            new ExplicitField(ReplyKeyPackField.REPLY_KEY, EncryptionKey::new),
+            new ExplicitField(ReplyKeyPackField.AS_CHECKSUM, CheckSum::new)
     };
 
     public ReplyKeyPack() {
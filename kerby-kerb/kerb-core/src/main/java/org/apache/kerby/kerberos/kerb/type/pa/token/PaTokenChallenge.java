@@ -45,7 +45,7 @@ public class PaTokenChallenge extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaTokenChallengeField.TOKENINFOS, TokenInfos.class)
+            new ExplicitField(PaTokenChallengeField.TOKENINFOS, TokenInfos::new)
     };
 
     public PaTokenChallenge() {
@@ -48,8 +48,8 @@ public class PaTokenRequest extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(PaTokenRequestField.TOKEN_INFO, TokenInfo.class),
-            new ExplicitField(PaTokenRequestField.TOKEN, KrbTokenBase.class)
+            new ExplicitField(PaTokenRequestField.TOKEN_INFO, TokenInfo::new),
+            new ExplicitField(PaTokenRequestField.TOKEN, KrbTokenBase::new)
     };
 
     public PaTokenRequest() {
@@ -49,8 +49,8 @@ public class TokenInfo extends KrbSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(TokenInfoField.FLAGS, Asn1OctetString.class),
-            new ExplicitField(TokenInfoField.TOKEN_VENDOR, Asn1Utf8String.class),
+            new ExplicitField(TokenInfoField.FLAGS, Asn1OctetString::new),
+            new ExplicitField(TokenInfoField.TOKEN_VENDOR, Asn1Utf8String::new),
     };
 
     public TokenInfo() {
@@ -75,17 +75,17 @@ public class EncTicketPart extends KrbAppSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(EncTicketPartField.FLAGS, TicketFlags.class),
-            new ExplicitField(EncTicketPartField.KEY, EncryptionKey.class),
-            new ExplicitField(EncTicketPartField.CREALM, KerberosString.class),
-            new ExplicitField(EncTicketPartField.CNAME, PrincipalName.class),
-            new ExplicitField(EncTicketPartField.TRANSITED, TransitedEncoding.class),
-            new ExplicitField(EncTicketPartField.AUTHTIME, KerberosTime.class),
-            new ExplicitField(EncTicketPartField.STARTTIME, KerberosTime.class),
-            new ExplicitField(EncTicketPartField.ENDTIME, KerberosTime.class),
-            new ExplicitField(EncTicketPartField.RENEW_TILL, KerberosTime.class),
-            new ExplicitField(EncTicketPartField.CADDR, HostAddresses.class),
-            new ExplicitField(EncTicketPartField.AUTHORIZATION_DATA, AuthorizationData.class)
+            new ExplicitField(EncTicketPartField.FLAGS, TicketFlags::new),
+            new ExplicitField(EncTicketPartField.KEY, EncryptionKey::new),
+            new ExplicitField(EncTicketPartField.CREALM, KerberosString::new),
+            new ExplicitField(EncTicketPartField.CNAME, PrincipalName::new),
+            new ExplicitField(EncTicketPartField.TRANSITED, TransitedEncoding::new),
+            new ExplicitField(EncTicketPartField.AUTHTIME, KerberosTime::new),
+            new ExplicitField(EncTicketPartField.STARTTIME, KerberosTime::new),
+            new ExplicitField(EncTicketPartField.ENDTIME, KerberosTime::new),
+            new ExplicitField(EncTicketPartField.RENEW_TILL, KerberosTime::new),
+            new ExplicitField(EncTicketPartField.CADDR, HostAddresses::new),
+            new ExplicitField(EncTicketPartField.AUTHORIZATION_DATA, AuthorizationData::new)
     };
 
     public EncTicketPart() {
@@ -59,10 +59,10 @@ public class Ticket extends KrbAppSequenceType {
     }
 
     static Asn1FieldInfo[] fieldInfos = new Asn1FieldInfo[] {
-            new ExplicitField(TicketField.TKT_VNO, 0, Asn1Integer.class),
-            new ExplicitField(TicketField.REALM, 1, KerberosString.class),
-            new ExplicitField(TicketField.SNAME, 2, PrincipalName.class),
-            new ExplicitField(TicketField.ENC_PART, 3, EncryptedData.class)
+            new ExplicitField(TicketField.TKT_VNO, 0, Asn1Integer::new),
+            new ExplicitField(TicketField.REALM, 1, KerberosString::new),
+            new ExplicitField(TicketField.SNAME, 2, PrincipalName::new),
+            new ExplicitField(TicketField.ENC_PART, 3, EncryptedData::new)
     };
 
     public Ticket() {
@@ -26,4 +26,8 @@ import org.apache.kerby.kerberos.kerb.type.KrbSequenceOfType;
  */
 public class Tickets extends KrbSequenceOfType<Ticket> {
 
+    @Override
+    protected Ticket createElement() {
+        return new Ticket();
+    }
 }
@@ -29,6 +29,8 @@ import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacMd5Rc4CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacSha1Aes128CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacSha1Aes256CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacSha1Des3CheckSum;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacSha256Aes128CheckSum;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HmacSha384Aes256CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.Md5HmacRc4CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.RsaMd4CheckSum;
 import org.apache.kerby.kerberos.kerb.crypto.cksum.RsaMd4DesCheckSum;
@@ -39,6 +41,9 @@ import org.apache.kerby.kerberos.kerb.type.base.CheckSum;
 import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
 import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Checksum handler as the highest level API for checksum stuffs defined in
  * Kerberos RFC3961. It supports all the checksum types. New checksum type
@@ -46,6 +51,38 @@ import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
  */
 public class CheckSumHandler {
 
+    /**
+     * The handlers hold no per message state, so they're shared rather than
+     * built per call. Ref. cksumtypes.c in MIT krb5 project.
+     */
+    private static final Map<CheckSumType, CheckSumTypeHandler> CKSUM_HANDLERS =
+        createCheckSumHandlers();
+
+    private static Map<CheckSumType, CheckSumTypeHandler> createCheckSumHandlers() {
+        Map<CheckSumType, CheckSumTypeHandler> cksumHandlers = new EnumMap<>(CheckSumType.class);
+        cksumHandlers.put(CheckSumType.CRC32, new Crc32CheckSum());
+        cksumHandlers.put(CheckSumType.DES_MAC, new DesCbcCheckSum());
+        cksumHandlers.put(CheckSumType.RSA_MD4, new RsaMd4CheckSum());
+        cksumHandlers.put(CheckSumType.RSA_MD5, new RsaMd5CheckSum());
+        cksumHandlers.put(CheckSumType.NIST_SHA, new Sha1CheckSum());
+        cksumHandlers.put(CheckSumType.RSA_MD4_DES, new RsaMd4DesCheckSum());
+        cksumHandlers.put(CheckSumType.RSA_MD5_DES, new RsaMd5DesCheckSum());
+
+        CheckSumTypeHandler cksumHandler = new HmacSha1Des3CheckSum();
+        cksumHandlers.put(CheckSumType.HMAC_SHA1_DES3, cksumHandler);
+        cksumHandlers.put(CheckSumType.HMAC_SHA1_DES3_KD, cksumHandler);
+
+        cksumHandlers.put(CheckSumType.HMAC_SHA1_96_AES128, new HmacSha1Aes128CheckSum());
+        cksumHandlers.put(CheckSumType.HMAC_SHA1_96_AES256, new HmacSha1Aes256CheckSum());
+        cksumHandlers.put(CheckSumType.HMAC_SHA256_128_AES128, new HmacSha256Aes128CheckSum());
+        cksumHandlers.put(CheckSumType.HMAC_SHA384_192_AES256, new HmacSha384Aes256CheckSum());
+        cksumHandlers.put(CheckSumType.CMAC_CAMELLIA128, new CmacCamellia128CheckSum());
+        cksumHandlers.put(CheckSumType.CMAC_CAMELLIA256, new CmacCamellia256CheckSum());
+        cksumHandlers.put(CheckSumType.HMAC_MD5_ARCFOUR, new HmacMd5Rc4CheckSum());
+        cksumHandlers.put(CheckSumType.MD5_HMAC_ARCFOUR, new Md5HmacRc4CheckSum());
+        return cksumHandlers;
+    }
+
     public static CheckSumTypeHandler getCheckSumHandler(String cksumType) throws KrbException {
         CheckSumType eTypeEnum = CheckSumType.fromName(cksumType);
         return getCheckSumHandler(eTypeEnum);
@@ -65,73 +102,9 @@ public class CheckSumHandler {
         return getCheckSumHandler(cksumType, false);
     }
 
-    /**
-     * Ref. cksumtypes.c in MIT krb5 project.
-     */
     private static CheckSumTypeHandler getCheckSumHandler(CheckSumType cksumType,
                                                           boolean check) throws KrbException {
-        CheckSumTypeHandler cksumHandler = null;
-        switch (cksumType) {
-            case CRC32:
-                cksumHandler = new Crc32CheckSum();
-                break;
-
-            case DES_MAC:
-                cksumHandler = new DesCbcCheckSum();
-                break;
-
-            case RSA_MD4:
-                cksumHandler = new RsaMd4CheckSum();
-                break;
-
-            case RSA_MD5:
-                cksumHandler = new RsaMd5CheckSum();
-                break;
-
-            case NIST_SHA:
-                cksumHandler = new Sha1CheckSum();
-                break;
-
-            case RSA_MD4_DES:
-                cksumHandler = new RsaMd4DesCheckSum();
-                break;
-
-            case RSA_MD5_DES:
-                cksumHandler = new RsaMd5DesCheckSum();
-                break;
-
-            case HMAC_SHA1_DES3:
-            case HMAC_SHA1_DES3_KD:
-                cksumHandler = new HmacSha1Des3CheckSum();
-                break;
-
-            case HMAC_SHA1_96_AES128:
-                cksumHandler = new HmacSha1Aes128CheckSum();
-                break;
-
-            case HMAC_SHA1_96_AES256:
-                cksumHandler = new HmacSha1Aes256CheckSum();
-                break;
-
-            case CMAC_CAMELLIA128:
-                cksumHandler = new CmacCamellia128CheckSum();
-                break;
-
-            case CMAC_CAMELLIA256:
-                cksumHandler = new CmacCamellia256CheckSum();
-                break;
-
-            case HMAC_MD5_ARCFOUR:
-                cksumHandler = new HmacMd5Rc4CheckSum();
-                break;
-
-            case MD5_HMAC_ARCFOUR:
-                cksumHandler = new Md5HmacRc4CheckSum();
-                break;
-
-            default:
-                break;
-        }
+        CheckSumTypeHandler cksumHandler = CKSUM_HANDLERS.get(cksumType);
 
         if (cksumHandler == null && !check) {
             String message = "Unsupported checksum type: " + cksumType.name();
@@ -52,6 +52,22 @@ public interface CheckSumTypeHandler extends CryptoTypeHandler {
     byte[] checksumWithKey(byte[] data, int start, int len,
                                   byte[] key, int usage) throws KrbException;
 
+    /**
+     * Checksum of a part of the data followed by a trailer, as GSS tokens
+     * checksum the message followed by the token header, without putting
+     * them together first where the checksum type allows it.
+     * @param data The data
+     * @param start The start offset of the part
+     * @param len The length of the part
+     * @param trailer The bytes following the part
+     * @param key The key
+     * @param usage The key usage
+     * @return the checksum
+     * @throws KrbException e
+     */
+    byte[] checksumWithKey(byte[] data, int start, int len, byte[] trailer,
+                           byte[] key, int usage) throws KrbException;
+
     boolean verifyWithKey(byte[] data,
                                  byte[] key, int usage, byte[] checksum) throws KrbException;
 }
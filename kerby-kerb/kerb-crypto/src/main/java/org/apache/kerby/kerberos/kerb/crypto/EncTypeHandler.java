@@ -71,4 +71,45 @@ public interface EncTypeHandler extends CryptoTypeHandler {
 
     byte[] decryptRaw(byte[] cipher, byte[] key, byte[] ivec,
                    int usage) throws KrbException;
+
+    /**
+     * @return the size of the cipher text before the plain text, the
+     * confounder and for some encryption types the checksum
+     */
+    int cipherHeaderSize();
+
+    /**
+     * @param dataLen The plain text length
+     * @return the size of the cipher text of the plain text
+     */
+    int cipherSize(int dataLen);
+
+    /**
+     * Encrypt without copying the plain text around. The plain text is
+     * expected at offset + {@link #cipherHeaderSize()} in the buffer, which
+     * has room for the {@link #cipherSize(int)} bytes of cipher text from
+     * offset.
+     * @param buffer The buffer
+     * @param offset The offset of the cipher text
+     * @param dataLen The plain text length
+     * @param key The key
+     * @param usage The key usage
+     * @throws KrbException e
+     */
+    void encryptInPlace(byte[] buffer, int offset, int dataLen,
+                        byte[] key, int usage) throws KrbException;
+
+    /**
+     * Decrypt without copying the cipher text around, the plain text is
+     * left at offset + {@link #cipherHeaderSize()} in the buffer.
+     * @param buffer The buffer
+     * @param offset The offset of the cipher text
+     * @param len The cipher text length
+     * @param key The key
+     * @param usage The key usage
+     * @return the plain text length
+     * @throws KrbException e
+     */
+    int decryptInPlace(byte[] buffer, int offset, int len,
+                       byte[] key, int usage) throws KrbException;
 }
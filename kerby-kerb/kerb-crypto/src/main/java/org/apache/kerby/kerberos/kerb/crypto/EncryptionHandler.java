@@ -22,7 +22,9 @@ package org.apache.kerby.kerberos.kerb.crypto;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Aes128CtsHmacSha1Enc;
+import org.apache.kerby.kerberos.kerb.crypto.enc.Aes128CtsHmacSha256Enc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Aes256CtsHmacSha1Enc;
+import org.apache.kerby.kerberos.kerb.crypto.enc.Aes256CtsHmacSha384Enc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Camellia128CtsCmacEnc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Camellia256CtsCmacEnc;
 import org.apache.kerby.kerberos.kerb.crypto.enc.Des3CbcSha1Enc;
@@ -38,6 +40,9 @@ import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Encryption handler as the highest level API for encryption stuffs defined in
  * Kerberos RFC3961. It supports all the encryption types. New encryption type
@@ -45,6 +50,65 @@ import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
  */
 public class EncryptionHandler {
 
+    /**
+     * The handlers hold no per message state, so one is shared for every
+     * encryption type alias rather than built per call. Ref. etypes.c in
+     * MIT krb5 project.
+     */
+    private static final Map<EncryptionType, EncTypeHandler> ENC_HANDLERS = createEncHandlers();
+
+    private static Map<EncryptionType, EncTypeHandler> createEncHandlers() {
+        Map<EncryptionType, EncTypeHandler> encHandlers = new EnumMap<>(EncryptionType.class);
+        encHandlers.put(EncryptionType.DES_CBC_CRC, new DesCbcCrcEnc());
+
+        EncTypeHandler encHandler = new DesCbcMd5Enc();
+        encHandlers.put(EncryptionType.DES_CBC_MD5, encHandler);
+        encHandlers.put(EncryptionType.DES, encHandler);
+
+        encHandlers.put(EncryptionType.DES_CBC_MD4, new DesCbcMd4Enc());
+
+        encHandler = new Des3CbcSha1Enc();
+        encHandlers.put(EncryptionType.DES3_CBC_SHA1, encHandler);
+        encHandlers.put(EncryptionType.DES3_CBC_SHA1_KD, encHandler);
+        encHandlers.put(EncryptionType.DES3_HMAC_SHA1, encHandler);
+
+        encHandler = new Aes128CtsHmacSha1Enc();
+        encHandlers.put(EncryptionType.AES128_CTS_HMAC_SHA1_96, encHandler);
+        encHandlers.put(EncryptionType.AES128_CTS, encHandler);
+
+        encHandler = new Aes256CtsHmacSha1Enc();
+        encHandlers.put(EncryptionType.AES256_CTS_HMAC_SHA1_96, encHandler);
+        encHandlers.put(EncryptionType.AES256_CTS, encHandler);
+
+        encHandler = new Aes128CtsHmacSha256Enc();
+        encHandlers.put(EncryptionType.AES128_CTS_HMAC_SHA256_128, encHandler);
+        encHandlers.put(EncryptionType.AES128_SHA2, encHandler);
+
+        encHandler = new Aes256CtsHmacSha384Enc();
+        encHandlers.put(EncryptionType.AES256_CTS_HMAC_SHA384_192, encHandler);
+        encHandlers.put(EncryptionType.AES256_SHA2, encHandler);
+
+        encHandler = new Camellia128CtsCmacEnc();
+        encHandlers.put(EncryptionType.CAMELLIA128_CTS_CMAC, encHandler);
+        encHandlers.put(EncryptionType.CAMELLIA128_CTS, encHandler);
+
+        encHandler = new Camellia256CtsCmacEnc();
+        encHandlers.put(EncryptionType.CAMELLIA256_CTS_CMAC, encHandler);
+        encHandlers.put(EncryptionType.CAMELLIA256_CTS, encHandler);
+
+        encHandler = new Rc4HmacEnc();
+        encHandlers.put(EncryptionType.RC4_HMAC, encHandler);
+        encHandlers.put(EncryptionType.ARCFOUR_HMAC, encHandler);
+        encHandlers.put(EncryptionType.ARCFOUR_HMAC_MD5, encHandler);
+
+        encHandler = new Rc4HmacExpEnc();
+        encHandlers.put(EncryptionType.RC4_HMAC_EXP, encHandler);
+        encHandlers.put(EncryptionType.ARCFOUR_HMAC_EXP, encHandler);
+        encHandlers.put(EncryptionType.ARCFOUR_HMAC_MD5_EXP, encHandler);
+
+        return encHandlers;
+    }
+
     /**
      * Get the encryption type.
      * @param eType The encryption type string.
@@ -100,67 +164,7 @@ public class EncryptionHandler {
      */
     private static EncTypeHandler getEncHandler(EncryptionType eType,
                                                 boolean check) throws KrbException {
-        EncTypeHandler encHandler = null;
-
-        /**
-         * Ref. etypes.c in MIT krb5 project.
-         */
-        switch (eType) {
-            case DES_CBC_CRC:
-                encHandler = new DesCbcCrcEnc();
-                break;
-
-            case DES_CBC_MD5:
-            case DES:
-                encHandler = new DesCbcMd5Enc();
-                break;
-
-            case DES_CBC_MD4:
-                encHandler = new DesCbcMd4Enc();
-                break;
-
-            case DES3_CBC_SHA1:
-            case DES3_CBC_SHA1_KD:
-            case DES3_HMAC_SHA1:
-                encHandler = new Des3CbcSha1Enc();
-                break;
-
-            case AES128_CTS_HMAC_SHA1_96:
-            case AES128_CTS:
-                encHandler = new Aes128CtsHmacSha1Enc();
-                break;
-
-            case AES256_CTS_HMAC_SHA1_96:
-            case AES256_CTS:
-                encHandler = new Aes256CtsHmacSha1Enc();
-                break;
-
-            case CAMELLIA128_CTS_CMAC:
-            case CAMELLIA128_CTS:
-                encHandler = new Camellia128CtsCmacEnc();
-                break;
-
-            case CAMELLIA256_CTS_CMAC:
-            case CAMELLIA256_CTS:
-                encHandler = new Camellia256CtsCmacEnc();
-                break;
-
-            case RC4_HMAC:
-            case ARCFOUR_HMAC:
-            case ARCFOUR_HMAC_MD5:
-                encHandler = new Rc4HmacEnc();
-                break;
-
-            case RC4_HMAC_EXP:
-            case ARCFOUR_HMAC_EXP:
-            case ARCFOUR_HMAC_MD5_EXP:
-                encHandler = new Rc4HmacExpEnc();
-                break;
-
-            case NONE:
-            default:
-                break;
-        }
+        EncTypeHandler encHandler = ENC_HANDLERS.get(eType);
 
         if (encHandler == null && !check) {
             String message = "Unsupported encryption type: " + eType.name();
@@ -106,6 +106,16 @@ public abstract class AbstractCheckSumTypeHandler
                                   byte[] key, int usage) throws KrbException {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public byte[] checksumWithKey(byte[] data, int start, int len, byte[] trailer,
+                                  byte[] key, int usage) throws KrbException {
+        byte[] buffer = new byte[len + trailer.length];
+        System.arraycopy(data, start, buffer, 0, len);
+        System.arraycopy(trailer, 0, buffer, len, trailer.length);
+        return checksumWithKey(buffer, 0, buffer.length, key, usage);
+    }
+
     @Override
     public boolean verifyWithKey(byte[] data,
                                  byte[] key, int usage,
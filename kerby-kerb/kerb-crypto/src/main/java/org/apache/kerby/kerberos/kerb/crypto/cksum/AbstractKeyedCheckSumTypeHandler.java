@@ -51,9 +51,17 @@ public abstract class AbstractKeyedCheckSumTypeHandler
     @Override
     public byte[] checksumWithKey(byte[] data, int start, int len,
                                   byte[] key, int usage) throws KrbException {
-        int outputSize = outputSize();
+        return truncate(doChecksumWithKey(data, start, len, key, usage));
+    }
+
+    @Override
+    public byte[] checksumWithKey(byte[] data, int start, int len, byte[] trailer,
+                                  byte[] key, int usage) throws KrbException {
+        return truncate(doChecksumWithKey(data, start, len, trailer, key, usage));
+    }
 
-        byte[] tmp = doChecksumWithKey(data, start, len, key, usage);
+    private byte[] truncate(byte[] tmp) {
+        int outputSize = outputSize();
         if (outputSize < tmp.length) {
             byte[] output = new byte[outputSize];
             System.arraycopy(tmp, 0, output, 0, outputSize);
@@ -68,6 +76,14 @@ public abstract class AbstractKeyedCheckSumTypeHandler
         return new byte[0];
     }
 
+    protected byte[] doChecksumWithKey(byte[] data, int start, int len, byte[] trailer,
+                                       byte[] key, int usage) throws KrbException {
+        byte[] buffer = new byte[len + trailer.length];
+        System.arraycopy(data, start, buffer, 0, len);
+        System.arraycopy(trailer, 0, buffer, len, trailer.length);
+        return doChecksumWithKey(buffer, 0, buffer.length, key, usage);
+    }
+
     @Override
     public boolean verifyWithKey(byte[] data, byte[] key,
                                  int usage, byte[] checksum) throws KrbException {
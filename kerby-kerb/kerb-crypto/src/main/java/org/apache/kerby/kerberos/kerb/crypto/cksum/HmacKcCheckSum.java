@@ -33,4 +33,10 @@ public abstract class HmacKcCheckSum extends KcCheckSum {
     protected byte[] mac(byte[] kc, byte[] data, int start, int len) throws KrbException {
         return Hmac.hmac(hashProvider(), kc, data, start, len);
     }
+
+    @Override
+    protected byte[] mac(byte[] kc, byte[] data, int start, int len,
+                         byte[] trailer) throws KrbException {
+        return Hmac.hmac(hashProvider(), kc, data, start, len, trailer);
+    }
 }
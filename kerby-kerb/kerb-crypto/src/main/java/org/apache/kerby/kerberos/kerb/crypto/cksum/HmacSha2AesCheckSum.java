@@ -0,0 +1,63 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.cksum;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.AesProvider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.crypto.util.Hmac;
+
+/**
+ * The checksums of the aes-sha2 encryption types, Ref. RFC 8009. The
+ * checksum is the truncated HMAC with Kc, derived by KDF-HMAC-SHA2.
+ */
+public abstract class HmacSha2AesCheckSum extends AbstractKeyedCheckSumTypeHandler {
+
+    public HmacSha2AesCheckSum(AesProvider encProvider, HashProvider hashProvider,
+                               AesSha2KeyMaker km, int outputSize) {
+        super(encProvider, hashProvider, hashProvider.hashSize(), outputSize);
+
+        keyMaker(km);
+    }
+
+    @Override
+    protected byte[] doChecksumWithKey(byte[] data, int start, int len,
+                                       byte[] key, int usage) throws KrbException {
+        AesSha2KeyMaker km = (AesSha2KeyMaker) keyMaker();
+        byte[] kc = km.usageKey(key, usage, (byte) 0x99, outputSize() * 8);
+        return Hmac.hmac(hashProvider(), kc, data, start, len);
+    }
+
+    public int confounderSize() {
+        return 16;
+    }
+
+    public boolean isSafe() {
+        return true;
+    }
+
+    public int cksumSize() {
+        return outputSize();
+    }
+
+    public int keySize() {
+        return encProvider().keySize();
+    }
+}
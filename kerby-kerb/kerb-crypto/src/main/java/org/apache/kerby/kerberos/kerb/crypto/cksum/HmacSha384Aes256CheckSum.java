@@ -0,0 +1,38 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.cksum;
+
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Sha384Provider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes256Provider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+public class HmacSha384Aes256CheckSum extends HmacSha2AesCheckSum {
+
+    public HmacSha384Aes256CheckSum() {
+        super(new Aes256Provider(), new Sha384Provider(), new AesSha2KeyMaker(new Aes256Provider(),
+            EncryptionType.AES256_CTS_HMAC_SHA384_192, new Sha384Provider(), "PBKDF2WithHmacSHA384"), 24);
+    }
+
+    public CheckSumType cksumType() {
+        return CheckSumType.HMAC_SHA384_192_AES256;
+    }
+}
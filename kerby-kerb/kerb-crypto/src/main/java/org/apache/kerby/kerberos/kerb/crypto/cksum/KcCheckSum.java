@@ -34,14 +34,30 @@ public abstract class KcCheckSum extends AbstractKeyedCheckSumTypeHandler {
     @Override
     protected byte[] doChecksumWithKey(byte[] data, int start, int len,
                                        byte[] key, int usage) throws KrbException {
+        return mac(deriveKc(key, usage), data, start, len);
+    }
+
+    @Override
+    protected byte[] doChecksumWithKey(byte[] data, int start, int len, byte[] trailer,
+                                       byte[] key, int usage) throws KrbException {
+        return mac(deriveKc(key, usage), data, start, len, trailer);
+    }
+
+    private byte[] deriveKc(byte[] key, int usage) throws KrbException {
         byte[] constant = new byte[5];
         BytesUtil.int2bytes(usage, constant, 0, true);
         constant[4] = (byte) 0x99;
-        byte[] kc = ((DkKeyMaker) keyMaker()).dk(key, constant);
-
-        return mac(kc, data, start, len);
+        return ((DkKeyMaker) keyMaker()).cachedDk(key, constant);
     }
 
     protected abstract byte[] mac(byte[] kc, byte[] data, int start,
                                   int len) throws KrbException;
+
+    protected byte[] mac(byte[] kc, byte[] data, int start, int len,
+                         byte[] trailer) throws KrbException {
+        byte[] buffer = new byte[len + trailer.length];
+        System.arraycopy(data, start, buffer, 0, len);
+        System.arraycopy(trailer, 0, buffer, len, trailer.length);
+        return mac(kc, buffer, 0, buffer.length);
+    }
 }
@@ -22,7 +22,7 @@ package org.apache.kerby.kerberos.kerb.crypto.cksum.provider;
 import org.apache.kerby.kerberos.kerb.crypto.util.Crc32;
 
 public class Crc32Provider extends AbstractHashProvider {
-    private byte[] output;
+    private final ThreadLocal<byte[]> output = new ThreadLocal<>();
 
     public Crc32Provider() {
         super(4, 1);
@@ -30,11 +30,11 @@ public class Crc32Provider extends AbstractHashProvider {
 
     @Override
     public void hash(byte[] data, int start, int size) {
-        output = Crc32.crc(data, start, size);
+        output.set(Crc32.crc(data, start, size));
     }
 
     @Override
     public byte[] output() {
-        return output.clone();
+        return output.get().clone();
     }
 }
@@ -21,6 +21,8 @@ package org.apache.kerby.kerberos.kerb.crypto.cksum.provider;
 
 import org.apache.kerby.kerberos.kerb.crypto.util.Md4;
 
+import java.security.MessageDigest;
+
 public class Md4Provider extends MessageDigestHashProvider {
 
     public Md4Provider() {
@@ -28,7 +30,7 @@ public class Md4Provider extends MessageDigestHashProvider {
     }
 
     @Override
-    protected void init() {
-        messageDigest = new Md4();
+    protected MessageDigest newMessageDigest() {
+        return new Md4();
     }
 }
@@ -24,4 +24,9 @@ public class Md5Provider extends MessageDigestHashProvider {
     public Md5Provider() {
         super(16, 64, "MD5");
     }
+
+    @Override
+    public String macAlgorithm() {
+        return "HmacMD5";
+    }
 }
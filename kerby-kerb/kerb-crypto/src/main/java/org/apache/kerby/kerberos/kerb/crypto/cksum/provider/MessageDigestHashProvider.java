@@ -24,21 +24,34 @@ import org.apache.kerby.kerberos.kerb.KrbException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+/**
+ * Hash provider backed by a MessageDigest. Each thread hashes with its own
+ * digest, so a provider can be shared by the handlers cached for all threads.
+ */
 public class MessageDigestHashProvider extends AbstractHashProvider {
-    private String algorithm;
-    protected MessageDigest messageDigest;
+    private final String algorithm;
+    private final ThreadLocal<MessageDigest> messageDigest = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            return newMessageDigest();
+        }
+    };
 
     public MessageDigestHashProvider(int hashSize, int blockSize, String algorithm) {
         super(hashSize, blockSize);
         this.algorithm = algorithm;
+    }
 
-        init();
+    /**
+     * @return the JCE name of the HMAC over this digest, or null if there's none
+     */
+    public String macAlgorithm() {
+        return null;
     }
 
-    @Override
-    protected void init() {
+    protected MessageDigest newMessageDigest() {
         try {
-            messageDigest = MessageDigest.getInstance(algorithm);
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("Failed to init JCE provider", e);
         }
@@ -46,11 +59,11 @@ public class MessageDigestHashProvider extends AbstractHashProvider {
 
     @Override
     public void hash(byte[] data, int start, int len) throws KrbException {
-        messageDigest.update(data, start, len);
+        messageDigest.get().update(data, start, len);
     }
 
     @Override
     public byte[] output() {
-        return messageDigest.digest();
+        return messageDigest.get().digest();
     }
 }
@@ -24,4 +24,9 @@ public class Sha1Provider extends MessageDigestHashProvider {
     public Sha1Provider() {
         super(20, 64, "SHA1");
     }
+
+    @Override
+    public String macAlgorithm() {
+        return "HmacSHA1";
+    }
 }
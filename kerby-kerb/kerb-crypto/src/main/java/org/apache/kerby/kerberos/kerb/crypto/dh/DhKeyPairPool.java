@@ -0,0 +1,275 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.dh;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.spec.DHParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-generated key pairs for the server side of PKINIT key agreement, one
+ * pool per well-known group: MODP groups 2, 14 and 16 of {@link DhGroup} and
+ * the P-256 and P-384 curves of {@link EcGroup}. Generating a key pair for
+ * group 14 or 16 costs milliseconds, so a background thread does it ahead of
+ * the requests, and refills a pool as soon as key pairs are taken from it.
+ *
+ * A pool is created with the first request for its group, and requests
+ * for other groups, or finding an empty pool, generate a key pair inline.
+ * A key pair is handed out once by default. Allowing more uses per key pair
+ * saves more CPU but gives up forward secrecy between these exchanges, see
+ * RFC 4556 section 3.2.3.1.
+ */
+public class DhKeyPairPool {
+    private static final Logger LOG = LoggerFactory.getLogger(DhKeyPairPool.class);
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    private final int poolSize;
+    private final int maxUses;
+    private final Pool[] pools;
+    private final BlockingQueue<Pool> refills = new LinkedBlockingQueue<>();
+    private Thread refiller;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    public DhKeyPairPool() {
+        this(DEFAULT_POOL_SIZE, 1);
+    }
+
+    /**
+     * @param poolSize The number of key pairs kept per group
+     * @param maxUses The number of exchanges a key pair is used for
+     */
+    public DhKeyPairPool(int poolSize, int maxUses) {
+        this.poolSize = poolSize;
+        this.maxUses = Math.max(1, maxUses);
+        this.pools = new Pool[] {
+            new Pool("DH", DhGroup.MODP_GROUP2),
+            new Pool("DH", DhGroup.MODP_GROUP14),
+            new Pool("DH", DhGroup.MODP_GROUP16),
+            new Pool("EC", EcGroup.P256),
+            new Pool("EC", EcGroup.P384)
+        };
+    }
+
+    public synchronized void start() {
+        if (refiller != null) {
+            return;
+        }
+        refiller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                refill();
+            }
+        }, "pkinit-dh-key-pool");
+        refiller.setDaemon(true);
+        refiller.start();
+    }
+
+    public synchronized void stop() {
+        if (refiller != null) {
+            refiller.interrupt();
+            refiller = null;
+        }
+    }
+
+    /**
+     * Get a key pair for a group, taken from its pool if any.
+     * @param params The DH group or the EC curve
+     * @return the key pair
+     * @throws GeneralSecurityException e
+     */
+    public KeyPair getKeyPair(AlgorithmParameterSpec params) throws GeneralSecurityException {
+        Pool pool = findPool(params);
+        if (pool == null) {
+            misses.incrementAndGet();
+            return generateKeyPair(params);
+        }
+
+        KeyPair keyPair = pool.take();
+        if (pool.size.get() < poolSize && pool.refillPending.compareAndSet(false, true)) {
+            refills.add(pool);
+        }
+
+        if (keyPair != null) {
+            hits.incrementAndGet();
+            return keyPair;
+        }
+        misses.incrementAndGet();
+        return generateKeyPair(params);
+    }
+
+    /**
+     * Generate a key pair for a DH group or an EC curve.
+     * @param params The DH group or the EC curve
+     * @return the key pair
+     * @throws GeneralSecurityException e
+     */
+    public static KeyPair generateKeyPair(AlgorithmParameterSpec params) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(
+            params instanceof ECParameterSpec ? "EC" : "DH");
+        generator.initialize(params);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * @return the number of key pairs served from a pool
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of key pairs generated inline
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of key pairs generated in the background
+     */
+    public long getGeneratedCount() {
+        return generated.get();
+    }
+
+    /**
+     * @return the number of key pairs ready to be used
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (Pool pool : pools) {
+            count += pool.size.get();
+        }
+        return count;
+    }
+
+    private Pool findPool(AlgorithmParameterSpec params) {
+        for (Pool pool : pools) {
+            if (pool.matches(params)) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fill the pools key pairs are taken from, until stopped.
+     */
+    private void refill() {
+        while (true) {
+            Pool pool;
+            try {
+                pool = refills.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            boolean filled = false;
+            try {
+                while (pool.size.get() < poolSize) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    pool.add(generateKeyPair(pool.params), maxUses);
+                    generated.incrementAndGet();
+                }
+                filled = true;
+            } catch (GeneralSecurityException e) {
+                LOG.error("Failed to generate a key pair. " + e);
+            } finally {
+                pool.refillPending.set(false);
+            }
+
+            // A key pair may have been taken before the refill was done
+            if (filled && pool.size.get() < poolSize
+                && pool.refillPending.compareAndSet(false, true)) {
+                refills.add(pool);
+            }
+        }
+    }
+
+    private static final class Pool {
+        private final String algorithm;
+        private final AlgorithmParameterSpec params;
+        private final Queue<PooledKeyPair> keyPairs = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refillPending = new AtomicBoolean();
+
+        Pool(String algorithm, AlgorithmParameterSpec params) {
+            this.algorithm = algorithm;
+            this.params = params;
+        }
+
+        boolean matches(AlgorithmParameterSpec spec) {
+            if ("DH".equals(algorithm) && spec instanceof DHParameterSpec) {
+                DHParameterSpec group = (DHParameterSpec) params;
+                DHParameterSpec other = (DHParameterSpec) spec;
+                return group.getP().equals(other.getP()) && group.getG().equals(other.getG());
+            } else if ("EC".equals(algorithm) && spec instanceof ECParameterSpec) {
+                return EcGroup.isSameCurve((ECParameterSpec) params, (ECParameterSpec) spec);
+            }
+            return false;
+        }
+
+        void add(KeyPair keyPair, int uses) {
+            keyPairs.add(new PooledKeyPair(keyPair, uses));
+            size.incrementAndGet();
+        }
+
+        KeyPair take() {
+            PooledKeyPair head;
+            while ((head = keyPairs.peek()) != null) {
+                int remainingUses = head.remainingUses.decrementAndGet();
+                if (remainingUses <= 0 && keyPairs.remove(head)) {
+                    size.decrementAndGet();
+                }
+                if (remainingUses >= 0) {
+                    return head.keyPair;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class PooledKeyPair {
+        private final KeyPair keyPair;
+        private final AtomicInteger remainingUses;
+
+        PooledKeyPair(KeyPair keyPair, int uses) {
+            this.keyPair = keyPair;
+            this.remainingUses = new AtomicInteger(uses);
+        }
+    }
+}
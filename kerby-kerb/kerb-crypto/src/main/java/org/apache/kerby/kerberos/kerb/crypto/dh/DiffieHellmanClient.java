@@ -32,6 +32,8 @@ import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
 import java.security.spec.X509EncodedKeySpec;
 
 
@@ -67,6 +69,30 @@ public class DiffieHellmanClient {
     }
 
 
+    /**
+     * Create the client key pair for ECDH key agreement, Ref. RFC 5349.
+     * @param ecParamSpec The curve
+     * @return the client public key
+     * @throws Exception e
+     */
+    public ECPublicKey init(ECParameterSpec ecParamSpec) throws Exception {
+        KeyPair clientKpair = DhKeyPairPool.generateKeyPair(ecParamSpec);
+
+        clientKeyAgree = KeyAgreement.getInstance("ECDH");
+        clientKeyAgree.init(clientKpair.getPrivate());
+
+        return (ECPublicKey) clientKpair.getPublic();
+    }
+
+    /**
+     * Do the only phase of the key agreement.
+     * @param serverPubKey The DH or EC public key of the server
+     * @throws Exception e
+     */
+    public void doPhase(PublicKey serverPubKey) throws Exception {
+        clientKeyAgree.doPhase(serverPubKey, true);
+    }
+
     public void doPhase(byte[] serverPubKeyEnc) throws Exception {
         /*
          * The client uses the server's public key for the first (and only) phase
@@ -81,7 +107,6 @@ public class DiffieHellmanClient {
     }
 
     public EncryptionKey generateKey(byte[] clientDhNonce, byte[] serverDhNonce, EncryptionType type) {
-        // ZZ length will be same as public key.
         byte[] dhSharedSecret = clientKeyAgree.generateSecret();
         byte[] x = dhSharedSecret;
 
@@ -91,9 +116,7 @@ public class DiffieHellmanClient {
             x = concatenateBytes(x, serverDhNonce);
         }
 
-        byte[] secret = OctetString2Key.kTruncate(dhSharedSecret.length, x);
-
-        clientKey = new EncryptionKey(type, secret);
+        clientKey = OctetString2Key.octetString2Key(type, x);
 
         return clientKey;
     }
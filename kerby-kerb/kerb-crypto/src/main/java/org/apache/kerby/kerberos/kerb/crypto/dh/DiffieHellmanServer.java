@@ -27,11 +27,11 @@ import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 
 import javax.crypto.KeyAgreement;
 import javax.crypto.interfaces.DHPublicKey;
-import javax.crypto.spec.DHParameterSpec;
 import java.security.KeyFactory;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.X509EncodedKeySpec;
 
 
@@ -42,9 +42,22 @@ import java.security.spec.X509EncodedKeySpec;
  */
 public class DiffieHellmanServer {
 
+    private final DhKeyPairPool keyPairPool;
     private KeyAgreement serverKeyAgree;
     private EncryptionKey serverKey;
 
+    public DiffieHellmanServer() {
+        this(null);
+    }
+
+    /**
+     * @param keyPairPool The pool to take the server key pairs from, or null
+     *                    to generate them for every exchange
+     */
+    public DiffieHellmanServer(DhKeyPairPool keyPairPool) {
+        this.keyPairPool = keyPairPool;
+    }
+
     public PublicKey initAndDoPhase(byte[] clientPubKeyEnc) throws Exception {
         /*
          * The server has received the client's public key in encoded format.  The
@@ -54,19 +67,36 @@ public class DiffieHellmanServer {
         X509EncodedKeySpec x509KeySpec = new X509EncodedKeySpec(clientPubKeyEnc);
         PublicKey clientPubKey = serverKeyFac.generatePublic(x509KeySpec);
 
+        return initAndDoPhase(clientPubKey);
+    }
+
+    /**
+     * Do the server side of the key agreement.
+     * @param clientPubKey The DH or EC public key of the client
+     * @return the public key of the server, of the same group
+     * @throws Exception e
+     */
+    public PublicKey initAndDoPhase(PublicKey clientPubKey) throws Exception {
         /*
-         * The server gets the DH parameters associated with the client's public
+         * The server gets the parameters associated with the client's public
          * key.  The server must use the same parameters when it generates its own key pair.
          */
-        DHParameterSpec dhParamSpec = ((DHPublicKey) clientPubKey).getParams();
+        AlgorithmParameterSpec paramSpec;
+        String agreement;
+        if (clientPubKey instanceof ECPublicKey) {
+            paramSpec = ((ECPublicKey) clientPubKey).getParams();
+            agreement = "ECDH";
+        } else {
+            paramSpec = ((DHPublicKey) clientPubKey).getParams();
+            agreement = "DH";
+        }
 
-        // The server creates its own DH key pair.
-        KeyPairGenerator serverKpairGen = KeyPairGenerator.getInstance("DH");
-        serverKpairGen.initialize(dhParamSpec);
-        KeyPair serverKpair = serverKpairGen.generateKeyPair();
+        // The server gets its own key pair, pre-generated if pooled.
+        KeyPair serverKpair = keyPairPool != null ? keyPairPool.getKeyPair(paramSpec)
+            : DhKeyPairPool.generateKeyPair(paramSpec);
 
-        // The server creates and initializes its DH KeyAgreement object.
-        serverKeyAgree = KeyAgreement.getInstance("DH");
+        // The server creates and initializes its KeyAgreement object.
+        serverKeyAgree = KeyAgreement.getInstance(agreement);
         serverKeyAgree.init(serverKpair.getPrivate());
 
         /*
@@ -80,7 +110,6 @@ public class DiffieHellmanServer {
     }
 
     public EncryptionKey generateKey(byte[] clientDhNonce, byte[] serverDhNonce, EncryptionType type) {
-        // ZZ length will be same as public key.
         byte[] dhSharedSecret = serverKeyAgree.generateSecret();
         byte[] x = dhSharedSecret;
 
@@ -90,8 +119,7 @@ public class DiffieHellmanServer {
             x = concatenateBytes(x, serverDhNonce);
         }
 
-        byte[] secret = OctetString2Key.kTruncate(dhSharedSecret.length, x);
-        serverKey = new EncryptionKey(type, secret);
+        serverKey = OctetString2Key.octetString2Key(type, x);
 
         return serverKey;
     }
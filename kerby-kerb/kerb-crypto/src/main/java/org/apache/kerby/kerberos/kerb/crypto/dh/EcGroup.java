@@ -0,0 +1,157 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.dh;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EllipticCurve;
+
+/**
+ * The elliptic curves for ECDH key agreement in PKINIT, Ref. RFC 5349.
+ * The client public value is an id-ecPublicKey with the named curve as
+ * parameters, the public keys are exchanged as uncompressed points.
+ */
+public class EcGroup {
+    /** id-ecPublicKey */
+    public static final String EC_PUBLIC_KEY_OID = "1.2.840.10045.2.1";
+
+    /** secp256r1 */
+    public static final String P256_OID = "1.2.840.10045.3.1.7";
+
+    /** secp384r1 */
+    public static final String P384_OID = "1.3.132.0.34";
+
+    public static final ECParameterSpec P256 = namedCurve("secp256r1");
+
+    public static final ECParameterSpec P384 = namedCurve("secp384r1");
+
+    private static ECParameterSpec namedCurve(String name) {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(name));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Curve " + name + " is not available", e);
+        }
+    }
+
+    /**
+     * @param oid The named curve OID
+     * @return the curve, null if not supported
+     */
+    public static ECParameterSpec fromOid(String oid) {
+        if (P256_OID.equals(oid)) {
+            return P256;
+        } else if (P384_OID.equals(oid)) {
+            return P384;
+        }
+        return null;
+    }
+
+    /**
+     * @param params The curve
+     * @return the named curve OID, null if not supported
+     */
+    public static String toOid(ECParameterSpec params) {
+        if (isSameCurve(P256, params)) {
+            return P256_OID;
+        } else if (isSameCurve(P384, params)) {
+            return P384_OID;
+        }
+        return null;
+    }
+
+    static boolean isSameCurve(ECParameterSpec curve, ECParameterSpec params) {
+        return curve.getCurve().equals(params.getCurve())
+            && curve.getGenerator().equals(params.getGenerator())
+            && curve.getOrder().equals(params.getOrder());
+    }
+
+    /**
+     * Encode a public key as an uncompressed point.
+     * @param publicKey The public key
+     * @return 0x04 | X | Y
+     */
+    public static byte[] encodePoint(ECPublicKey publicKey) {
+        int fieldSize = (publicKey.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+        byte[] encoded = new byte[1 + 2 * fieldSize];
+        encoded[0] = 0x04;
+        toUnsigned(publicKey.getW().getAffineX(), encoded, 1, fieldSize);
+        toUnsigned(publicKey.getW().getAffineY(), encoded, 1 + fieldSize, fieldSize);
+        return encoded;
+    }
+
+    /**
+     * Decode a public key from an uncompressed point.
+     * @param encoded 0x04 | X | Y
+     * @param params The curve
+     * @return the public key
+     * @throws GeneralSecurityException if not an uncompressed point of the curve
+     */
+    public static ECPublicKey decodePoint(byte[] encoded,
+                                          ECParameterSpec params) throws GeneralSecurityException {
+        int fieldSize = (params.getCurve().getField().getFieldSize() + 7) / 8;
+        if (encoded.length != 1 + 2 * fieldSize || encoded[0] != 0x04) {
+            throw new GeneralSecurityException("Not an uncompressed point");
+        }
+
+        byte[] x = new byte[fieldSize];
+        byte[] y = new byte[fieldSize];
+        System.arraycopy(encoded, 1, x, 0, fieldSize);
+        System.arraycopy(encoded, 1 + fieldSize, y, 0, fieldSize);
+        ECPoint point = new ECPoint(new BigInteger(1, x), new BigInteger(1, y));
+        if (!isOnCurve(point, params)) {
+            throw new GeneralSecurityException("The point is not on the curve");
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        return (ECPublicKey) keyFactory.generatePublic(new ECPublicKeySpec(point, params));
+    }
+
+    private static boolean isOnCurve(ECPoint point, ECParameterSpec params) {
+        EllipticCurve curve = params.getCurve();
+        BigInteger p = ((ECFieldFp) curve.getField()).getP();
+        BigInteger x = point.getAffineX();
+        BigInteger y = point.getAffineY();
+        if (x.compareTo(p) >= 0 || y.compareTo(p) >= 0) {
+            return false;
+        }
+
+        // y^2 = x^3 + ax + b
+        BigInteger left = y.multiply(y).mod(p);
+        BigInteger right = x.multiply(x).add(curve.getA()).multiply(x).add(curve.getB()).mod(p);
+        return left.equals(right);
+    }
+
+    private static void toUnsigned(BigInteger value, byte[] output, int offset, int length) {
+        byte[] bytes = value.toByteArray();
+        int start = bytes.length > length ? bytes.length - length : 0;
+        int copied = bytes.length - start;
+        System.arraycopy(bytes, start, output, offset + length - copied, copied);
+    }
+}
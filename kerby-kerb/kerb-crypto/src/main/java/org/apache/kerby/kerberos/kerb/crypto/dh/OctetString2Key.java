@@ -19,6 +19,11 @@
  */
 package org.apache.kerby.kerberos.kerb.crypto.dh;
 
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -45,6 +50,21 @@ import java.security.NoSuchAlgorithmException;
  * @version $Rev$, $Date$
  */
 public class OctetString2Key {
+    /**
+     * Performs the function octetstring2key() to generate the AS reply key.
+     *
+     * @param type The enctype of the AS reply key
+     * @param x The x
+     * @return The AS reply key.
+     */
+    public static EncryptionKey octetString2Key(EncryptionType type, byte[] x) {
+        try {
+            return EncryptionHandler.random2Key(type, kTruncate(keySeedLength(type), x));
+        } catch (KrbException e) {
+            throw new IllegalArgumentException("Unsupported encryption type " + type, e);
+        }
+    }
+
     /**
      * Performs the function K-truncate to generate the AS reply key k.
      *
@@ -78,6 +98,20 @@ public class OctetString2Key {
     }
 
 
+    /**
+     * Get K, the key generation seed length in bits of the enctype.
+     *
+     * @param type The enctype of the AS reply key
+     * @return The K
+     */
+    public static int keySeedLength(EncryptionType type) {
+        try {
+            return EncryptionHandler.getEncHandler(type).keyInputSize() * 8;
+        } catch (KrbException e) {
+            throw new IllegalArgumentException("Unsupported encryption type " + type, e);
+        }
+    }
+
     private static byte[] calculateIntegrity(byte count, byte[] data) {
         try {
             MessageDigest digester = MessageDigest.getInstance("SHA1");
@@ -25,6 +25,8 @@ import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
 import org.apache.kerby.kerberos.kerb.crypto.key.KeyMaker;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
+import java.util.Arrays;
+
 public abstract class AbstractEncTypeHandler
         extends AbstractCryptoTypeHandler implements EncTypeHandler {
 
@@ -186,4 +188,42 @@ public abstract class AbstractEncTypeHandler
                                byte[] key, byte[] iv, int usage, boolean raw) throws KrbException {
         return null;
     }
+
+    @Override
+    public int cipherHeaderSize() {
+        return confounderSize() + checksumSize();
+    }
+
+    @Override
+    public int cipherSize(int dataLen) {
+        return confounderSize() + checksumSize() + dataLen + paddingLength(dataLen);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This one goes through {@link #encrypt(byte[], byte[], int)}, encryption
+     * types able to work in place override it.
+     */
+    @Override
+    public void encryptInPlace(byte[] buffer, int offset, int dataLen,
+                               byte[] key, int usage) throws KrbException {
+        int dataOffset = offset + cipherHeaderSize();
+        byte[] cipher = encrypt(Arrays.copyOfRange(buffer, dataOffset, dataOffset + dataLen), key, usage);
+        System.arraycopy(cipher, 0, buffer, offset, cipher.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * This one goes through {@link #decrypt(byte[], byte[], int)}, encryption
+     * types able to work in place override it.
+     */
+    @Override
+    public int decryptInPlace(byte[] buffer, int offset, int len,
+                              byte[] key, int usage) throws KrbException {
+        byte[] data = decrypt(Arrays.copyOfRange(buffer, offset, offset + len), key, usage);
+        System.arraycopy(data, 0, buffer, offset + cipherHeaderSize(), data.length);
+        return data.length;
+    }
 }
@@ -39,6 +39,28 @@ public interface EncryptProvider {
     void decrypt(byte[] key, byte[] cipherState, byte[] data) throws KrbException;
     void encrypt(byte[] key, byte[] data) throws KrbException;
     void decrypt(byte[] key, byte[] data) throws KrbException;
+
+    /**
+     * Encrypt a part of the data in place.
+     * @param key The key
+     * @param cipherState The cipher state
+     * @param data The data
+     * @param offset The offset of the part to encrypt
+     * @param len The length of the part to encrypt
+     * @throws KrbException e
+     */
+    void encrypt(byte[] key, byte[] cipherState, byte[] data, int offset, int len) throws KrbException;
+
+    /**
+     * Decrypt a part of the data in place.
+     * @param key The key
+     * @param cipherState The cipher state
+     * @param data The data
+     * @param offset The offset of the part to decrypt
+     * @param len The length of the part to decrypt
+     * @throws KrbException e
+     */
+    void decrypt(byte[] key, byte[] cipherState, byte[] data, int offset, int len) throws KrbException;
     byte[] cbcMac(byte[] key, byte[] iv, byte[] data) throws KrbException;
     boolean supportCbcMac();
 
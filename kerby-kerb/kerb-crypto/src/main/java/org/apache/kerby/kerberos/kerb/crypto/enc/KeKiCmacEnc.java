@@ -53,7 +53,7 @@ public abstract class KeKiCmacEnc extends KeKiEnc {
         if (EncryptionHandler.getEncHandler(this.eType()).prfSize() != encProvider().blockSize()) {
             return null;
         }
-        kp = km.dk(key, prfConst);
+        kp = km.cachedDk(key, prfConst);
         return Cmac.cmac(encProvider(), kp, seed);
     }
 
@@ -69,4 +69,10 @@ public abstract class KeKiCmacEnc extends KeKiEnc {
         System.arraycopy(hash, 0, output, 0, hashSize);
         return output;
     }
+
+    @Override
+    protected byte[] makeChecksum(byte[] key, byte[] data, int start, int len,
+                                  int hashSize) throws KrbException {
+        return Cmac.cmac(encProvider(), key, data, start, len, hashSize);
+    }
 }
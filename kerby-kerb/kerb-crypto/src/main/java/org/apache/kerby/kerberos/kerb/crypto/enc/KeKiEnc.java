@@ -26,6 +26,8 @@ import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
 import org.apache.kerby.kerberos.kerb.crypto.key.DkKeyMaker;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
+import java.util.Arrays;
+
 public abstract class KeKiEnc extends AbstractEncTypeHandler {
 
     public KeKiEnc(EncryptProvider encProvider,
@@ -58,16 +60,8 @@ public abstract class KeKiEnc extends AbstractEncTypeHandler {
         int inputLen = workLens[2];
         int paddingLen = workLens[3];
 
-        byte[] constant = new byte[5];
-        constant[0] = (byte) ((usage >> 24) & 0xff);
-        constant[1] = (byte) ((usage >> 16) & 0xff);
-        constant[2] = (byte) ((usage >> 8) & 0xff);
-        constant[3] = (byte) (usage & 0xff);
-        constant[4] = (byte) 0xaa;
-        
-        byte[] ke = ((DkKeyMaker) keyMaker()).dk(key, constant);
-        constant[4] = (byte) 0x55;
-        byte[] ki = ((DkKeyMaker) keyMaker()).dk(key, constant);
+        byte[] ke = deriveKey(key, usage, (byte) 0xaa);
+        byte[] ki = deriveKey(key, usage, (byte) 0x55);
 
         /**
          * Instead of E(Confounder | Checksum | Plaintext | Padding),
@@ -108,12 +102,8 @@ public abstract class KeKiEnc extends AbstractEncTypeHandler {
         int checksumLen = workLens[1];
         int dataLen = workLens[2];
 
-        byte[] constant = new byte[5];
-        BytesUtil.int2bytes(usage, constant, 0, true);
-        constant[4] = (byte) 0xaa;
-        byte[] ke = ((DkKeyMaker) keyMaker()).dk(key, constant);
-        constant[4] = (byte) 0x55;
-        byte[] ki = ((DkKeyMaker) keyMaker()).dk(key, constant);
+        byte[] ke = deriveKey(key, usage, (byte) 0xaa);
+        byte[] ki = deriveKey(key, usage, (byte) 0x55);
 
         // decrypt and verify checksum
 
@@ -141,6 +131,76 @@ public abstract class KeKiEnc extends AbstractEncTypeHandler {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The checksum comes after the cipher text here.
+     */
+    @Override
+    public int cipherHeaderSize() {
+        return confounderSize();
+    }
+
+    @Override
+    public void encryptInPlace(byte[] buffer, int offset, int dataLen,
+                               byte[] key, int usage) throws KrbException {
+        int confounderLen = confounderSize();
+        int checksumLen = checksumSize();
+        int paddingLen = paddingLength(dataLen);
+        int encLen = confounderLen + dataLen + paddingLen;
+
+        byte[] ke = deriveKey(key, usage, (byte) 0xaa);
+        byte[] ki = deriveKey(key, usage, (byte) 0x55);
+
+        byte[] confounder = Confounder.makeBytes(confounderLen);
+        System.arraycopy(confounder, 0, buffer, offset, confounderLen);
+        Arrays.fill(buffer, offset + confounderLen + dataLen, offset + encLen, (byte) 0);
+
+        byte[] checksum = makeChecksum(ki, buffer, offset, encLen, checksumLen);
+        byte[] iv = new byte[encProvider().blockSize()];
+        encProvider().encrypt(ke, iv, buffer, offset, encLen);
+        System.arraycopy(checksum, 0, buffer, offset + encLen, checksumLen);
+    }
+
+    @Override
+    public int decryptInPlace(byte[] buffer, int offset, int len,
+                              byte[] key, int usage) throws KrbException {
+        int confounderLen = confounderSize();
+        int checksumLen = checksumSize();
+        int encLen = len - checksumLen;
+        if (encLen < confounderLen) {
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY);
+        }
+
+        byte[] ke = deriveKey(key, usage, (byte) 0xaa);
+        byte[] ki = deriveKey(key, usage, (byte) 0x55);
+
+        byte[] iv = new byte[encProvider().blockSize()];
+        encProvider().decrypt(ke, iv, buffer, offset, encLen);
+        byte[] newChecksum = makeChecksum(ki, buffer, offset, encLen, checksumLen);
+
+        if (!checksumEqual(newChecksum, buffer, offset + encLen, checksumLen)) {
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY);
+        }
+
+        return encLen - confounderLen;
+    }
+
+    private byte[] deriveKey(byte[] key, int usage, byte type) throws KrbException {
+        byte[] constant = new byte[5];
+        BytesUtil.int2bytes(usage, constant, 0, true);
+        constant[4] = type;
+        return ((DkKeyMaker) keyMaker()).cachedDk(key, constant);
+    }
+
     protected abstract byte[] makeChecksum(byte[] key, byte[] data, int hashSize)
             throws KrbException;
+
+    /**
+     * Checksum a part of the data, copied out unless overridden.
+     */
+    protected byte[] makeChecksum(byte[] key, byte[] data, int start, int len,
+                                  int hashSize) throws KrbException {
+        return makeChecksum(key, Arrays.copyOfRange(data, start, start + len), hashSize);
+    }
 }
@@ -46,7 +46,7 @@ public abstract class KeKiHmacSha1Enc extends KeKiEnc {
         byte[] output = new byte[prfSize()];
         hashProvider().hash(seed);
         System.arraycopy(hashProvider().output(), 0, cksum, 0, cksumSize);
-        kp = km.dk(key, prfConst);
+        kp = km.cachedDk(key, prfConst);
         encProvider().encrypt(kp, cksum);
         System.arraycopy(cksum, 0, output, 0, this.prfSize());
         return output;
@@ -64,4 +64,10 @@ public abstract class KeKiHmacSha1Enc extends KeKiEnc {
         System.arraycopy(hash, 0, output, 0, hashSize);
         return output;
     }
+
+    @Override
+    protected byte[] makeChecksum(byte[] key, byte[] data, int start, int len,
+                                  int hashSize) throws KrbException {
+        return Hmac.hmac(hashProvider(), key, data, start, len, hashSize);
+    }
 }
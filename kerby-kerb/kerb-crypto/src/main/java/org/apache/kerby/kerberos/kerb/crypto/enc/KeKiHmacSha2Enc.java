@@ -0,0 +1,144 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.enc;
+
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.AesProvider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.crypto.util.Confounder;
+import org.apache.kerby.kerberos.kerb.crypto.util.Hmac;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The aes-sha2 encryption types, Ref. RFC 8009. Unlike RFC 3962, the HMAC
+ * is computed over the cipher state and the ciphertext, encrypt-then-MAC,
+ * and the keys are derived with KDF-HMAC-SHA2.
+ */
+public abstract class KeKiHmacSha2Enc extends AbstractEncTypeHandler {
+    private static final byte[] PRF_CONSTANT = "prf".getBytes(StandardCharsets.UTF_8);
+
+    private final AesSha2KeyMaker km;
+    private final int checksumSize;
+
+    public KeKiHmacSha2Enc(AesProvider encProvider, HashProvider hashProvider,
+                           AesSha2KeyMaker km, int checksumSize) {
+        super(encProvider, hashProvider, hashProvider.hashSize());
+        this.km = km;
+        this.checksumSize = checksumSize;
+        keyMaker(km);
+    }
+
+    @Override
+    public int checksumSize() {
+        return checksumSize;
+    }
+
+    @Override
+    public int paddingSize() {
+        return 0;
+    }
+
+    @Override
+    protected int paddingLength(int inputLen) {
+        return 0;
+    }
+
+    @Override
+    public byte[] prf(byte[] key, byte[] seed) throws KrbException {
+        return km.kdf(key, PRF_CONSTANT, seed, prfSize() * 8);
+    }
+
+    @Override
+    protected void encryptWith(byte[] workBuffer, int[] workLens,
+                               byte[] key, byte[] iv, int usage, boolean raw) throws KrbException {
+        int confounderLen = workLens[0];
+        int checksumLen = workLens[1];
+        int inputLen = workLens[2];
+
+        byte[] ke = km.usageKey(key, usage, (byte) 0xaa, keySize() * 8);
+        if (raw) {
+            encProvider().encrypt(ke, iv, workBuffer);
+            return;
+        }
+
+        // E(Confounder | Plaintext) | HMAC(IV | E(Confounder | Plaintext))
+        byte[] tmpEnc = new byte[confounderLen + inputLen];
+        byte[] confounder = Confounder.makeBytes(confounderLen);
+        System.arraycopy(confounder, 0, tmpEnc, 0, confounderLen);
+        System.arraycopy(workBuffer, confounderLen + checksumLen,
+            tmpEnc, confounderLen, inputLen);
+
+        encProvider().encrypt(ke, iv, tmpEnc);
+        byte[] checksum = makeChecksum(key, usage, iv, tmpEnc, tmpEnc.length);
+
+        System.arraycopy(tmpEnc, 0, workBuffer, 0, tmpEnc.length);
+        System.arraycopy(checksum, 0, workBuffer, tmpEnc.length, checksumLen);
+    }
+
+    @Override
+    protected byte[] decryptWith(byte[] workBuffer, int[] workLens,
+                                 byte[] key, byte[] iv, int usage, boolean raw) throws KrbException {
+        int confounderLen = workLens[0];
+        int checksumLen = workLens[1];
+        int dataLen = workLens[2];
+        if (dataLen < 0) {
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY);
+        }
+
+        byte[] ke = km.usageKey(key, usage, (byte) 0xaa, keySize() * 8);
+        byte[] tmpEnc = new byte[confounderLen + dataLen];
+        System.arraycopy(workBuffer, 0, tmpEnc, 0, tmpEnc.length);
+        if (raw) {
+            encProvider().decrypt(ke, iv, tmpEnc);
+            return tmpEnc;
+        }
+
+        // Verify before decrypting
+        byte[] newChecksum = makeChecksum(key, usage, iv, workBuffer, tmpEnc.length);
+        if (!checksumEqual(newChecksum, workBuffer, tmpEnc.length, checksumLen)) {
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_BAD_INTEGRITY);
+        }
+
+        encProvider().decrypt(ke, iv, tmpEnc);
+        byte[] data = new byte[dataLen];
+        System.arraycopy(tmpEnc, confounderLen, data, 0, dataLen);
+        return data;
+    }
+
+    /**
+     * Truncated HMAC(Ki, IV | C).
+     */
+    private byte[] makeChecksum(byte[] key, int usage, byte[] iv,
+                                byte[] cipher, int cipherLen) throws KrbException {
+        byte[] ki = km.usageKey(key, usage, (byte) 0x55, checksumSize * 8);
+
+        byte[] ivAndCipher = new byte[iv.length + cipherLen];
+        System.arraycopy(iv, 0, ivAndCipher, 0, iv.length);
+        System.arraycopy(cipher, 0, ivAndCipher, iv.length, cipherLen);
+
+        byte[] hash = Hmac.hmac(hashProvider(), ki, ivAndCipher);
+        byte[] checksum = new byte[checksumSize];
+        System.arraycopy(hash, 0, checksum, 0, checksumSize);
+        return checksum;
+    }
+}
@@ -22,7 +22,21 @@ package org.apache.kerby.kerberos.kerb.crypto.enc.provider;
 import org.apache.kerby.kerberos.kerb.crypto.enc.EncryptProvider;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 public abstract class AbstractEncryptProvider implements EncryptProvider {
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS =
+        new ThreadLocal<Map<String, Cipher>>() {
+            @Override
+            protected Map<String, Cipher> initialValue() {
+                return new HashMap<>();
+            }
+        };
+
     private int blockSize;
     private int keyInputSize;
     private int keySize;
@@ -70,8 +84,54 @@ public abstract class AbstractEncryptProvider implements EncryptProvider {
         decrypt(key, cipherState, data);
     }
 
+    @Override
+    public void encrypt(byte[] key, byte[] cipherState, byte[] data,
+                        int offset, int len) throws KrbException {
+        doEncrypt(data, offset, len, key, cipherState, true);
+    }
+
+    @Override
+    public void decrypt(byte[] key, byte[] cipherState, byte[] data,
+                        int offset, int len) throws KrbException {
+        doEncrypt(data, offset, len, key, cipherState, false);
+    }
+
+    /**
+     * Get the cipher of the calling thread for the transformation, looked up
+     * once per thread as Cipher.getInstance walks all the installed providers.
+     * It's to be initialized by the caller before every use.
+     * @param transformation The cipher transformation
+     * @return The cipher
+     * @throws GeneralSecurityException e
+     */
+    protected static Cipher getCipher(String transformation) throws GeneralSecurityException {
+        Map<String, Cipher> ciphers = CIPHERS.get();
+        Cipher cipher = ciphers.get(transformation);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation);
+            ciphers.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
     protected abstract void doEncrypt(byte[] data, byte[] key, byte[] cipherState, boolean encrypt) throws KrbException;
 
+    /**
+     * Encrypt or decrypt a part of the data in place. The part is copied out
+     * and back unless the provider overrides it to work on the range.
+     */
+    protected void doEncrypt(byte[] data, int offset, int len, byte[] key,
+                             byte[] cipherState, boolean encrypt) throws KrbException {
+        if (offset == 0 && len == data.length) {
+            doEncrypt(data, key, cipherState, encrypt);
+            return;
+        }
+
+        byte[] part = Arrays.copyOfRange(data, offset, offset + len);
+        doEncrypt(part, key, cipherState, encrypt);
+        System.arraycopy(part, 0, data, offset, len);
+    }
+
     @Override
     public byte[] cbcMac(byte[] key, byte[] iv, byte[] data) throws KrbException {
         throw new UnsupportedOperationException();
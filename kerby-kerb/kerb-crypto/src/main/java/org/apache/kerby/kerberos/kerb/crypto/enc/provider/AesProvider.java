@@ -35,9 +35,15 @@ public abstract class AesProvider extends AbstractEncryptProvider {
     @Override
     protected void doEncrypt(byte[] data, byte[] key,
                                   byte[] cipherState, boolean encrypt) throws KrbException {
+        doEncrypt(data, 0, data.length, key, cipherState, encrypt);
+    }
+
+    @Override
+    protected void doEncrypt(byte[] data, int offset, int len, byte[] key,
+                             byte[] cipherState, boolean encrypt) throws KrbException {
         Cipher cipher = null;
         try {
-            cipher = Cipher.getInstance("AES/CTS/NoPadding");
+            cipher = getCipher("AES/CTS/NoPadding");
         } catch (GeneralSecurityException e) {
             KrbException ke = new KrbException("JCE provider may not be installed. "
                     + e.getMessage());
@@ -51,8 +57,7 @@ public abstract class AesProvider extends AbstractEncryptProvider {
 
             cipher.init(encrypt
                     ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, secretKey, param);
-            byte[] output = cipher.doFinal(data);
-            System.arraycopy(output, 0, data, 0, output.length);
+            cipher.doFinal(data, offset, len, data, offset);
         } catch (GeneralSecurityException e) {
             KrbException ke = new KrbException(e.getMessage());
             ke.initCause(e);
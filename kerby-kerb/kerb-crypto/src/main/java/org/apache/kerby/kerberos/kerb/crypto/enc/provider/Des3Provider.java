@@ -22,12 +22,9 @@ package org.apache.kerby.kerberos.kerb.crypto.enc.provider;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
 import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.DESedeKeySpec;
 import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import java.security.GeneralSecurityException;
-import java.security.spec.KeySpec;
 
 public class Des3Provider extends AbstractEncryptProvider {
 
@@ -41,22 +38,20 @@ public class Des3Provider extends AbstractEncryptProvider {
 
         Cipher cipher = null;
         try {
-            cipher = Cipher.getInstance("DESede/CBC/NoPadding");
+            cipher = getCipher("DESede/CBC/NoPadding");
         } catch (GeneralSecurityException e) {
             throw new KrbException("Failed to init cipher", e);
         }
 
         try {
             IvParameterSpec params = new IvParameterSpec(cipherState);
-            KeySpec skSpec = new DESedeKeySpec(key, 0);
-
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("desede");
-            SecretKey secretKey = skf.generateSecret(skSpec);
+            // DES ignores the parity bits, so no need of a SecretKeyFactory
+            // to fix them up
+            SecretKeySpec secretKey = new SecretKeySpec(key, "DESede");
 
             cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, secretKey, params);
 
-            byte[] output = cipher.doFinal(input);
-            System.arraycopy(output, 0, input, 0, output.length);
+            cipher.doFinal(input, 0, input.length, input);
         } catch (GeneralSecurityException e) {
             throw new KrbException("Failed to doEncrypt", e);
         }
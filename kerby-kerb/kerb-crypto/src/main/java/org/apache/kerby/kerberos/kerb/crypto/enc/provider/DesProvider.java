@@ -38,7 +38,7 @@ public class DesProvider extends AbstractEncryptProvider {
 
         Cipher cipher = null;
         try {
-            cipher = Cipher.getInstance("DES/CBC/NoPadding");
+            cipher = getCipher("DES/CBC/NoPadding");
         } catch (GeneralSecurityException e) {
             throw new KrbException("Failed to init cipher", e);
         }
@@ -47,8 +47,7 @@ public class DesProvider extends AbstractEncryptProvider {
         try {
             cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, skSpec, params);
 
-            byte[] output = cipher.doFinal(input);
-            System.arraycopy(output, 0, input, 0, output.length);
+            cipher.doFinal(input, 0, input.length, input);
         } catch (GeneralSecurityException e) {
             KrbException ke = new KrbException(e.getMessage());
             ke.initCause(e);
@@ -60,7 +59,7 @@ public class DesProvider extends AbstractEncryptProvider {
     public byte[] cbcMac(byte[] key, byte[] cipherState, byte[] data) throws KrbException {
         Cipher cipher = null;
         try {
-            cipher = Cipher.getInstance("DES/CBC/NoPadding");
+            cipher = getCipher("DES/CBC/NoPadding");
         } catch (GeneralSecurityException e) {
             throw new KrbException("Failed to init cipher", e);
         }
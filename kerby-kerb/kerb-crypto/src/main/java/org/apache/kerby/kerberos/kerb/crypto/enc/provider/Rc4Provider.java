@@ -35,11 +35,10 @@ public class Rc4Provider extends AbstractEncryptProvider {
     protected void doEncrypt(byte[] data, byte[] key,
                              byte[] cipherState, boolean encrypt) throws KrbException {
         try {
-            Cipher cipher = Cipher.getInstance("ARCFOUR");
+            Cipher cipher = getCipher("ARCFOUR");
             SecretKeySpec secretKey = new SecretKeySpec(key, "ARCFOUR");
             cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, secretKey);
-            byte[] output = cipher.doFinal(data);
-            System.arraycopy(output, 0, data, 0, output.length);
+            cipher.doFinal(data, 0, data.length, data);
         } catch (GeneralSecurityException e) {
             KrbException ke = new KrbException(e.getMessage());
             ke.initCause(e);
@@ -0,0 +1,137 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.key;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.AesProvider;
+import org.apache.kerby.kerberos.kerb.crypto.util.BytesUtil;
+import org.apache.kerby.kerberos.kerb.crypto.util.Hmac;
+import org.apache.kerby.kerberos.kerb.crypto.util.Pbkdf;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Key maker for the aes-sha2 encryption types, Ref. RFC 8009. Keys are
+ * derived with KDF-HMAC-SHA2, the counter mode KDF of SP 800-108, instead
+ * of the DK function of RFC 3961.
+ */
+public class AesSha2KeyMaker extends AbstractKeyMaker {
+    private final EncryptionType eType;
+    private final HashProvider hashProvider;
+    private final String pbkdf2Algorithm;
+    private final DerivedKeyCache derivedKeyCache = new DerivedKeyCache();
+
+    public AesSha2KeyMaker(AesProvider encProvider, EncryptionType eType,
+                           HashProvider hashProvider, String pbkdf2Algorithm) {
+        super(encProvider);
+        this.eType = eType;
+        this.hashProvider = hashProvider;
+        this.pbkdf2Algorithm = pbkdf2Algorithm;
+    }
+
+    @Override
+    public byte[] random2Key(byte[] randomBits) throws KrbException {
+        return randomBits;
+    }
+
+    @Override
+    public byte[] str2key(String string, String salt, byte[] param) throws KrbException {
+        return str2key(string, getSaltBytes(salt, eType.getName()), param);
+    }
+
+    /**
+     * @param string The pass phrase
+     * @param saltp The enctype name, a zero byte and the salt
+     * @param param The iteration count
+     * @return The key
+     * @throws KrbException e
+     */
+    public byte[] str2key(String string, byte[] saltp, byte[] param) throws KrbException {
+        int iterCount = getIterCount(param, 32768);
+        int keySize = encProvider().keySize();
+        byte[] random;
+        try {
+            random = Pbkdf.pbkdf2(string.toCharArray(), saltp, iterCount,
+                keySize, pbkdf2Algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new KrbException("pbkdf2 failed", e);
+        }
+
+        byte[] tmpKey = random2Key(random);
+        return kdf(tmpKey, KERBEROS_CONSTANT, null, keySize * 8);
+    }
+
+    /**
+     * KDF-HMAC-SHA2(key, label, [context,] k), Ref. RFC 8009 section 3.
+     * @param key The base key
+     * @param label The label
+     * @param context The context, or null
+     * @param keyBits The length in bits of the output, at most the hash size
+     * @return The derived key
+     * @throws KrbException e
+     */
+    public byte[] kdf(byte[] key, byte[] label, byte[] context,
+                      int keyBits) throws KrbException {
+        int contextLen = context != null ? context.length : 0;
+        // 1 as the counter | label | 0x00 | context | k
+        byte[] input = new byte[4 + label.length + 1 + contextLen + 4];
+        BytesUtil.int2bytes(1, input, 0, true);
+        System.arraycopy(label, 0, input, 4, label.length);
+        if (contextLen > 0) {
+            System.arraycopy(context, 0, input, 4 + label.length + 1, contextLen);
+        }
+        BytesUtil.int2bytes(keyBits, input, input.length - 4, true);
+
+        byte[] hash = Hmac.hmac(hashProvider, key, input);
+        byte[] output = new byte[keyBits / 8];
+        System.arraycopy(hash, 0, output, 0, output.length);
+        return output;
+    }
+
+    /**
+     * Derive Kc, Ke or Ki for a key usage, served from the derived key cache
+     * once derived.
+     * @param key The base key
+     * @param usage The key usage
+     * @param purpose 0x99 for Kc, 0xAA for Ke or 0x55 for Ki
+     * @param keyBits The length in bits of the derived key
+     * @return The derived key
+     * @throws KrbException e
+     */
+    public byte[] usageKey(byte[] key, int usage, byte purpose,
+                           int keyBits) throws KrbException {
+        byte[] label = new byte[5];
+        BytesUtil.int2bytes(usage, label, 0, true);
+        label[4] = purpose;
+
+        byte[] derivedKey = derivedKeyCache.get(key, label);
+        if (derivedKey == null) {
+            derivedKey = kdf(key, label, null, keyBits);
+            derivedKeyCache.put(key, label, derivedKey);
+        }
+        return derivedKey;
+    }
+
+    public DerivedKeyCache derivedKeyCache() {
+        return derivedKeyCache;
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.key;
+
+import org.apache.kerby.util.BoundedCache;
+
+import java.util.Arrays;
+
+/**
+ * A bounded cache of keys derived by {@link DkKeyMaker#dk(byte[], byte[])},
+ * by base key and constant, i.e. the key usage and purpose (Ke, Ki or Kc).
+ * The KDC keeps encrypting with the same krbtgt and service keys and the
+ * same few usages, so most derivations are repeated.
+ *
+ * Once the cache is full, entries are evicted with a second chance: the
+ * oldest entry goes, unless it was used since it was last considered, then
+ * it's kept for another round. The long-term keys used over and over stay,
+ * while the keys derived once from a session key go first. Evicted entries
+ * get their copy of the base key and the derived key zeroed. Callers always get their own
+ * copy of a derived key, so the zeroing can't affect an operation in progress.
+ */
+public class DerivedKeyCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final BoundedCache<CacheKey, byte[]> cache;
+
+    public DerivedKeyCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public DerivedKeyCache(int maxEntries) {
+        this.cache = new BoundedCache<CacheKey, byte[]>(maxEntries, BoundedCache.Eviction.SECOND_CHANCE) {
+            @Override
+            protected void evicted(CacheKey cacheKey, byte[] derivedKey) {
+                Arrays.fill(derivedKey, (byte) 0);
+                cacheKey.erase();
+            }
+        };
+    }
+
+    /**
+     * @param key The base key
+     * @param constant The derivation constant
+     * @return a copy of the cached derived key, or null if not cached
+     */
+    public byte[] get(byte[] key, byte[] constant) {
+        byte[] derivedKey = cache.get(new CacheKey(key, constant, false));
+        return derivedKey != null ? derivedKey.clone() : null;
+    }
+
+    /**
+     * Cache a derived key, evicting the oldest entries not used lately if full.
+     * @param key The base key
+     * @param constant The derivation constant
+     * @param derivedKey The derived key, copied
+     */
+    public void put(byte[] key, byte[] constant, byte[] derivedKey) {
+        CacheKey cacheKey = new CacheKey(key, constant, true);
+        byte[] copy = derivedKey.clone();
+        if (!cache.putIfAbsent(cacheKey, copy)) {
+            Arrays.fill(copy, (byte) 0);
+            cacheKey.erase();
+        }
+    }
+
+    /**
+     * Remove and zero all the entries.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static final class CacheKey {
+        private final byte[] key;
+        private final byte[] constant;
+        private final int hash;
+
+        CacheKey(byte[] key, byte[] constant, boolean copy) {
+            this.key = copy ? key.clone() : key;
+            this.constant = copy ? constant.clone() : constant;
+            this.hash = 31 * Arrays.hashCode(key) + Arrays.hashCode(constant);
+        }
+
+        void erase() {
+            Arrays.fill(key, (byte) 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return hash == other.hash && Arrays.equals(key, other.key)
+                && Arrays.equals(constant, other.constant);
+        }
+    }
+}
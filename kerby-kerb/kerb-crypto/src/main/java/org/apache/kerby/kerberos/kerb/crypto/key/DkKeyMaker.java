@@ -24,6 +24,7 @@ import org.apache.kerby.kerberos.kerb.crypto.util.Nfold;
 import org.apache.kerby.kerberos.kerb.crypto.enc.EncryptProvider;
 
 public abstract class DkKeyMaker extends AbstractKeyMaker {
+    private final DerivedKeyCache derivedKeyCache = new DerivedKeyCache();
 
     public DkKeyMaker(EncryptProvider encProvider) {
         super(encProvider);
@@ -34,6 +35,28 @@ public abstract class DkKeyMaker extends AbstractKeyMaker {
         return random2Key(dr(key, constant));
     }
 
+    /**
+     * The same as {@link #dk(byte[], byte[])}, but served from the derived
+     * key cache once derived. Meant for the per usage keys like Ke, Ki and
+     * Kc, not for one-off derivations like string-to-key.
+     * @param key The base key
+     * @param constant The constant
+     * @return The derived key
+     * @throws KrbException e
+     */
+    public byte[] cachedDk(byte[] key, byte[] constant) throws KrbException {
+        byte[] derivedKey = derivedKeyCache.get(key, constant);
+        if (derivedKey == null) {
+            derivedKey = dk(key, constant);
+            derivedKeyCache.put(key, constant, derivedKey);
+        }
+        return derivedKey;
+    }
+
+    public DerivedKeyCache derivedKeyCache() {
+        return derivedKeyCache;
+    }
+
     /*
      * K1 = E(Key, n-fold(Constant), initial-cipher-state)
      * K2 = E(Key, K1, initial-cipher-state)
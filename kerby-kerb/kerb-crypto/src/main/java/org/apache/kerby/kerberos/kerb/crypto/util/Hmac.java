@@ -20,14 +20,40 @@
 package org.apache.kerby.kerberos.kerb.crypto.util;
 
 import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.MessageDigestHashProvider;
 import org.apache.kerby.kerberos.kerb.KrbException;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Ref. MIT krb5 hmac.c
+ *
+ * The HMAC is computed with a JCE Mac when the hash provider has one, kept
+ * per thread and only re-keyed when the key changes, and over the hash
+ * provider otherwise.
  */
 public class Hmac {
+    private static final ThreadLocal<Map<String, KeyedMac>> MACS =
+        new ThreadLocal<Map<String, KeyedMac>>() {
+            @Override
+            protected Map<String, KeyedMac> initialValue() {
+                return new HashMap<>();
+            }
+        };
+
+    private static final class KeyedMac {
+        private final Mac mac;
+        private byte[] key;
+
+        KeyedMac(Mac mac) {
+            this.mac = mac;
+        }
+    }
 
     public static byte[] hmac(HashProvider hashProvider, byte[] key,
                        byte[] data, int outputSize) throws KrbException {
@@ -50,6 +76,93 @@ public class Hmac {
 
     public static byte[] hmac(HashProvider hashProvider,
                               byte[] key, byte[] data, int start, int len) throws KrbException {
+        return hmac(hashProvider, key, data, start, len, null);
+    }
+
+    /**
+     * HMAC of a part of the data followed by a trailer.
+     * @param hashProvider The hash provider
+     * @param key The key
+     * @param data The data
+     * @param start The start offset of the data
+     * @param len The length of the data
+     * @param trailer The bytes following the data, or null
+     * @return The HMAC
+     * @throws KrbException e
+     */
+    public static byte[] hmac(HashProvider hashProvider, byte[] key, byte[] data,
+                              int start, int len, byte[] trailer) throws KrbException {
+        // JCE doesn't take empty keys
+        if (key.length > 0 && hashProvider instanceof MessageDigestHashProvider) {
+            String algorithm = ((MessageDigestHashProvider) hashProvider).macAlgorithm();
+            if (algorithm != null) {
+                Mac mac = getMac(algorithm, key);
+                if (mac != null) {
+                    mac.update(data, start, len);
+                    if (trailer != null) {
+                        mac.update(trailer);
+                    }
+                    return mac.doFinal();
+                }
+            }
+        }
+
+        return hashHmac(hashProvider, key, data, start, len, trailer);
+    }
+
+    /**
+     * Get the calling thread's Mac for the algorithm, initialized with the key.
+     * @return the Mac, or null if the algorithm isn't available
+     */
+    private static Mac getMac(String algorithm, byte[] key) throws KrbException {
+        Map<String, KeyedMac> macs = MACS.get();
+        KeyedMac keyedMac = macs.get(algorithm);
+        if (keyedMac == null) {
+            if (macs.containsKey(algorithm)) {
+                return null;
+            }
+            try {
+                keyedMac = new KeyedMac(Mac.getInstance(algorithm));
+            } catch (GeneralSecurityException e) {
+                macs.put(algorithm, null);
+                return null;
+            }
+            macs.put(algorithm, keyedMac);
+        }
+
+        // A Mac is reset to its initial keyed state after doFinal
+        if (!Arrays.equals(keyedMac.key, key)) {
+            try {
+                keyedMac.mac.init(new SecretKeySpec(key, algorithm));
+            } catch (GeneralSecurityException e) {
+                keyedMac.key = null;
+                throw new KrbException("Failed to init " + algorithm, e);
+            }
+            if (keyedMac.key != null) {
+                Arrays.fill(keyedMac.key, (byte) 0);
+            }
+            keyedMac.key = key.clone();
+        }
+        return keyedMac.mac;
+    }
+
+    /**
+     * HMAC computed over the hash provider.
+     * @param hashProvider The hash provider
+     * @param key The key, no longer than the hash block size
+     * @param data The data
+     * @param start The start offset of the data
+     * @param len The length of the data
+     * @return The HMAC
+     * @throws KrbException e
+     */
+    public static byte[] hashHmac(HashProvider hashProvider,
+                                  byte[] key, byte[] data, int start, int len) throws KrbException {
+        return hashHmac(hashProvider, key, data, start, len, null);
+    }
+
+    private static byte[] hashHmac(HashProvider hashProvider, byte[] key, byte[] data,
+                                   int start, int len, byte[] trailer) throws KrbException {
 
         int blockLen = hashProvider.blockSize();
         byte[] innerPaddedKey = new byte[blockLen];
@@ -70,6 +183,9 @@ public class Hmac {
         hashProvider.hash(innerPaddedKey);
 
         hashProvider.hash(data, start, len);
+        if (trailer != null) {
+            hashProvider.hash(trailer);
+        }
 
         byte[] tmp = hashProvider.output();
 
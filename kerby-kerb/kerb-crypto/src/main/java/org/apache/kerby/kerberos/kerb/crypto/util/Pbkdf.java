@@ -28,10 +28,15 @@ public class Pbkdf {
 
     public static byte[] pbkdf2(char[] secret, byte[] salt,
                                 int count, int keySize) throws GeneralSecurityException {
+        return pbkdf2(secret, salt, count, keySize, "PBKDF2WithHmacSHA1");
+    }
+
+    public static byte[] pbkdf2(char[] secret, byte[] salt, int count,
+                                int keySize, String algorithm) throws GeneralSecurityException {
 
         PBEKeySpec ks = new PBEKeySpec(secret, salt, count, keySize * 8);
         SecretKeyFactory skf =
-                SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+                SecretKeyFactory.getInstance(algorithm);
         SecretKey key = skf.generateSecret(ks);
         return key.getEncoded();
     }
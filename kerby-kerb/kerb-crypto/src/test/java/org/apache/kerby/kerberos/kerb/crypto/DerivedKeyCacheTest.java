@@ -0,0 +1,89 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes128Provider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesKeyMaker;
+import org.apache.kerby.kerberos.kerb.crypto.key.DerivedKeyCache;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DerivedKeyCacheTest {
+    private static final byte[] KE_CONSTANT = {0, 0, 0, 2, (byte) 0xaa};
+    private static final byte[] KI_CONSTANT = {0, 0, 0, 2, (byte) 0x55};
+
+    @Test
+    public void testCachedDk() throws Exception {
+        AesKeyMaker keyMaker = new AesKeyMaker(new Aes128Provider());
+        byte[] key = new byte[16];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+
+        byte[] ke = keyMaker.cachedDk(key, KE_CONSTANT);
+        assertThat(ke).isEqualTo(keyMaker.dk(key, KE_CONSTANT));
+        assertThat(keyMaker.cachedDk(key, KI_CONSTANT)).isEqualTo(keyMaker.dk(key, KI_CONSTANT));
+        assertThat(keyMaker.derivedKeyCache().size()).isEqualTo(2);
+
+        // Served from the cache, as a copy
+        byte[] cached = keyMaker.cachedDk(key.clone(), KE_CONSTANT.clone());
+        assertThat(cached).isEqualTo(ke).isNotSameAs(ke);
+        cached[0] ^= 1;
+        assertThat(keyMaker.cachedDk(key, KE_CONSTANT)).isEqualTo(ke);
+        assertThat(keyMaker.derivedKeyCache().size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEviction() {
+        DerivedKeyCache cache = new DerivedKeyCache(2);
+        byte[] derivedKey = {1, 2, 3, 4};
+        for (byte i = 0; i < 3; i++) {
+            cache.put(new byte[] {i}, KE_CONSTANT, derivedKey);
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(new byte[] {0}, KE_CONSTANT)).isNull();
+        assertThat(cache.get(new byte[] {2}, KE_CONSTANT)).isEqualTo(derivedKey);
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(new byte[] {2}, KE_CONSTANT)).isNull();
+    }
+
+    @Test
+    public void testUsedKeysStay() {
+        DerivedKeyCache cache = new DerivedKeyCache(4);
+        byte[] derivedKey = {1, 2, 3, 4};
+        byte[] longTermKey = {-1};
+        cache.put(longTermKey, KE_CONSTANT, derivedKey);
+
+        // Keys derived once, as from session keys, don't push out the one in use
+        for (byte i = 0; i < 20; i++) {
+            assertThat(cache.get(longTermKey, KE_CONSTANT)).isEqualTo(derivedKey);
+            cache.put(new byte[] {i}, KE_CONSTANT, derivedKey);
+        }
+
+        assertThat(cache.size()).isEqualTo(4);
+        assertThat(cache.get(longTermKey, KE_CONSTANT)).isEqualTo(derivedKey);
+        assertThat(cache.get(new byte[] {0}, KE_CONSTANT)).isNull();
+        assertThat(cache.get(new byte[] {19}, KE_CONSTANT)).isEqualTo(derivedKey);
+    }
+}
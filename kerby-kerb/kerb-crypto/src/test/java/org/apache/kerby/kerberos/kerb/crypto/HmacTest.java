@@ -0,0 +1,153 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.crypto.cksum.HashProvider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Md5Provider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Sha1Provider;
+import org.apache.kerby.kerberos.kerb.crypto.util.Hmac;
+import org.apache.kerby.util.HexUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ref. RFC 2202 test cases. The HMAC through JCE is checked against the
+ * one computed over the hash provider too.
+ */
+public class HmacTest {
+
+    private static class HmacCase {
+        byte[] key;
+        byte[] data;
+        String sha1;
+        String md5;
+
+        HmacCase(byte[] key, byte[] data, String sha1, String md5) {
+            this.key = key;
+            this.data = data;
+            this.sha1 = sha1;
+            this.md5 = md5;
+        }
+    }
+
+    private static byte[] repeat(int b, int len) {
+        byte[] bytes = new byte[len];
+        Arrays.fill(bytes, (byte) b);
+        return bytes;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final HmacCase[] CASES = {
+        new HmacCase(repeat(0x0b, 20), ascii("Hi There"),
+            "b617318655057264e28bc0b6fb378c8ef146be00",
+            null),
+        new HmacCase(ascii("Jefe"), ascii("what do ya want for nothing?"),
+            "effcdf6ae5eb2fa2d27416d5f184df9c259a7c79",
+            "750c783e6ab0b503eaa86e310a5db738"),
+        new HmacCase(repeat(0xaa, 20), repeat(0xdd, 50),
+            "125d7342b9ac11cd91a39af48aa17b4f63f175d3",
+            null),
+        new HmacCase(HexUtil.hex2bytes("0102030405060708090a0b0c0d0e0f10111213141516171819"),
+            repeat(0xcd, 50),
+            "4c9007f4026250c6bc8414f9bf50c86c2d7235da",
+            "697eaf0aca3a3aea3a75164746ffaa79"),
+        new HmacCase(repeat(0x0c, 20), ascii("Test With Truncation"),
+            "4c1a03424b55e07fe7f27be1d58bb9324a9a5a04",
+            null),
+    };
+
+    @Test
+    public void testRfc2202Sha1() throws Exception {
+        for (HmacCase c : CASES) {
+            checkHmac(new Sha1Provider(), c.key, c.data, c.sha1);
+        }
+    }
+
+    @Test
+    public void testRfc2202Md5() throws Exception {
+        // The cases with 20 bytes keys, which are of 16 bytes for MD5
+        checkHmac(new Md5Provider(), repeat(0x0b, 16), ascii("Hi There"),
+            "9294727a3638bb1c13f48ef8158bfc9d");
+        checkHmac(new Md5Provider(), repeat(0xaa, 16), repeat(0xdd, 50),
+            "56be34521d144c88dbb8c733f0e8b3f6");
+        checkHmac(new Md5Provider(), repeat(0x0c, 16), ascii("Test With Truncation"),
+            "56461ef2342edc00f9bab995690efd4c");
+        for (HmacCase c : CASES) {
+            if (c.md5 != null) {
+                checkHmac(new Md5Provider(), c.key, c.data, c.md5);
+            }
+        }
+    }
+
+    @Test
+    public void testLargerThanBlockSizeKey() throws Exception {
+        // Only through JCE, the key isn't hashed over the hash provider
+        byte[] key = repeat(0xaa, 80);
+        byte[] data = ascii("Test Using Larger Than Block-Size Key - Hash Key First");
+        assertThat(Hmac.hmac(new Sha1Provider(), key, data))
+            .isEqualTo(HexUtil.hex2bytes("aa4ae5e15272d00e95705637ce8a3b55ed402112"));
+        assertThat(Hmac.hmac(new Md5Provider(), key, data))
+            .isEqualTo(HexUtil.hex2bytes("6b1ab7fe4bd7bf8f0b62e6ce61b9d0cd"));
+    }
+
+    @Test
+    public void testCompatibility() throws Exception {
+        Random random = new Random(2202);
+        HashProvider[] hashProviders = {new Sha1Provider(), new Md5Provider()};
+        for (int i = 0; i < 200; i++) {
+            byte[] key = new byte[random.nextInt(64) + 1];
+            random.nextBytes(key);
+            byte[] data = new byte[random.nextInt(300)];
+            random.nextBytes(data);
+            int start = data.length > 0 ? random.nextInt(data.length) : 0;
+            int len = data.length - start;
+
+            for (HashProvider hashProvider : hashProviders) {
+                // Twice, with the same key the Mac isn't re-keyed
+                for (int j = 0; j < 2; j++) {
+                    assertThat(Hmac.hmac(hashProvider, key, data, start, len))
+                        .isEqualTo(Hmac.hashHmac(hashProvider, key, data, start, len));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyKey() throws Exception {
+        byte[] data = ascii("data");
+        assertThat(Hmac.hmac(new Sha1Provider(), new byte[0], data))
+            .isEqualTo(Hmac.hashHmac(new Sha1Provider(), new byte[0], data, 0, data.length));
+    }
+
+    private static void checkHmac(HashProvider hashProvider, byte[] key,
+                                  byte[] data, String answer) throws Exception {
+        byte[] expected = HexUtil.hex2bytes(answer);
+        assertThat(Hmac.hmac(hashProvider, key, data)).isEqualTo(expected);
+        assertThat(Hmac.hashHmac(hashProvider, key, data, 0, data.length)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The in place encryption and the two part checksums are to give the same
+ * results as the copying ones.
+ */
+public class InPlaceEncryptionTest {
+    private static final EncryptionType[] ENC_TYPES = {
+        EncryptionType.DES_CBC_MD5,
+        EncryptionType.DES3_CBC_SHA1_KD,
+        EncryptionType.AES128_CTS_HMAC_SHA1_96,
+        EncryptionType.AES256_CTS_HMAC_SHA1_96,
+        EncryptionType.AES256_CTS_HMAC_SHA384_192,
+        EncryptionType.CAMELLIA256_CTS_CMAC,
+        EncryptionType.ARCFOUR_HMAC
+    };
+    private static final int USAGE = 24;
+    private static final int OFFSET = 7;
+
+    @Test
+    public void testEncryptInPlace() throws Exception {
+        for (EncryptionType eType : ENC_TYPES) {
+            EncTypeHandler handler = EncryptionHandler.getEncHandler(eType);
+            byte[] key = EncryptionHandler.random2Key(eType).getKeyData();
+            for (int dataLen : new int[] {0, 1, 16, 17, 1000}) {
+                byte[] data = randomBytes(dataLen);
+                int cipherLen = handler.cipherSize(dataLen);
+                byte[] buffer = new byte[OFFSET + cipherLen + 3];
+                System.arraycopy(data, 0, buffer, OFFSET + handler.cipherHeaderSize(), dataLen);
+
+                handler.encryptInPlace(buffer, OFFSET, dataLen, key, USAGE);
+                byte[] cipher = Arrays.copyOfRange(buffer, OFFSET, OFFSET + cipherLen);
+                assertThat(handler.encrypt(data, key, USAGE)).hasSize(cipherLen);
+                // the DES based types keep the padding
+                assertThat(Arrays.copyOf(handler.decrypt(cipher, key, USAGE), dataLen))
+                    .as(eType.getName()).isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    public void testDecryptInPlace() throws Exception {
+        for (EncryptionType eType : ENC_TYPES) {
+            EncTypeHandler handler = EncryptionHandler.getEncHandler(eType);
+            byte[] key = EncryptionHandler.random2Key(eType).getKeyData();
+            byte[] data = randomBytes(333);
+            byte[] cipher = handler.encrypt(data, key, USAGE);
+            byte[] buffer = new byte[OFFSET + cipher.length];
+            System.arraycopy(cipher, 0, buffer, OFFSET, cipher.length);
+
+            int len = handler.decryptInPlace(buffer, OFFSET, cipher.length, key, USAGE);
+            assertThat(len).isGreaterThanOrEqualTo(data.length);
+            int dataOffset = OFFSET + handler.cipherHeaderSize();
+            assertThat(Arrays.copyOfRange(buffer, dataOffset, dataOffset + data.length))
+                .as(eType.getName()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    public void testTamperedInPlace() throws Exception {
+        EncTypeHandler handler = EncryptionHandler.getEncHandler(EncryptionType.AES256_CTS_HMAC_SHA1_96);
+        byte[] key = EncryptionHandler.random2Key(EncryptionType.AES256_CTS_HMAC_SHA1_96).getKeyData();
+        final byte[] cipher = handler.encrypt(randomBytes(100), key, USAGE);
+        cipher[20] ^= 1;
+
+        assertThatThrownBy(() -> handler.decryptInPlace(cipher, 0, cipher.length, key, USAGE))
+            .isInstanceOf(KrbException.class);
+    }
+
+    @Test
+    public void testChecksumWithTrailer() throws Exception {
+        CheckSumType[] cksumTypes = {
+            CheckSumType.HMAC_SHA1_96_AES256,
+            CheckSumType.HMAC_SHA1_DES3_KD,
+            CheckSumType.CMAC_CAMELLIA256,
+            CheckSumType.MD5_HMAC_ARCFOUR
+        };
+        EncryptionType[] eTypes = {
+            EncryptionType.AES256_CTS_HMAC_SHA1_96,
+            EncryptionType.DES3_CBC_SHA1_KD,
+            EncryptionType.CAMELLIA256_CTS_CMAC,
+            EncryptionType.ARCFOUR_HMAC
+        };
+        for (int i = 0; i < cksumTypes.length; i++) {
+            CheckSumTypeHandler handler = CheckSumHandler.getCheckSumHandler(cksumTypes[i]);
+            byte[] key = EncryptionHandler.random2Key(eTypes[i]).getKeyData();
+            byte[] data = randomBytes(500);
+            byte[] trailer = randomBytes(16);
+            byte[] both = new byte[data.length - 10 + trailer.length];
+            System.arraycopy(data, 10, both, 0, data.length - 10);
+            System.arraycopy(trailer, 0, both, data.length - 10, trailer.length);
+
+            assertThat(handler.checksumWithKey(data, 10, data.length - 10, trailer, key, USAGE))
+                .as(cksumTypes[i].getName())
+                .isEqualTo(handler.checksumWithKey(both, key, USAGE));
+        }
+    }
+
+    private static byte[] randomBytes(int len) {
+        byte[] bytes = new byte[len];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
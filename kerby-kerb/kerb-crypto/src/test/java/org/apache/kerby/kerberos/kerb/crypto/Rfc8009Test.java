@@ -0,0 +1,157 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Sha256Provider;
+import org.apache.kerby.kerberos.kerb.crypto.cksum.provider.Sha384Provider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes128Provider;
+import org.apache.kerby.kerberos.kerb.crypto.enc.provider.Aes256Provider;
+import org.apache.kerby.kerberos.kerb.crypto.key.AesSha2KeyMaker;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.util.HexUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ref. the test vectors of RFC 8009, appendix A.
+ */
+public class Rfc8009Test {
+    private static final String AES128_KEY = "3705d96080c17728a0e800eab6e0d23c";
+    private static final String AES256_KEY =
+        "6d404d37faf79f9df0d33568d320669800eb4836472ea8a026d16b7182460c52";
+
+    private static AesSha2KeyMaker aes128KeyMaker() {
+        return new AesSha2KeyMaker(new Aes128Provider(),
+            EncryptionType.AES128_CTS_HMAC_SHA256_128, new Sha256Provider(), "PBKDF2WithHmacSHA256");
+    }
+
+    private static AesSha2KeyMaker aes256KeyMaker() {
+        return new AesSha2KeyMaker(new Aes256Provider(),
+            EncryptionType.AES256_CTS_HMAC_SHA384_192, new Sha384Provider(), "PBKDF2WithHmacSHA384");
+    }
+
+    private static byte[] saltp(String eType) {
+        byte[] name = eType.getBytes(StandardCharsets.UTF_8);
+        byte[] salt = HexUtil.hex2bytes("10df9dd783e5bc8acea1730e74355f61");
+        byte[] realm = "ATHENA.MIT.EDUraeburn".getBytes(StandardCharsets.UTF_8);
+
+        byte[] saltp = new byte[name.length + 1 + salt.length + realm.length];
+        System.arraycopy(name, 0, saltp, 0, name.length);
+        System.arraycopy(salt, 0, saltp, name.length + 1, salt.length);
+        System.arraycopy(realm, 0, saltp, name.length + 1 + salt.length, realm.length);
+        return saltp;
+    }
+
+    @Test
+    public void testStr2Key() throws KrbException {
+        byte[] iterations = HexUtil.hex2bytes("00008000");
+
+        assertThat(HexUtil.bytesToHex(aes128KeyMaker().str2key("password",
+            saltp("aes128-cts-hmac-sha256-128"), iterations)))
+            .isEqualToIgnoringCase("089bca48b105ea6ea77ca5d2f39dc5e7");
+        assertThat(HexUtil.bytesToHex(aes256KeyMaker().str2key("password",
+            saltp("aes256-cts-hmac-sha384-192"), iterations)))
+            .isEqualToIgnoringCase("45bd806dbf6a833a9cffc1c94589a222367a79bc21c413718906e9f578a78467");
+    }
+
+    @Test
+    public void testKeyDerivation() throws KrbException {
+        AesSha2KeyMaker km = aes128KeyMaker();
+        byte[] key = HexUtil.hex2bytes(AES128_KEY);
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0x99, 128)))
+            .isEqualToIgnoringCase("b31a018a48f54776f403e9a396325dc3");
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0xaa, 128)))
+            .isEqualToIgnoringCase("9b197dd1e8c5609d6e67c3e37c62c72e");
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0x55, 128)))
+            .isEqualToIgnoringCase("9fda0e56ab2d85e1569a688696c26a6c");
+
+        km = aes256KeyMaker();
+        key = HexUtil.hex2bytes(AES256_KEY);
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0x99, 192)))
+            .isEqualToIgnoringCase("ef5718be86cc84963d8bbb5031e9f5c4ba41f28faf69e73d");
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0xaa, 256)))
+            .isEqualToIgnoringCase("56ab22bee63d82d7bc5227f6773f8ea7a5eb1c825160c38312980c442e5c7e49");
+        assertThat(HexUtil.bytesToHex(km.usageKey(key, 2, (byte) 0x55, 192)))
+            .isEqualToIgnoringCase("69b16514e3cd8e56b82010d5c73012b622c4d00ffc23ed1f");
+    }
+
+    @Test
+    public void testPrf() throws KrbException {
+        byte[] seed = "test".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(HexUtil.bytesToHex(EncryptionHandler.getEncHandler(
+            EncryptionType.AES128_CTS_HMAC_SHA256_128).prf(HexUtil.hex2bytes(AES128_KEY), seed)))
+            .isEqualToIgnoringCase("9d188616f63852fe86915bb840b4a886ff3e6bb0f819b49b893393d393854295");
+        assertThat(HexUtil.bytesToHex(EncryptionHandler.getEncHandler(
+            EncryptionType.AES256_CTS_HMAC_SHA384_192).prf(HexUtil.hex2bytes(AES256_KEY), seed)))
+            .isEqualToIgnoringCase("9801f69a368c2bf675e59521e177d9a07f67efe1cfde8d3c"
+                + "8d6f6a0256e3b17db3c1b62ad1b8553360d17367eb1514d2");
+    }
+
+    @Test
+    public void testChecksum() throws KrbException {
+        byte[] data = HexUtil.hex2bytes("000102030405060708090a0b0c0d0e0f1011121314");
+
+        assertThat(HexUtil.bytesToHex(CheckSumHandler.getCheckSumHandler(
+            CheckSumType.HMAC_SHA256_128_AES128).checksumWithKey(data, HexUtil.hex2bytes(AES128_KEY), 2)))
+            .isEqualToIgnoringCase("d78367186643d67b411cba9139fc1dee");
+        assertThat(HexUtil.bytesToHex(CheckSumHandler.getCheckSumHandler(
+            CheckSumType.HMAC_SHA384_192_AES256).checksumWithKey(data, HexUtil.hex2bytes(AES256_KEY), 2)))
+            .isEqualToIgnoringCase("45ee791567eefca37f4ac1e0222de80d43c3bfa06699672a");
+    }
+
+    @Test
+    public void testDecrypt() throws KrbException {
+        EncTypeHandler handler = EncryptionHandler.getEncHandler(
+            EncryptionType.AES128_CTS_HMAC_SHA256_128);
+        byte[] key = HexUtil.hex2bytes(AES128_KEY);
+
+        assertThat(handler.decrypt(HexUtil.hex2bytes(
+            "ef85fb890bb8472f4dab20394dca781dad877eda39d50c870c0d5a0a8e48c718"), key, 2))
+            .isEmpty();
+        assertThat(handler.decrypt(HexUtil.hex2bytes(
+            "84d7f30754ed987bab0bf3506beb09cfb55402cef7e6877ce99e247e52d16ed4421dfdf8976c"), key, 2))
+            .isEqualTo(HexUtil.hex2bytes("000102030405"));
+    }
+
+    @Test
+    public void testRoundTrip() throws KrbException {
+        for (EncryptionType eType : new EncryptionType[] {
+            EncryptionType.AES128_CTS_HMAC_SHA256_128, EncryptionType.AES256_CTS_HMAC_SHA384_192}) {
+            EncTypeHandler handler = EncryptionHandler.getEncHandler(eType);
+            byte[] key = handler.str2key("password", "EXAMPLE.COMuser", null);
+            byte[] data = "Hello, Kerberos".getBytes(StandardCharsets.UTF_8);
+
+            byte[] cipher = handler.encrypt(data, key, 3);
+            assertThat(cipher).hasSize(16 + data.length + handler.checksumSize());
+            assertThat(handler.decrypt(cipher, key, 3)).isEqualTo(data);
+
+            cipher[cipher.length - 1] ^= 1;
+            assertThatThrownBy(() -> handler.decrypt(cipher, key, 3))
+                .isInstanceOf(KrbException.class);
+        }
+    }
+}
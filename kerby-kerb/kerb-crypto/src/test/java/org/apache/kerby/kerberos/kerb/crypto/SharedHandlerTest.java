@@ -0,0 +1,118 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto;
+
+import org.apache.kerby.kerberos.kerb.crypto.cksum.AbstractKeyedCheckSumTypeHandler;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSum;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptedData;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The handlers are shared by all the callers, so check them from several
+ * threads at once.
+ */
+public class SharedHandlerTest {
+    private static final EncryptionType[] ENC_TYPES = {
+        EncryptionType.DES_CBC_CRC,
+        EncryptionType.DES_CBC_MD5,
+        EncryptionType.DES3_CBC_SHA1_KD,
+        EncryptionType.AES128_CTS_HMAC_SHA1_96,
+        EncryptionType.AES256_CTS_HMAC_SHA1_96,
+        EncryptionType.CAMELLIA128_CTS_CMAC,
+        EncryptionType.ARCFOUR_HMAC
+    };
+
+    @Test
+    public void testSameHandler() throws Exception {
+        assertThat(EncryptionHandler.getEncHandler(EncryptionType.AES128_CTS))
+            .isSameAs(EncryptionHandler.getEncHandler(EncryptionType.AES128_CTS_HMAC_SHA1_96));
+        assertThat(CheckSumHandler.getCheckSumHandler(CheckSumType.HMAC_SHA1_DES3))
+            .isSameAs(CheckSumHandler.getCheckSumHandler(CheckSumType.HMAC_SHA1_DES3_KD));
+        assertThat(EncryptionHandler.isImplemented(EncryptionType.NONE)).isFalse();
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                for (final EncryptionType eType : ENC_TYPES) {
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return roundTrip(eType);
+                        }
+                    }));
+                }
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean roundTrip(EncryptionType eType) throws Exception {
+        EncryptionKey key = EncryptionHandler.random2Key(eType);
+        CheckSumType cksumType = EncryptionHandler.getEncHandler(eType).checksumType();
+        for (int i = 0; i < 50; i++) {
+            byte[] data = new byte[ThreadLocalRandom.current().nextInt(1, 300)];
+            ThreadLocalRandom.current().nextBytes(data);
+
+            EncryptedData encrypted = EncryptionHandler.encrypt(data, key, KeyUsage.KDC_REP_TICKET);
+            byte[] decrypted = EncryptionHandler.decrypt(encrypted, key, KeyUsage.KDC_REP_TICKET);
+            // the DES based types keep the padding
+            if (!Arrays.equals(data, Arrays.copyOf(decrypted, data.length))) {
+                return false;
+            }
+
+            boolean verified;
+            if (CheckSumHandler.getCheckSumHandler(cksumType) instanceof AbstractKeyedCheckSumTypeHandler) {
+                CheckSum checkSum = CheckSumHandler.checksumWithKey(cksumType, data,
+                    key.getKeyData(), KeyUsage.APP_DATA_CKSUM);
+                verified = CheckSumHandler.verifyWithKey(checkSum, data,
+                    key.getKeyData(), KeyUsage.APP_DATA_CKSUM);
+            } else {
+                verified = CheckSumHandler.verify(CheckSumHandler.checksum(cksumType, data), data);
+            }
+            if (!verified) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
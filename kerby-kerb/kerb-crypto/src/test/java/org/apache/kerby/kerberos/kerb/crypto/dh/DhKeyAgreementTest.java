@@ -29,8 +29,11 @@ import javax.crypto.interfaces.DHPublicKey;
 import javax.crypto.spec.DHParameterSpec;
 import javax.crypto.spec.DHPublicKeySpec;
 import java.math.BigInteger;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
 import java.util.Arrays;
 
 
@@ -147,4 +150,46 @@ public class DhKeyAgreementTest {
 
         Assertions.assertTrue(Arrays.equals(clearText, recovered));
     }
+
+    /**
+     * Tests ECDH using the P-256 and P-384 curves of RFC 5349, with the
+     * public keys exchanged as uncompressed points.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEcdh() throws Exception {
+        for (ECParameterSpec curve : new ECParameterSpec[] {EcGroup.P256, EcGroup.P384}) {
+            DiffieHellmanClient client = new DiffieHellmanClient();
+            DiffieHellmanServer server = new DiffieHellmanServer(new DhKeyPairPool());
+
+            byte[] clientPoint = EcGroup.encodePoint(client.init(curve));
+            ECPublicKey serverPubKey = (ECPublicKey) server.initAndDoPhase(
+                EcGroup.decodePoint(clientPoint, curve));
+            server.generateKey(null, null, EncryptionType.AES128_CTS_HMAC_SHA1_96);
+
+            client.doPhase(EcGroup.decodePoint(EcGroup.encodePoint(serverPubKey), curve));
+            client.generateKey(null, null, EncryptionType.AES128_CTS_HMAC_SHA1_96);
+
+            byte[] clearText = "This is just an example".getBytes();
+
+            byte[] cipherText = server.encrypt(clearText, KeyUsage.UNKNOWN);
+            byte[] recovered = client.decrypt(cipherText, KeyUsage.UNKNOWN);
+
+            Assertions.assertTrue(Arrays.equals(clearText, recovered));
+        }
+    }
+
+    /**
+     * Tests a point not on the curve is rejected.
+     */
+    @Test
+    public void testEcPointNotOnCurve() throws Exception {
+        DiffieHellmanClient client = new DiffieHellmanClient();
+        byte[] point = EcGroup.encodePoint(client.init(EcGroup.P256));
+        point[point.length - 1] ^= 1;
+
+        Assertions.assertThrows(GeneralSecurityException.class,
+            () -> EcGroup.decodePoint(point, EcGroup.P256));
+    }
 }
@@ -0,0 +1,92 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.crypto.dh;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.AlgorithmParameters;
+import java.security.KeyPair;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DhKeyPairPoolTest {
+
+    private static void waitForPooled(DhKeyPairPool pool, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (pool.getPooledCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pool.getPooledCount()).isEqualTo(count);
+    }
+
+    @Test
+    public void testRefill() throws Exception {
+        DhKeyPairPool pool = new DhKeyPairPool(2, 1);
+        pool.start();
+        try {
+            KeyPair first = pool.getKeyPair(DhGroup.MODP_GROUP2);
+            assertThat(pool.getMissCount()).isEqualTo(1);
+
+            waitForPooled(pool, 2);
+            KeyPair second = pool.getKeyPair(DhGroup.MODP_GROUP2);
+            KeyPair third = pool.getKeyPair(DhGroup.MODP_GROUP2);
+            assertThat(pool.getHitCount()).isEqualTo(2);
+            assertThat(second).isNotSameAs(first).isNotSameAs(third);
+
+            waitForPooled(pool, 2);
+            assertThat(pool.getGeneratedCount()).isEqualTo(4);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        DhKeyPairPool pool = new DhKeyPairPool(1, 2);
+        pool.start();
+        try {
+            pool.getKeyPair(EcGroup.P256);
+            waitForPooled(pool, 1);
+
+            KeyPair keyPair = pool.getKeyPair(EcGroup.P256);
+            assertThat(pool.getKeyPair(EcGroup.P256)).isSameAs(keyPair);
+            assertThat(pool.getHitCount()).isEqualTo(2);
+
+            waitForPooled(pool, 1);
+            assertThat(pool.getKeyPair(EcGroup.P256)).isNotSameAs(keyPair);
+        } finally {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void testUnknownGroup() throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp521r1"));
+        ECParameterSpec p521 = parameters.getParameterSpec(ECParameterSpec.class);
+
+        DhKeyPairPool pool = new DhKeyPairPool(2, 1);
+        assertThat(pool.getKeyPair(p521)).isNotNull();
+        assertThat(pool.getMissCount()).isEqualTo(1);
+        assertThat(pool.getPooledCount()).isZero();
+    }
+}
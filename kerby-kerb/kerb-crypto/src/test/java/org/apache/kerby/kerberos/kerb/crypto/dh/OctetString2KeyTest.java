@@ -20,7 +20,15 @@
 package org.apache.kerby.kerberos.kerb.crypto.dh;
 
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.crypto.EncryptionHandler;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptedData;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
+import org.apache.kerby.kerberos.kerb.type.base.KeyUsage;
 import org.junit.jupiter.api.Test;
 
 
@@ -225,4 +233,42 @@ public class OctetString2KeyTest extends org.junit.jupiter.api.Assertions {
 
         assertTrue(Arrays.equals(result, expectedOutput));
     }
+
+
+    /**
+     * The 168 bits of a des3-cbc-sha1 key seed are turned into a 24 bytes
+     * key with odd parity by random-to-key.
+     */
+    @Test
+    public void testDes3Key() throws KrbException {
+        byte[] inputOctetString = new byte[16 * 8];
+        EncryptionType type = EncryptionType.DES3_CBC_SHA1;
+
+        assertEquals(21 * 8, OctetString2Key.keySeedLength(type));
+        EncryptionKey key = OctetString2Key.octetString2Key(type, inputOctetString);
+
+        assertEquals(type, key.getKeyType());
+        assertEquals(24, key.getKeyData().length);
+        for (byte b : key.getKeyData()) {
+            assertEquals(1, Integer.bitCount(b & 0xff) % 2);
+        }
+
+        // A multiple of the block size, des3 decryption keeps the padding
+        byte[] plainText = "octetstring2key.".getBytes(StandardCharsets.UTF_8);
+        EncryptedData encrypted = EncryptionHandler.encrypt(plainText, key, KeyUsage.AS_REP_ENCPART);
+        assertArrayEquals(plainText, EncryptionHandler.decrypt(encrypted, key, KeyUsage.AS_REP_ENCPART));
+    }
+
+    /**
+     * AES keys are the K-truncate output as is.
+     */
+    @Test
+    public void testAesKey() {
+        byte[] inputOctetString = new byte[16 * 8];
+        EncryptionType type = EncryptionType.AES256_CTS_HMAC_SHA1_96;
+
+        EncryptionKey key = OctetString2Key.octetString2Key(type, inputOctetString);
+
+        assertArrayEquals(OctetString2Key.kTruncate(32 * 8, inputOctetString), key.getKeyData());
+    }
 }
@@ -98,11 +98,8 @@ public class CredUtils {
                 }
             }
 
-            if (princ != null) {
-                KerberosKey[] keys = tab.getKeys(princ);
-                if (keys != null && keys.length > 0) {
-                    return tab;
-                }
+            if (princ != null && GssKeyIndex.getInstance(tab).hasKeys(princ)) {
+                return tab;
             }
         }
         return null;
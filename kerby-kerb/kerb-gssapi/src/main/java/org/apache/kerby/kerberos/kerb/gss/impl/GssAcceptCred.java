@@ -127,10 +127,9 @@ public final class GssAcceptCred extends GssCredElement {
             return GssUtil.getEncryptionKey(keys, encryptType);
         }
 
-        // Otherwise get it from the keytab
+        // Otherwise get it from the keytab, through its index
         KerberosPrincipal princ = new KerberosPrincipal(name.getPrincipalName().getName(),
                                                         name.getPrincipalName().getNameType().getValue());
-        KerberosKey[] keys = keyTab.getKeys(princ);
-        return GssUtil.getEncryptionKey(keys, encryptType, kvno);
+        return GssKeyIndex.getInstance(keyTab).getKey(princ, encryptType, kvno);
     }
 }
@@ -23,12 +23,15 @@ import com.sun.security.jgss.InquireType;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.gss.GssMechFactory;
 import org.apache.kerby.kerberos.kerb.gss.KerbyGssProvider;
+import org.apache.kerby.kerberos.kerb.replay.TimeWindowReplayCache;
 import org.apache.kerby.kerberos.kerb.request.ApRequest;
 import org.apache.kerby.kerberos.kerb.response.ApResponse;
 import org.apache.kerby.kerberos.kerb.type.ad.AuthorizationData;
 import org.apache.kerby.kerberos.kerb.type.ap.ApRep;
 import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
 import org.apache.kerby.kerberos.kerb.type.ap.Authenticator;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSum;
+import org.apache.kerby.kerberos.kerb.type.base.CheckSumType;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
 import org.apache.kerby.kerberos.kerb.type.base.PrincipalName;
 import org.apache.kerby.kerberos.kerb.type.kdc.EncKdcRepPart;
@@ -63,6 +66,20 @@ public class GssContext implements GSSContextSpi {
     private static final byte[] MSG_AP_REQ = {(byte) 0x1, (byte) 0};
     private static final byte[] MSG_AP_REP = {(byte) 0x2, (byte) 0};
 
+    private static final long CLOCK_SKEW = 5 * 60 * 1000L;
+    /**
+     * The number of authenticators remembered by the acceptors, it should be at
+     * least the peak rate of accepted contexts times the clock skew. By default
+     * the cache is sized for 100k contexts per second, and let through without
+     * being remembered the contexts it has no room for.
+     */
+    public static final String REPLAY_CACHE_SIZE_PROPERTY = "kerby.gss.replaycache.size";
+    // Shared by all the acceptors of the process, the digests include the server principal
+    private static final TimeWindowReplayCache REPLAY_CACHE = new TimeWindowReplayCache(CLOCK_SKEW,
+            Integer.getInteger(REPLAY_CACHE_SIZE_PROPERTY, TimeWindowReplayCache.DEFAULT_MAX_ENTRIES));
+    private static final int GSS_CHECKSUM_LENGTH = 24;
+    private static final int GSS_C_REPLAY_FLAG = 4;
+
     private int ctxState = STATE_NONE;
 
     private final GSSCaller caller;
@@ -445,10 +462,14 @@ public class GssContext implements GSSContextSpi {
 
         try {
             ApRequest.validate(serverKey, apReq,
-                    channelBinding == null ? null : channelBinding.getInitiatorAddress(), 5 * 60 * 1000);
+                    channelBinding == null ? null : channelBinding.getInitiatorAddress(), CLOCK_SKEW);
         } catch (KrbException e) {
             throw new GSSException(GSSException.UNAUTHORIZED, -1, "ApReq verification failed: " + e.getMessage());
         }
+        setReplayDet(apReq.getAuthenticator());
+        if (replayDet) {
+            checkReplay(apReq);
+        }
 
         ApResponse apResponse = new ApResponse(apReq);
         ApRep apRep;
@@ -491,6 +512,47 @@ public class GssContext implements GSSContextSpi {
         return ret;
     }
 
+    /**
+     * Take the replay detection flag of the initiator from the GSS checksum of
+     * the authenticator, see RFC 4121 section 4.1.1. Without one, replays are
+     * detected.
+     * @param auth The verified authenticator
+     */
+    private void setReplayDet(Authenticator auth) {
+        CheckSum cksum = auth.getCksum();
+        // The GSS checksum type 0x8003 isn't a registered CheckSumType
+        if (cksum == null || cksum.getCksumtype() != CheckSumType.NONE) {
+            return;
+        }
+        byte[] value = cksum.getChecksum();
+        if (value == null || value.length < GSS_CHECKSUM_LENGTH
+                || value[0] != 16 || value[1] != 0 || value[2] != 0 || value[3] != 0) {
+            return;
+        }
+        int flags = (value[20] & 0xff) | (value[21] & 0xff) << 8
+                | (value[22] & 0xff) << 16 | (value[23] & 0xff) << 24;
+        replayDet = (flags & GSS_C_REPLAY_FLAG) != 0;
+    }
+
+    /**
+     * Reject an ApReq already accepted, the authenticator being checked
+     * against the clock skew before.
+     * @param apReq The verified ApReq
+     * @throws GSSException if the ApReq is a replay
+     */
+    private static void checkReplay(ApReq apReq) throws GSSException {
+        Authenticator auth = apReq.getAuthenticator();
+        PrincipalName sname = apReq.getTicket().getSname();
+        long digest = TimeWindowReplayCache.digest(
+                auth.getCname().getName() + "@" + auth.getCrealm(),
+                sname.getName() + "@" + apReq.getTicket().getRealm(),
+                auth.getCtime().getTime(), auth.getCusec(),
+                apReq.getEncryptedAuthenticator().getCipher());
+        if (REPLAY_CACHE.checkAndCache(auth.getCtime().getTime(), digest)) {
+            throw new GSSException(GSSException.DUPLICATE_TOKEN, -1, "ApReq is a replay");
+        }
+    }
+
     public int getWrapSizeLimit(int qop, boolean confReq, int maxTokSize)
             throws GSSException {
         if (gssEncryptor.isV2()) {
@@ -540,6 +602,89 @@ public class GssContext implements GSSContextSpi {
         return ret;
     }
 
+    /**
+     * Get the size of the wrap token of a message, for the token buffer
+     * given to {@link #wrap(ByteBuffer, ByteBuffer, MessageProp)}.
+     * @param len The message length
+     * @param confReq Whether privacy is requested
+     * @return the token size, an upper bound for the RFC 1964 tokens
+     */
+    public int getWrapTokenSize(int len, boolean confReq) throws GSSException {
+        if (gssEncryptor.isV2()) {
+            return WrapTokenV2.getTokenSize(confReq && getConfState(), len, gssEncryptor);
+        }
+
+        int tokenSize = len;
+        int limit;
+        while ((limit = WrapTokenV1.getMsgSizeLimit(0, confReq, tokenSize, gssEncryptor)) < len) {
+            tokenSize += len - limit;
+        }
+        return tokenSize;
+    }
+
+    /**
+     * Wrap the remaining bytes of the message into the token buffer. With
+     * the RFC 4121 tokens the message is copied once into the token buffer
+     * and encrypted there, without any intermediate array when the buffers
+     * have accessible arrays.
+     * @param msg The message, consumed
+     * @param token The buffer for the token, with room for
+     *              {@link #getWrapTokenSize(int, boolean)} bytes
+     * @param msgProp The message properties
+     * @return the token length
+     * @throws GSSException e
+     */
+    public int wrap(ByteBuffer msg, ByteBuffer token,
+                    MessageProp msgProp) throws GSSException {
+        if (ctxState != STATE_ESTABLISHED) {
+            throw new GSSException(GSSException.NO_CONTEXT, -1, "Context invalid for wrap");
+        }
+
+        if (gssEncryptor.isV2()) {
+            WrapTokenV2 wrapToken = new WrapTokenV2(this, msg, msgProp);
+            return wrapToken.wrap(token);
+        }
+
+        byte[] inBuf = new byte[msg.remaining()];
+        msg.get(inBuf);
+        return putBytes(new WrapTokenV1(this, inBuf, 0, inBuf.length, msgProp).wrap(), token);
+    }
+
+    /**
+     * Unwrap the token in the remaining bytes of the token buffer into the
+     * message buffer. With the RFC 4121 tokens the token is decrypted in
+     * place, so the content of the token buffer is lost.
+     * @param token The token, consumed
+     * @param msg The buffer for the message
+     * @param msgProp The message properties
+     * @return the message length
+     * @throws GSSException e
+     */
+    public int unwrap(ByteBuffer token, ByteBuffer msg,
+                      MessageProp msgProp) throws GSSException {
+        if (ctxState != STATE_ESTABLISHED) {
+            throw new GSSException(GSSException.NO_CONTEXT, -1, "Context invalid for unwrap");
+        }
+
+        if (gssEncryptor.isV2()) {
+            WrapTokenV2 wrapToken = new WrapTokenV2(this, msgProp, token);
+            return wrapToken.unwrap(msg);
+        }
+
+        byte[] inBuf = new byte[token.remaining()];
+        token.get(inBuf);
+        return putBytes(new WrapTokenV1(this, msgProp, inBuf, 0, inBuf.length).unwrap(), msg);
+    }
+
+    private static int putBytes(byte[] bytes, ByteBuffer out) throws GSSException {
+        if (out.remaining() < bytes.length) {
+            throw new GSSException(GSSException.FAILURE, -1,
+                    "Buffer too small, " + bytes.length + " bytes needed");
+        }
+        out.put(bytes);
+        return bytes.length;
+    }
+
     public void unwrap(InputStream is, OutputStream os,
                        MessageProp msgProp) throws GSSException {
         if (ctxState != STATE_ESTABLISHED) {
@@ -611,6 +756,58 @@ public class GssContext implements GSSContextSpi {
         return ret;
     }
 
+    /**
+     * Get the MIC token of the remaining bytes of the message, checksummed
+     * where they are.
+     * @param msg The message, consumed
+     * @param token The buffer for the token
+     * @param msgProp The message properties
+     * @return the token length
+     * @throws GSSException e
+     */
+    public int getMIC(ByteBuffer msg, ByteBuffer token,
+                      MessageProp msgProp) throws GSSException {
+        if (ctxState != STATE_ESTABLISHED) {
+            throw new GSSException(GSSException.NO_CONTEXT, -1, "Context invalid for getMIC");
+        }
+
+        if (gssEncryptor.isV2()) {
+            MicTokenV2 micToken = new MicTokenV2(this, msg, msgProp);
+            return micToken.getMic(token);
+        }
+
+        byte[] inMsg = new byte[msg.remaining()];
+        msg.get(inMsg);
+        return putBytes(new MicTokenV1(this, inMsg, 0, inMsg.length, msgProp).getMic(), token);
+    }
+
+    /**
+     * Verify the MIC token in the remaining bytes of the token buffer
+     * against the remaining bytes of the message.
+     * @param token The token, consumed
+     * @param msg The message, consumed
+     * @param msgProp The message properties
+     * @throws GSSException e
+     */
+    public void verifyMIC(ByteBuffer token, ByteBuffer msg,
+                          MessageProp msgProp) throws GSSException {
+        if (ctxState != STATE_ESTABLISHED) {
+            throw new GSSException(GSSException.NO_CONTEXT, -1, "Context invalid for verifyMIC");
+        }
+
+        if (gssEncryptor.isV2()) {
+            MicTokenV2 micToken = new MicTokenV2(this, msgProp, token);
+            micToken.verify(msg);
+            return;
+        }
+
+        byte[] inTok = new byte[token.remaining()];
+        token.get(inTok);
+        byte[] inMsg = new byte[msg.remaining()];
+        msg.get(inMsg);
+        verifyMIC(inTok, 0, inTok.length, inMsg, 0, inMsg.length, msgProp);
+    }
+
     public void verifyMIC(InputStream is, InputStream msgStr,
                           MessageProp msgProp) throws GSSException {
         if (ctxState != STATE_ESTABLISHED) {
@@ -45,6 +45,7 @@ public class GssEncryptor {
     private final EncryptionKey encKey;
     private final EncryptionType encKeyType; // The following two variables used for convenience
     private final byte[] encKeyBytes;
+    private final EncTypeHandler encHandler;
 
     private CheckSumType checkSumTypeDef;
     private int checkSumSize;
@@ -86,6 +87,12 @@ public class GssEncryptor {
             throw new GSSException(GSSException.FAILURE, -1,
                     "Invalid encryption type: " + encKeyType.getDisplayName());
         }
+
+        try {
+            encHandler = EncryptionHandler.getEncHandler(encKeyType);
+        } catch (KrbException e) {
+            throw new GSSException(GSSException.FAILURE, -1, e.getMessage());
+        }
     }
 
     /**
@@ -122,8 +129,7 @@ public class GssEncryptor {
     public byte[] encryptData(byte[] toProcess, int keyUsage) throws GSSException {
         byte[] ret;
         try {
-            EncTypeHandler encHandler = EncryptionHandler.getEncHandler(encKey.getKeyType());
-            ret = encHandler.encrypt(toProcess, encKey.getKeyData(), keyUsage);
+            ret = encHandler.encrypt(toProcess, encKeyBytes, keyUsage);
         } catch (KrbException e) {
             throw new GSSException(GSSException.FAILURE, -1, e.getMessage());
         }
@@ -133,26 +139,67 @@ public class GssEncryptor {
     public byte[] decryptData(byte[] dataEncrypted, int keyUsage) throws GSSException {
         byte[] ret;
         try {
-            EncTypeHandler encHandler = EncryptionHandler.getEncHandler(encKey.getKeyType());
-            ret = encHandler.decrypt(dataEncrypted, encKey.getKeyData(), keyUsage);
+            ret = encHandler.decrypt(dataEncrypted, encKeyBytes, keyUsage);
         } catch (KrbException e) {
             throw new GSSException(GSSException.FAILURE, -1, e.getMessage());
         }
         return ret;
     }
 
-    public byte[] calculateCheckSum(byte[] header, byte[] data, int offset, int len, int keyUsage)
-            throws GSSException {
-        int totalLen = len + (header == null ? 0 : header.length);
-        byte[] buffer = new byte[totalLen];
-        System.arraycopy(data, offset, buffer, 0, len);
-        if (header != null) {
-            System.arraycopy(header, 0, buffer, len, header.length);
+    /**
+     * Get the size of the encrypted data
+     * @param len The plain text length
+     * @return the cipher text length
+     */
+    public int getEncryptedSize(int len) {
+        return encHandler.cipherSize(len);
+    }
+
+    /**
+     * Get the offset of the plain text in the cipher text for
+     * {@link #encryptInPlace(byte[], int, int, int)}
+     * @return the size of the cipher text before the plain text
+     */
+    public int getCipherHeaderSize() {
+        return encHandler.cipherHeaderSize();
+    }
+
+    /**
+     * Encrypt the plain text found at offset + {@link #getCipherHeaderSize()}
+     * into the same buffer, which has room for
+     * {@link #getEncryptedSize(int)} bytes from offset.
+     */
+    public void encryptInPlace(byte[] buffer, int offset, int len,
+                               int keyUsage) throws GSSException {
+        try {
+            encHandler.encryptInPlace(buffer, offset, len, encKeyBytes, keyUsage);
+        } catch (KrbException e) {
+            throw new GSSException(GSSException.FAILURE, -1, e.getMessage());
+        }
+    }
+
+    /**
+     * Decrypt in place, the plain text is left at
+     * offset + {@link #getCipherHeaderSize()}.
+     * @return the plain text length
+     */
+    public int decryptInPlace(byte[] buffer, int offset, int len,
+                              int keyUsage) throws GSSException {
+        try {
+            return encHandler.decryptInPlace(buffer, offset, len, encKeyBytes, keyUsage);
+        } catch (KrbException e) {
+            throw new GSSException(GSSException.FAILURE, -1, e.getMessage());
         }
+    }
 
+    public byte[] calculateCheckSum(byte[] header, byte[] data, int offset, int len, int keyUsage)
+            throws GSSException {
         try {
-            return CheckSumHandler.getCheckSumHandler(checkSumTypeDef)
-                    .checksumWithKey(buffer, encKey.getKeyData(), keyUsage);
+            CheckSumTypeHandler handler = CheckSumHandler.getCheckSumHandler(checkSumTypeDef);
+            if (header == null) {
+                return handler.checksumWithKey(data, offset, len, encKeyBytes, keyUsage);
+            }
+            return handler.checksumWithKey(data, offset, len, header, encKeyBytes, keyUsage);
         } catch (KrbException e) {
             throw new GSSException(GSSException.FAILURE, -1,
                     "Exception in checksum calculation:" + e.getMessage());
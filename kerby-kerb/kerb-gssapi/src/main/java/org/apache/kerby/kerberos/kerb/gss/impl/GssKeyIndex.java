@@ -0,0 +1,147 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.gss.impl;
+
+import org.apache.kerby.kerberos.kerb.type.base.EncryptionKey;
+
+import javax.security.auth.kerberos.KerberosKey;
+import javax.security.auth.kerberos.KerberosPrincipal;
+import javax.security.auth.kerberos.KeyTab;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The keys of a keytab indexed by principal, encryption type and key version,
+ * so accepting a context doesn't read and scan the keytab file every time.
+ *
+ * The keys of a principal are loaded on first use and reloaded once they're
+ * older than the refresh interval. A key that isn't found, as for a ticket
+ * issued after a key rotation, reloads them immediately, but no more than
+ * once per {@link #MIN_RELOAD_INTERVAL} so bad tickets can't make the
+ * acceptor read the file for each request.
+ */
+final class GssKeyIndex {
+    static final long REFRESH_INTERVAL = 60 * 1000L;
+    static final long MIN_RELOAD_INTERVAL = 1000L;
+
+    private static final ConcurrentMap<KeyTab, GssKeyIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final KeyTab keyTab;
+    private final ConcurrentMap<String, PrincipalKeys> principalKeys = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+
+    private GssKeyIndex(KeyTab keyTab) {
+        this.keyTab = keyTab;
+    }
+
+    /**
+     * Get the index of a keytab, shared by all the credentials using it.
+     * @param keyTab The keytab
+     * @return the index
+     */
+    static GssKeyIndex getInstance(KeyTab keyTab) {
+        GssKeyIndex index = INDEXES.get(keyTab);
+        if (index == null) {
+            index = new GssKeyIndex(keyTab);
+            GssKeyIndex existing = INDEXES.putIfAbsent(keyTab, index);
+            if (existing != null) {
+                index = existing;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param princ The principal
+     * @return true if the keytab has keys for the principal
+     */
+    boolean hasKeys(KerberosPrincipal princ) {
+        return !getPrincipalKeys(princ, System.currentTimeMillis()).keys.isEmpty();
+    }
+
+    /**
+     * Find the key of a principal.
+     * @param princ The principal
+     * @param encryptType The encryption type
+     * @param kvno The key version number
+     * @return the key, or null if the keytab has none matching
+     */
+    EncryptionKey getKey(KerberosPrincipal princ, int encryptType, int kvno) {
+        long now = System.currentTimeMillis();
+        PrincipalKeys current = getPrincipalKeys(princ, now);
+        EncryptionKey key = current.keys.get(keyId(encryptType, kvno));
+        if (key == null && now - current.loadTime >= MIN_RELOAD_INTERVAL) {
+            key = load(princ, now).keys.get(keyId(encryptType, kvno));
+        }
+        return key;
+    }
+
+    /**
+     * @return the number of times keys were read from the keytab
+     */
+    long getLoadCount() {
+        return loads.get();
+    }
+
+    private PrincipalKeys getPrincipalKeys(KerberosPrincipal princ, long now) {
+        PrincipalKeys current = principalKeys.get(princ.getName());
+        if (current == null || now - current.loadTime >= REFRESH_INTERVAL) {
+            current = load(princ, now);
+        }
+        return current;
+    }
+
+    private PrincipalKeys load(KerberosPrincipal princ, long now) {
+        loads.incrementAndGet();
+
+        Map<Long, EncryptionKey> keys = new HashMap<>();
+        KerberosKey[] krbKeys = keyTab.getKeys(princ);
+        if (krbKeys != null) {
+            for (KerberosKey krbKey : krbKeys) {
+                if (!krbKey.isDestroyed()) {
+                    keys.put(keyId(krbKey.getKeyType(), krbKey.getVersionNumber()),
+                        new EncryptionKey(krbKey.getKeyType(), krbKey.getEncoded()));
+                }
+            }
+        }
+
+        PrincipalKeys loaded = new PrincipalKeys(Collections.unmodifiableMap(keys), now);
+        principalKeys.put(princ.getName(), loaded);
+        return loaded;
+    }
+
+    private static long keyId(int encryptType, int kvno) {
+        return ((long) encryptType << 32) | (kvno & 0xffffffffL);
+    }
+
+    private static final class PrincipalKeys {
+        private final Map<Long, EncryptionKey> keys;
+        private final long loadTime;
+
+        PrincipalKeys(Map<Long, EncryptionKey> keys, long loadTime) {
+            this.keys = keys;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 
 /**
@@ -151,6 +152,47 @@ abstract class GssTokenV2 extends GssTokenBase {
         }
     }
 
+    // Reconstruct the token header from a buffer, the token body is left to the caller
+    GssTokenV2(int tokenType, GssContext context,
+               MessageProp prop, ByteBuffer token) throws GSSException {
+        initialize(tokenType, context, true);
+
+        if (!confState) {
+            prop.setPrivacy(false);
+        }
+
+        if (token.remaining() < TOKEN_HEADER_SIZE) {
+            throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token length");
+        }
+        token.get(header);
+        parseTokenHeader(prop);
+
+        int checksumLen = encryptor.getCheckSumSize();
+        int minSize = checksumLen;
+        if (tokenType == TOKEN_WRAP_V2 && prop.getPrivacy()) {
+            minSize += CONFOUNDER_SIZE + TOKEN_HEADER_SIZE;
+        }
+        if (token.remaining() < minSize) {
+            throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token length");
+        }
+        if (tokenType == TOKEN_WRAP_V2 && !prop.getPrivacy() && checksumLen != ec) {
+            throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid EC");
+        }
+    }
+
+    /**
+     * Undo the rotation of the token body in place.
+     */
+    protected void rotate(byte[] data, int offset, int len) {
+        if (rrc % len != 0) {
+            int count = rrc % len;
+            byte[] rotated = new byte[count];
+            System.arraycopy(data, offset, rotated, 0, count);
+            System.arraycopy(data, offset + count, data, offset, len - count);
+            System.arraycopy(rotated, 0, data, offset + len - count, count);
+        }
+    }
+
     private byte[] rotate(byte[] data) {
         int dataLen = data.length;
         if (rrc % dataLen != 0) {
@@ -199,6 +241,25 @@ abstract class GssTokenV2 extends GssTokenBase {
         return MessageDigest.isEqual(checkSum, dataCheckSum);
     }
 
+    /**
+     * Get the readable part of a buffer as an array range, copied out only
+     * when the buffer has no accessible array. The buffer is consumed.
+     * @return the array, the range starting at {@link ByteBuffer#arrayOffset()}
+     * of the returned buffer
+     */
+    static ByteBuffer asArray(ByteBuffer buffer) {
+        ByteBuffer ret;
+        if (buffer.hasArray()) {
+            ret = buffer.slice();
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            ret = ByteBuffer.wrap(bytes);
+        }
+        buffer.position(buffer.limit());
+        return ret;
+    }
+
     // Create a new header
     private void createTokenHeader(boolean privacy) {
         header[0] = (byte) (tokenType >>> 8);
@@ -231,44 +292,48 @@ abstract class GssTokenV2 extends GssTokenBase {
             if (is.read(header, 0, header.length) != header.length) {
                 throw new GSSException(GSSException.FAILURE, -1, "Token header can not be read");
             }
-            int tokenIDRecv = (((int) header[0]) << 8) + header[1];
-            if (tokenIDRecv != tokenType) {
-                throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1,
-                        "Token ID should be " + tokenType + " instead of " + tokenIDRecv);
-            }
+        } catch (IOException e) {
+            throw new GSSException(GSSException.FAILURE, -1, "Phrase token header failed");
+        }
+        parseTokenHeader(prop);
+    }
 
-            int senderFlag = isInitiator ? FLAG_SENT_BY_ACCEPTOR : 0;
-            int senderFlagRecv = header[2] & FLAG_SENT_BY_ACCEPTOR;
-            if (senderFlagRecv != senderFlag) {
-                throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid acceptor flag");
-            }
+    private void parseTokenHeader(MessageProp prop) throws GSSException {
+        int tokenIDRecv = (((int) header[0]) << 8) + header[1];
+        if (tokenIDRecv != tokenType) {
+            throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1,
+                    "Token ID should be " + tokenType + " instead of " + tokenIDRecv);
+        }
 
-            int confFlagRecv = header[2] & FLAG_SEALED;
-            if (confFlagRecv == FLAG_SEALED && tokenType == TOKEN_WRAP_V2) {
-                prop.setPrivacy(true);
-            } else {
-                prop.setPrivacy(false);
-            }
+        int senderFlag = isInitiator ? FLAG_SENT_BY_ACCEPTOR : 0;
+        int senderFlagRecv = header[2] & FLAG_SENT_BY_ACCEPTOR;
+        if (senderFlagRecv != senderFlag) {
+            throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid acceptor flag");
+        }
 
-            if (tokenType == TOKEN_WRAP_V2) {
-                if (header[3] != (byte) 0xFF) {
+        int confFlagRecv = header[2] & FLAG_SEALED;
+        if (confFlagRecv == FLAG_SEALED && tokenType == TOKEN_WRAP_V2) {
+            prop.setPrivacy(true);
+        } else {
+            prop.setPrivacy(false);
+        }
+
+        if (tokenType == TOKEN_WRAP_V2) {
+            if (header[3] != (byte) 0xFF) {
+                throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token filler");
+            }
+            ec = BytesUtil.bytes2short(header, OFFSET_EC, true);
+            rrc = BytesUtil.bytes2short(header, OFFSET_RRC, true);
+        } else if (tokenType == TOKEN_MIC_V2) {
+            for (int i = 3; i < 8; i++) {
+                if ((header[i] & 0xFF) != 0xFF) {
                     throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token filler");
                 }
-                ec = BytesUtil.bytes2short(header, OFFSET_EC, true);
-                rrc = BytesUtil.bytes2short(header, OFFSET_RRC, true);
-            } else if (tokenType == TOKEN_MIC_V2) {
-                for (int i = 3; i < 8; i++) {
-                    if ((header[i] & 0xFF) != 0xFF) {
-                        throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token filler");
-                    }
-                }
             }
-
-            prop.setQOP(0);
-            sequenceNumber = (int) BytesUtil.bytes2long(header, 0, true);
-        } catch (IOException e) {
-            throw new GSSException(GSSException.FAILURE, -1, "Phrase token header failed");
         }
+
+        prop.setQOP(0);
+        sequenceNumber = (int) BytesUtil.bytes2long(header, 0, true);
     }
 
     public int encodeHeader(byte[] buf, int offset) {
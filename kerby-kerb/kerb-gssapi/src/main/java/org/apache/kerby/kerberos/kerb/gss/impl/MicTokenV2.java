@@ -24,6 +24,7 @@ import org.ietf.jgss.MessageProp;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class MicTokenV2 extends GssTokenV2 {
     private MessageProp prop;
@@ -44,6 +45,29 @@ public class MicTokenV2 extends GssTokenV2 {
         generateCheckSum(prop, inMsg, msgOffset, msgLength);
     }
 
+    // This is called to construct MicToken from user input in a buffer
+    MicTokenV2(GssContext context, ByteBuffer inMsg,
+               MessageProp messageProp) throws GSSException {
+        super(TOKEN_MIC_V2, context);
+
+        prop = messageProp;
+        if (prop == null) {
+            prop = new MessageProp(0, false);
+        }
+
+        ByteBuffer msg = asArray(inMsg);
+        generateCheckSum(prop, msg.array(), msg.arrayOffset(), msg.remaining());
+    }
+
+    // This is called to construct MicToken from MicToken bytes in a buffer
+    MicTokenV2(GssContext context, MessageProp messageProp,
+               ByteBuffer inToken) throws GSSException {
+        super(TOKEN_MIC_V2, context, messageProp, inToken);
+        this.prop = messageProp;
+        checkSum = new byte[encryptor.getCheckSumSize()];
+        inToken.get(checkSum);
+    }
+
     // This is called to construct MicToken from MicToken bytes
     MicTokenV2(GssContext context,
              MessageProp messageProp,
@@ -70,6 +94,16 @@ public class MicTokenV2 extends GssTokenV2 {
         return ret;
     }
 
+    public int getMic(ByteBuffer outToken) throws GSSException {
+        int tokenSize = TOKEN_HEADER_SIZE + checkSum.length;
+        if (outToken.remaining() < tokenSize) {
+            throw new GSSException(GSSException.FAILURE, -1,
+                    "Token buffer too small, " + tokenSize + " bytes needed");
+        }
+        outToken.put(getMic());
+        return tokenSize;
+    }
+
     public void getMic(OutputStream os) throws GSSException {
         try {
             encodeHeader(os);
@@ -91,4 +125,9 @@ public class MicTokenV2 extends GssTokenV2 {
             throw new GSSException(GSSException.BAD_MIC, -1, "Corrupt MIC token");
         }
     }
+
+    public void verify(ByteBuffer inMsg) throws GSSException {
+        ByteBuffer msg = asArray(inMsg);
+        verify(msg.array(), msg.arrayOffset(), msg.remaining());
+    }
 }
@@ -25,10 +25,13 @@ import org.ietf.jgss.MessageProp;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 
 public class WrapTokenV2 extends GssTokenV2 {
     private MessageProp prop;
+    private byte[] sealedToken; // the whole token when sealed
+    private ByteBuffer message;
 
     // Generate a token from user input data
     WrapTokenV2(GssContext context,
@@ -38,6 +41,30 @@ public class WrapTokenV2 extends GssTokenV2 {
               MessageProp messageProp) throws GSSException {
         super(TOKEN_WRAP_V2, context);
 
+        initProp(context, messageProp);
+
+        generateCheckSum(prop, data, dataOffset, dataLength);
+
+        if (prop.getPrivacy()) {
+            sealedToken = new byte[getTokenSize(true, dataLength, encryptor)];
+            seal(sealedToken, 0, data, dataOffset, dataLength);
+        } else {
+            tokenData = data; // keep it for now
+        }
+    }
+
+    // Generate a token from user input data, to be written by wrap(ByteBuffer)
+    WrapTokenV2(GssContext context, ByteBuffer data,
+                MessageProp messageProp) throws GSSException {
+        super(TOKEN_WRAP_V2, context);
+
+        initProp(context, messageProp);
+
+        message = asArray(data);
+        generateCheckSum(prop, message.array(), message.arrayOffset(), message.remaining());
+    }
+
+    private void initProp(GssContext context, MessageProp messageProp) {
         prop = messageProp;
 
         if (prop.getQOP() != 0) {
@@ -47,18 +74,22 @@ public class WrapTokenV2 extends GssTokenV2 {
         if (!context.getConfState()) {
             prop.setPrivacy(false);
         }
+    }
 
-        generateCheckSum(prop, data, dataOffset, dataLength);
-
-        if (prop.getPrivacy()) {
-            byte[] toProcess = new byte[dataLength + TOKEN_HEADER_SIZE];
-            System.arraycopy(data, dataOffset, toProcess, 0, dataLength);
-            encodeHeader(toProcess, dataLength);
+    /**
+     * Build the sealed token in the buffer: the header, then the encrypted
+     * data followed by a copy of the header. The data is copied once into
+     * place, and encrypted there.
+     */
+    private void seal(byte[] buffer, int offset, byte[] data, int dataOffset,
+                      int dataLength) throws GSSException {
+        int cipherOffset = offset + TOKEN_HEADER_SIZE;
+        int plainOffset = cipherOffset + encryptor.getCipherHeaderSize();
+        System.arraycopy(data, dataOffset, buffer, plainOffset, dataLength);
+        encodeHeader(buffer, plainOffset + dataLength);
 
-            tokenData = encryptor.encryptData(toProcess, getKeyUsage());
-        } else {
-            tokenData = data; // keep it for now
-        }
+        encryptor.encryptInPlace(buffer, cipherOffset, dataLength + TOKEN_HEADER_SIZE, getKeyUsage());
+        encodeHeader(buffer, offset);
     }
 
     /**
@@ -66,6 +97,10 @@ public class WrapTokenV2 extends GssTokenV2 {
      * @return
      */
     public byte[] wrap() {
+        if (sealedToken != null) {
+            return sealedToken;
+        }
+
         int dataSize = tokenData.length;
         int ckSize = checkSum == null ? 0 : checkSum.length;
         byte[] ret = new byte[TOKEN_HEADER_SIZE + dataSize + ckSize];
@@ -77,7 +112,51 @@ public class WrapTokenV2 extends GssTokenV2 {
         return ret;
     }
 
+    /**
+     * Write the token of the data given at construction into a buffer,
+     * encrypted in place there when the buffer has an accessible array.
+     * @param out The buffer with room for {@link #getTokenSize} bytes
+     * @return the token length
+     * @throws GSSException
+     */
+    public int wrap(ByteBuffer out) throws GSSException {
+        int dataLength = message.remaining();
+        int tokenSize = getTokenSize(prop.getPrivacy(), dataLength, encryptor);
+        if (out.remaining() < tokenSize) {
+            throw new GSSException(GSSException.FAILURE, -1,
+                    "Token buffer too small, " + tokenSize + " bytes needed");
+        }
+
+        ByteBuffer dst = out.hasArray() ? out : ByteBuffer.allocate(tokenSize);
+        byte[] buffer = dst.array();
+        int offset = dst.arrayOffset() + dst.position();
+        if (prop.getPrivacy()) {
+            seal(buffer, offset, message.array(), message.arrayOffset(), dataLength);
+        } else {
+            System.arraycopy(message.array(), message.arrayOffset(),
+                    buffer, offset + TOKEN_HEADER_SIZE, dataLength);
+            encodeHeader(buffer, offset);
+            System.arraycopy(checkSum, 0, buffer, offset + TOKEN_HEADER_SIZE + dataLength, checkSum.length);
+        }
+
+        if (dst == out) {
+            out.position(out.position() + tokenSize);
+        } else {
+            out.put(buffer, 0, tokenSize);
+        }
+        return tokenSize;
+    }
+
     public void wrap(OutputStream os) throws GSSException {
+        if (sealedToken != null) {
+            try {
+                os.write(sealedToken);
+            } catch (IOException e) {
+                throw new GSSException(GSSException.FAILURE, -1, "Output token error:" + e.getMessage());
+            }
+            return;
+        }
+
         try {
             encodeHeader(os);
             os.write(tokenData);
@@ -102,6 +181,13 @@ public class WrapTokenV2 extends GssTokenV2 {
         this.prop = prop;
     }
 
+    // Reconstruct a token from a buffer, which is consumed and used to work in
+    public WrapTokenV2(GssContext context, MessageProp prop, ByteBuffer token) throws GSSException {
+        super(TOKEN_WRAP_V2, context, prop, token);
+        this.prop = prop;
+        this.message = asArray(token);
+    }
+
     /**
      * Get plain text data from token bytes
      * @param outBuffer
@@ -138,6 +224,47 @@ public class WrapTokenV2 extends GssTokenV2 {
         return unwrap(null, 0);
     }
 
+    /**
+     * Decrypt or verify the token read from a buffer where it is, and put
+     * the plain text into the output buffer.
+     * @param out The buffer for the plain text
+     * @return the plain text length
+     * @throws GSSException
+     */
+    public int unwrap(ByteBuffer out) throws GSSException {
+        byte[] buffer = message.array();
+        int offset = message.arrayOffset();
+        int len = message.remaining();
+        rotate(buffer, offset, len);
+
+        int dataOffset;
+        int dataLength;
+        if (prop.getPrivacy()) {
+            int plainLength = encryptor.decryptInPlace(buffer, offset, len, getKeyUsage());
+            dataOffset = offset + encryptor.getCipherHeaderSize();
+            dataLength = plainLength - TOKEN_HEADER_SIZE;
+            if (dataLength < 0) {
+                throw new GSSException(GSSException.DEFECTIVE_TOKEN, -1, "Invalid token length");
+            }
+        } else {
+            int checksumLen = encryptor.getCheckSumSize();
+            dataOffset = offset;
+            dataLength = len - checksumLen;
+            checkSum = new byte[checksumLen];
+            System.arraycopy(buffer, offset + dataLength, checkSum, 0, checksumLen);
+            if (!verifyCheckSum(buffer, dataOffset, dataLength)) {
+                throw new GSSException(GSSException.BAD_MIC, -1, "Corrupt token checksum");
+            }
+        }
+
+        if (out.remaining() < dataLength) {
+            throw new GSSException(GSSException.FAILURE, -1,
+                    "Message buffer too small, " + dataLength + " bytes needed");
+        }
+        out.put(buffer, dataOffset, dataLength);
+        return dataLength;
+    }
+
     public void unwrap(OutputStream os) throws GSSException {
         byte[] data = unwrap();
         try {
@@ -147,6 +274,15 @@ public class WrapTokenV2 extends GssTokenV2 {
         }
     }
 
+    public static int getTokenSize(boolean confReq, int len, GssEncryptor encryptor)
+            throws GSSException {
+        if (confReq) {
+            return TOKEN_HEADER_SIZE + encryptor.getEncryptedSize(len + TOKEN_HEADER_SIZE);
+        } else {
+            return TOKEN_HEADER_SIZE + len + encryptor.getCheckSumSize();
+        }
+    }
+
     public static int getMsgSizeLimit(int qop, boolean confReq, int maxTokSize, GssEncryptor encryptor)
             throws GSSException {
         if (confReq) {
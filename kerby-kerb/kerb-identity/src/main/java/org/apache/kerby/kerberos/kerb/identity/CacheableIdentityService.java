@@ -29,27 +29,60 @@ import org.apache.kerby.kerberos.kerb.type.ticket.EncTicketPart;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
- * A cacheable identity backend that provides a cache with FIFO and size limit.
- * Note only limited recently active identities are kept in the cache, and other
- * identities are meant to be loaded from the underlying backend like memory,
- * file, SQL DB, LDAP, and etc.
+ * A cacheable identity service in front of a backend, keeping the recently
+ * used identities up to a size limit and for a limited time.
+ *
+ * The cache is split in segments, each an access ordered map evicting the
+ * least recently used identity. Unknown principals are remembered too for
+ * a shorter time, and concurrent lookups of an identity not in the cache
+ * are served by a single backend load. Size and expiry are configured with
+ * {@link IdentityCacheConfKey} in the backend configuration.
  */
 public class CacheableIdentityService
         extends Configured implements IdentityService {
 
     private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
 
-    private Map<String, KrbIdentity> idCache;
     private int cacheSize = DEFAULT_CACHE_SIZE;
+    private long ttlMillis;
+    private long negativeTtlMillis;
+    private Segment[] segments;
+    private final ConcurrentMap<String, CompletableFuture<KrbIdentity>> loading =
+        new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     private IdentityService underlying;
 
     public CacheableIdentityService(Config config, IdentityService underlying) {
+        this(config, underlying, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+            }
+        });
+    }
+
+    CacheableIdentityService(Config config, IdentityService underlying, LongSupplier clock) {
         super(config);
         this.underlying = underlying;
+        this.clock = clock;
 
         init();
     }
@@ -71,17 +104,27 @@ public class CacheableIdentityService
     }
 
     private void init() {
-        Map<String, KrbIdentity> tmpMap =
-            new LinkedHashMap<String, KrbIdentity>(cacheSize) {
-                private static final long serialVersionUID = -6911200685333503214L;
-
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<String, KrbIdentity> eldest) {
-                    return size() > cacheSize;
-                }
-            };
+        Config config = getConfig();
+        if (config != null) {
+            cacheSize = config.getInt(IdentityCacheConfKey.IDENTITY_CACHE_SIZE, true);
+            ttlMillis = config.getLong(IdentityCacheConfKey.IDENTITY_CACHE_TTL, true) * 1000;
+            negativeTtlMillis = config.getLong(
+                IdentityCacheConfKey.IDENTITY_CACHE_NEGATIVE_TTL, true) * 1000;
+        } else {
+            ttlMillis = (Long) IdentityCacheConfKey.IDENTITY_CACHE_TTL.getDefaultValue() * 1000;
+            negativeTtlMillis =
+                (Long) IdentityCacheConfKey.IDENTITY_CACHE_NEGATIVE_TTL.getDefaultValue() * 1000;
+        }
+        cacheSize = Math.max(1, cacheSize);
 
-        idCache = new ConcurrentHashMap<>(tmpMap);
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 * MIN_SEGMENT_SIZE <= cacheSize) {
+            segmentCount *= 2;
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment((cacheSize + segmentCount - 1) / segmentCount);
+        }
     }
 
     /**
@@ -97,16 +140,60 @@ public class CacheableIdentityService
      */
     @Override
     public KrbIdentity getIdentity(String principalName) throws KrbException {
-        if (idCache.containsKey(principalName)) {
-            return idCache.get(principalName);
+        Segment segment = segmentFor(principalName);
+        CacheEntry entry = segment.get(principalName, clock.getAsLong());
+        if (entry != null) {
+            if (entry.identity == null) {
+                negativeHits.increment();
+            } else {
+                hits.increment();
+            }
+            return entry.identity;
         }
+        misses.increment();
 
-        KrbIdentity identity = underlying.getIdentity(principalName);
-        if (identity != null) {
-            idCache.put(principalName, identity);
+        CompletableFuture<KrbIdentity> future = new CompletableFuture<>();
+        CompletableFuture<KrbIdentity> pending = loading.putIfAbsent(principalName, future);
+        if (pending != null) {
+            return awaitLoad(principalName, pending);
         }
 
-        return identity;
+        try {
+            long stamp = segment.getStamp();
+            // Loaded meanwhile by a lookup which just completed
+            entry = segment.get(principalName, clock.getAsLong());
+            if (entry != null) {
+                future.complete(entry.identity);
+                return entry.identity;
+            }
+
+            loads.increment();
+            KrbIdentity identity = underlying.getIdentity(principalName);
+            segment.putIfNotChanged(principalName, identity, stamp, clock.getAsLong());
+            future.complete(identity);
+            return identity;
+        } catch (KrbException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(principalName, future);
+        }
+    }
+
+    private KrbIdentity awaitLoad(String principalName,
+                                  CompletableFuture<KrbIdentity> pending) throws KrbException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KrbException("Interrupted while loading " + principalName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KrbException) {
+                throw (KrbException) cause;
+            }
+            throw new KrbException("Failed to load " + principalName, cause);
+        }
     }
 
     /**
@@ -116,7 +203,8 @@ public class CacheableIdentityService
     public KrbIdentity addIdentity(KrbIdentity identity) throws KrbException {
         KrbIdentity added = underlying.addIdentity(identity);
         if (added != null) {
-            idCache.put(added.getPrincipalName(), added);
+            segmentFor(added.getPrincipalName()).put(added.getPrincipalName(),
+                added, clock.getAsLong());
         }
 
         return added;
@@ -129,7 +217,8 @@ public class CacheableIdentityService
     public KrbIdentity updateIdentity(KrbIdentity identity) throws KrbException {
         KrbIdentity updated = underlying.updateIdentity(identity);
         if (updated != null) {
-            idCache.put(updated.getPrincipalName(), updated);
+            segmentFor(updated.getPrincipalName()).put(updated.getPrincipalName(),
+                updated, clock.getAsLong());
         }
 
         return updated;
@@ -140,11 +229,11 @@ public class CacheableIdentityService
      */
     @Override
     public void deleteIdentity(String principalName) throws KrbException {
-        if (idCache.containsKey(principalName)) {
-            idCache.remove(principalName);
+        try {
+            underlying.deleteIdentity(principalName);
+        } finally {
+            segmentFor(principalName).invalidate(principalName);
         }
-
-        underlying.deleteIdentity(principalName);
     }
 
     /**
@@ -157,4 +246,150 @@ public class CacheableIdentityService
         return underlying.getIdentityAuthorizationData(kdcClientRequest,
                 encTicketPart);
     }
+
+    /**
+     * Drop all the cached identities.
+     */
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.invalidateAll();
+        }
+    }
+
+    /**
+     * @return the number of cached identities, including unknown principals
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups served with a cached identity
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups served with a cached unknown principal
+     */
+    public long getNegativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    /**
+     * @return the number of lookups not served from the cache
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of identities loaded from the backend
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * @return the number of identities evicted to keep the cache size
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(String principalName) {
+        int hash = principalName.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class CacheEntry {
+        private final KrbIdentity identity;
+        private final long expireTime;
+
+        CacheEntry(KrbIdentity identity, long expireTime) {
+            this.identity = identity;
+            this.expireTime = expireTime;
+        }
+    }
+
+    /**
+     * A LRU part of the cache. The stamp changes on every write, so a load
+     * racing with an update doesn't put back a stale identity.
+     */
+    private final class Segment {
+        private final Map<String, CacheEntry> entries;
+        private long stamp;
+
+        Segment(final int maxSize) {
+            entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+                private static final long serialVersionUID = -6911200685333503214L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized CacheEntry get(String principalName, long now) {
+            CacheEntry entry = entries.get(principalName);
+            if (entry != null && entry.expireTime != Long.MAX_VALUE
+                && entry.expireTime - now <= 0) {
+                entries.remove(principalName);
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized long getStamp() {
+            return stamp;
+        }
+
+        synchronized void put(String principalName, KrbIdentity identity, long now) {
+            stamp++;
+            doPut(principalName, identity, now);
+        }
+
+        synchronized void putIfNotChanged(String principalName, KrbIdentity identity,
+                                          long expectedStamp, long now) {
+            if (stamp == expectedStamp) {
+                doPut(principalName, identity, now);
+            }
+        }
+
+        synchronized void invalidate(String principalName) {
+            stamp++;
+            entries.remove(principalName);
+        }
+
+        synchronized void invalidateAll() {
+            stamp++;
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void doPut(String principalName, KrbIdentity identity, long now) {
+            long ttl = identity != null ? ttlMillis : negativeTtlMillis;
+            if (ttl > 0) {
+                entries.put(principalName, new CacheEntry(identity, now + ttl));
+            } else if (identity != null) {
+                entries.put(principalName, new CacheEntry(identity, Long.MAX_VALUE));
+            } else {
+                entries.remove(principalName);
+            }
+        }
+    }
 }
@@ -0,0 +1,56 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.identity;
+
+import org.apache.kerby.config.ConfigKey;
+
+/**
+ * Define the identity cache related configuration items with default values,
+ * read from the backend configuration.
+ */
+public enum IdentityCacheConfKey implements ConfigKey {
+    /** Whether the KDC looks up identities through the cache */
+    IDENTITY_CACHE_ENABLED(false),
+    IDENTITY_CACHE_SIZE(1000),
+    /** In seconds */
+    IDENTITY_CACHE_TTL(5 * 60L),
+    /** In seconds, how long unknown principals are remembered, 0 to disable */
+    IDENTITY_CACHE_NEGATIVE_TTL(30L);
+
+    private Object defaultValue;
+
+    IdentityCacheConfKey() {
+        this.defaultValue = null;
+    }
+
+    IdentityCacheConfKey(Object defaultValue) {
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public String getPropertyKey() {
+        return name().toLowerCase();
+    }
+
+    @Override
+    public Object getDefaultValue() {
+        return this.defaultValue;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.identity;
+
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.identity.backend.MemoryIdentityBackend;
+import org.apache.kerby.kerberos.kerb.request.KrbIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheableIdentityServiceTest {
+    private final AtomicLong now = new AtomicLong();
+    private final LongSupplier clock = new LongSupplier() {
+        @Override
+        public long getAsLong() {
+            return now.get();
+        }
+    };
+
+    private CountingBackend backend;
+    private BackendConfig config;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        backend = new CountingBackend();
+        backend.initialize();
+        for (int i = 0; i < 3; i++) {
+            backend.addIdentity(new KrbIdentity("user" + i + "@EXAMPLE.COM"));
+        }
+        backend.loads.set(0);
+
+        config = new BackendConfig();
+        config.setInt(IdentityCacheConfKey.IDENTITY_CACHE_SIZE, 2);
+        config.setLong(IdentityCacheConfKey.IDENTITY_CACHE_TTL, 60L);
+        config.setLong(IdentityCacheConfKey.IDENTITY_CACHE_NEGATIVE_TTL, 10L);
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        CacheableIdentityService cache = new CacheableIdentityService(config, backend, clock);
+
+        cache.getIdentity("user0@EXAMPLE.COM");
+        cache.getIdentity("user1@EXAMPLE.COM");
+        cache.getIdentity("user0@EXAMPLE.COM");
+        cache.getIdentity("user2@EXAMPLE.COM"); // evicts user1, the least recently used
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+
+        cache.getIdentity("user0@EXAMPLE.COM");
+        assertThat(backend.loads.get()).isEqualTo(3);
+        cache.getIdentity("user1@EXAMPLE.COM");
+        assertThat(backend.loads.get()).isEqualTo(4);
+
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        CacheableIdentityService cache = new CacheableIdentityService(config, backend, clock);
+
+        assertThat(cache.getIdentity("user0@EXAMPLE.COM")).isNotNull();
+        assertThat(cache.getIdentity("unknown@EXAMPLE.COM")).isNull();
+        assertThat(cache.getIdentity("unknown@EXAMPLE.COM")).isNull();
+        assertThat(cache.getNegativeHitCount()).isEqualTo(1);
+        assertThat(backend.loads.get()).isEqualTo(2);
+
+        now.addAndGet(10 * 1000L);
+        assertThat(cache.getIdentity("unknown@EXAMPLE.COM")).isNull();
+        assertThat(cache.getIdentity("user0@EXAMPLE.COM")).isNotNull();
+        assertThat(backend.loads.get()).isEqualTo(3);
+
+        now.addAndGet(50 * 1000L);
+        assertThat(cache.getIdentity("user0@EXAMPLE.COM")).isNotNull();
+        assertThat(backend.loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testUpdates() throws Exception {
+        CacheableIdentityService cache = new CacheableIdentityService(config, backend, clock);
+
+        assertThat(cache.getIdentity("new@EXAMPLE.COM")).isNull();
+        cache.addIdentity(new KrbIdentity("new@EXAMPLE.COM"));
+        assertThat(cache.getIdentity("new@EXAMPLE.COM")).isNotNull();
+
+        cache.deleteIdentity("new@EXAMPLE.COM");
+        assertThat(cache.getIdentity("new@EXAMPLE.COM")).isNull();
+        assertThat(cache.getLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSingleLoad() throws Exception {
+        final CacheableIdentityService cache =
+            new CacheableIdentityService(config, backend, clock);
+        backend.blocker = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<KrbIdentity>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.getIdentity("user0@EXAMPLE.COM")));
+            }
+
+            Thread.sleep(200);
+            backend.blocker.countDown();
+            for (Future<KrbIdentity> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getPrincipalName())
+                    .isEqualTo("user0@EXAMPLE.COM");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(backend.loads.get()).isEqualTo(1);
+        assertThat(cache.getLoadCount()).isEqualTo(1);
+    }
+
+    private static class CountingBackend extends MemoryIdentityBackend {
+        private final AtomicInteger loads = new AtomicInteger();
+        private volatile CountDownLatch blocker;
+
+        @Override
+        protected KrbIdentity doGetIdentity(String principalName) {
+            loads.incrementAndGet();
+            if (blocker != null) {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.doGetIdentity(principalName);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsyncKrbClientTest extends KdcTestBase {
+
+    @Test
+    public void testRequestTickets() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgtAsync(getClientPrincipal(),
+            getClientPassword()).get(10, TimeUnit.SECONDS);
+        assertThat(tgt).isNotNull();
+        assertThat(tgt.getClientPrincipal().getName()).isEqualTo(getClientPrincipal());
+
+        List<CompletableFuture<SgtTicket>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(getKrbClient().requestSgtAsync(tgt, getServerPrincipal()));
+        }
+        for (CompletableFuture<SgtTicket> future : futures) {
+            SgtTicket tkt = future.get(10, TimeUnit.SECONDS);
+            assertThat(tkt.getTicket().getSname().getName())
+                .isEqualTo(getServerPrincipalName() + "/" + getHostname());
+        }
+    }
+
+    @Test
+    public void testBadPassword() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> getKrbClient().requestTgtAsync(getClientPrincipal(), "bad-password")
+                .get(10, TimeUnit.SECONDS));
+        assertThat(e.getCause()).isInstanceOf(KrbException.class);
+    }
+
+    @Test
+    public void testUnknownServer() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> getKrbClient().requestSgtAsync(tgt, "unknown/" + getHostname())
+                .get(10, TimeUnit.SECONDS));
+        assertThat(((KrbException) e.getCause()).getKrbErrorCode())
+            .isEqualTo(KrbErrorCode.KDC_ERR_S_PRINCIPAL_UNKNOWN);
+    }
+}
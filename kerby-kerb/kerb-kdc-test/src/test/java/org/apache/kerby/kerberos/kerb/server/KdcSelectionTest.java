@@ -0,0 +1,115 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.client.KrbClient;
+import org.apache.kerby.kerberos.kerb.client.KrbConfig;
+import org.apache.kerby.kerberos.kerb.client.KrbConfigKey;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A realm whose first KDC accepts connections but never answers.
+ */
+public class KdcSelectionTest extends KdcTestBase {
+    private ServerSocket silentKdc;
+    private File krb5Conf;
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @BeforeEach
+    public void setUpSilentKdc() throws Exception {
+        silentKdc = new ServerSocket(0);
+        krb5Conf = File.createTempFile("krb5", ".conf");
+        String conf = "[realms]\n"
+            + "  " + TestKdcServer.KDC_REALM + " = {\n"
+            + "    kdc = localhost:" + silentKdc.getLocalPort() + "\n"
+            + "    kdc = localhost:" + getKdcServer().getKdcTcpPort() + "\n"
+            + "  }\n";
+        Files.write(krb5Conf.toPath(), conf.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void tearDownSilentKdc() throws Exception {
+        silentKdc.close();
+        krb5Conf.delete();
+    }
+
+    @Test
+    public void testHealthySelected() throws Exception {
+        KrbClient client = makeClient(1000, false);
+
+        // Waits for the silent KDC to time out
+        TgtTicket tgt = client.requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+
+        // The silent KDC isn't tried first anymore
+        long start = System.currentTimeMillis();
+        assertThat(client.requestSgt(tgt, getServerPrincipal())).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+    }
+
+    @Test
+    public void testHedged() throws Exception {
+        KrbClient client = makeClient(4000, true);
+
+        // Sent to the other KDC as well after half the timeout
+        long start = System.currentTimeMillis();
+        TgtTicket tgt = client.requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(4000);
+
+        // The silent KDC was slower, the other one is tried first
+        start = System.currentTimeMillis();
+        assertThat(client.requestSgtAsync(tgt, getServerPrincipal()).get()).isNotNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+    }
+
+    private KrbClient makeClient(int timeout, boolean hedged) throws Exception {
+        // The kdc entries of a realm are loaded in no particular order
+        String silent = "localhost:" + silentKdc.getLocalPort();
+        KrbConfig krbConfig;
+        do {
+            krbConfig = new KrbConfig();
+            krbConfig.addKrb5Config(krb5Conf);
+        } while (!silent.equals(krbConfig.getRealmSectionItems(TestKdcServer.KDC_REALM, "kdc").get(0)));
+        krbConfig.setString(KrbConfigKey.PERMITTED_ENCTYPES,
+            getKrbClient().getKrbConfig().getString(KrbConfigKey.PERMITTED_ENCTYPES, true));
+        KrbClient client = new KrbClient(krbConfig);
+        client.setKdcRealm(TestKdcServer.KDC_REALM);
+        client.setAllowUdp(false);
+        client.setTimeout(timeout);
+        client.setRequestsHedged(hedged);
+        client.init();
+        return client;
+    }
+}
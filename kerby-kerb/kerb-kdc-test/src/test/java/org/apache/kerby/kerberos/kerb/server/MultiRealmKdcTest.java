@@ -0,0 +1,90 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadmin;
+import org.apache.kerby.kerberos.kerb.admin.kadmin.local.LocalKadminImpl;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.impl.DefaultInternalKdcServerImpl;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MultiRealmKdcTest extends KdcTestBase {
+    private static final String OTHER_REALM = "OTHER.COM";
+    private final String otherClientPrincipal = "alice@" + OTHER_REALM;
+    private final String otherClientPassword = "abcdef";
+    private DefaultInternalKdcServerImpl innerKdc;
+
+    @Override
+    protected void prepareKdc() throws KrbException {
+        KdcConfig realmConfig = new KdcConfig();
+        realmConfig.setString(KdcConfigKey.KDC_REALM, OTHER_REALM);
+        getKdcServer().addRealm(realmConfig, new BackendConfig());
+
+        innerKdc = new DefaultInternalKdcServerImpl(getKdcServer().getKdcSetting());
+        getKdcServer().setInnerKdcImpl(innerKdc);
+
+        super.prepareKdc();
+    }
+
+    @Override
+    protected void createPrincipals() throws KrbException {
+        super.createPrincipals();
+
+        KdcSetting realmSetting = getKdcServer().getKdcSetting().getRealmSettings().get(0);
+        LocalKadmin kadmin = new LocalKadminImpl(realmSetting,
+            getKdcServer().getIdentityService(OTHER_REALM));
+        kadmin.createBuiltinPrincipals();
+        kadmin.addPrincipal(otherClientPrincipal, otherClientPassword);
+    }
+
+    @Test
+    public void testRealms() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt.getRealm()).isEqualTo(TestKdcServer.KDC_REALM);
+        TgtTicket otherTgt = getKrbClient().requestTgt(otherClientPrincipal, otherClientPassword);
+        assertThat(otherTgt.getRealm()).isEqualTo(OTHER_REALM);
+        assertThat(getKrbClient().requestSgt(otherTgt, "krbtgt/" + OTHER_REALM + "@" + OTHER_REALM))
+            .isNotNull();
+
+        KdcContext kdcContext = innerKdc.getKdcContext();
+        KdcRealmMetrics metrics = kdcContext.getMetrics();
+        KdcRealmMetrics otherMetrics = kdcContext.getRealmContext(OTHER_REALM).getMetrics();
+        assertThat(metrics.getAsRequestCount()).isPositive();
+        assertThat(metrics.getTgsRequestCount()).isZero();
+        assertThat(otherMetrics.getAsRequestCount()).isPositive();
+        assertThat(otherMetrics.getTgsRequestCount()).isEqualTo(1);
+        assertThat(otherMetrics.getTotalProcessingTime()).isPositive();
+    }
+
+    @Test
+    public void testUnknownRealm() {
+        assertThrows(KrbException.class,
+            () -> getKrbClient().requestTgt("bob@UNKNOWN.COM", "password"));
+
+        KdcContext kdcContext = innerKdc.getKdcContext();
+        assertThat(kdcContext.getRealmContext("UNKNOWN.COM")).isNull();
+        assertThat(kdcContext.getMetrics().getAsRequestCount()).isZero();
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.client.KrbConfigKey;
+import org.apache.kerby.kerberos.kerb.type.ticket.SgtTicket;
+import org.apache.kerby.kerberos.kerb.type.ticket.TgtTicket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Requests sharing pooled TCP connections, pipelined when made concurrently.
+ */
+public class PooledKrbClientTest extends KdcTestBase {
+
+    @Override
+    protected boolean allowUdp() {
+        return false;
+    }
+
+    @Override
+    protected void configKdcSeverAndClient() {
+        super.configKdcSeverAndClient();
+        getKrbClient().setConnectionPooled(true);
+        // Kerby's KDC answers pipelined requests in order
+        getKrbClient().getKrbConfig().setInt(KrbConfigKey.KDC_POOL_MAX_PIPELINED, 4);
+    }
+
+    @Test
+    public void testRequestTickets() throws Exception {
+        final TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        assertThat(tgt).isNotNull();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SgtTicket>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                futures.add(executor.submit(() -> getKrbClient().requestSgt(tgt, getServerPrincipal())));
+            }
+            for (Future<SgtTicket> future : futures) {
+                SgtTicket tkt = future.get(10, TimeUnit.SECONDS);
+                assertThat(tkt.getTicket().getSname().getName())
+                    .isEqualTo(getServerPrincipalName() + "/" + getHostname());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testErrorThenRequest() throws Exception {
+        TgtTicket tgt = getKrbClient().requestTgt(getClientPrincipal(), getClientPassword());
+        KrbException e = assertThrows(KrbException.class,
+            () -> getKrbClient().requestSgt(tgt, "unknown/" + getHostname()));
+        assertThat(e.getKrbErrorCode()).isEqualTo(KrbErrorCode.KDC_ERR_S_PRINCIPAL_UNKNOWN);
+
+        assertThat(getKrbClient().requestSgt(tgt, getServerPrincipal())).isNotNull();
+    }
+}
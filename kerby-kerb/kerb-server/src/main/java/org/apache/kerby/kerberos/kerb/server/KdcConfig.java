@@ -20,6 +20,7 @@
 package org.apache.kerby.kerberos.kerb.server;
 
 import org.apache.kerby.kerberos.kerb.common.Krb5Conf;
+import org.apache.kerby.kerberos.kerb.replay.TimeWindowReplayCache;
 import org.apache.kerby.kerberos.kerb.type.base.EncryptionType;
 
 import java.util.Arrays;
@@ -159,6 +160,88 @@ public class KdcConfig extends Krb5Conf {
         return getInt(KdcConfigKey.KDC_MAX_DGRAM_REPLY_SIZE, true, KDCDEFAULT);
     }
 
+    /**
+     * Get the number of network event loops serving the KDC ports.
+     * @return the number of event loop threads
+     */
+    public int getKdcIoThreads() {
+        return getInt(KdcConfigKey.KDC_IO_THREADS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the maximum size of a request over TCP.
+     * @return the maximum message size
+     */
+    public int getKdcMaxMessageSize() {
+        return getInt(KdcConfigKey.KDC_MAX_MESSAGE_SIZE, true, KDCDEFAULT);
+    }
+
+    /**
+     * Is to receive requests into direct buffers rather than heap buffers
+     * @return true to use direct buffers, false otherwise
+     */
+    public boolean isKdcDirectBuffers() {
+        return getBoolean(KdcConfigKey.KDC_DIRECT_BUFFERS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the number of worker threads kept to process requests.
+     * @return the core number of workers
+     */
+    public int getKdcWorkerCoreThreads() {
+        return getInt(KdcConfigKey.KDC_WORKER_CORE_THREADS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the maximum number of worker threads, or of concurrent requests
+     * when virtual threads are used.
+     * @return the maximum number of workers
+     */
+    public int getKdcWorkerMaxThreads() {
+        return getInt(KdcConfigKey.KDC_WORKER_MAX_THREADS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the number of requests allowed to wait for a worker, beyond that
+     * requests are rejected with KDC_ERR_SVC_UNAVAILABLE.
+     * @return the queue size
+     */
+    public int getKdcWorkerQueueSize() {
+        return getInt(KdcConfigKey.KDC_WORKER_QUEUE_SIZE, true, KDCDEFAULT);
+    }
+
+    /**
+     * Is to process requests with virtual threads, only available on JDK 21+
+     * @return true to use virtual threads, false otherwise
+     */
+    public boolean isKdcWorkerVirtualThreads() {
+        return getBoolean(KdcConfigKey.KDC_WORKER_VIRTUAL_THREADS, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the maximum number of requests remembered by the replay cache.
+     * It should be at least the peak TGS request rate times the allowable
+     * clock skew, by default it's sized for 100k requests per second.
+     * @return The replay cache size
+     */
+    public int getReplayCacheSize() {
+        Integer size = getInt(KdcConfigKey.KDC_REPLAY_CACHE_SIZE, true, KDCDEFAULT);
+        if (size == null) {
+            return TimeWindowReplayCache.sizeFor(TimeWindowReplayCache.DEFAULT_REQUEST_RATE,
+                getAllowableClockSkew() * 1000);
+        }
+        return size;
+    }
+
+    /**
+     * Is to reject requests as replayed when the replay cache is full. By
+     * default they are let through without being remembered, and logged.
+     * @return true to fail closed, false otherwise
+     */
+    public boolean isReplayCacheFailClosed() {
+        return getBoolean(KdcConfigKey.KDC_REPLAY_CACHE_FAIL_CLOSED, true, KDCDEFAULT);
+    }
+
     public String getVerifyKeyConfig() {
         return getString(KdcConfigKey.TOKEN_VERIFY_KEYS, true, KDCDEFAULT);
     }
@@ -180,4 +263,22 @@ public class KdcConfig extends Krb5Conf {
         return getString(
                 KdcConfigKey.PKINIT_IDENTITY, true, KDCDEFAULT);
     }
+
+    /**
+     * Get the number of Diffie-Hellman key pairs generated ahead of time per
+     * PKINIT group, 0 to generate them for every request.
+     * @return the key pair pool size
+     */
+    public int getPkinitDhPoolSize() {
+        return getInt(KdcConfigKey.PKINIT_DH_POOL_SIZE, true, KDCDEFAULT);
+    }
+
+    /**
+     * Get the number of PKINIT exchanges a pooled Diffie-Hellman key pair
+     * serves, 1 to keep the exchanges forward secret.
+     * @return the maximum uses of a key pair
+     */
+    public int getPkinitDhKeyMaxUses() {
+        return getInt(KdcConfigKey.PKINIT_DH_KEY_MAX_USES, true, KDCDEFAULT);
+    }
 }
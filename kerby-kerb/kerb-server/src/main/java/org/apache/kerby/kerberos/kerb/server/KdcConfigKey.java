@@ -49,11 +49,22 @@ public enum KdcConfigKey implements ConfigKey {
     ENCRYPTION_TYPES("aes128-cts-hmac-sha1-96 des3-cbc-sha1-kd"),
     RESTRICT_ANONYMOUS_TO_TGT(false),
     KDC_MAX_DGRAM_REPLY_SIZE(4096),
+    KDC_IO_THREADS(1),
+    KDC_MAX_MESSAGE_SIZE(4 * 1024 * 1024),
+    KDC_DIRECT_BUFFERS(false),
+    KDC_WORKER_CORE_THREADS(16),
+    KDC_WORKER_MAX_THREADS(64),
+    KDC_WORKER_QUEUE_SIZE(1024),
+    KDC_WORKER_VIRTUAL_THREADS(false),
+    KDC_REPLAY_CACHE_SIZE(null),
+    KDC_REPLAY_CACHE_FAIL_CLOSED(false),
     TOKEN_VERIFY_KEYS(),
     TOKEN_DECRYPTION_KEYS(),
     TOKEN_ISSUERS(),
     PKINIT_IDENTITY(null),
-    PKINIT_ANCHORS(null);
+    PKINIT_ANCHORS(null),
+    PKINIT_DH_POOL_SIZE(16),
+    PKINIT_DH_KEY_MAX_USES(1);
 
     private Object defaultValue;
 
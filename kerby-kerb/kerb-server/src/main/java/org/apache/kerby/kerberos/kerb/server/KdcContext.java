@@ -23,8 +23,15 @@ import org.apache.kerby.kerberos.kerb.identity.IdentityService;
 import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
 import org.apache.kerby.kerberos.kerb.server.replay.ReplayCheckService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class KdcContext {
     private final KdcSetting kdcSetting;
+    private final KdcRealmMetrics metrics = new KdcRealmMetrics();
+    private final Map<String, KdcContext> realmContexts = new ConcurrentHashMap<>();
 
     private IdentityService identityService;
     private ReplayCheckService replayCache;
@@ -69,4 +76,44 @@ public class KdcContext {
     public String getKdcRealm() {
         return kdcSetting.getKdcRealm();
     }
+
+    /**
+     * Get the request metrics of the realm.
+     * @return the realm metrics
+     */
+    public KdcRealmMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Serve another realm along with this one, sharing the same network
+     * and workers.
+     * @param realmContext The context of the other realm
+     */
+    public void addRealmContext(KdcContext realmContext) {
+        realmContexts.put(realmContext.getKdcRealm(), realmContext);
+    }
+
+    /**
+     * Get the context to process the requests of a realm with.
+     * @param realm The request realm
+     * @return this context or the one of another served realm, null if
+     * the realm isn't served
+     */
+    public KdcContext getRealmContext(String realm) {
+        if (realm == null) {
+            return null;
+        } else if (realm.equals(getKdcRealm())) {
+            return this;
+        }
+        return realmContexts.get(realm);
+    }
+
+    /**
+     * Get the contexts of the other realms served along with this one.
+     * @return the other realm contexts
+     */
+    public List<KdcContext> getRealmContexts() {
+        return new ArrayList<>(realmContexts.values());
+    }
 }
@@ -22,6 +22,7 @@ package org.apache.kerby.kerberos.kerb.server;
 import org.apache.kerby.kerberos.kerb.KrbCodec;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.common.KrbUtil;
 import org.apache.kerby.kerberos.kerb.server.request.AsRequest;
 import org.apache.kerby.kerberos.kerb.server.request.KdcRequest;
 import org.apache.kerby.kerberos.kerb.server.request.TgsRequest;
@@ -41,7 +42,9 @@ import java.net.InetAddress;
 import java.nio.ByteBuffer;
 
 /**
- * KDC handler to process client requests. Currently only one realm is supported.
+ * KDC handler to process client requests. The requests are processed with
+ * the context of their realm, the one of the KDC or another realm served
+ * along with it.
  */
 public class KdcHandler {
     private static final Logger LOG = LoggerFactory.getLogger(KdcHandler.class);
@@ -69,6 +72,7 @@ public class KdcHandler {
                                     InetAddress remoteAddress) throws KrbException {
         KrbMessage krbRequest;
         KdcRequest kdcRequest = null;
+        KdcContext realmContext = null;
         KrbMessage krbResponse;
 
         ByteBuffer message = receivedMessage.duplicate();
@@ -85,16 +89,17 @@ public class KdcHandler {
                 == KrbMessageType.AS_REQ) {
             KdcReq kdcReq = (KdcReq) krbRequest;
             String realm = getRequestRealm(kdcReq);
-            if (realm == null || !kdcContext.getKdcRealm().equals(realm)) {
+            realmContext = kdcContext.getRealmContext(realm);
+            if (realmContext == null) {
                 LOG.error("Invalid realm from kdc request: " + realm);
                 throw new KrbException(KrbErrorCode.WRONG_REALM,
                     "Invalid realm from kdc request: " + realm);
             }
 
             if (messageType == KrbMessageType.TGS_REQ) {
-                kdcRequest = new TgsRequest((TgsReq) kdcReq, kdcContext);
+                kdcRequest = new TgsRequest((TgsReq) kdcReq, realmContext);
             } else if (messageType == KrbMessageType.AS_REQ) {
-                kdcRequest = new AsRequest((AsReq) kdcReq, kdcContext);
+                kdcRequest = new AsRequest((AsReq) kdcReq, realmContext);
             } else {
                 LOG.error("Invalid message type: " + messageType);
                 throw new KrbException(KrbErrorCode.KRB_AP_ERR_MSG_TYPE);
@@ -112,13 +117,16 @@ public class KdcHandler {
         kdcRequest.setClientAddress(remoteAddress);
         kdcRequest.isTcp(isTcp);
 
+        long startTime = System.nanoTime();
+        boolean isError = false;
         try {
             kdcRequest.process();
             krbResponse = kdcRequest.getReply();
         } catch (Throwable e) {
+            isError = true;
             if (e instanceof KdcRecoverableException) {
                 krbResponse = handleRecoverableException(
-                        (KdcRecoverableException) e, kdcRequest);
+                        (KdcRecoverableException) e, kdcRequest, realmContext);
             } else {
                 KrbError krbError = new KrbError();
                 krbError.setStime(KerberosTime.now());
@@ -129,11 +137,11 @@ public class KdcHandler {
                     errorCode = ((KrbException) e).getKrbErrorCode();
                 }
                 krbError.setErrorCode(errorCode);
-                krbError.setCrealm(kdcContext.getKdcRealm());
+                krbError.setCrealm(realmContext.getKdcRealm());
                 if (kdcRequest.getClientPrincipal() != null) {
                     krbError.setCname(kdcRequest.getClientPrincipal());
                 }
-                krbError.setRealm(kdcContext.getKdcRealm());
+                krbError.setRealm(realmContext.getKdcRealm());
                 if (kdcRequest.getServerPrincipal() != null) {
                     krbError.setSname(kdcRequest.getServerPrincipal());
                 } else {
@@ -149,7 +157,36 @@ public class KdcHandler {
                 krbResponse = krbError;
             }
         }
+        realmContext.getMetrics().recordRequest(messageType == KrbMessageType.AS_REQ,
+            isError, System.nanoTime() - startTime);
 
+        return encodeResponse(krbResponse, isTcp);
+    }
+
+    /**
+     * Make the error response for a request that is rejected without being
+     * processed, like when the KDC is overloaded.
+     *
+     * @throws org.apache.kerby.kerberos.kerb.KrbException e
+     * @param errorCode The error code to reply
+     * @param isTcp whether the protocol is tcp
+     * @return The response message
+     */
+    public ByteBuffer handleRejectedMessage(KrbErrorCode errorCode,
+                                            boolean isTcp) throws KrbException {
+        KrbError krbError = new KrbError();
+        krbError.setStime(KerberosTime.now());
+        krbError.setSusec(100);
+        krbError.setErrorCode(errorCode);
+        krbError.setRealm(kdcContext.getKdcRealm());
+        krbError.setSname(KrbUtil.makeTgsPrincipal(kdcContext.getKdcRealm()));
+        krbError.setEtext(errorCode.getMessage());
+
+        return encodeResponse(krbError, isTcp);
+    }
+
+    private ByteBuffer encodeResponse(KrbMessage krbResponse,
+                                      boolean isTcp) throws KrbException {
         int bodyLen = krbResponse.encodingLength();
         ByteBuffer responseMessage;
         if (isTcp) {
@@ -169,10 +206,12 @@ public class KdcHandler {
      *
      * @param e The exception return by kdc
      * @param kdcRequest kdc request
+     * @param realmContext The context of the request realm
      * @return The KrbError
      */
     private KrbMessage handleRecoverableException(KdcRecoverableException e,
-                                                  KdcRequest kdcRequest)
+                                                  KdcRequest kdcRequest,
+                                                  KdcContext realmContext)
             throws KrbException {
         LOG.info("KRB error occurred while processing request: "
                 + e.getMessage());
@@ -181,7 +220,7 @@ public class KdcHandler {
         error.setStime(KerberosTime.now());
         error.setSusec(100);
         error.setErrorCode(e.getKrbError().getErrorCode());
-        error.setRealm(kdcContext.getKdcRealm());
+        error.setRealm(realmContext.getKdcRealm());
         if (kdcRequest != null) {
             error.setSname(kdcRequest.getKdcReq().getReqBody().getCname());
         } else {
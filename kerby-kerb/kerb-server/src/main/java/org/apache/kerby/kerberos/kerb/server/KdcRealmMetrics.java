@@ -0,0 +1,78 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request metrics of a realm served by the KDC.
+ */
+public class KdcRealmMetrics {
+    private final AtomicLong asRequests = new AtomicLong();
+    private final AtomicLong tgsRequests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalProcessingTime = new AtomicLong();
+
+    /**
+     * Record a processed request.
+     * @param isAsRequest Whether an AS-REQ, else a TGS-REQ
+     * @param isError Whether replied with an error
+     * @param processingTime The processing time in nanoseconds
+     */
+    public void recordRequest(boolean isAsRequest, boolean isError, long processingTime) {
+        if (isAsRequest) {
+            asRequests.incrementAndGet();
+        } else {
+            tgsRequests.incrementAndGet();
+        }
+        if (isError) {
+            errors.incrementAndGet();
+        }
+        totalProcessingTime.addAndGet(processingTime);
+    }
+
+    /**
+     * @return the number of AS-REQs processed
+     */
+    public long getAsRequestCount() {
+        return asRequests.get();
+    }
+
+    /**
+     * @return the number of TGS-REQs processed
+     */
+    public long getTgsRequestCount() {
+        return tgsRequests.get();
+    }
+
+    /**
+     * @return the number of requests replied with an error
+     */
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    /**
+     * @return the time spent processing requests, in nanoseconds
+     */
+    public long getTotalProcessingTime() {
+        return totalProcessingTime.get();
+    }
+}
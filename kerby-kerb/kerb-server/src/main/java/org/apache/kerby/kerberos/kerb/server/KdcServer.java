@@ -229,6 +229,30 @@ public class KdcServer {
         return backendConfig;
     }
 
+    /**
+     * Serve another realm from this KDC, with its own identity backend,
+     * config and caches, sharing the network and the workers. The network
+     * and worker settings are taken from the KDC config. To be called
+     * before init.
+     * @param realmConfig The kdc config of the realm
+     * @param realmBackendConfig The backend config of the realm
+     */
+    public void addRealm(KdcConfig realmConfig, BackendConfig realmBackendConfig) {
+        kdcSetting.addRealmSetting(new KdcSetting(realmConfig, realmBackendConfig));
+    }
+
+    /**
+     * Get the identity service of a realm served by this KDC.
+     * @param realm The realm
+     * @return IdentityService, null if the realm isn't served
+     */
+    public IdentityBackend getIdentityService(String realm) {
+        if (innerKdc == null) {
+            throw new RuntimeException("Not init yet");
+        }
+        return innerKdc.getIdentityBackend(realm);
+    }
+
     /**
      * Get identity service.
      * @return IdentityService
@@ -23,6 +23,10 @@ import org.apache.kerby.KOptions;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * KDC setting that combines startup options and kdc config.
  */
@@ -30,6 +34,7 @@ public class KdcSetting implements ServerSetting {
     private final KOptions startupOptions;
     private final KdcConfig kdcConfig;
     private final BackendConfig backendConfig;
+    private final List<KdcSetting> realmSettings = new ArrayList<>();
 
     /**
      * KdcSetting constructor
@@ -48,6 +53,24 @@ public class KdcSetting implements ServerSetting {
         this(new KOptions(), kdcConfig, backendConfig);
     }
 
+    /**
+     * Add another realm to serve along with the KDC realm, on the same
+     * network and workers.
+     * @param realmSetting The setting of the realm, with its own kdc and
+     *                     backend configs
+     */
+    public void addRealmSetting(KdcSetting realmSetting) {
+        realmSettings.add(realmSetting);
+    }
+
+    /**
+     * Get the settings of the other realms served along with the KDC realm.
+     * @return the realm settings
+     */
+    public List<KdcSetting> getRealmSettings() {
+        return Collections.unmodifiableList(realmSettings);
+    }
+
     /**
      * Get the KDC config.
      * @return kdc configuration
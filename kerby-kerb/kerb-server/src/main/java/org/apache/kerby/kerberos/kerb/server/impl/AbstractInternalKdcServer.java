@@ -20,12 +20,22 @@
 package org.apache.kerby.kerberos.kerb.server.impl;
 
 import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.identity.CacheableIdentityService;
+import org.apache.kerby.kerberos.kerb.identity.IdentityCacheConfKey;
 import org.apache.kerby.kerberos.kerb.identity.IdentityService;
 import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
 import org.apache.kerby.kerberos.kerb.identity.backend.IdentityBackend;
+import org.apache.kerby.kerberos.kerb.identity.backend.MemoryIdentityBackend;
 import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.KdcSetting;
 import org.apache.kerby.kerberos.kerb.server.KdcUtil;
+import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
+import org.apache.kerby.kerberos.kerb.server.replay.ReplayCheckServiceImpl;
+import org.apache.kerby.kerberos.kerb.server.replay.TimeWindowCacheService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Abstract KDC server implementation.
@@ -36,6 +46,8 @@ public class AbstractInternalKdcServer implements InternalKdcServer {
     private final BackendConfig backendConfig;
     private final KdcSetting kdcSetting;
     private IdentityBackend backend;
+    private IdentityService identityService;
+    private final Map<String, IdentityBackend> realmBackends = new LinkedHashMap<>();
 
     public AbstractInternalKdcServer(KdcSetting kdcSetting) {
         this.kdcSetting = kdcSetting;
@@ -57,12 +69,68 @@ public class AbstractInternalKdcServer implements InternalKdcServer {
     }
 
     protected IdentityService getIdentityService() {
-        return backend;
+        if (identityService == null) {
+            identityService = createIdentityService(backendConfig, backend);
+        }
+        return identityService;
+    }
+
+    private static IdentityService createIdentityService(BackendConfig backendConfig,
+                                                         IdentityBackend backend) {
+        if (backend instanceof MemoryIdentityBackend // Already in memory
+            || !backendConfig.getBoolean(IdentityCacheConfKey.IDENTITY_CACHE_ENABLED, true)) {
+            return backend;
+        }
+        return new CacheableIdentityService(backendConfig, backend);
     }
 
     @Override
     public void init() throws KrbException {
         backend = KdcUtil.getBackend(backendConfig);
+
+        for (KdcSetting realmSetting : kdcSetting.getRealmSettings()) {
+            realmBackends.put(realmSetting.getKdcRealm(),
+                KdcUtil.getBackend(realmSetting.getBackendConfig()));
+        }
+    }
+
+    /**
+     * Make the context to process requests with, along with the contexts of
+     * the other realms served, each with its own identity service, preauth
+     * and replay cache.
+     * @return the context of the KDC realm
+     */
+    protected KdcContext prepareKdcContext() {
+        KdcContext kdcContext = makeKdcContext(kdcSetting, getIdentityService());
+        for (KdcSetting realmSetting : kdcSetting.getRealmSettings()) {
+            IdentityService realmIdentityService = createIdentityService(
+                realmSetting.getBackendConfig(), realmBackends.get(realmSetting.getKdcRealm()));
+            kdcContext.addRealmContext(makeKdcContext(realmSetting, realmIdentityService));
+        }
+        return kdcContext;
+    }
+
+    private static KdcContext makeKdcContext(KdcSetting setting, IdentityService identityService) {
+        KdcContext kdcContext = new KdcContext(setting);
+        kdcContext.setIdentityService(identityService);
+        PreauthHandler preauthHandler = new PreauthHandler();
+        preauthHandler.init();
+        kdcContext.setPreauthHandler(preauthHandler);
+        kdcContext.setReplayCache(new ReplayCheckServiceImpl(
+            new TimeWindowCacheService(setting.getKdcConfig())));
+        preauthHandler.initWith(kdcContext);
+        return kdcContext;
+    }
+
+    /**
+     * Release the preauth plugins of the KDC realm and the other realms.
+     * @param kdcContext The context of the KDC realm
+     */
+    protected void destroyKdcContext(KdcContext kdcContext) {
+        kdcContext.getPreauthHandler().destroy();
+        for (KdcContext realmContext : kdcContext.getRealmContexts()) {
+            realmContext.getPreauthHandler().destroy();
+        }
     }
 
     @Override
@@ -85,8 +153,19 @@ public class AbstractInternalKdcServer implements InternalKdcServer {
         return backend;
     }
 
+    @Override
+    public IdentityBackend getIdentityBackend(String realm) {
+        if (kdcSetting.getKdcRealm().equals(realm)) {
+            return backend;
+        }
+        return realmBackends.get(realm);
+    }
+
     protected void doStart() throws Exception {
         backend.start();
+        for (IdentityBackend realmBackend : realmBackends.values()) {
+            realmBackend.start();
+        }
     }
 
     public void stop() throws KrbException {
@@ -101,5 +180,8 @@ public class AbstractInternalKdcServer implements InternalKdcServer {
 
     protected void doStop() throws Exception {
         backend.stop();
+        for (IdentityBackend realmBackend : realmBackends.values()) {
+            realmBackend.stop();
+        }
     }
 }
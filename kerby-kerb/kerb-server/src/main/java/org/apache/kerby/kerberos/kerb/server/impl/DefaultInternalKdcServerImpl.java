@@ -19,28 +19,29 @@
  */
 package org.apache.kerby.kerberos.kerb.server.impl;
 
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
 import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.KdcSetting;
 import org.apache.kerby.kerberos.kerb.server.KdcUtil;
-import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
-import org.apache.kerby.kerberos.kerb.transport.KdcNetwork;
+import org.apache.kerby.kerberos.kerb.transport.ByteBufferPool;
+import org.apache.kerby.kerberos.kerb.transport.KdcNioNetwork;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.apache.kerby.kerberos.kerb.transport.TransportPair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 /**
  * A default KDC server implementation.
  */
 public class DefaultInternalKdcServerImpl extends AbstractInternalKdcServer {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultInternalKdcServerImpl.class);
-    private ExecutorService executor;
+    private KdcRequestScheduler scheduler;
     private KdcContext kdcContext;
-    private KdcNetwork network;
+    private KdcNioNetwork network;
 
     public DefaultInternalKdcServerImpl(KdcSetting kdcSetting) {
         super(kdcSetting);
@@ -50,17 +51,40 @@ public class DefaultInternalKdcServerImpl extends AbstractInternalKdcServer {
     protected void doStart() throws Exception {
         super.doStart();
 
-        prepareHandler();
+        kdcContext = prepareKdcContext();
 
-        executor = Executors.newCachedThreadPool();
+        scheduler = new KdcRequestScheduler(getSetting().getKdcConfig());
+        scheduler.start();
 
-        network = new KdcNetwork() {
+        KdcConfig kdcConfig = getSetting().getKdcConfig();
+        network = new KdcNioNetwork(kdcConfig.getKdcIoThreads()) {
             @Override
-            protected void onNewTransport(KrbTransport transport) {
+            protected void onRecvMessage(KrbTransport transport, ByteBuffer message) {
                 DefaultKdcHandler kdcHandler = new DefaultKdcHandler(kdcContext, transport);
-                executor.execute(kdcHandler);
+                if (!transport.isTcp()) {
+                    process(kdcHandler, message, null);
+                    return;
+                }
+
+                // Called by the event loop of the connection only
+                PipelinedRequests requests = (PipelinedRequests) transport.getAttachment();
+                if (requests == null) {
+                    requests = new PipelinedRequests();
+                    transport.setAttachment(requests);
+                }
+                int queued = requests.add(kdcHandler, message);
+                if (queued < 0) {
+                    LOG.warn("Too many pipelined requests from " + transport.getRemoteAddress()
+                        + ", closing the connection.");
+                    releaseMessage(message);
+                    transport.release();
+                } else if (queued == 0) {
+                    process(kdcHandler, message, requests);
+                }
             }
         };
+        network.setMaxMessageSize(kdcConfig.getKdcMaxMessageSize());
+        network.setBufferPool(new ByteBufferPool(kdcConfig.isKdcDirectBuffers()));
 
         network.init();
         TransportPair tpair = KdcUtil.getTransportPair(getSetting());
@@ -68,12 +92,72 @@ public class DefaultInternalKdcServerImpl extends AbstractInternalKdcServer {
         network.start();
     }
 
-    private void prepareHandler() {
-        kdcContext = new KdcContext(getSetting());
-        kdcContext.setIdentityService(getIdentityService());
-        PreauthHandler preauthHandler = new PreauthHandler();
-        preauthHandler.init();
-        kdcContext.setPreauthHandler(preauthHandler);
+    /**
+     * Process a request with the scheduler. The requests of a TCP connection
+     * are processed one after the other, so that a client pipelining
+     * requests gets the responses in the order of its requests: a KDC
+     * message carries nothing in clear to match a response to its request.
+     */
+    private void process(final DefaultKdcHandler kdcHandler, final ByteBuffer message,
+                         final PipelinedRequests requests) {
+        boolean accepted = scheduler.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    kdcHandler.handleMessage(message);
+                } finally {
+                    // Whatever happened, the requests queued after it go on
+                    network.releaseMessage(message);
+                    processNext(requests);
+                }
+            }
+        });
+        if (!accepted) {
+            try {
+                network.releaseMessage(message);
+                kdcHandler.handleRejectedMessage();
+            } finally {
+                processNext(requests);
+            }
+        }
+    }
+
+    private void processNext(PipelinedRequests requests) {
+        if (requests != null) {
+            PipelinedRequest next = requests.next();
+            if (next != null) {
+                process(next.kdcHandler, next.message, requests);
+            }
+        }
+    }
+
+    /**
+     * Get the scheduler processing requests, to inspect its queue depth
+     * and rejection metrics.
+     * @return the request scheduler, null if not started
+     */
+    public KdcRequestScheduler getRequestScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Get the context of the KDC realm, and through it the ones of the
+     * other realms served, to inspect their metrics.
+     * @return the KDC context, null if not started
+     */
+    public KdcContext getKdcContext() {
+        return kdcContext;
+    }
+
+    /**
+     * Get the pool of request buffers, to inspect its statistics.
+     * @return the buffer pool, null if not started
+     */
+    public ByteBufferPool getBufferPool() {
+        if (network == null) {
+            return null;
+        }
+        return network.getBufferPool();
     }
 
     @Override
@@ -84,21 +168,62 @@ public class DefaultInternalKdcServerImpl extends AbstractInternalKdcServer {
             network.stop();
         }
 
-        if (executor != null) {
-            executor.shutdown();
+        if (scheduler != null) {
+            scheduler.stop();
+        }
 
-            try {
-                boolean terminated = false;
-                do {
-                    // wait until the pool has terminated
-                    terminated = executor.awaitTermination(60, TimeUnit.SECONDS);
-                } while (!terminated);
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                LOG.warn("waitForTermination interrupted");
-            }
+        if (kdcContext != null) {
+            destroyKdcContext(kdcContext);
         }
 
         LOG.info("Default Internal kdc server stopped.");
     }
+
+    /**
+     * The requests received on a TCP connection, waiting for the one being
+     * processed.
+     */
+    private static final class PipelinedRequests {
+        private static final int MAX_PIPELINED_REQUESTS = 64;
+
+        private final Queue<PipelinedRequest> pending = new ArrayDeque<>();
+        private boolean processing;
+
+        /**
+         * @return 0 if the request is to be processed now, the number of
+         * requests before it if queued, or -1 if there are too many.
+         */
+        synchronized int add(DefaultKdcHandler kdcHandler, ByteBuffer message) {
+            if (!processing) {
+                processing = true;
+                return 0;
+            }
+            if (pending.size() >= MAX_PIPELINED_REQUESTS) {
+                return -1;
+            }
+            pending.add(new PipelinedRequest(kdcHandler, message));
+            return pending.size();
+        }
+
+        /**
+         * @return the request to process next, null if none
+         */
+        synchronized PipelinedRequest next() {
+            PipelinedRequest next = pending.poll();
+            if (next == null) {
+                processing = false;
+            }
+            return next;
+        }
+    }
+
+    private static final class PipelinedRequest {
+        private final DefaultKdcHandler kdcHandler;
+        private final ByteBuffer message;
+
+        PipelinedRequest(DefaultKdcHandler kdcHandler, ByteBuffer message) {
+            this.kdcHandler = kdcHandler;
+            this.message = message;
+        }
+    }
 }
@@ -19,9 +19,9 @@
  */
 package org.apache.kerby.kerberos.kerb.server.impl;
 
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.KdcHandler;
-import org.apache.kerby.kerberos.kerb.transport.KrbTcpTransport;
 import org.apache.kerby.kerberos.kerb.transport.KrbTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,9 +59,24 @@ public class DefaultKdcHandler extends KdcHandler implements Runnable {
         }
     }
 
+    /**
+     * Reply KDC_ERR_SVC_UNAVAILABLE to a request that can't be processed
+     * because the KDC is overloaded.
+     */
+    protected void handleRejectedMessage() {
+        try {
+            ByteBuffer krbResponse = handleRejectedMessage(
+                KrbErrorCode.KDC_ERR_SVC_UNAVAILABLE, transport.isTcp());
+            transport.sendMessage(krbResponse);
+        } catch (Exception e) {
+            transport.release();
+            logger.error("Error occured while rejecting request:", e);
+        }
+    }
+
     protected void handleMessage(ByteBuffer message) {
         InetAddress clientAddress = transport.getRemoteAddress();
-        boolean isTcp = transport instanceof KrbTcpTransport;
+        boolean isTcp = transport.isTcp();
 
         try {
             ByteBuffer krbResponse = handleMessage(message, isTcp, clientAddress);
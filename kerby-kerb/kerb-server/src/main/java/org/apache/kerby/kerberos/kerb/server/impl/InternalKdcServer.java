@@ -57,4 +57,13 @@ public interface InternalKdcServer {
      * @return IdentityBackend
      */
     IdentityBackend getIdentityBackend();
+
+    /**
+     * Get the identity backend of a realm served by the KDC.
+     * @param realm The realm
+     * @return IdentityBackend, null if the realm isn't served
+     */
+    default IdentityBackend getIdentityBackend(String realm) {
+        return getSetting().getKdcRealm().equals(realm) ? getIdentityBackend() : null;
+    }
 }
@@ -0,0 +1,211 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server.impl;
+
+import org.apache.kerby.kerberos.kerb.KrbException;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules KDC requests on a bounded set of workers. A request that can't
+ * be queued is rejected instead of waiting forever, so the caller can shed
+ * the load by replying KDC_ERR_SVC_UNAVAILABLE.
+ *
+ * Workers are platform threads from a bounded pool by default, or virtual
+ * threads on JDK 21+ where the number of requests in flight is bounded.
+ */
+public class KdcRequestScheduler {
+    private static final Logger LOG = LoggerFactory.getLogger(KdcRequestScheduler.class);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final int coreThreads;
+    private final int maxThreads;
+    private final int queueSize;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    public KdcRequestScheduler(KdcConfig kdcConfig) {
+        this(kdcConfig.getKdcWorkerCoreThreads(), kdcConfig.getKdcWorkerMaxThreads(),
+            kdcConfig.getKdcWorkerQueueSize(), kdcConfig.isKdcWorkerVirtualThreads());
+    }
+
+    /**
+     * @param coreThreads The number of workers to keep
+     * @param maxThreads The maximum number of workers
+     * @param queueSize The number of requests allowed to wait for a worker
+     * @param virtualThreads Whether to process requests with virtual threads
+     */
+    public KdcRequestScheduler(int coreThreads, int maxThreads,
+                               int queueSize, boolean virtualThreads) {
+        this.coreThreads = Math.max(1, coreThreads);
+        this.maxThreads = Math.max(this.coreThreads, maxThreads);
+        this.queueSize = Math.max(1, queueSize);
+        this.virtualThreads = virtualThreads;
+    }
+
+    public synchronized void start() throws KrbException {
+        if (virtualThreads) {
+            executor = newVirtualThreadExecutor();
+            permits = new Semaphore(maxThreads + queueSize);
+            LOG.info("KDC requests are processed with virtual threads, at most "
+                + (maxThreads + queueSize) + " in flight");
+        } else {
+            executor = new ThreadPoolExecutor(coreThreads, maxThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new WorkerThreadFactory());
+        }
+    }
+
+    /**
+     * Schedule a request task.
+     * @param task The task processing a request
+     * @return false if the task was rejected because the KDC is overloaded
+     */
+    public boolean submit(final Runnable task) {
+        if (permits != null && !permits.tryAcquire()) {
+            onRejected();
+            return false;
+        }
+
+        queued.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        active.decrementAndGet();
+                        completed.incrementAndGet();
+                        if (permits != null) {
+                            permits.release();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+            onRejected();
+            return false;
+        }
+
+        return true;
+    }
+
+    private void onRejected() {
+        long count = rejected.incrementAndGet();
+        LOG.debug("KDC overloaded, rejected the request. Total rejected: " + count);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            boolean terminated = false;
+            do {
+                // wait until the pool has terminated
+                terminated = executor.awaitTermination(60, TimeUnit.SECONDS);
+            } while (!terminated);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            LOG.warn("waitForTermination interrupted");
+        }
+        executor = null;
+    }
+
+    /**
+     * @return the number of requests waiting for a worker
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return the number of requests being processed
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * @return the number of requests processed
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return the number of requests rejected because of overload
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() throws KrbException {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new KrbException("Virtual threads require JDK 21 or later", e);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "kdc-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -74,7 +74,6 @@ public class PreauthHandler {
         PreauthContext preauthContext = new PreauthContext();
 
         KdcContext kdcContext = kdcRequest.getKdcContext();
-        initWith(kdcContext);
         preauthContext.setPreauthRequired(kdcContext.getConfig().isPreauthRequired());
 
         for (KdcPreauth preauth : preauths) {
@@ -18,6 +18,8 @@
  */
 package org.apache.kerby.kerberos.kerb.server.preauth.pkinit;
 
+import org.apache.kerby.cms.type.CertificateSet;
+import org.apache.kerby.kerberos.kerb.preauth.pkinit.CertificateChainCache;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.IdentityOpts;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PkinitPlgCryptoContext;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PluginOpts;
@@ -28,4 +30,8 @@ public class PkinitKdcContext {
     public PluginOpts pluginOpts = new PluginOpts();
     public IdentityOpts identityOpts = new IdentityOpts();
     public String realm;
+    /** The KDC certificates, sent in every reply */
+    public CertificateSet certificateSet;
+    /** The validated client chains, null if no anchors are configured */
+    public CertificateChainCache chainCache;
 }
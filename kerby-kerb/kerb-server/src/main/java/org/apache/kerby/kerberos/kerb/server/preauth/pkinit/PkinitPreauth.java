@@ -23,6 +23,7 @@ import org.apache.kerby.asn1.Asn1;
 import org.apache.kerby.asn1.parse.Asn1Container;
 import org.apache.kerby.asn1.parse.Asn1ParseResult;
 import org.apache.kerby.asn1.type.Asn1Integer;
+import org.apache.kerby.asn1.type.Asn1ObjectIdentifier;
 import org.apache.kerby.cms.type.CertificateChoices;
 import org.apache.kerby.cms.type.CertificateSet;
 import org.apache.kerby.cms.type.ContentInfo;
@@ -33,13 +34,17 @@ import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
 import org.apache.kerby.kerberos.kerb.common.CheckSumUtil;
 import org.apache.kerby.kerberos.kerb.common.KrbUtil;
+import org.apache.kerby.kerberos.kerb.crypto.dh.DhKeyPairPool;
 import org.apache.kerby.kerberos.kerb.crypto.dh.DiffieHellmanServer;
+import org.apache.kerby.kerberos.kerb.crypto.dh.EcGroup;
 import org.apache.kerby.kerberos.kerb.preauth.PluginRequestContext;
+import org.apache.kerby.kerberos.kerb.preauth.pkinit.CertificateChainCache;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.CertificateHelper;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.CmsMessageType;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PkinitCrypto;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PkinitPlgCryptoContext;
 import org.apache.kerby.kerberos.kerb.preauth.pkinit.PkinitPreauthMeta;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
 import org.apache.kerby.kerberos.kerb.server.KdcContext;
 import org.apache.kerby.kerberos.kerb.server.preauth.AbstractPreauthPlugin;
 import org.apache.kerby.kerberos.kerb.server.request.KdcRequest;
@@ -67,7 +72,11 @@ import javax.crypto.interfaces.DHPublicKey;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -75,6 +84,8 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
 
     private static final Logger LOG = LoggerFactory.getLogger(PkinitPreauth.class);
     private final Map<String, PkinitKdcContext> pkinitContexts;
+    private volatile DhKeyPairPool keyPairPool;
+    private boolean destroyed;
 
     public PkinitPreauth() {
         super(new PkinitPreauthMeta());
@@ -87,13 +98,55 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
         super.initWith(kdcContext);
 
         String pkinitIdentity = kdcContext.getConfig().getPkinitIdentity();
-        if (pkinitIdentity != null) {
-            PkinitKdcContext tmp = new PkinitKdcContext();
-            tmp.realm = kdcContext.getKdcRealm();
+        String realm = kdcContext.getKdcRealm();
+        if (pkinitIdentity != null && !pkinitContexts.containsKey(realm)) {
+            pkinitContexts.put(realm, makeContext(realm, pkinitIdentity, kdcContext.getConfig()));
 
-            tmp.identityOpts.setIdentity(pkinitIdentity);
+            startKeyPairPool(kdcContext.getConfig());
+        }
+    }
+
+    /**
+     * Start the pool of DH key pairs once, never again after being destroyed.
+     */
+    private synchronized void startKeyPairPool(KdcConfig kdcConfig) {
+        if (kdcConfig.getPkinitDhPoolSize() > 0 && keyPairPool == null && !destroyed) {
+            keyPairPool = new DhKeyPairPool(kdcConfig.getPkinitDhPoolSize(),
+                kdcConfig.getPkinitDhKeyMaxUses());
+            keyPairPool.start();
+        }
+    }
+
+    private PkinitKdcContext makeContext(String realm, String pkinitIdentity, KdcConfig config) {
+        PkinitKdcContext tmp = new PkinitKdcContext();
+        tmp.realm = realm;
 
-            pkinitContexts.put(kdcContext.getKdcRealm(), tmp);
+        tmp.identityOpts.setIdentity(pkinitIdentity);
+        tmp.certificateSet = loadCertificateSet(pkinitIdentity);
+
+        List<X509Certificate> anchors = loadAnchors(config);
+        if (!anchors.isEmpty()) {
+            tmp.chainCache = new CertificateChainCache(anchors);
+        }
+        return tmp;
+    }
+
+    /**
+     * @return the pool of pre-generated DH key pairs, null if not pooling
+     */
+    public DhKeyPairPool getKeyPairPool() {
+        return keyPairPool;
+    }
+
+    /**
+     * Stop the refilling of the pool. The key pairs left are still used,
+     * then new ones are made per request.
+     */
+    @Override
+    public synchronized void destroy() {
+        destroyed = true;
+        if (keyPairPool != null) {
+            keyPairPool.stop();
         }
     }
 
@@ -152,8 +205,10 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
 
                 boolean isSigned = signedData.isSigned();
                 if (isSigned) {
-                    //TODO
                     LOG.info("Signed data.");
+                    if (pkinitContext.chainCache != null) {
+                        validateClientChain(pkinitContext.chainCache, signedData);
+                    }
                 } else {
                     PrincipalName clientPrincial = kdcRequest.getClientEntry().getPrincipal();
                     PrincipalName anonymousPrincipal = KrbUtil.makeAnonymousPrincipal();
@@ -219,23 +274,27 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
 
             SubjectPublicKeyInfo publicKeyInfo = authPack.getClientPublicValue();
 
-            DhParameter dhParameter;
             if (publicKeyInfo.getSubjectPubKey() != null) {
-                dhParameter = authPack.getClientPublicValue().getAlgorithm().getParametersAs(DhParameter.class);
-                PkinitCrypto.serverCheckDH(pkinitContext.pluginOpts, pkinitContext.cryptoctx, dhParameter);
-
                 byte[] clientSubjectPubKey = publicKeyInfo.getSubjectPubKey().getValue();
-                Asn1Integer clientPubKey = KrbCodec.decode(clientSubjectPubKey, Asn1Integer.class);
-                BigInteger y = clientPubKey.getValue();
-                BigInteger p = dhParameter.getP();
-                BigInteger g = dhParameter.getG();
+                PublicKey clientPubKey;
+                if (EcGroup.EC_PUBLIC_KEY_OID.equals(publicKeyInfo.getAlgorithm().getAlgorithm())) {
+                    clientPubKey = createEcPublicKey(publicKeyInfo, clientSubjectPubKey);
+                } else {
+                    DhParameter dhParameter = publicKeyInfo.getAlgorithm().getParametersAs(DhParameter.class);
+                    PkinitCrypto.serverCheckDH(pkinitContext.pluginOpts, pkinitContext.cryptoctx, dhParameter);
 
-                DHPublicKey dhPublicKey = PkinitCrypto.createDHPublicKey(p, g, y);
+                    Asn1Integer clientPubValue = KrbCodec.decode(clientSubjectPubKey, Asn1Integer.class);
+                    BigInteger y = clientPubValue.getValue();
+                    BigInteger p = dhParameter.getP();
+                    BigInteger g = dhParameter.getG();
+
+                    clientPubKey = PkinitCrypto.createDHPublicKey(p, g, y);
+                }
 
-                DiffieHellmanServer server = new DiffieHellmanServer();
-                DHPublicKey serverPubKey = null;
+                DiffieHellmanServer server = new DiffieHellmanServer(keyPairPool);
+                PublicKey serverPubKey = null;
                 try {
-                    serverPubKey = (DHPublicKey) server.initAndDoPhase(dhPublicKey.getEncoded());
+                    serverPubKey = server.initAndDoPhase(clientPubKey);
                 } catch (Exception e) {
                     LOG.error("Fail to create server public key.", e);
                 }
@@ -244,9 +303,7 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
                 // Set the DH shared key as the client key
                 kdcRequest.setClientKey(secretKey);
 
-                String identity = pkinitContext.identityOpts.getIdentity();
-
-                PaPkAsRep paPkAsRep = makePaPkAsRep(serverPubKey, identity);
+                PaPkAsRep paPkAsRep = makePaPkAsRep(serverPubKey, pkinitContext.certificateSet);
                 PaDataEntry paDataEntry = makeEntry(paPkAsRep);
 
                 kdcRequest.getPreauthContext().getOutputPaData().add(paDataEntry);
@@ -266,6 +323,89 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
         return true;
     }
 
+    /**
+     * Create the client ECDH public key, Ref. RFC 5349.
+     */
+    private PublicKey createEcPublicKey(SubjectPublicKeyInfo publicKeyInfo,
+                                        byte[] clientSubjectPubKey) throws KrbException {
+        Asn1ObjectIdentifier namedCurve = publicKeyInfo.getAlgorithm()
+            .getParametersAs(Asn1ObjectIdentifier.class);
+        ECParameterSpec curve = namedCurve != null ? EcGroup.fromOid(namedCurve.getValue()) : null;
+        if (curve == null) {
+            throw new KrbException(KrbErrorCode.KDC_ERR_DH_KEY_PARAMETERS_NOT_ACCEPTED,
+                "Unsupported elliptic curve");
+        }
+
+        try {
+            return EcGroup.decodePoint(clientSubjectPubKey, curve);
+        } catch (GeneralSecurityException e) {
+            throw new KrbException(KrbErrorCode.KDC_ERR_PREAUTH_FAILED,
+                "Invalid client ECDH public key: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Validate the client certificate chain against the anchors.
+     */
+    private void validateClientChain(CertificateChainCache chainCache,
+                                     SignedData signedData) throws KrbException {
+        CertificateSet certificateSet = signedData.getCertificates();
+        if (certificateSet == null || certificateSet.getElements().isEmpty()) {
+            throw new KrbException(KrbErrorCode.KDC_ERR_INVALID_CERTIFICATE, "No client certificates");
+        }
+
+        List<Certificate> certificates = new ArrayList<>();
+        for (CertificateChoices certificateChoices : certificateSet.getElements()) {
+            certificates.add(certificateChoices.getCertificate());
+        }
+
+        try {
+            chainCache.validateChain(certificates);
+        } catch (Exception e) {
+            LOG.error("Client certificate chain validation failed. " + e);
+            throw new KrbException(KrbErrorCode.KDC_ERR_INVALID_CERTIFICATE, e);
+        }
+    }
+
+    /**
+     * Load the KDC certificates once, they are sent in every reply.
+     */
+    private CertificateSet loadCertificateSet(String identityString) {
+        CertificateSet certificateSet = new CertificateSet();
+        for (String identity : identityString.split(",")) {
+            try {
+                List<java.security.cert.Certificate> loadedCerts = CertificateHelper.loadCerts(identity);
+                if (!loadedCerts.isEmpty()) {
+                    Certificate certificate = PkinitCrypto.changeToCertificate(
+                        (X509Certificate) loadedCerts.iterator().next());
+                    CertificateChoices certificateChoices = new CertificateChoices();
+                    certificateChoices.setCertificate(certificate);
+                    certificateSet.addElement(certificateChoices);
+                }
+            } catch (KrbException e) {
+                LOG.warn("Error loading X.509 Certificate", e);
+            }
+        }
+        return certificateSet;
+    }
+
+    private List<X509Certificate> loadAnchors(KdcConfig kdcConfig) {
+        List<X509Certificate> anchors = new ArrayList<>();
+        for (String anchorFile : kdcConfig.getPkinitAnchors()) {
+            if (anchorFile == null) {
+                continue;
+            }
+            try {
+                for (java.security.cert.Certificate certificate : CertificateHelper.loadCerts(anchorFile)) {
+                    anchors.add((X509Certificate) certificate);
+                }
+            } catch (KrbException e) {
+                LOG.warn("Error loading PKINIT anchors", e);
+            }
+        }
+        return anchors;
+    }
+
     private PkinitKdcContext findContext(PrincipalName principal) {
         String realm = principal.getRealm();
         return pkinitContexts.get(realm);
@@ -291,31 +431,20 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
         return paDataEntry;
     }
 
-    private PaPkAsRep makePaPkAsRep(DHPublicKey severPubKey, String identityString) throws KrbException {
-
-        List<X509Certificate> certificates = new ArrayList<>();
-        if (identityString != null) {
-            List<String> identityList = Arrays.asList(identityString.split(","));
-            for (String identity : identityList) {
-                try {
-                    List<java.security.cert.Certificate> loadedCerts = CertificateHelper.loadCerts(identity);
-                    if (!loadedCerts.isEmpty()) {
-                        certificates.add((X509Certificate) loadedCerts.iterator().next());
-                    }
-                } catch (KrbException e) {
-                    LOG.warn("Error loading X.509 Certificate", e);
-                }
-            }
-        } else {
-            LOG.warn("No PKINIT identity keys specified");
-        }
+    private PaPkAsRep makePaPkAsRep(PublicKey severPubKey, CertificateSet certificateSet) throws KrbException {
 
         PaPkAsRep paPkAsRep = new PaPkAsRep();
         DhRepInfo dhRepInfo = new DhRepInfo();
         KdcDhKeyInfo kdcDhKeyInfo = new KdcDhKeyInfo();
 
-        Asn1Integer publickey = new Asn1Integer(severPubKey.getY());
-        byte[] pubKeyData = KrbCodec.encode(publickey);
+        byte[] pubKeyData;
+        if (severPubKey instanceof ECPublicKey) {
+            // The ECPoint, Ref. RFC 5349
+            pubKeyData = EcGroup.encodePoint((ECPublicKey) severPubKey);
+        } else {
+            Asn1Integer publickey = new Asn1Integer(((DHPublicKey) severPubKey).getY());
+            pubKeyData = KrbCodec.encode(publickey);
+        }
         kdcDhKeyInfo.setSubjectPublicKey(pubKeyData);
         kdcDhKeyInfo.setNonce(0);
         kdcDhKeyInfo.setDHKeyExpiration(
@@ -323,14 +452,6 @@ public class PkinitPreauth extends AbstractPreauthPlugin {
 
         byte[] signedDataBytes = null;
 
-        CertificateSet certificateSet = new CertificateSet();
-        for (X509Certificate x509Certificate : certificates) {
-            Certificate certificate = PkinitCrypto.changeToCertificate(x509Certificate);
-            CertificateChoices certificateChoices = new CertificateChoices();
-            certificateChoices.setCertificate(certificate);
-            certificateSet.addElement(certificateChoices);
-        }
-
         String oid = PkinitPlgCryptoContext.getIdPkinitDHKeyDataOID();
         signedDataBytes = PkinitCrypto.cmsSignedDataCreate(KrbCodec.encode(kdcDhKeyInfo), oid, 3, null,
                                                            certificateSet, null, null);
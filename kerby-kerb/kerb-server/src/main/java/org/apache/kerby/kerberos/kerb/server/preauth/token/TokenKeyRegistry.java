@@ -0,0 +1,360 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server.preauth.token;
+
+import org.apache.kerby.kerberos.kerb.KrbRuntime;
+import org.apache.kerby.kerberos.kerb.common.PrivateKeyReader;
+import org.apache.kerby.kerberos.kerb.common.PublicKeyReader;
+import org.apache.kerby.kerberos.kerb.provider.TokenDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The token verify and decryption keys of every issuer, loaded once from
+ * the configured key paths instead of for every request. The key
+ * directories are watched, a change drops the loaded keys so the next
+ * request sees the new files.
+ *
+ * Decoders are given out per issuer and per thread, so the JWT verifier
+ * and decrypter built for the keys of an issuer are reused.
+ */
+public class TokenKeyRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(TokenKeyRegistry.class);
+
+    private final String verifyKeyPath;
+    private final String decryptionKeyPath;
+    private final Map<String, IssuerKeys> issuerKeys = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private WatchService watchService;
+    private Thread watcher;
+
+    private final AtomicLong keyLoads = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalVerifyTime = new AtomicLong();
+    private final AtomicLong maxVerifyTime = new AtomicLong();
+
+    /**
+     * @param verifyKeyPath The verify key file or directory, or null
+     * @param decryptionKeyPath The decryption key file or directory, or null
+     */
+    public TokenKeyRegistry(String verifyKeyPath, String decryptionKeyPath) {
+        this.verifyKeyPath = verifyKeyPath;
+        this.decryptionKeyPath = decryptionKeyPath;
+    }
+
+    public boolean isFor(String verifyKeyPath, String decryptionKeyPath) {
+        return Objects.equals(this.verifyKeyPath, verifyKeyPath)
+            && Objects.equals(this.decryptionKeyPath, decryptionKeyPath);
+    }
+
+    /**
+     * Start watching the key directories. Keys on the classpath aren't
+     * watched, they're loaded once.
+     */
+    public synchronized void start() {
+        Set<Path> dirs = new LinkedHashSet<>();
+        addWatchDir(dirs, verifyKeyPath);
+        addWatchDir(dirs, decryptionKeyPath);
+        if (dirs.isEmpty()) {
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path dir : dirs) {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to watch the token key paths, keys won't be refreshed. " + e);
+            stop();
+            return;
+        }
+
+        watcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "token-key-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close the watch service. " + e);
+            }
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    /**
+     * Get a decoder configured with the keys of an issuer, owned by the
+     * calling thread.
+     * @param issuer The token issuer
+     * @return the decoder
+     */
+    public TokenDecoder getDecoder(String issuer) {
+        return getKeys(issuer).decoders.get();
+    }
+
+    /**
+     * Drop all the loaded keys, they're loaded again when next used.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        issuerKeys.clear();
+    }
+
+    IssuerKeys getKeys(String issuer) {
+        long currentGeneration = generation.get();
+        IssuerKeys keys = issuerKeys.get(issuer);
+        if (keys == null || keys.generation != currentGeneration) {
+            keys = loadKeys(issuer, currentGeneration);
+            // Failures are retried by the next request, as without caching
+            if (keys.complete) {
+                issuerKeys.put(issuer, keys);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Record the time taken to decode and verify a token.
+     * @param nanos The elapsed time in nanoseconds
+     * @param success Whether the token was verified
+     */
+    public void recordVerification(long nanos, boolean success) {
+        if (success) {
+            verified.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        totalVerifyTime.addAndGet(nanos);
+
+        long max;
+        do {
+            max = maxVerifyTime.get();
+        } while (nanos > max && !maxVerifyTime.compareAndSet(max, nanos));
+    }
+
+    /**
+     * @return the number of times the keys of an issuer were read
+     */
+    public long getKeyLoadCount() {
+        return keyLoads.get();
+    }
+
+    /**
+     * @return the number of tokens verified
+     */
+    public long getVerifiedCount() {
+        return verified.get();
+    }
+
+    /**
+     * @return the number of tokens failing to decode or verify
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return the total time spent on decoding and verifying tokens, in nanoseconds
+     */
+    public long getTotalVerifyTime() {
+        return totalVerifyTime.get();
+    }
+
+    /**
+     * @return the longest time spent on a token, in nanoseconds
+     */
+    public long getMaxVerifyTime() {
+        return maxVerifyTime.get();
+    }
+
+    private IssuerKeys loadKeys(String issuer, long keysGeneration) {
+        keyLoads.incrementAndGet();
+        boolean complete = true;
+
+        PublicKey verifyKey = null;
+        if (verifyKeyPath != null) {
+            try (InputStream verifyKeyFile = getKeyFileStream(verifyKeyPath, issuer)) {
+                if (verifyKeyFile != null) {
+                    verifyKey = PublicKeyReader.loadPublicKey(verifyKeyFile);
+                }
+            } catch (FileNotFoundException e) {
+                LOG.error("The verify key path is wrong. " + e.getMessage());
+                complete = false;
+            } catch (Exception e) {
+                LOG.error("Failed to load public key. " + e.getMessage());
+                complete = false;
+            }
+        }
+
+        PrivateKey decryptionKey = null;
+        if (decryptionKeyPath != null) {
+            try (InputStream decryptionKeyFile = getKeyFileStream(decryptionKeyPath, issuer)) {
+                if (decryptionKeyFile != null) {
+                    decryptionKey = PrivateKeyReader.loadPrivateKey(decryptionKeyFile);
+                }
+            } catch (FileNotFoundException e) {
+                LOG.error("The decryption key path is wrong. " + e);
+                complete = false;
+            } catch (Exception e) {
+                LOG.error("Fail to load private key. " + e);
+                complete = false;
+            }
+        }
+
+        return new IssuerKeys(verifyKey, decryptionKey, keysGeneration, complete);
+    }
+
+    private InputStream getKeyFileStream(String path, String issuer) throws IOException {
+        File file = new File(path);
+        if (file.isDirectory()) {
+            File[] listOfFiles = file.listFiles();
+            File verifyKeyFile = null;
+
+            if (listOfFiles == null) {
+                throw new FileNotFoundException("The key path is incorrect");
+            }
+            for (File f : listOfFiles) {
+                if (f.isFile() && f.getName().contains(issuer)) {
+                    verifyKeyFile = f;
+                    break;
+                }
+            }
+            if (verifyKeyFile == null) {
+                throw new FileNotFoundException("No key found that matches the issuer name");
+            }
+            return Files.newInputStream(verifyKeyFile.toPath());
+        } else if (file.isFile()) {
+            return Files.newInputStream(file.toPath());
+        }
+
+        // Not a directory or a file...maybe it's a resource on the classpath
+        return this.getClass().getClassLoader().getResourceAsStream(path);
+    }
+
+    private static void addWatchDir(Set<Path> dirs, String path) {
+        if (path == null) {
+            return;
+        }
+        File file = new File(path).getAbsoluteFile();
+        if (file.isDirectory()) {
+            dirs.add(file.toPath());
+        } else if (file.isFile()) {
+            dirs.add(file.getParentFile().toPath());
+        }
+    }
+
+    /**
+     * Drop the loaded keys on changes of the key files, until the watch
+     * service is closed.
+     */
+    private void watch() {
+        WatchService service = watchService;
+
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (!key.pollEvents().isEmpty()) {
+                LOG.info("Token keys changed, reloading them when next used.");
+                invalidate();
+            }
+            if (!key.reset()) {
+                LOG.warn("Stop watching a token key directory, it is gone.");
+            }
+        }
+    }
+
+    static final class IssuerKeys {
+        private final PublicKey verifyKey;
+        private final PrivateKey decryptionKey;
+        private final long generation;
+        private final boolean complete;
+        private final ThreadLocal<TokenDecoder> decoders;
+
+        IssuerKeys(PublicKey verifyKey, PrivateKey decryptionKey,
+                   long generation, boolean complete) {
+            this.verifyKey = verifyKey;
+            this.decryptionKey = decryptionKey;
+            this.generation = generation;
+            this.complete = complete;
+            this.decoders = new ThreadLocal<TokenDecoder>() {
+                @Override
+                protected TokenDecoder initialValue() {
+                    return newDecoder();
+                }
+            };
+        }
+
+        PublicKey getVerifyKey() {
+            return verifyKey;
+        }
+
+        PrivateKey getDecryptionKey() {
+            return decryptionKey;
+        }
+
+        private TokenDecoder newDecoder() {
+            TokenDecoder tokenDecoder = KrbRuntime.getTokenProvider("JWT").createTokenDecoder();
+            if (verifyKey != null) {
+                tokenDecoder.setVerifyKey(verifyKey);
+            }
+            if (decryptionKey != null) {
+                tokenDecoder.setDecryptionKey(decryptionKey);
+            }
+            return tokenDecoder;
+        }
+    }
+}
@@ -22,13 +22,11 @@ package org.apache.kerby.kerberos.kerb.server.preauth.token;
 import org.apache.kerby.kerberos.kerb.KrbCodec;
 import org.apache.kerby.kerberos.kerb.KrbErrorCode;
 import org.apache.kerby.kerberos.kerb.KrbException;
-import org.apache.kerby.kerberos.kerb.KrbRuntime;
 import org.apache.kerby.kerberos.kerb.common.EncryptionUtil;
-import org.apache.kerby.kerberos.kerb.common.PrivateKeyReader;
-import org.apache.kerby.kerberos.kerb.common.PublicKeyReader;
 import org.apache.kerby.kerberos.kerb.preauth.PluginRequestContext;
 import org.apache.kerby.kerberos.kerb.preauth.token.TokenPreauthMeta;
 import org.apache.kerby.kerberos.kerb.provider.TokenDecoder;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
 import org.apache.kerby.kerberos.kerb.server.preauth.AbstractPreauthPlugin;
 import org.apache.kerby.kerberos.kerb.server.request.KdcRequest;
 import org.apache.kerby.kerberos.kerb.type.base.AuthToken;
@@ -41,20 +39,12 @@ import org.apache.kerby.kerberos.kerb.type.pa.PaDataEntry;
 import org.apache.kerby.kerberos.kerb.type.pa.PaDataType;
 import org.apache.kerby.kerberos.kerb.type.pa.token.PaTokenRequest;
 import org.apache.kerby.kerberos.kerb.type.pa.token.TokenInfo;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.security.PrivateKey;
-import java.security.PublicKey;
 import java.util.List;
 
 public class TokenPreauth extends AbstractPreauthPlugin {
-    private static final Logger LOG = LoggerFactory.getLogger(TokenPreauth.class);
+    private volatile TokenKeyRegistry keyRegistry;
 
     public TokenPreauth() {
         super(new TokenPreauthMeta());
@@ -90,18 +80,21 @@ public class TokenPreauth extends AbstractPreauthPlugin {
                 throw new KrbException("Unconfigured issuer: " + issuer);
             }
 
-            // Configure keys
-            TokenDecoder tokenDecoder = KrbRuntime.getTokenProvider("JWT").createTokenDecoder();
-            configureKeys(tokenDecoder, kdcRequest, issuer);
+            TokenKeyRegistry registry = getKeyRegistry(kdcRequest.getKdcContext().getConfig());
+            TokenDecoder tokenDecoder = registry.getDecoder(issuer);
 
-            AuthToken authToken;
+            AuthToken authToken = null;
+            long start = System.nanoTime();
             try {
                 authToken = tokenDecoder.decodeFromBytes(token.getTokenValue());
                 if (!tokenDecoder.isSigned()) {
+                    authToken = null;
                     throw new KrbException("Token should be signed.");
                 }
             } catch (IOException e) {
                 throw new KrbException("Decoding failed", e);
+            } finally {
+                registry.recordVerification(System.nanoTime() - start, authToken != null);
             }
 
             if (authToken == null) {
@@ -124,59 +117,48 @@ public class TokenPreauth extends AbstractPreauthPlugin {
         }
     }
 
-    private void configureKeys(TokenDecoder tokenDecoder, KdcRequest kdcRequest, String issuer) {
-        String verifyKeyPath = kdcRequest.getKdcContext().getConfig().getVerifyKeyConfig();
-        if (verifyKeyPath != null) {
-            try (InputStream verifyKeyFile = getKeyFileStream(verifyKeyPath, issuer)) {
-                if (verifyKeyFile != null) {
-                    PublicKey verifyKey = PublicKeyReader.loadPublicKey(verifyKeyFile);
-                    tokenDecoder.setVerifyKey(verifyKey);
-                }
-            } catch (FileNotFoundException e) {
-                LOG.error("The verify key path is wrong. " + e.getMessage());
-            } catch (Exception e) {
-                LOG.error("Failed to load public key. " + e.getMessage());
-            }
+    /**
+     * Get the key registry for the key paths of the KDC, created when first
+     * used or when the paths are changed.
+     * @param config The KDC config
+     * @return the key registry
+     */
+    TokenKeyRegistry getKeyRegistry(KdcConfig config) {
+        String verifyKeyPath = config.getVerifyKeyConfig();
+        String decryptionKeyPath = config.getDecryptionKeyConfig();
+
+        TokenKeyRegistry registry = keyRegistry;
+        if (registry != null && registry.isFor(verifyKeyPath, decryptionKeyPath)) {
+            return registry;
         }
-        String decryptionKeyPath = kdcRequest.getKdcContext().getConfig().getDecryptionKeyConfig();
-        if (decryptionKeyPath != null) {
-            try (InputStream decryptionKeyFile = getKeyFileStream(decryptionKeyPath, issuer)) {
-                if (decryptionKeyFile != null) {
-                    PrivateKey decryptionKey = PrivateKeyReader.loadPrivateKey(decryptionKeyFile);
-                    tokenDecoder.setDecryptionKey(decryptionKey);
+
+        synchronized (this) {
+            registry = keyRegistry;
+            if (registry == null || !registry.isFor(verifyKeyPath, decryptionKeyPath)) {
+                if (registry != null) {
+                    registry.stop();
                 }
-            } catch (FileNotFoundException e) {
-                LOG.error("The decryption key path is wrong. " + e);
-            } catch (Exception e) {
-                LOG.error("Fail to load private key. " + e);
+                registry = new TokenKeyRegistry(verifyKeyPath, decryptionKeyPath);
+                registry.start();
+                keyRegistry = registry;
             }
+            return registry;
         }
     }
 
-    private InputStream getKeyFileStream(String path, String issuer) throws IOException {
-        File file = new File(path);
-        if (file.isDirectory()) {
-            File[] listOfFiles = file.listFiles();
-            File verifyKeyFile = null;
+    /**
+     * Get the key registry to inspect its verification metrics.
+     * @return the key registry, null if no token was verified yet
+     */
+    public TokenKeyRegistry getKeyRegistry() {
+        return keyRegistry;
+    }
 
-            if (listOfFiles == null) {
-                throw new FileNotFoundException("The key path is incorrect");
-            }
-            for (File f : listOfFiles) {
-                if (f.isFile() && f.getName().contains(issuer)) {
-                    verifyKeyFile = f;
-                    break;
-                }
-            }
-            if (verifyKeyFile == null) {
-                throw new FileNotFoundException("No key found that matches the issuer name");
-            }
-            return Files.newInputStream(verifyKeyFile.toPath());
-        } else if (file.isFile()) {
-            return Files.newInputStream(file.toPath());
+    @Override
+    public synchronized void destroy() {
+        if (keyRegistry != null) {
+            keyRegistry.stop();
+            keyRegistry = null;
         }
-        
-        // Not a directory or a file...maybe it's a resource on the classpath
-        return this.getClass().getClassLoader().getResourceAsStream(path);
     }
 }
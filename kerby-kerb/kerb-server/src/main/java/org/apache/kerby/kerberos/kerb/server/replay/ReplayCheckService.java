@@ -22,4 +22,16 @@ package org.apache.kerby.kerberos.kerb.server.replay;
 public interface ReplayCheckService {
     boolean checkReplay(String clientPrincipal, String serverPrincipal,
                         long requestTime, int microseconds);
+
+    /**
+     * Check whether a request was seen before, and remember it.
+     * @param clientPrincipal The client principal
+     * @param serverPrincipal The server principal
+     * @param requestTime The authenticator time, in milliseconds
+     * @param microseconds The authenticator microseconds
+     * @param authenticator The encrypted authenticator
+     * @return true if the request is a replay
+     */
+    boolean checkReplay(String clientPrincipal, String serverPrincipal,
+                        long requestTime, int microseconds, byte[] authenticator);
 }
@@ -27,7 +27,7 @@ public class ReplayCheckServiceImpl implements ReplayCheckService {
     }
 
     public ReplayCheckServiceImpl() {
-        this(new SimpleCacheService());
+        this(new TimeWindowCacheService(5 * 60 * 1000L, TimeWindowCacheService.DEFAULT_MAX_ENTRIES));
     }
 
     @Override
@@ -36,4 +36,12 @@ public class ReplayCheckServiceImpl implements ReplayCheckService {
         RequestRecord record = new RequestRecord(clientPrincipal, serverPrincipal, requestTime, microseconds);
         return cacheService.checkAndCache(record);
     }
+
+    @Override
+    public boolean checkReplay(String clientPrincipal, String serverPrincipal,
+                               long requestTime, int microseconds, byte[] authenticator) {
+        RequestRecord record = new RequestRecord(clientPrincipal, serverPrincipal,
+            requestTime, microseconds, authenticator);
+        return cacheService.checkAndCache(record);
+    }
 }
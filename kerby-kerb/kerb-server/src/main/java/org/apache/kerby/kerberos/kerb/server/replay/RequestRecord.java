@@ -19,17 +19,60 @@
  */
 package org.apache.kerby.kerberos.kerb.server.replay;
 
+import org.apache.kerby.kerberos.kerb.replay.TimeWindowReplayCache;
+
+import java.util.Arrays;
+
 public class RequestRecord {
     private String clientPrincipal;
     private String serverPrincipal;
     private long requestTime;
     private int microseconds;
+    private byte[] authenticator;
 
     public RequestRecord(String clientPrincipal, String serverPrincipal, long requestTime, int microseconds) {
+        this(clientPrincipal, serverPrincipal, requestTime, microseconds, null);
+    }
+
+    /**
+     * @param authenticator The encrypted authenticator, telling apart requests
+     *                      made by the same client in the same microsecond
+     */
+    public RequestRecord(String clientPrincipal, String serverPrincipal, long requestTime,
+                         int microseconds, byte[] authenticator) {
         this.clientPrincipal = clientPrincipal;
         this.serverPrincipal = serverPrincipal;
         this.requestTime = requestTime;
         this.microseconds = microseconds;
+        this.authenticator = authenticator;
+    }
+
+    public String getClientPrincipal() {
+        return clientPrincipal;
+    }
+
+    public String getServerPrincipal() {
+        return serverPrincipal;
+    }
+
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    public int getMicroseconds() {
+        return microseconds;
+    }
+
+    public byte[] getAuthenticator() {
+        return authenticator;
+    }
+
+    /**
+     * @return a 64 bits hash of the request, to remember it compactly
+     */
+    public long digest() {
+        return TimeWindowReplayCache.digest(clientPrincipal, serverPrincipal,
+            requestTime, microseconds, authenticator);
     }
 
     @Override
@@ -55,6 +98,9 @@ public class RequestRecord {
         if (!serverPrincipal.equals(that.serverPrincipal)) {
             return false;
         }
+        if (!Arrays.equals(authenticator, that.authenticator)) {
+            return false;
+        }
 
         return true;
     }
@@ -65,6 +111,7 @@ public class RequestRecord {
         result = 31 * result + serverPrincipal.hashCode();
         result = 31 * result + (int) (requestTime ^ (requestTime >>> 32));
         result = 31 * result + microseconds;
+        result = 31 * result + Arrays.hashCode(authenticator);
         return result;
     }
 }
@@ -0,0 +1,60 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server.replay;
+
+import org.apache.kerby.kerberos.kerb.replay.TimeWindowReplayCache;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+
+/**
+ * The KDC replay cache, a {@link TimeWindowReplayCache} sized by the KDC
+ * configuration.
+ */
+public class TimeWindowCacheService extends TimeWindowReplayCache implements CacheService {
+
+    public TimeWindowCacheService(KdcConfig kdcConfig) {
+        this(kdcConfig.getAllowableClockSkew() * 1000, kdcConfig.getReplayCacheSize(),
+            kdcConfig.isReplayCacheFailClosed());
+    }
+
+    /**
+     * @param windowMillis The clock skew allowed, requests older than that
+     *                     are expected to be rejected before the replay check
+     * @param maxEntries The maximum number of requests remembered
+     */
+    public TimeWindowCacheService(long windowMillis, int maxEntries) {
+        super(windowMillis, maxEntries);
+    }
+
+    /**
+     * @param windowMillis The clock skew allowed, requests older than that
+     *                     are expected to be rejected before the replay check
+     * @param maxEntries The maximum number of requests remembered
+     * @param failClosed Whether to consider requests replayed when the cache
+     *                   is full, instead of letting them through
+     */
+    public TimeWindowCacheService(long windowMillis, int maxEntries, boolean failClosed) {
+        super(windowMillis, maxEntries, failClosed);
+    }
+
+    @Override
+    public boolean checkAndCache(RequestRecord request) {
+        return checkAndCache(request.getRequestTime(), request.digest());
+    }
+}
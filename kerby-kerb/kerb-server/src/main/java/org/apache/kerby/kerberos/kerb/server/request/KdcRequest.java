@@ -34,6 +34,7 @@ import org.apache.kerby.kerberos.kerb.server.KdcRecoverableException;
 import org.apache.kerby.kerberos.kerb.server.preauth.KdcFastContext;
 import org.apache.kerby.kerberos.kerb.server.preauth.PreauthContext;
 import org.apache.kerby.kerberos.kerb.server.preauth.PreauthHandler;
+import org.apache.kerby.kerberos.kerb.server.replay.ReplayCheckService;
 import org.apache.kerby.kerberos.kerb.type.ap.ApReq;
 import org.apache.kerby.kerberos.kerb.type.ap.Authenticator;
 import org.apache.kerby.kerberos.kerb.type.base.AuthToken;
@@ -345,6 +346,12 @@ public abstract class KdcRequest {
                 throw new KrbException(errMessage);
             }
 
+            if (!authenticator.getCtime().isInClockSkew(
+                kdcContext.getConfig().getAllowableClockSkew() * 1000)) {
+                throw new KrbException(KrbErrorCode.KRB_AP_ERR_SKEW);
+            }
+            checkReplay(authenticator, apReq.getEncryptedAuthenticator(), ticket.getSname());
+
             EncryptionKey armorKey = null;
             try {
                 armorKey = FastUtil.cf2(authenticator.getSubKey(), "subkeyarmor",
@@ -359,6 +366,35 @@ public abstract class KdcRequest {
         }
     }
 
+    /**
+     * Check the authenticator of an AP-REQ against the replay cache, once
+     * its time is known to be in the clock skew.
+     *
+     * @throws org.apache.kerby.kerberos.kerb.KrbException e
+     * @param authenticator The authenticator
+     * @param encryptedAuthenticator The encrypted authenticator
+     * @param serverPrincipal The principal of the ticket
+     */
+    protected void checkReplay(Authenticator authenticator, EncryptedData encryptedAuthenticator,
+                               PrincipalName serverPrincipal) throws KrbException {
+        ReplayCheckService replayCache = kdcContext.getReplayCache();
+        if (replayCache == null) {
+            return;
+        }
+
+        String clientName = authenticator.getCname().getName();
+        if (authenticator.getCrealm() != null && clientName.indexOf('@') < 0) {
+            clientName = clientName + "@" + authenticator.getCrealm();
+        }
+        if (replayCache.checkReplay(clientName, serverPrincipal.getName(),
+            authenticator.getCtime().getTime(), authenticator.getCusec(),
+            encryptedAuthenticator.getCipher())) {
+            LOG.warn("Replayed authenticator from " + clientName + " for "
+                + serverPrincipal.getName());
+            throw new KrbException(KrbErrorCode.KRB_AP_ERR_REPEAT);
+        }
+    }
+
     /**
      * Get tgs entry.
      *
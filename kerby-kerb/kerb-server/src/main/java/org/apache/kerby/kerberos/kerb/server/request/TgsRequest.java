@@ -202,6 +202,7 @@ public class TgsRequest extends KdcRequest {
             getKdcContext().getConfig().getAllowableClockSkew() * 1000)) {
             throw new KrbException(KrbErrorCode.KRB_AP_ERR_SKEW);
         }
+        checkReplay(authenticator, apReq.getEncryptedAuthenticator(), serverPrincipal);
 
         KerberosTime now = KerberosTime.now();
         KerberosTime startTime = tgtTicket.getEncPart().getStartTime();
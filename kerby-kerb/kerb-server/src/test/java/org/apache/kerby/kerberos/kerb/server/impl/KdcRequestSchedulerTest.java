@@ -0,0 +1,94 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server.impl;
+
+import org.apache.kerby.kerberos.kerb.KrbCodec;
+import org.apache.kerby.kerberos.kerb.KrbErrorCode;
+import org.apache.kerby.kerberos.kerb.identity.backend.BackendConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcConfig;
+import org.apache.kerby.kerberos.kerb.server.KdcContext;
+import org.apache.kerby.kerberos.kerb.server.KdcHandler;
+import org.apache.kerby.kerberos.kerb.server.KdcSetting;
+import org.apache.kerby.kerberos.kerb.type.base.KrbError;
+import org.apache.kerby.kerberos.kerb.type.base.KrbMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KdcRequestSchedulerTest {
+
+    @Test
+    public void testRejectWhenQueueFull() throws Exception {
+        KdcRequestScheduler scheduler = new KdcRequestScheduler(1, 1, 1, false);
+        scheduler.start();
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blockingTask = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        try {
+            assertThat(scheduler.submit(blockingTask)).isTrue();
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(scheduler.submit(blockingTask)).isTrue();
+            assertThat(scheduler.getQueueDepth()).isEqualTo(1);
+            assertThat(scheduler.getActiveCount()).isEqualTo(1);
+
+            assertThat(scheduler.submit(blockingTask)).isFalse();
+            assertThat(scheduler.getRejectedCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            scheduler.stop();
+        }
+
+        assertThat(scheduler.getCompletedCount()).isEqualTo(2);
+        assertThat(scheduler.getQueueDepth()).isZero();
+    }
+
+    @Test
+    public void testRejectedMessage() throws Exception {
+        KdcConfig kdcConfig = new KdcConfig();
+        KdcContext kdcContext = new KdcContext(new KdcSetting(kdcConfig, new BackendConfig()));
+        KdcHandler kdcHandler = new KdcHandler(kdcContext);
+
+        ByteBuffer response = kdcHandler.handleRejectedMessage(
+            KrbErrorCode.KDC_ERR_SVC_UNAVAILABLE, true);
+        assertThat(response.getInt()).isEqualTo(response.remaining());
+
+        KrbMessage message = KrbCodec.decodeMessage(response);
+        assertThat(message).isInstanceOf(KrbError.class);
+        KrbError krbError = (KrbError) message;
+        assertThat(krbError.getErrorCode()).isEqualTo(KrbErrorCode.KDC_ERR_SVC_UNAVAILABLE);
+        assertThat(krbError.getRealm()).isEqualTo(kdcConfig.getKdcRealm());
+    }
+}
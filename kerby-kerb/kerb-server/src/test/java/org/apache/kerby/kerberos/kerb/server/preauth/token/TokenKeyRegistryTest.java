@@ -0,0 +1,109 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.kerb.server.preauth.token;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenKeyRegistryTest {
+    @TempDir
+    File keyDir;
+
+    private TokenKeyRegistry registry;
+
+    @AfterEach
+    public void tearDown() {
+        if (registry != null) {
+            registry.stop();
+        }
+    }
+
+    private static PublicKey writeKey(File file) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        PublicKey publicKey = generator.generateKeyPair().getPublic();
+        Files.write(file.toPath(), publicKey.getEncoded());
+        return publicKey;
+    }
+
+    @Test
+    public void testKeysLoadedOnce() throws Exception {
+        PublicKey publicKey = writeKey(new File(keyDir, "token-service.der"));
+        registry = new TokenKeyRegistry(keyDir.getPath(), null);
+
+        TokenKeyRegistry.IssuerKeys keys = registry.getKeys("token-service");
+        assertThat(keys.getVerifyKey()).isEqualTo(publicKey);
+        assertThat(keys.getDecryptionKey()).isNull();
+        assertThat(registry.getKeys("token-service")).isSameAs(keys);
+        assertThat(registry.getKeyLoadCount()).isEqualTo(1);
+
+        registry.invalidate();
+        assertThat(registry.getKeys("token-service")).isNotSameAs(keys);
+        assertThat(registry.getKeyLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testMissingKeyRetried() throws Exception {
+        writeKey(new File(keyDir, "token-service.der"));
+        registry = new TokenKeyRegistry(keyDir.getPath(), null);
+
+        assertThat(registry.getKeys("unknown").getVerifyKey()).isNull();
+        assertThat(registry.getKeys("unknown").getVerifyKey()).isNull();
+        assertThat(registry.getKeyLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        File keyFile = new File(keyDir, "token-service.der");
+        writeKey(keyFile);
+        registry = new TokenKeyRegistry(keyFile.getPath(), null);
+        registry.start();
+        assertThat(registry.getKeys("token-service").getVerifyKey()).isNotNull();
+
+        PublicKey newKey = writeKey(keyFile);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!newKey.equals(registry.getKeys("token-service").getVerifyKey())
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(registry.getKeys("token-service").getVerifyKey()).isEqualTo(newKey);
+    }
+
+    @Test
+    public void testMetrics() {
+        registry = new TokenKeyRegistry(null, null);
+        registry.recordVerification(300, true);
+        registry.recordVerification(500, false);
+        registry.recordVerification(100, true);
+
+        assertThat(registry.getVerifiedCount()).isEqualTo(2);
+        assertThat(registry.getFailedCount()).isEqualTo(1);
+        assertThat(registry.getTotalVerifyTime()).isEqualTo(900);
+        assertThat(registry.getMaxVerifyTime()).isEqualTo(500);
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.kerby.kerberos.kerb.server.replay;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeWindowCacheServiceTest {
+    private static final long WINDOW = 5 * 60 * 1000L;
+
+    @Test
+    public void testReplay() {
+        TimeWindowCacheService cache = new TimeWindowCacheService(WINDOW, 100);
+        long now = System.currentTimeMillis();
+
+        RequestRecord request = new RequestRecord("alice@EXAMPLE.COM",
+            "krbtgt/EXAMPLE.COM@EXAMPLE.COM", now, 123, new byte[] {1, 2, 3});
+        assertThat(cache.checkAndCache(request)).isFalse();
+        assertThat(cache.checkAndCache(new RequestRecord("alice@EXAMPLE.COM",
+            "krbtgt/EXAMPLE.COM@EXAMPLE.COM", now, 123, new byte[] {1, 2, 3}))).isTrue();
+
+        // Same time, but another authenticator
+        assertThat(cache.checkAndCache(new RequestRecord("alice@EXAMPLE.COM",
+            "krbtgt/EXAMPLE.COM@EXAMPLE.COM", now, 123, new byte[] {1, 2, 4}))).isFalse();
+        assertThat(cache.checkAndCache(new RequestRecord("bob@EXAMPLE.COM",
+            "krbtgt/EXAMPLE.COM@EXAMPLE.COM", now, 123, new byte[] {1, 2, 3}))).isFalse();
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.getCheckedCount()).isEqualTo(4);
+        assertThat(cache.getReplayedCount()).isEqualTo(1);
+
+        cache.clear();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.checkAndCache(request)).isFalse();
+    }
+
+    @Test
+    public void testExpiry() {
+        TimeWindowCacheService cache = new TimeWindowCacheService(WINDOW, 100);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.checkAndCache(now - WINDOW - WINDOW / 2, i + 1)).isFalse();
+        }
+        assertThat(cache.size()).isEqualTo(10);
+
+        cache.purge(now);
+        assertThat(cache.size()).isZero();
+
+        // The time slot is recycled by a request a ring turn later
+        assertThat(cache.checkAndCache(now - 2 * WINDOW, 1)).isFalse();
+        assertThat(cache.checkAndCache(now - 2 * WINDOW + 10 * WINDOW / 4, 1)).isFalse();
+        assertThat(cache.checkAndCache(now - 2 * WINDOW, 2)).isTrue();
+        assertThat(cache.getReplayedCount()).isZero();
+    }
+
+    @Test
+    public void testBounded() {
+        TimeWindowCacheService cache = new TimeWindowCacheService(WINDOW, 10);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.checkAndCache(now, i + 1)).isFalse();
+        }
+        // Let through but not remembered
+        assertThat(cache.checkAndCache(now, 11)).isFalse();
+        assertThat(cache.checkAndCache(now, 11)).isFalse();
+        assertThat(cache.getOverflowedCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(10);
+        assertThat(cache.checkAndCache(now, 1)).isTrue();
+
+        cache = new TimeWindowCacheService(WINDOW, 10, true);
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.checkAndCache(now, i + 1)).isFalse();
+        }
+        assertThat(cache.checkAndCache(now, 11)).isTrue();
+        assertThat(cache.getOverflowedCount()).isEqualTo(1);
+        assertThat(cache.getReplayedCount()).isZero();
+
+        // Expired requests make room
+        cache = new TimeWindowCacheService(WINDOW, 10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.checkAndCache(now - 2 * WINDOW, i + 1)).isFalse();
+        }
+        assertThat(cache.checkAndCache(now, 11)).isFalse();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSizeFor() {
+        assertThat(TimeWindowCacheService.sizeFor(100000, WINDOW)).isEqualTo(37500000);
+        assertThat(TimeWindowCacheService.sizeFor(1000, 60 * 1000L)).isEqualTo(75000);
+        assertThat(TimeWindowCacheService.DEFAULT_MAX_ENTRIES).isEqualTo(37500000);
+    }
+}
@@ -29,6 +29,7 @@ import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
 import com.nimbusds.jwt.EncryptedJWT;
 import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.PlainJWT;
 import com.nimbusds.jwt.SignedJWT;
@@ -54,8 +55,11 @@ import java.util.List;
 public class JwtTokenDecoder implements TokenDecoder {
     private Object decryptionKey;
     private Object verifyKey;
+    private JWEDecrypter decrypter;  // built for the decryption key when first used
+    private JWSVerifier verifier;    // built for the verify key when first used
     private List<String> audiences = null;
     private boolean signed = false;
+    private JwtVerifiedTokenCache verifiedTokenCache = JwtTokenProvider.getVerifiedTokenCache();
 
     /**
      * {@inheritDoc}
@@ -72,7 +76,20 @@ public class JwtTokenDecoder implements TokenDecoder {
      */
     @Override
     public AuthToken decodeFromString(String content) throws IOException {
-       JWT jwt = null;
+        signed = false;
+        JwtVerifiedTokenCache cache = verifiedTokenCache;
+        if (cache != null) {
+            JWTClaimsSet claims = cache.get(content, verifyKey, decryptionKey);
+            if (claims != null) {
+                if (!verifyClaims(claims)) {
+                    return null;
+                }
+                signed = true;
+                return new JwtAuthToken(claims);
+            }
+        }
+
+        JWT jwt = null;
         try {
             jwt = JWTParser.parse(content);
         } catch (ParseException e) {
@@ -98,17 +115,7 @@ public class JwtTokenDecoder implements TokenDecoder {
             decryptEncryptedJWT(encryptedJWT);
             SignedJWT signedJWT = encryptedJWT.getPayload().toSignedJWT();
             if (signedJWT != null) {
-                boolean success = verifySignedJWT(signedJWT) && verifyToken(signedJWT);
-                if (success) {
-                    try {
-                        signed = true;
-                        return new JwtAuthToken(signedJWT.getJWTClaimsSet());
-                    } catch (ParseException e) {
-                        throw new IOException("Failed to get JWT claims set", e);
-                    }
-                } else {
-                    return null;
-                }
+                return decodeSignedJWT(content, signedJWT);
             } else {
                 try {
                     if (verifyToken(encryptedJWT)) {
@@ -121,20 +128,27 @@ public class JwtTokenDecoder implements TokenDecoder {
                 }
             }
         } else if (jwt instanceof SignedJWT) {
-            SignedJWT signedJWT = (SignedJWT) jwt;
-            boolean success = verifySignedJWT(signedJWT) && verifyToken(signedJWT);
-            if (success) {
-                try {
-                    signed = true;
-                    return new JwtAuthToken(signedJWT.getJWTClaimsSet());
-                } catch (ParseException e) {
-                    throw new IOException("Failed to get JWT claims set", e);
+            return decodeSignedJWT(content, (SignedJWT) jwt);
+        } else {
+            throw new IOException("Unexpected JWT type: " + jwt);
+        }
+    }
+
+    private AuthToken decodeSignedJWT(String content, SignedJWT signedJWT) throws IOException {
+        boolean success = verifySignedJWT(signedJWT) && verifyToken(signedJWT);
+        if (success) {
+            try {
+                signed = true;
+                JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+                if (verifiedTokenCache != null) {
+                    verifiedTokenCache.put(content, verifyKey, decryptionKey, claims);
                 }
-            } else {
-                return null;
+                return new JwtAuthToken(claims);
+            } catch (ParseException e) {
+                throw new IOException("Failed to get JWT claims set", e);
             }
         } else {
-            throw new IOException("Unexpected JWT type: " + jwt);
+            return null;
         }
     }
 
@@ -154,10 +168,16 @@ public class JwtTokenDecoder implements TokenDecoder {
     }
 
     private JWEDecrypter getDecrypter() throws JOSEException, KrbException {
+        if (decrypter != null) {
+            return decrypter;
+        }
+
         if (decryptionKey instanceof RSAPrivateKey) {
-            return new RSADecrypter((RSAPrivateKey) decryptionKey);
+            decrypter = new RSADecrypter((RSAPrivateKey) decryptionKey);
+            return decrypter;
         } else if (decryptionKey instanceof byte[]) {
-            return new DirectDecrypter((byte[]) decryptionKey);
+            decrypter = new DirectDecrypter((byte[]) decryptionKey);
+            return decrypter;
         }
 
         throw new KrbException("An unknown decryption key was specified");
@@ -169,6 +189,7 @@ public class JwtTokenDecoder implements TokenDecoder {
     @Override
     public void setDecryptionKey(PrivateKey key) {
         decryptionKey = key;
+        decrypter = null;
     }
 
     /**
@@ -181,6 +202,7 @@ public class JwtTokenDecoder implements TokenDecoder {
         } else {
             decryptionKey = key.clone();
         }
+        decrypter = null;
     }
 
     /**
@@ -200,13 +222,20 @@ public class JwtTokenDecoder implements TokenDecoder {
     }
 
     private JWSVerifier getVerifier() throws JOSEException, KrbException {
+        if (verifier != null) {
+            return verifier;
+        }
+
         if (verifyKey instanceof RSAPublicKey) {
-            return new RSASSAVerifier((RSAPublicKey) verifyKey);
+            verifier = new RSASSAVerifier((RSAPublicKey) verifyKey);
+            return verifier;
         } else if (verifyKey instanceof ECPublicKey) {
             ECPublicKey ecPublicKey = (ECPublicKey) verifyKey;
-            return new ECDSAVerifier(ecPublicKey);
+            verifier = new ECDSAVerifier(ecPublicKey);
+            return verifier;
         } else if (verifyKey instanceof byte[]) {
-            return new MACVerifier((byte[]) verifyKey);
+            verifier = new MACVerifier((byte[]) verifyKey);
+            return verifier;
         }
 
         throw new KrbException("An unknown verify key was specified");
@@ -218,6 +247,7 @@ public class JwtTokenDecoder implements TokenDecoder {
     @Override
     public void setVerifyKey(PublicKey key) {
         verifyKey = key;
+        verifier = null;
     }
 
     /**
@@ -230,6 +260,17 @@ public class JwtTokenDecoder implements TokenDecoder {
         } else {
             verifyKey = key.clone();
         }
+        verifier = null;
+    }
+
+    /**
+     * Set the cache of verified tokens, to be shared by the decoders.
+     * Decoders use the cache of {@link JwtTokenProvider} by default.
+     *
+     * @param cache the cache, or null not to cache
+     */
+    public void setVerifiedTokenCache(JwtVerifiedTokenCache cache) {
+        verifiedTokenCache = cache;
     }
 
     /**
@@ -242,43 +283,37 @@ public class JwtTokenDecoder implements TokenDecoder {
     }
 
     private boolean verifyToken(JWT jwtToken) throws IOException {
-        boolean audValid = verifyAudiences(jwtToken);
-        boolean expValid = verifyExpiration(jwtToken);
-        return audValid && expValid;
-    }
-
-    private boolean verifyAudiences(JWT jwtToken) throws IOException {
-        boolean valid = false;
         try {
-            List<String> tokenAudiences = jwtToken.getJWTClaimsSet().getAudience();
-            if (audiences == null) {
-                valid = true;
-            } else {
-                for (String audience : tokenAudiences) {
-                    if (audiences.contains(audience)) {
-                        valid = true;
-                        break;
-                    }
-                }
-            }
+            return verifyClaims(jwtToken.getJWTClaimsSet());
         } catch (ParseException e) {
             throw new IOException("Failed to get JWT claims set", e);
         }
-        return valid;
     }
 
-    private boolean verifyExpiration(JWT jwtToken) throws IOException {
-        try {
-            Date expire = jwtToken.getJWTClaimsSet().getExpirationTime();
-            if (expire != null && new Date().after(expire)) {
-                return false;
-            }
-            Date notBefore = jwtToken.getJWTClaimsSet().getNotBeforeTime();
-            if (notBefore != null && new Date().before(notBefore)) {
-                return false;
+    private boolean verifyClaims(JWTClaimsSet claims) {
+        return verifyAudiences(claims) && verifyExpiration(claims);
+    }
+
+    private boolean verifyAudiences(JWTClaimsSet claims) {
+        if (audiences == null) {
+            return true;
+        }
+        for (String audience : claims.getAudience()) {
+            if (audiences.contains(audience)) {
+                return true;
             }
-        } catch (ParseException e) {
-            throw new IOException("Failed to get JWT claims set", e);
+        }
+        return false;
+    }
+
+    private boolean verifyExpiration(JWTClaimsSet claims) {
+        Date expire = claims.getExpirationTime();
+        if (expire != null && new Date().after(expire)) {
+            return false;
+        }
+        Date notBefore = claims.getNotBeforeTime();
+        if (notBefore != null && new Date().before(notBefore)) {
+            return false;
         }
         return true;
     }
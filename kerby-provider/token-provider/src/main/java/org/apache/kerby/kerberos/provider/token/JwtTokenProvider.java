@@ -29,6 +29,35 @@ import org.apache.kerby.kerberos.kerb.type.base.AuthToken;
  * JWT Token provider.
  */
 public class JwtTokenProvider implements TokenProvider {
+    /**
+     * The system property setting the size of the shared cache of verified
+     * tokens, not set or zero to disable it.
+     */
+    public static final String VERIFIED_TOKEN_CACHE_SIZE = "kerby.jwt.verified.token.cache.size";
+
+    private static volatile JwtVerifiedTokenCache verifiedTokenCache =
+        createVerifiedTokenCache(Integer.getInteger(VERIFIED_TOKEN_CACHE_SIZE, 0));
+
+    private static JwtVerifiedTokenCache createVerifiedTokenCache(int maxEntries) {
+        return maxEntries > 0 ? new JwtVerifiedTokenCache(maxEntries) : null;
+    }
+
+    /**
+     * @return the cache of verified tokens shared by the created decoders,
+     * null if disabled
+     */
+    public static JwtVerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    /**
+     * Set the cache of verified tokens shared by the decoders created from
+     * now on.
+     * @param cache The cache, or null to disable caching
+     */
+    public static void setVerifiedTokenCache(JwtVerifiedTokenCache cache) {
+        verifiedTokenCache = cache;
+    }
 
     /**
      * {@inheritDoc}
@@ -0,0 +1,149 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.provider.token;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.apache.kerby.util.BoundedCache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A bounded cache of the claims of verified JWT tokens, keyed by the SHA-256
+ * digest of the compact token string. Clients keep presenting the same
+ * token until it expires, so a hit saves the parsing, the signature
+ * verification and the decryption of the token.
+ *
+ * Only signed tokens with an expiration time are cached, until they expire.
+ * An entry only matches a decoder configured with the keys the token was
+ * verified with, and the audiences and validity period are still checked
+ * by the decoder on every hit. Entries are evicted oldest first once the
+ * cache is full.
+ */
+public class JwtVerifiedTokenCache {
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    };
+
+    private final int maxEntries;
+    private final BoundedCache<ByteBuffer, Entry> cache;
+
+    public JwtVerifiedTokenCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public JwtVerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.cache = new BoundedCache<>(maxEntries, BoundedCache.Eviction.FIFO);
+    }
+
+    /**
+     * @param token The compact token string
+     * @param verifyKey The verify key of the decoder
+     * @param decryptionKey The decryption key of the decoder
+     * @return the verified claims of the token, or null if not cached
+     */
+    public JWTClaimsSet get(String token, Object verifyKey, Object decryptionKey) {
+        long now = System.currentTimeMillis();
+        // Expired entries are left to be evicted or replaced
+        Entry entry = cache.get(digest(token), e -> e.expiresAt > now
+            && keyEquals(e.verifyKey, verifyKey) && keyEquals(e.decryptionKey, decryptionKey));
+        return entry != null ? entry.claims : null;
+    }
+
+    /**
+     * Cache the claims of a verified token, evicting the oldest entries if
+     * full. Tokens without an expiration time aren't cached.
+     * @param token The compact token string
+     * @param verifyKey The key the token was verified with
+     * @param decryptionKey The key the token was decrypted with
+     * @param claims The verified claims
+     */
+    public void put(String token, Object verifyKey, Object decryptionKey, JWTClaimsSet claims) {
+        Date expirationTime = claims.getExpirationTime();
+        if (maxEntries <= 0 || expirationTime == null
+            || expirationTime.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+
+        cache.put(digest(token), new Entry(claims, verifyKey, decryptionKey, expirationTime.getTime()));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return the number of lookups not found, expired or for other keys
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest md = SHA256.get();
+        return ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static boolean keyEquals(Object key1, Object key2) {
+        if (key1 instanceof byte[] && key2 instanceof byte[]) {
+            return MessageDigest.isEqual((byte[]) key1, (byte[]) key2);
+        }
+        return Objects.equals(key1, key2);
+    }
+
+    private static final class Entry {
+        private final JWTClaimsSet claims;
+        private final Object verifyKey;
+        private final Object decryptionKey;
+        private final long expiresAt;
+
+        Entry(JWTClaimsSet claims, Object verifyKey, Object decryptionKey, long expiresAt) {
+            this.claims = claims;
+            this.verifyKey = verifyKey;
+            this.decryptionKey = decryptionKey;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
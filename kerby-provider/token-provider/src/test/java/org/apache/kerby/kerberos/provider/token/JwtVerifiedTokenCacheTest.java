@@ -0,0 +1,133 @@
+/**
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.kerby.kerberos.provider.token;
+
+import org.apache.kerby.kerberos.kerb.KrbRuntime;
+import org.apache.kerby.kerberos.kerb.type.base.AuthToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JwtVerifiedTokenCacheTest {
+    private static final String AUDIENCE = "krbtgt@EXAMPLE.COM";
+
+    private KeyPair signKeyPair;
+    private JwtVerifiedTokenCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        signKeyPair = kpg.generateKeyPair();
+        cache = new JwtVerifiedTokenCache(2);
+    }
+
+    private String createToken(String subject, Date exp) throws Exception {
+        AuthToken authToken = KrbRuntime.getTokenProvider("JWT").createTokenFactory().createToken();
+        authToken.setIssuer("oauth2.com");
+        authToken.setSubject(subject);
+        authToken.setAudiences(Collections.singletonList(AUDIENCE));
+        if (exp != null) {
+            authToken.setExpirationTime(exp);
+        }
+
+        JwtTokenEncoder encoder = new JwtTokenEncoder();
+        encoder.setSignKey((RSAPrivateKey) signKeyPair.getPrivate());
+        return encoder.encodeAsString(authToken);
+    }
+
+    private JwtTokenDecoder createDecoder(String audience) {
+        JwtTokenDecoder decoder = new JwtTokenDecoder();
+        decoder.setVerifiedTokenCache(cache);
+        decoder.setVerifyKey((RSAPublicKey) signKeyPair.getPublic());
+        decoder.setAudiences(Collections.singletonList(audience));
+        return decoder;
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 60 * 60 * 1000);
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        String token = createToken("alice", inOneHour());
+
+        AuthToken decoded = createDecoder(AUDIENCE).decodeFromString(token);
+        assertThat(decoded.getSubject()).isEqualTo("alice");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        JwtTokenDecoder decoder = createDecoder(AUDIENCE);
+        decoded = decoder.decodeFromString(token);
+        assertThat(decoded.getSubject()).isEqualTo("alice");
+        assertThat(decoder.isSigned()).isTrue();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        // The audiences are still checked on a hit
+        assertThat(createDecoder("other@EXAMPLE.COM").decodeFromString(token)).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOtherKeyMisses() throws Exception {
+        String token = createToken("alice", inOneHour());
+        createDecoder(AUDIENCE).decodeFromString(token);
+
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        JwtTokenDecoder decoder = createDecoder(AUDIENCE);
+        decoder.setVerifyKey((RSAPublicKey) kpg.generateKeyPair().getPublic());
+
+        assertThat(decoder.decodeFromString(token)).isNull();
+        assertThat(decoder.isSigned()).isFalse();
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void testNotCached() throws Exception {
+        createDecoder(AUDIENCE).decodeFromString(createToken("alice", null));
+        assertThat(cache.size()).isZero();
+
+        // Not verified
+        createDecoder("other@EXAMPLE.COM").decodeFromString(createToken("bob", inOneHour()));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        String token1 = createToken("alice", inOneHour());
+        JwtTokenDecoder decoder = createDecoder(AUDIENCE);
+        decoder.decodeFromString(token1);
+        decoder.decodeFromString(createToken("bob", inOneHour()));
+        decoder.decodeFromString(createToken("carol", inOneHour()));
+        assertThat(cache.size()).isEqualTo(2);
+
+        decoder.decodeFromString(token1);
+        assertThat(cache.getHitCount()).isZero();
+    }
+}